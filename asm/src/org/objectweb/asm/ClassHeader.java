@@ -0,0 +1,102 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+/**
+ * The header of a class, i.e. its version, access flags, name, super class
+ * name, interfaces and, optionally, the descriptors of its class level
+ * annotations. Such headers are returned by
+ * {@link ClassReader#scanHeader(byte[], int, int, boolean)}, which reads
+ * only the part of the class file that is needed to build them, and does not
+ * decode the other constant pool strings. This is useful to quickly index a
+ * large number of classes.
+ */
+public class ClassHeader {
+
+    /**
+     * The class version.
+     */
+    public final int version;
+
+    /**
+     * The class's access flags (see {@link Opcodes}). This value may not
+     * reflect Deprecated and Synthetic flags when bytecode is before 1.5 and
+     * those flags are represented by attributes.
+     */
+    public final int access;
+
+    /**
+     * The internal name of the class (see
+     * {@link Type#getInternalName() getInternalName}).
+     */
+    public final String name;
+
+    /**
+     * The internal name of the super class (see
+     * {@link Type#getInternalName() getInternalName}). For interfaces, the
+     * super class is {@link Object}. May be <tt>null</tt>, but only for the
+     * {@link Object} class.
+     */
+    public final String superName;
+
+    /**
+     * The internal names of the class's interfaces (see
+     * {@link Type#getInternalName() getInternalName}). Never <tt>null</tt>.
+     */
+    public final String[] interfaces;
+
+    /**
+     * The descriptors of the runtime visible annotations of this class, or
+     * <tt>null</tt> if the annotations were not scanned.
+     */
+    public final String[] visibleAnnotations;
+
+    /**
+     * The descriptors of the runtime invisible annotations of this class, or
+     * <tt>null</tt> if the annotations were not scanned.
+     */
+    public final String[] invisibleAnnotations;
+
+    /**
+     * Constructs a new {@link ClassHeader}.
+     */
+    ClassHeader(final int version, final int access, final String name,
+            final String superName, final String[] interfaces,
+            final String[] visibleAnnotations,
+            final String[] invisibleAnnotations) {
+        this.version = version;
+        this.access = access;
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.visibleAnnotations = visibleAnnotations;
+        this.invisibleAnnotations = invisibleAnnotations;
+    }
+}
@@ -31,12 +31,21 @@ package org.objectweb.asm;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A Java class parser to make a {@link ClassVisitor} visit an existing class.
  * This class parses a byte array conforming to the Java class file format and
  * calls the appropriate visit methods of a given class visitor for each field,
  * method and bytecode instruction encountered.
+ * <p>
+ * Classes of any version can be read, provided their constant pool only
+ * contains known items. The CONSTANT_Dynamic, CONSTANT_Module and
+ * CONSTANT_Package items, and the attributes that use them, are not decoded:
+ * they are only copied as is when a {@link ClassWriter} is constructed with
+ * this reader (see {@link ClassWriter#ClassWriter(ClassReader, int)}). An
+ * {@link IllegalArgumentException} is thrown if an instruction which uses a
+ * CONSTANT_Dynamic item must be visited.
  * 
  * @author Eric Bruneton
  * @author Eugene Kuleshov
@@ -104,6 +113,43 @@ public class ClassReader {
      */
     public static final int EXPAND_FRAMES = 8;
 
+    /**
+     * Flag to reuse the {@link Label} objects of a method for the next methods
+     * of the class. If this flag is set the labels passed to a method visitor
+     * are only valid until the code of the next method of the class is parsed,
+     * i.e. they must not be retained after the
+     * {@link MethodVisitor#visitEnd visitEnd} method of this visitor has been
+     * called. In particular this flag must not be used with a
+     * {@link ClassWriter}, or with the visitors of the tree package, which keep
+     * references to the labels of all the methods of a class. This option
+     * reduces the number of objects allocated to parse classes with many
+     * methods.
+     */
+    public static final int REUSE_LABELS = 16;
+
+    /**
+     * Flag to skip the annotations in the class. If this flag is set the
+     * annotations of the class, fields, methods and method parameters, as
+     * well as the default values of annotation elements, are not parsed nor
+     * visited, i.e. the <tt>visitAnnotation</tt>,
+     * {@link MethodVisitor#visitParameterAnnotation visitParameterAnnotation}
+     * and {@link MethodVisitor#visitAnnotationDefault visitAnnotationDefault}
+     * methods will not be called. This can be used by passes that never look
+     * at annotations, such as verifiers or size computations.
+     */
+    public static final int SKIP_ANNOTATIONS = 32;
+
+    /**
+     * Flag to skip the non standard attributes in the class. If this flag is
+     * set the attributes that are not parsed by this class are not visited,
+     * i.e. the <tt>visitAttribute</tt> methods will not be called, and the
+     * attribute prototypes passed to
+     * {@link #accept(ClassVisitor, Attribute[], int) accept} are not used.
+     * Together with {@link #SKIP_CODE}, this can be used to visit only the
+     * declarations and annotations of a class.
+     */
+    public static final int SKIP_ATTRIBUTES = 64;
+
     /**
      * The class to be parsed. <i>The content of this array must not be
      * modified. This field is intended for {@link Attribute} sub classes, and
@@ -133,6 +179,19 @@ public class ClassReader {
      */
     private final int maxStringLength;
 
+    /**
+     * The cache of decoded strings shared with other {@link ClassReader}
+     * objects, or <tt>null</tt> if strings are decoded by this reader only.
+     */
+    private final UTF8Cache cache;
+
+    /**
+     * The start index of each bootstrap method of the class, or <tt>null</tt>
+     * if it has not been computed yet. This array is computed by
+     * {@link #acceptMethod acceptMethod}, and reused by its next calls.
+     */
+    private int[] bootstrapMethods;
+
     /**
      * Start index of the class header information (access, name...) in
      * {@link #b b}.
@@ -164,11 +223,29 @@ public class ClassReader {
      *            the length of the class data.
      */
     public ClassReader(final byte[] b, final int off, final int len) {
+        this(b, off, len, null);
+    }
+
+    /**
+     * Constructs a new {@link ClassReader} object which shares its decoded
+     * strings with other readers. The given cache is consulted each time a
+     * CONSTANT_Utf8 item must be decoded, and the buffers used to decode
+     * strings are also taken from it, so that reading many classes with the
+     * same cache allocates far fewer String and char arrays.
+     * 
+     * @param b
+     *            the bytecode of the class to be read.
+     * @param off
+     *            the start offset of the class data.
+     * @param len
+     *            the length of the class data.
+     * @param cache
+     *            a cache of decoded strings, or <tt>null</tt>.
+     */
+    public ClassReader(final byte[] b, final int off, final int len,
+            final UTF8Cache cache) {
         this.b = b;
-        // checks the class version
-        if (readShort(off + 6) > Opcodes.V1_7) {
-            throw new IllegalArgumentException();
-        }
+        this.cache = cache;
         // parses the constant pool
         items = new int[readUnsignedShort(off + 8)];
         int n = items.length;
@@ -186,6 +263,7 @@ public class ClassReader {
             case ClassWriter.FLOAT:
             case ClassWriter.NAME_TYPE:
             case ClassWriter.INDY:
+            case ClassWriter.CONDY:
                 size = 5;
                 break;
             case ClassWriter.LONG:
@@ -202,12 +280,16 @@ public class ClassReader {
             case ClassWriter.HANDLE:
                 size = 4;
                 break;
-            // case ClassWriter.CLASS:
-            // case ClassWriter.STR:
-            // case ClassWriter.MTYPE
-            default:
+            case ClassWriter.CLASS:
+            case ClassWriter.STR:
+            case ClassWriter.MTYPE:
+            case ClassWriter.MODULE:
+            case ClassWriter.PACKAGE:
                 size = 3;
                 break;
+            default:
+                // unknown constant pool items can not be skipped
+                throw new IllegalArgumentException();
             }
             index += size;
         }
@@ -238,7 +320,7 @@ public class ClassReader {
      * @see ClassVisitor#visit(int, int, String, String, String, String[])
      */
     public String getClassName() {
-        return readClass(header + 2, new char[maxStringLength]);
+        return readClass(header + 2, getBuffer());
     }
 
     /**
@@ -252,7 +334,7 @@ public class ClassReader {
      * @see ClassVisitor#visit(int, int, String, String, String, String[])
      */
     public String getSuperName() {
-        return readClass(header + 4, new char[maxStringLength]);
+        return readClass(header + 4, getBuffer());
     }
 
     /**
@@ -269,7 +351,7 @@ public class ClassReader {
         int n = readUnsignedShort(index);
         String[] interfaces = new String[n];
         if (n > 0) {
-            char[] buf = new char[maxStringLength];
+            char[] buf = getBuffer();
             for (int i = 0; i < n; ++i) {
                 index += 2;
                 interfaces[i] = readClass(index, buf);
@@ -278,94 +360,636 @@ public class ClassReader {
         return interfaces;
     }
 
+    /**
+     * Returns the symbolic references of the class. This method resolves all
+     * the CONSTANT_Class, CONSTANT_Fieldref, CONSTANT_Methodref,
+     * CONSTANT_InterfaceMethodref and CONSTANT_NameAndType items in a single
+     * pass over the constant pool, without visiting the class. The strings are
+     * decoded only once per reader, and are shared with other readers if a
+     * {@link UTF8Cache} was given to the constructor of this reader.
+     * 
+     * @return the symbolic references of the class.
+     */
+    public ClassSymbols readSymbols() {
+        int[] items = this.items;
+        byte[] b = this.b;
+        int n = items.length;
+        // counts the items of each kind
+        int classes = 0;
+        int fields = 0;
+        int methods = 0;
+        int imethods = 0;
+        int nameTypes = 0;
+        for (int i = 1; i < n; ++i) {
+            int index = items[i];
+            if (index == 0) {
+                // second slot of a CONSTANT_Long or CONSTANT_Double item
+                continue;
+            }
+            switch (b[index - 1]) {
+            case ClassWriter.CLASS:
+                ++classes;
+                break;
+            case ClassWriter.FIELD:
+                ++fields;
+                break;
+            case ClassWriter.METH:
+                ++methods;
+                break;
+            case ClassWriter.IMETH:
+                ++imethods;
+                break;
+            case ClassWriter.NAME_TYPE:
+                ++nameTypes;
+                break;
+            }
+        }
+        // resolves the items
+        char[] c = getBuffer();
+        String[] cls = new String[classes];
+        String[] fs = new String[3 * fields];
+        String[] ms = new String[3 * methods];
+        String[] ims = new String[3 * imethods];
+        String[] nts = new String[2 * nameTypes];
+        classes = fields = methods = imethods = nameTypes = 0;
+        for (int i = 1; i < n; ++i) {
+            int index = items[i];
+            if (index == 0) {
+                continue;
+            }
+            String[] refs;
+            int k;
+            switch (b[index - 1]) {
+            case ClassWriter.CLASS:
+                cls[classes++] = readUTF8(index, c);
+                continue;
+            case ClassWriter.NAME_TYPE:
+                nts[nameTypes++] = readUTF8(index, c);
+                nts[nameTypes++] = readUTF8(index + 2, c);
+                continue;
+            case ClassWriter.FIELD:
+                refs = fs;
+                k = fields;
+                fields += 3;
+                break;
+            case ClassWriter.METH:
+                refs = ms;
+                k = methods;
+                methods += 3;
+                break;
+            case ClassWriter.IMETH:
+                refs = ims;
+                k = imethods;
+                imethods += 3;
+                break;
+            default:
+                continue;
+            }
+            int nameType = items[readUnsignedShort(index + 2)];
+            refs[k] = readClass(index, c);
+            refs[k + 1] = readUTF8(nameType, c);
+            refs[k + 2] = readUTF8(nameType + 2, c);
+        }
+        return new ClassSymbols(cls, fs, ms, ims, nts);
+    }
+
+    /**
+     * Returns the header of the given class. This method reads only the
+     * constant pool items that are needed to build this header, and skips the
+     * fields, methods and attributes of the class without visiting them. It is
+     * therefore much faster than creating a {@link ClassReader} and calling
+     * its {@link #accept(ClassVisitor, int) accept} method.
+     * 
+     * @param b
+     *            the bytecode of the class to be scanned.
+     * @return the header of the given class, without annotations.
+     */
+    public static ClassHeader scanHeader(final byte[] b) {
+        return scanHeader(b, 0, b.length, false);
+    }
+
+    /**
+     * Returns the header of the given class. This method reads only the
+     * constant pool items that are needed to build this header, and skips the
+     * fields, methods and attributes of the class without visiting them. It is
+     * therefore much faster than creating a {@link ClassReader} and calling
+     * its {@link #accept(ClassVisitor, int) accept} method.
+     * 
+     * @param b
+     *            the bytecode of the class to be scanned.
+     * @param off
+     *            the start offset of the class data.
+     * @param len
+     *            the length of the class data.
+     * @param annotations
+     *            <tt>true</tt> to also scan the descriptors of the class level
+     *            annotations.
+     * @return the header of the given class.
+     */
+    public static ClassHeader scanHeader(final byte[] b, final int off,
+            final int len, final boolean annotations) {
+        // computes the start index of each constant pool item
+        int[] items = new int[readUnsignedShort(b, off + 8)];
+        int n = items.length;
+        int max = 0;
+        int u = off + 10;
+        for (int i = 1; i < n; ++i) {
+            items[i] = u + 1;
+            int size;
+            switch (b[u]) {
+            case ClassWriter.FIELD:
+            case ClassWriter.METH:
+            case ClassWriter.IMETH:
+            case ClassWriter.INT:
+            case ClassWriter.FLOAT:
+            case ClassWriter.NAME_TYPE:
+            case ClassWriter.INDY:
+            case ClassWriter.CONDY:
+                size = 5;
+                break;
+            case ClassWriter.LONG:
+            case ClassWriter.DOUBLE:
+                size = 9;
+                ++i;
+                break;
+            case ClassWriter.UTF8:
+                size = 3 + readUnsignedShort(b, u + 1);
+                if (size > max) {
+                    max = size;
+                }
+                break;
+            case ClassWriter.HANDLE:
+                size = 4;
+                break;
+            case ClassWriter.CLASS:
+            case ClassWriter.STR:
+            case ClassWriter.MTYPE:
+            case ClassWriter.MODULE:
+            case ClassWriter.PACKAGE:
+                size = 3;
+                break;
+            default:
+                // unknown constant pool items can not be skipped
+                throw new IllegalArgumentException();
+            }
+            u += size;
+        }
+        // reads the class header
+        char[] c = new char[max];
+        int version = readInt(b, off + 4);
+        int access = readUnsignedShort(b, u);
+        String name = readUTF8(b, items, items[readUnsignedShort(b, u + 2)], c);
+        String superName = readUTF8(b, items,
+                items[readUnsignedShort(b, u + 4)], c);
+        String[] interfaces = new String[readUnsignedShort(b, u + 6)];
+        u += 8;
+        for (int i = 0; i < interfaces.length; ++i) {
+            interfaces[i] = readUTF8(b, items,
+                    items[readUnsignedShort(b, u)], c);
+            u += 2;
+        }
+        String[] anns = null;
+        String[] ianns = null;
+        if (ANNOTATIONS && annotations) {
+            // skips fields and methods
+            for (int k = 0; k < 2; ++k) {
+                for (int i = readUnsignedShort(b, u); i > 0; --i) {
+                    for (int j = readUnsignedShort(b, u + 8); j > 0; --j) {
+                        u += 6 + readInt(b, u + 12);
+                    }
+                    u += 8;
+                }
+                u += 2;
+            }
+            // looks for the annotation attributes, without decoding names
+            anns = new String[0];
+            ianns = new String[0];
+            for (int i = readUnsignedShort(b, u); i > 0; --i) {
+                int attr = items[readUnsignedShort(b, u + 2)];
+                boolean visible = equalsUTF8(b, attr,
+                        "RuntimeVisibleAnnotations");
+                if (visible
+                        || equalsUTF8(b, attr, "RuntimeInvisibleAnnotations")) {
+                    String[] descs = new String[readUnsignedShort(b, u + 8)];
+                    int v = u + 10;
+                    for (int j = 0; j < descs.length; ++j) {
+                        descs[j] = readUTF(b, items[readUnsignedShort(b, v)],
+                                c);
+                        v = skipAnnotationValues(b, v + 2);
+                    }
+                    if (visible) {
+                        anns = descs;
+                    } else {
+                        ianns = descs;
+                    }
+                }
+                u += 6 + readInt(b, u + 4);
+            }
+        }
+        return new ClassHeader(version, access, name, superName, interfaces,
+                anns, ianns);
+    }
+
+    /**
+     * Skips the element value pairs of an annotation.
+     * 
+     * @param b
+     *            the bytecode of a class.
+     * @param v
+     *            the start offset of the element value pairs (i.e. of the
+     *            num_element_value_pairs field).
+     * @return the end offset of the element value pairs.
+     */
+    private static int skipAnnotationValues(final byte[] b, int v) {
+        int i = readUnsignedShort(b, v);
+        v += 2;
+        for (; i > 0; --i) {
+            v = skipAnnotationValue(b, v + 2);
+        }
+        return v;
+    }
+
+    /**
+     * Skips an element value of an annotation.
+     * 
+     * @param b
+     *            the bytecode of a class.
+     * @param v
+     *            the start offset of the element value (i.e. of its tag).
+     * @return the end offset of the element value.
+     */
+    private static int skipAnnotationValue(final byte[] b, int v) {
+        switch (b[v] & 0xFF) {
+        case 'e': // enum_const_value
+            return v + 5;
+        case '@': // annotation_value
+            return skipAnnotationValues(b, v + 3);
+        case '[': // array_value
+            int n = readUnsignedShort(b, v + 1);
+            v += 3;
+            for (int i = 0; i < n; ++i) {
+                v = skipAnnotationValue(b, v);
+            }
+            return v;
+        default:
+            return v + 3;
+        }
+    }
+
+    /**
+     * Tests if a CONSTANT_Utf8 item is equal to an ASCII string, without
+     * decoding it.
+     * 
+     * @param b
+     *            the bytecode of a class.
+     * @param index
+     *            the start index of the CONSTANT_Utf8 item value in b.
+     * @param s
+     *            an ASCII string.
+     * @return <tt>true</tt> if the given item is equal to s.
+     */
+    private static boolean equalsUTF8(final byte[] b, final int index,
+            final String s) {
+        int n = s.length();
+        if (readUnsignedShort(b, index) != n) {
+            return false;
+        }
+        for (int i = 0; i < n; ++i) {
+            if (b[index + 2 + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the CONSTANT_Utf8 item designated by a CONSTANT_Class item.
+     * 
+     * @param b
+     *            the bytecode of a class.
+     * @param items
+     *            the start index of each constant pool item in b.
+     * @param index
+     *            the start index of a CONSTANT_Class item value in b.
+     * @param buf
+     *            buffer to be used to read the string.
+     * @return the String corresponding to the given item, or <tt>null</tt>
+     *         if index is the start index of the first constant pool item
+     *         (i.e. if the class index was 0).
+     */
+    private static String readUTF8(final byte[] b, final int[] items,
+            final int index, final char[] buf) {
+        if (index == 0) {
+            return null;
+        }
+        return readUTF(b, items[readUnsignedShort(b, index)], buf);
+    }
+
+    /**
+     * Reads a CONSTANT_Utf8 item value.
+     * 
+     * @param b
+     *            the bytecode of a class.
+     * @param index
+     *            the start index of a CONSTANT_Utf8 item value in b.
+     * @param buf
+     *            buffer to be used to read the string.
+     * @return the String corresponding to the given item.
+     */
+    private static String readUTF(final byte[] b, int index, final char[] buf) {
+        int endIndex = index + 2 + readUnsignedShort(b, index);
+        int strLen = 0;
+        index += 2;
+        while (index < endIndex) {
+            int c = b[index++] & 0xFF;
+            if (c >= 0x80) {
+                if (c < 0xE0) { // 110x xxxx 10xx xxxx
+                    c = ((c & 0x1F) << 6) | (b[index++] & 0x3F);
+                } else { // 1110 xxxx 10xx xxxx 10xx xxxx
+                    c = ((c & 0x0F) << 12) | ((b[index++] & 0x3F) << 6)
+                            | (b[index++] & 0x3F);
+                }
+            }
+            buf[strLen++] = (char) c;
+        }
+        return new String(buf, 0, strLen);
+    }
+
+    /**
+     * Reads an unsigned short value in a byte array.
+     * 
+     * @param b
+     *            a byte array.
+     * @param index
+     *            the start index of the value to be read in b.
+     * @return the read value.
+     */
+    private static int readUnsignedShort(final byte[] b, final int index) {
+        return ((b[index] & 0xFF) << 8) | (b[index + 1] & 0xFF);
+    }
+
+    /**
+     * Reads a signed int value in a byte array.
+     * 
+     * @param b
+     *            a byte array.
+     * @param index
+     *            the start index of the value to be read in b.
+     * @return the read value.
+     */
+    private static int readInt(final byte[] b, final int index) {
+        return ((b[index] & 0xFF) << 24) | ((b[index + 1] & 0xFF) << 16)
+                | ((b[index + 2] & 0xFF) << 8) | (b[index + 3] & 0xFF);
+    }
+
     /**
      * Copies the constant pool data into the given {@link ClassWriter}. Should
-     * be called before the {@link #accept(ClassVisitor,int)} method.
+     * be called before the {@link #accept(ClassVisitor,int)} method. The
+     * constant pool items are not decoded: their hash codes are computed
+     * directly from the class bytes, and the corresponding {@link Item}
+     * objects are only read, with {@link #readItem readItem}, when an item
+     * with the same hash code is looked up in the class writer.
      * 
      * @param classWriter
      *            the {@link ClassWriter} to copy constant pool into.
      */
     void copyPool(final ClassWriter classWriter) {
-        char[] buf = new char[maxStringLength];
         int ll = items.length;
-        Item[] items2 = new Item[ll];
+        int[] hashes = new int[ll];
+        Item[] items2 = classWriter.items;
+        if (items2.length < ll) {
+            items2 = new Item[ll];
+        }
         for (int i = 1; i < ll; i++) {
             int index = items[i];
             int tag = b[index - 1];
-            Item item = new Item(i);
+            int hashCode;
             int nameType;
             switch (tag) {
             case ClassWriter.FIELD:
             case ClassWriter.METH:
             case ClassWriter.IMETH:
                 nameType = items[readUnsignedShort(index + 2)];
-                item.set(tag, readClass(index, buf), readUTF8(nameType, buf),
-                        readUTF8(nameType + 2, buf));
+                hashCode = tag + hashClass(index, hashes)
+                        * hashUTF8(nameType, hashes)
+                        * hashUTF8(nameType + 2, hashes);
                 break;
             case ClassWriter.INT:
-                item.set(readInt(index));
+                hashCode = tag + readInt(index);
                 break;
             case ClassWriter.FLOAT:
-                item.set(Float.intBitsToFloat(readInt(index)));
+                hashCode = tag + (int) Float.intBitsToFloat(readInt(index));
                 break;
             case ClassWriter.NAME_TYPE:
-                item.set(tag, readUTF8(index, buf), readUTF8(index + 2, buf),
-                        null);
+                hashCode = tag + hashUTF8(index, hashes)
+                        * hashUTF8(index + 2, hashes);
                 break;
             case ClassWriter.LONG:
-                item.set(readLong(index));
-                ++i;
+                hashCode = tag + (int) readLong(index);
                 break;
             case ClassWriter.DOUBLE:
-                item.set(Double.longBitsToDouble(readLong(index)));
-                ++i;
+                hashCode = tag
+                        + (int) Double.longBitsToDouble(readLong(index));
                 break;
-            case ClassWriter.UTF8: {
-                String s = strings[i];
-                if (s == null) {
-                    index = items[i];
-                    s = strings[i] = readUTF(index + 2,
-                            readUnsignedShort(index), buf);
-                }
-                item.set(tag, s, null, null);
+            case ClassWriter.UTF8:
+                hashCode = tag + hashUTF(i, hashes);
                 break;
-            }
             case ClassWriter.HANDLE: {
                 int fieldOrMethodRef = items[readUnsignedShort(index + 1)];
                 nameType = items[readUnsignedShort(fieldOrMethodRef + 2)];
-                item.set(ClassWriter.HANDLE_BASE + readByte(index),
-                        readClass(fieldOrMethodRef, buf),
-                        readUTF8(nameType, buf), readUTF8(nameType + 2, buf));
+                hashCode = ClassWriter.HANDLE_BASE + readByte(index)
+                        + hashClass(fieldOrMethodRef, hashes)
+                        * hashUTF8(nameType, hashes)
+                        * hashUTF8(nameType + 2, hashes);
                 break;
             }
             case ClassWriter.INDY:
                 if (classWriter.bootstrapMethods == null) {
-                    copyBootstrapMethods(classWriter, items2, buf);
+                    copyBootstrapMethods(classWriter, items2, getBuffer());
                 }
                 nameType = items[readUnsignedShort(index + 2)];
-                item.set(readUTF8(nameType, buf), readUTF8(nameType + 2, buf),
-                        readUnsignedShort(index));
+                hashCode = ClassWriter.INDY + readUnsignedShort(index)
+                        * hashUTF8(nameType, hashes)
+                        * hashUTF8(nameType + 2, hashes);
                 break;
+            case ClassWriter.CONDY:
+                if (classWriter.bootstrapMethods == null) {
+                    copyBootstrapMethods(classWriter, items2, getBuffer());
+                }
+                // this item can not be created with the ClassWriter API, so
+                // it is copied but never looked up
+                continue;
+            case ClassWriter.MODULE:
+            case ClassWriter.PACKAGE:
+                // these items can not be created with the ClassWriter API, so
+                // they are copied but never looked up
+                continue;
             // case ClassWriter.STR:
             // case ClassWriter.CLASS:
             // case ClassWriter.MTYPE
             default:
-                item.set(tag, readUTF8(index, buf), null, null);
+                hashCode = tag + hashUTF8(index, hashes);
                 break;
             }
-
+            Item item = new Item(i);
+            item.hashCode = hashCode & 0x7FFFFFFF;
             int index2 = item.hashCode % items2.length;
             item.next = items2[index2];
             items2[index2] = item;
+            if (tag == ClassWriter.LONG || tag == ClassWriter.DOUBLE) {
+                ++i;
+            }
         }
 
         int off = items[1] - 1;
         classWriter.pool.putByteArray(b, off, header - off);
         classWriter.items = items2;
-        classWriter.threshold = (int) (0.75d * ll);
+        classWriter.threshold = (int) (0.75d * items2.length);
         classWriter.index = ll;
     }
 
+    /**
+     * Reads a constant pool item. This method is used by {@link ClassWriter}
+     * to read the constant pool items that have been copied with
+     * {@link #copyPool copyPool}.
+     * 
+     * @param item
+     *            the item to be read. Its index must be the index of a
+     *            constant pool item.
+     * @param buf
+     *            buffer to be used to read the item. This buffer must be
+     *            sufficiently large. It is not automatically resized.
+     */
+    void readItem(final Item item, final char[] buf) {
+        int i = item.index;
+        int index = items[i];
+        int tag = b[index - 1];
+        int nameType;
+        switch (tag) {
+        case ClassWriter.FIELD:
+        case ClassWriter.METH:
+        case ClassWriter.IMETH:
+            nameType = items[readUnsignedShort(index + 2)];
+            item.set(tag, readClass(index, buf), readUTF8(nameType, buf),
+                    readUTF8(nameType + 2, buf));
+            break;
+        case ClassWriter.INT:
+            item.set(readInt(index));
+            break;
+        case ClassWriter.FLOAT:
+            item.set(Float.intBitsToFloat(readInt(index)));
+            break;
+        case ClassWriter.NAME_TYPE:
+            item.set(tag, readUTF8(index, buf), readUTF8(index + 2, buf), null);
+            break;
+        case ClassWriter.LONG:
+            item.set(readLong(index));
+            break;
+        case ClassWriter.DOUBLE:
+            item.set(Double.longBitsToDouble(readLong(index)));
+            break;
+        case ClassWriter.UTF8: {
+            String s = strings[i];
+            if (s == null) {
+                s = strings[i] = readUTF(index + 2, readUnsignedShort(index),
+                        buf);
+            }
+            item.set(tag, s, null, null);
+            break;
+        }
+        case ClassWriter.HANDLE: {
+            int fieldOrMethodRef = items[readUnsignedShort(index + 1)];
+            nameType = items[readUnsignedShort(fieldOrMethodRef + 2)];
+            item.set(ClassWriter.HANDLE_BASE + readByte(index),
+                    readClass(fieldOrMethodRef, buf), readUTF8(nameType, buf),
+                    readUTF8(nameType + 2, buf));
+            item.intVal = b[fieldOrMethodRef - 1] == ClassWriter.IMETH ? 1 : 0;
+            break;
+        }
+        case ClassWriter.INDY:
+            nameType = items[readUnsignedShort(index + 2)];
+            item.set(readUTF8(nameType, buf), readUTF8(nameType + 2, buf),
+                    readUnsignedShort(index));
+            break;
+        // case ClassWriter.STR:
+        // case ClassWriter.CLASS:
+        // case ClassWriter.MTYPE
+        default:
+            item.set(tag, readUTF8(index, buf), null, null);
+            break;
+        }
+    }
+
+    /**
+     * Returns the hash code of the name of a class constant pool item, without
+     * decoding this name.
+     * 
+     * @param index
+     *            the start index of an unsigned short value in {@link #b b},
+     *            whose value is the index of a class constant pool item.
+     * @param hashes
+     *            the hash codes of the UTF8 items that have already been
+     *            computed, or 0.
+     * @return the value of {@link String#hashCode} for the class name.
+     */
+    private int hashClass(final int index, final int[] hashes) {
+        return hashUTF8(items[readUnsignedShort(index)], hashes);
+    }
+
+    /**
+     * Returns the hash code of an UTF8 string constant pool item, without
+     * decoding this string.
+     * 
+     * @param index
+     *            the start index of an unsigned short value in {@link #b b},
+     *            whose value is the index of an UTF8 constant pool item.
+     * @param hashes
+     *            the hash codes of the UTF8 items that have already been
+     *            computed, or 0.
+     * @return the value of {@link String#hashCode} for the string.
+     */
+    private int hashUTF8(final int index, final int[] hashes) {
+        return hashUTF(readUnsignedShort(index), hashes);
+    }
+
+    /**
+     * Returns the hash code of an UTF8 string constant pool item, without
+     * decoding this string.
+     * 
+     * @param item
+     *            the index of an UTF8 constant pool item.
+     * @param hashes
+     *            the hash codes of the UTF8 items that have already been
+     *            computed, or 0.
+     * @return the value of {@link String#hashCode} for the string.
+     */
+    private int hashUTF(final int item, final int[] hashes) {
+        int h = hashes[item];
+        if (h != 0) {
+            return h;
+        }
+        String s = strings[item];
+        if (s != null) {
+            return hashes[item] = s.hashCode();
+        }
+        byte[] b = this.b;
+        int index = items[item];
+        int endIndex = index + 2 + readUnsignedShort(index);
+        index += 2;
+        while (index < endIndex) {
+            int c = b[index++];
+            if (c >= 0) { // 0xxxxxxx
+                h = 31 * h + c;
+            } else if ((c & 0xE0) == 0xC0) { // 110x xxxx 10xx xxxx
+                h = 31 * h + (((c & 0x1F) << 6) | (b[index++] & 0x3F));
+            } else { // 1110 xxxx 10xx xxxx 10xx xxxx
+                c = ((c & 0x0F) << 6) | (b[index++] & 0x3F);
+                h = 31 * h + (char) ((c << 6) | (b[index++] & 0x3F));
+            }
+        }
+        return hashes[item] = h;
+    }
+
     /**
      * Copies the bootstrap method data into the given {@link ClassWriter}.
      * Should be called before the {@link #accept(ClassVisitor,int)} method.
@@ -374,7 +998,7 @@ public class ClassReader {
      *            the {@link ClassWriter} to copy bootstrap methods into.
      */
     private void copyBootstrapMethods(final ClassWriter classWriter,
-            final Item[] items, final char[] c) {
+            final Item[] items2, final char[] c) {
         // finds the "BootstrapMethods" attribute
         int u = getAttributes();
         boolean found = false;
@@ -395,15 +1019,21 @@ public class ClassReader {
             int position = v - u - 10;
             int hashCode = readConst(readUnsignedShort(v), c).hashCode();
             for (int k = readUnsignedShort(v + 2); k > 0; --k) {
-                hashCode ^= readConst(readUnsignedShort(v + 4), c).hashCode();
+                int arg = readUnsignedShort(v + 4);
+                // CONSTANT_Dynamic arguments can not be read with readConst
+                if (b[items[arg] - 1] == ClassWriter.CONDY) {
+                    hashCode ^= arg;
+                } else {
+                    hashCode ^= readConst(arg, c).hashCode();
+                }
                 v += 2;
             }
             v += 4;
             Item item = new Item(j);
             item.set(position, hashCode & 0x7FFFFFFF);
-            int index = item.hashCode % items.length;
-            item.next = items[index];
-            items[index] = item;
+            int index = item.hashCode % items2.length;
+            item.next = items2[index];
+            items2[index] = item;
         }
         int attrSize = readInt(u + 4);
         ByteVector bootstrapMethods = new ByteVector(attrSize + 62);
@@ -412,6 +1042,23 @@ public class ClassReader {
         classWriter.bootstrapMethods = bootstrapMethods;
     }
 
+    /**
+     * Constructs a new {@link ClassReader} object. The class is read from the
+     * remaining bytes of the given buffer, i.e. between its position and its
+     * limit, and the position of the buffer is not changed. If the buffer is
+     * backed by an accessible array, the class is read directly from this
+     * array, without copying it (the buffer content must then not be modified
+     * while this reader is used). Otherwise, and in particular for direct and
+     * memory mapped buffers, the class is copied with a single bulk get.
+     * 
+     * @param buf
+     *            a buffer containing the bytecode of the class to be read.
+     */
+    public ClassReader(final ByteBuffer buf) {
+        this(readClass(buf), buf.hasArray() ? buf.arrayOffset()
+                + buf.position() : 0, buf.remaining());
+    }
+
     /**
      * Constructs a new {@link ClassReader} object.
      * 
@@ -473,7 +1120,7 @@ public class ClassReader {
                     if (last < 0) {
                         return b;
                     }
-                    byte[] c = new byte[b.length + 1000];
+                    byte[] c = new byte[Math.max(2 * b.length, 1024)];
                     System.arraycopy(b, 0, c, 0, len);
                     c[len++] = (byte) last;
                     b = c;
@@ -486,6 +1133,23 @@ public class ClassReader {
         }
     }
 
+    /**
+     * Returns the bytes of the given buffer.
+     * 
+     * @param buf
+     *            a byte buffer.
+     * @return the array backing the given buffer, if it is accessible, or a
+     *         copy of its remaining bytes otherwise.
+     */
+    private static byte[] readClass(final ByteBuffer buf) {
+        if (buf.hasArray()) {
+            return buf.array();
+        }
+        byte[] b = new byte[buf.remaining()];
+        buf.duplicate().get(b);
+        return b;
+    }
+
     // ------------------------------------------------------------------------
     // Public methods
     // ------------------------------------------------------------------------
@@ -500,7 +1164,8 @@ public class ClassReader {
      * @param flags
      *            option flags that can be used to modify the default behavior
      *            of this class. See {@link #SKIP_DEBUG}, {@link #EXPAND_FRAMES}
-     *            , {@link #SKIP_FRAMES}, {@link #SKIP_CODE}.
+     *            , {@link #SKIP_FRAMES}, {@link #SKIP_CODE},
+     *            {@link #SKIP_ANNOTATIONS}, {@link #SKIP_ATTRIBUTES}.
      */
     public void accept(final ClassVisitor classVisitor, final int flags) {
         accept(classVisitor, new Attribute[0], flags);
@@ -525,12 +1190,13 @@ public class ClassReader {
      * @param flags
      *            option flags that can be used to modify the default behavior
      *            of this class. See {@link #SKIP_DEBUG}, {@link #EXPAND_FRAMES}
-     *            , {@link #SKIP_FRAMES}, {@link #SKIP_CODE}.
+     *            , {@link #SKIP_FRAMES}, {@link #SKIP_CODE},
+     *            {@link #SKIP_ANNOTATIONS}, {@link #SKIP_ATTRIBUTES}.
      */
     public void accept(final ClassVisitor classVisitor,
             final Attribute[] attrs, final int flags) {
         int u = header; // current offset in the class file
-        char[] c = new char[maxStringLength]; // buffer used to read strings
+        char[] c = getBuffer(); // buffer used to read strings
 
         Context context = new Context();
         context.attrs = attrs;
@@ -580,7 +1246,9 @@ public class ClassReader {
                 signature = readUTF8(u + 8, c);
             } else if (ANNOTATIONS
                     && "RuntimeVisibleAnnotations".equals(attrName)) {
-                anns = u + 8;
+                if ((flags & SKIP_ANNOTATIONS) == 0) {
+                    anns = u + 8;
+                }
             } else if ("Deprecated".equals(attrName)) {
                 access |= Opcodes.ACC_DEPRECATED;
             } else if ("Synthetic".equals(attrName)) {
@@ -591,7 +1259,9 @@ public class ClassReader {
                 sourceDebug = readUTF(u + 8, len, new char[len]);
             } else if (ANNOTATIONS
                     && "RuntimeInvisibleAnnotations".equals(attrName)) {
-                ianns = u + 8;
+                if ((flags & SKIP_ANNOTATIONS) == 0) {
+                    ianns = u + 8;
+                }
             } else if ("BootstrapMethods".equals(attrName)) {
                 int[] bootstrapMethods = new int[readUnsignedShort(u + 8)];
                 for (int j = 0, v = u + 10; j < bootstrapMethods.length; j++) {
@@ -599,7 +1269,7 @@ public class ClassReader {
                     v += 2 + readUnsignedShort(v + 2) << 1;
                 }
                 context.bootstrapMethods = bootstrapMethods;
-            } else {
+            } else if ((flags & SKIP_ATTRIBUTES) == 0) {
                 Attribute attr = readAttribute(attrs, attrName, u + 8,
                         readInt(u + 4), c, -1, null);
                 if (attr != null) {
@@ -673,6 +1343,75 @@ public class ClassReader {
         classVisitor.visitEnd();
     }
 
+    /**
+     * Makes the given visitor visit a single method of the Java class of this
+     * {@link ClassReader}. Only the {@link ClassVisitor#visitMethod
+     * visitMethod} method of the given visitor is called, and the returned
+     * method visitor, if any, visits the method as with
+     * {@link #accept(ClassVisitor, Attribute[], int) accept}. In particular,
+     * if this method visitor is returned by a {@link ClassWriter} whose
+     * constant pool was copied from this reader, the method is copied as is
+     * to this writer. This method can be used to visit the methods of a class
+     * in any order, or to visit some of them only.
+     * 
+     * @param classVisitor
+     *            the visitor that must visit the method.
+     * @param offset
+     *            the start offset of the method in {@link #b b}, as returned
+     *            by {@link #getMethodOffsets getMethodOffsets}.
+     * @param attrs
+     *            prototypes of the attributes that must be parsed during the
+     *            visit of the method. See
+     *            {@link #accept(ClassVisitor, Attribute[], int) accept}.
+     * @param flags
+     *            option flags that can be used to modify the default behavior
+     *            of this class. See
+     *            {@link #accept(ClassVisitor, Attribute[], int) accept}.
+     */
+    public void acceptMethod(final ClassVisitor classVisitor,
+            final int offset, final Attribute[] attrs, final int flags) {
+        Context context = new Context();
+        context.attrs = attrs;
+        context.flags = flags;
+        context.buffer = getBuffer();
+        int[] bootstrapMethods = this.bootstrapMethods;
+        if (bootstrapMethods == null) {
+            bootstrapMethods = readBootstrapMethods(context.buffer);
+            this.bootstrapMethods = bootstrapMethods;
+        }
+        context.bootstrapMethods = bootstrapMethods;
+        readMethod(classVisitor, context, offset);
+    }
+
+    /**
+     * Returns the start offset of each method of the class. These offsets
+     * are in the same order as the methods visited by
+     * {@link #accept(ClassVisitor, int) accept}, and can be passed to
+     * {@link #acceptMethod acceptMethod}.
+     * 
+     * @return the start offset of each method of the class in {@link #b b}.
+     */
+    public int[] getMethodOffsets() {
+        int u = header + 10 + readUnsignedShort(header + 6) * 2;
+        // skips the fields
+        for (int i = readUnsignedShort(u - 2); i > 0; --i) {
+            for (int j = readUnsignedShort(u + 6); j > 0; --j) {
+                u += 6 + readInt(u + 10);
+            }
+            u += 8;
+        }
+        int[] offsets = new int[readUnsignedShort(u)];
+        u += 2;
+        for (int i = 0; i < offsets.length; ++i) {
+            offsets[i] = u;
+            for (int j = readUnsignedShort(u + 6); j > 0; --j) {
+                u += 6 + readInt(u + 10);
+            }
+            u += 8;
+        }
+        return offsets;
+    }
+
     /**
      * Reads a field and makes the given visitor visit it.
      * 
@@ -716,11 +1455,15 @@ public class ClassReader {
                         | ClassWriter.ACC_SYNTHETIC_ATTRIBUTE;
             } else if (ANNOTATIONS
                     && "RuntimeVisibleAnnotations".equals(attrName)) {
-                anns = u + 8;
+                if ((context.flags & SKIP_ANNOTATIONS) == 0) {
+                    anns = u + 8;
+                }
             } else if (ANNOTATIONS
                     && "RuntimeInvisibleAnnotations".equals(attrName)) {
-                ianns = u + 8;
-            } else {
+                if ((context.flags & SKIP_ANNOTATIONS) == 0) {
+                    ianns = u + 8;
+                }
+            } else if ((context.flags & SKIP_ATTRIBUTES) == 0) {
                 Attribute attr = readAttribute(context.attrs, attrName, u + 8,
                         readInt(u + 4), c, -1, null);
                 if (attr != null) {
@@ -821,22 +1564,32 @@ public class ClassReader {
                 access |= Opcodes.ACC_DEPRECATED;
             } else if (ANNOTATIONS
                     && "RuntimeVisibleAnnotations".equals(attrName)) {
-                anns = u + 8;
+                if ((context.flags & SKIP_ANNOTATIONS) == 0) {
+                    anns = u + 8;
+                }
             } else if (ANNOTATIONS && "AnnotationDefault".equals(attrName)) {
-                dann = u + 8;
+                if ((context.flags & SKIP_ANNOTATIONS) == 0) {
+                    dann = u + 8;
+                }
             } else if ("Synthetic".equals(attrName)) {
                 access |= Opcodes.ACC_SYNTHETIC
                         | ClassWriter.ACC_SYNTHETIC_ATTRIBUTE;
             } else if (ANNOTATIONS
                     && "RuntimeInvisibleAnnotations".equals(attrName)) {
-                ianns = u + 8;
+                if ((context.flags & SKIP_ANNOTATIONS) == 0) {
+                    ianns = u + 8;
+                }
             } else if (ANNOTATIONS
                     && "RuntimeVisibleParameterAnnotations".equals(attrName)) {
-                mpanns = u + 8;
+                if ((context.flags & SKIP_ANNOTATIONS) == 0) {
+                    mpanns = u + 8;
+                }
             } else if (ANNOTATIONS
                     && "RuntimeInvisibleParameterAnnotations".equals(attrName)) {
-                impanns = u + 8;
-            } else {
+                if ((context.flags & SKIP_ANNOTATIONS) == 0) {
+                    impanns = u + 8;
+                }
+            } else if ((context.flags & SKIP_ATTRIBUTES) == 0) {
                 Attribute attr = readAttribute(context.attrs, attrName, u + 8,
                         readInt(u + 4), c, -1, null);
                 if (attr != null) {
@@ -859,15 +1612,17 @@ public class ClassReader {
          * if the returned MethodVisitor is in fact a MethodWriter, it means
          * there is no method adapter between the reader and the writer. If, in
          * addition, the writer's constant pool was copied from this reader
-         * (mw.cw.cr == this), and the signature and exceptions of the method
-         * have not been changed, then it is possible to skip all visit events
-         * and just copy the original code of the method to the writer (the
-         * access, name and descriptor can have been changed, this is not
+         * (mw.cw.cr == this), the signature and exceptions of the method have
+         * not been changed, and its frames must not be recomputed (see
+         * ClassWriter.toByteArray), then it is possible to skip all visit
+         * events and just copy the original code of the method to the writer
+         * (the access, name and descriptor can have been changed, this is not
          * important since they are not copied as is from the reader).
          */
         if (WRITER && mv instanceof MethodWriter) {
             MethodWriter mw = (MethodWriter) mv;
-            if (mw.cw.cr == this && signature == mw.signature) {
+            if (mw.cw.cr == this && signature == mw.signature
+                    && !mw.invalidFrames) {
                 boolean sameExceptions = false;
                 if (exceptions == null) {
                     sameExceptions = mw.exceptionCount == 0;
@@ -966,8 +1721,13 @@ public class ClassReader {
         // reads the bytecode to find the labels
         int codeStart = u;
         int codeEnd = u + codeLength;
-        Label[] labels = new Label[codeLength + 2];
-        readLabel(codeLength + 1, labels);
+        clearLabels(context);
+        Label[] labels = context.labels;
+        if (labels == null || labels.length < codeLength + 2) {
+            labels = new Label[codeLength + 2];
+            context.labels = labels;
+        }
+        readLabel(codeLength + 1, labels, context);
         while (u < codeEnd) {
             int offset = u - codeStart;
             int opcode = b[u] & 0xFF;
@@ -977,11 +1737,11 @@ public class ClassReader {
                 u += 1;
                 break;
             case ClassWriter.LABEL_INSN:
-                readLabel(offset + readShort(u + 1), labels);
+                readLabel(offset + readShort(u + 1), labels, context);
                 u += 3;
                 break;
             case ClassWriter.LABELW_INSN:
-                readLabel(offset + readInt(u + 1), labels);
+                readLabel(offset + readInt(u + 1), labels, context);
                 u += 5;
                 break;
             case ClassWriter.WIDE_INSN:
@@ -996,9 +1756,9 @@ public class ClassReader {
                 // skips 0 to 3 padding bytes
                 u = u + 4 - (offset & 3);
                 // reads instruction
-                readLabel(offset + readInt(u), labels);
+                readLabel(offset + readInt(u), labels, context);
                 for (int i = readInt(u + 8) - readInt(u + 4) + 1; i > 0; --i) {
-                    readLabel(offset + readInt(u + 12), labels);
+                    readLabel(offset + readInt(u + 12), labels, context);
                     u += 4;
                 }
                 u += 12;
@@ -1007,9 +1767,9 @@ public class ClassReader {
                 // skips 0 to 3 padding bytes
                 u = u + 4 - (offset & 3);
                 // reads instruction
-                readLabel(offset + readInt(u), labels);
+                readLabel(offset + readInt(u), labels, context);
                 for (int i = readInt(u + 4); i > 0; --i) {
-                    readLabel(offset + readInt(u + 12), labels);
+                    readLabel(offset + readInt(u + 12), labels, context);
                     u += 8;
                 }
                 u += 8;
@@ -1039,9 +1799,10 @@ public class ClassReader {
 
         // reads the try catch entries to find the labels, and also visits them
         for (int i = readUnsignedShort(u); i > 0; --i) {
-            Label start = readLabel(readUnsignedShort(u + 2), labels);
-            Label end = readLabel(readUnsignedShort(u + 4), labels);
-            Label handler = readLabel(readUnsignedShort(u + 6), labels);
+            Label start = readLabel(readUnsignedShort(u + 2), labels, context);
+            Label end = readLabel(readUnsignedShort(u + 4), labels, context);
+            Label handler = readLabel(readUnsignedShort(u + 6), labels,
+                    context);
             String type = readUTF8(items[readUnsignedShort(u + 8)], c);
             mv.visitTryCatchBlock(start, end, handler, type);
             u += 8;
@@ -1067,11 +1828,13 @@ public class ClassReader {
                     for (int j = readUnsignedShort(u + 8), v = u; j > 0; --j) {
                         int label = readUnsignedShort(v + 10);
                         if (labels[label] == null) {
-                            readLabel(label, labels).status |= Label.DEBUG;
+                            readLabel(label, labels, context).status |=
+                                    Label.DEBUG;
                         }
                         label += readUnsignedShort(v + 12);
                         if (labels[label] == null) {
-                            readLabel(label, labels).status |= Label.DEBUG;
+                            readLabel(label, labels, context).status |=
+                                    Label.DEBUG;
                         }
                         v += 10;
                     }
@@ -1083,7 +1846,8 @@ public class ClassReader {
                     for (int j = readUnsignedShort(u + 8), v = u; j > 0; --j) {
                         int label = readUnsignedShort(v + 10);
                         if (labels[label] == null) {
-                            readLabel(label, labels).status |= Label.DEBUG;
+                            readLabel(label, labels, context).status |=
+                                    Label.DEBUG;
                         }
                         labels[label].line = readUnsignedShort(v + 12);
                         v += 4;
@@ -1125,11 +1889,13 @@ public class ClassReader {
                  * the StackMapTable attribute, although this is not guaranteed
                  * by the attribute format.
                  */
-            } else {
+            } else if ((context.flags & SKIP_ATTRIBUTES) == 0) {
                 for (int j = 0; j < context.attrs.length; ++j) {
                     if (context.attrs[j].type.equals(attrName)) {
                         Attribute attr = context.attrs[j].read(this, u + 8,
                                 readInt(u + 4), c, codeStart - 8, labels);
+                        // the attribute may have stored labels in the table
+                        context.labelCount = -1;
                         if (attr != null) {
                             attr.next = attributes;
                             attributes = attr;
@@ -1175,7 +1941,7 @@ public class ClassReader {
                     int v = readUnsignedShort(i + 1);
                     if (v >= 0 && v < codeLength) {
                         if ((b[codeStart + v] & 0xFF) == Opcodes.NEW) {
-                            readLabel(v, labels);
+                            readLabel(v, labels, context);
                         }
                     }
                 }
@@ -1310,6 +2076,7 @@ public class ClassReader {
             case ClassWriter.FIELDORMETH_INSN:
             case ClassWriter.ITFMETH_INSN: {
                 int cpIndex = items[readUnsignedShort(u + 1)];
+                boolean itf = b[cpIndex - 1] == ClassWriter.IMETH;
                 String iowner = readClass(cpIndex, c);
                 cpIndex = items[readUnsignedShort(cpIndex + 2)];
                 String iname = readUTF8(cpIndex, c);
@@ -1317,7 +2084,7 @@ public class ClassReader {
                 if (opcode < Opcodes.INVOKEVIRTUAL) {
                     mv.visitFieldInsn(opcode, iowner, iname, idesc);
                 } else {
-                    mv.visitMethodInsn(opcode, iowner, iname, idesc);
+                    mv.visitMethodInsn(opcode, iowner, iname, idesc, itf);
                 }
                 if (opcode == Opcodes.INVOKEINTERFACE) {
                     u += 5;
@@ -1755,14 +2522,16 @@ public class ClassReader {
             frame.stackCount = 0;
         } else if (tag < MethodWriter.RESERVED) {
             delta = tag - MethodWriter.SAME_LOCALS_1_STACK_ITEM_FRAME;
-            stackMap = readFrameType(frame.stack, 0, stackMap, c, labels);
+            stackMap = readFrameType(frame.stack, 0, stackMap, c, labels,
+                    frame);
             frame.mode = Opcodes.F_SAME1;
             frame.stackCount = 1;
         } else {
             delta = readUnsignedShort(stackMap);
             stackMap += 2;
             if (tag == MethodWriter.SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED) {
-                stackMap = readFrameType(frame.stack, 0, stackMap, c, labels);
+                stackMap = readFrameType(frame.stack, 0, stackMap, c, labels,
+                    frame);
                 frame.mode = Opcodes.F_SAME1;
                 frame.stackCount = 1;
             } else if (tag >= MethodWriter.CHOP_FRAME
@@ -1778,7 +2547,7 @@ public class ClassReader {
                 int local = unzip ? frame.localCount : 0;
                 for (int i = tag - MethodWriter.SAME_FRAME_EXTENDED; i > 0; i--) {
                     stackMap = readFrameType(frame.local, local++, stackMap, c,
-                            labels);
+                            labels, frame);
                 }
                 frame.mode = Opcodes.F_APPEND;
                 frame.localDiff = tag - MethodWriter.SAME_FRAME_EXTENDED;
@@ -1792,19 +2561,19 @@ public class ClassReader {
                 frame.localCount = n;
                 for (int local = 0; n > 0; n--) {
                     stackMap = readFrameType(frame.local, local++, stackMap, c,
-                            labels);
+                            labels, frame);
                 }
                 n = readUnsignedShort(stackMap);
                 stackMap += 2;
                 frame.stackCount = n;
                 for (int stack = 0; n > 0; n--) {
                     stackMap = readFrameType(frame.stack, stack++, stackMap, c,
-                            labels);
+                            labels, frame);
                 }
             }
         }
         frame.offset += delta + 1;
-        readLabel(frame.offset, labels);
+        readLabel(frame.offset, labels, frame);
         return stackMap;
     }
 
@@ -1825,10 +2594,12 @@ public class ClassReader {
      *            their offset. If the parsed type is an Uninitialized type, a
      *            new label for the corresponding NEW instruction is stored in
      *            this array if it does not already exist.
+     * @param context
+     *            information about the class being parsed.
      * @return the offset of the first byte after the parsed type.
      */
     private int readFrameType(final Object[] frame, final int index, int v,
-            final char[] buf, final Label[] labels) {
+            final char[] buf, final Label[] labels, final Context context) {
         int type = b[v++] & 0xFF;
         switch (type) {
         case 0:
@@ -1857,7 +2628,7 @@ public class ClassReader {
             v += 2;
             break;
         default: // Uninitialized
-            frame[index] = readLabel(readUnsignedShort(v), labels);
+            frame[index] = readLabel(readUnsignedShort(v), labels, context);
             v += 2;
         }
         return v;
@@ -1883,6 +2654,111 @@ public class ClassReader {
         return labels[offset];
     }
 
+    /**
+     * Returns the label corresponding to the given offset, in the label table
+     * of the given context. If this label does not exist yet, this method
+     * reuses a label of a previous method if possible (see
+     * {@link #REUSE_LABELS}), or creates it with {@link #readLabel(int,Label[])
+     * readLabel} otherwise. In both cases the offset of the label is recorded,
+     * so that the table can be cleared before the next method is parsed.
+     * 
+     * @param offset
+     *            a bytecode offset in a method.
+     * @param labels
+     *            the label table of the given context.
+     * @param context
+     *            information about the class being parsed.
+     * @return a non null Label, which is equal to labels[offset].
+     */
+    private Label readLabel(final int offset, final Label[] labels,
+            final Context context) {
+        Label l = labels[offset];
+        if (l == null) {
+            l = context.freeLabels;
+            if (l != null) {
+                context.freeLabels = l.next;
+                l.next = null;
+                labels[offset] = l;
+            } else {
+                l = readLabel(offset, labels);
+            }
+            int n = context.labelCount;
+            if (n >= 0) {
+                int[] offsets = context.labelOffsets;
+                if (offsets == null) {
+                    offsets = new int[16];
+                    context.labelOffsets = offsets;
+                } else if (n == offsets.length) {
+                    offsets = new int[2 * n];
+                    System.arraycopy(context.labelOffsets, 0, offsets, 0, n);
+                    context.labelOffsets = offsets;
+                }
+                offsets[n] = offset;
+                context.labelCount = n + 1;
+            }
+        }
+        return l;
+    }
+
+    /**
+     * Clears the label table of the given context, before a new method is
+     * parsed. Only the elements whose offset has been recorded are cleared,
+     * unless some labels may have been stored in the table without being
+     * recorded. With the {@link #REUSE_LABELS} option, the recorded labels are
+     * also reset and added to the list of labels that can be reused.
+     * 
+     * @param context
+     *            information about the class being parsed.
+     */
+    private static void clearLabels(final Context context) {
+        Label[] labels = context.labels;
+        int n = context.labelCount;
+        if (n < 0) {
+            for (int i = 0; i < labels.length; ++i) {
+                labels[i] = null;
+            }
+        } else if ((context.flags & REUSE_LABELS) != 0) {
+            int[] offsets = context.labelOffsets;
+            for (int i = 0; i < n; ++i) {
+                Label l = labels[offsets[i]];
+                labels[offsets[i]] = null;
+                l.reset();
+                l.next = context.freeLabels;
+                context.freeLabels = l;
+            }
+        } else {
+            int[] offsets = context.labelOffsets;
+            for (int i = 0; i < n; ++i) {
+                labels[offsets[i]] = null;
+            }
+        }
+        context.labelCount = 0;
+    }
+
+    /**
+     * Returns the start index of each bootstrap method of this class.
+     * 
+     * @param c
+     *            the buffer to be used to read strings.
+     * @return the start index of each bootstrap method of this class, or an
+     *         empty array if this class has no BootstrapMethods attribute.
+     */
+    private int[] readBootstrapMethods(final char[] c) {
+        int u = getAttributes();
+        for (int i = readUnsignedShort(u); i > 0; --i) {
+            if ("BootstrapMethods".equals(readUTF8(u + 2, c))) {
+                int[] bootstrapMethods = new int[readUnsignedShort(u + 8)];
+                for (int j = 0, v = u + 10; j < bootstrapMethods.length; j++) {
+                    bootstrapMethods[j] = v;
+                    v += 2 + readUnsignedShort(v + 2) << 1;
+                }
+                return bootstrapMethods;
+            }
+            u += 6 + readInt(u + 4);
+        }
+        return new int[0];
+    }
+
     /**
      * Returns the start index of the attribute_info structure of this class.
      * 
@@ -1991,6 +2867,18 @@ public class ClassReader {
         return maxStringLength;
     }
 
+    /**
+     * Returns a buffer that can be used to read the strings of this class.
+     * 
+     * @return a buffer of at least {@link #getMaxStringLength()} chars.
+     */
+    private char[] getBuffer() {
+        if (cache != null) {
+            return cache.getBuffer(maxStringLength);
+        }
+        return new char[maxStringLength];
+    }
+
     /**
      * Reads a byte value in {@link #b b}. <i>This method is intended for
      * {@link Attribute} sub classes, and is normally not needed by class
@@ -2101,6 +2989,13 @@ public class ClassReader {
      * @return the String corresponding to the specified UTF8 string.
      */
     private String readUTF(int index, final int utfLen, final char[] buf) {
+        if (cache != null) {
+            String s = cache.get(b, index, utfLen);
+            if (s != null) {
+                return s;
+            }
+        }
+        int startIndex = index;
         int endIndex = index + utfLen;
         byte[] b = this.b;
         int strLen = 0;
@@ -2134,7 +3029,11 @@ public class ClassReader {
                 break;
             }
         }
-        return new String(buf, 0, strLen);
+        String s = new String(buf, 0, strLen);
+        if (cache != null) {
+            cache.put(b, startIndex, utfLen, s);
+        }
+        return s;
     }
 
     /**
@@ -2170,6 +3069,8 @@ public class ClassReader {
      * @return the {@link Integer}, {@link Float}, {@link Long}, {@link Double},
      *         {@link String}, {@link Type} or {@link Handle} corresponding to
      *         the given constant pool item.
+     * @throws IllegalArgumentException
+     *             if the given item is a CONSTANT_Dynamic item.
      */
     public Object readConst(final int item, final char[] buf) {
         int index = items[item];
@@ -2188,15 +3089,19 @@ public class ClassReader {
             return readUTF8(index, buf);
         case ClassWriter.MTYPE:
             return Type.getMethodType(readUTF8(index, buf));
+        case ClassWriter.CONDY:
+            // CONSTANT_Dynamic items can not be visited
+            throw new IllegalArgumentException();
         default: // case ClassWriter.HANDLE_BASE + [1..9]:
             int tag = readByte(index);
             int[] items = this.items;
             int cpIndex = items[readUnsignedShort(index + 1)];
+            boolean itf = b[cpIndex - 1] == ClassWriter.IMETH;
             String owner = readClass(cpIndex, buf);
             cpIndex = items[readUnsignedShort(cpIndex + 2)];
             String name = readUTF8(cpIndex, buf);
             String desc = readUTF8(cpIndex + 2, buf);
-            return new Handle(tag, owner, name, desc);
+            return new Handle(tag, owner, name, desc, itf);
         }
     }
 }
@@ -0,0 +1,94 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+/**
+ * The symbolic references of a class, i.e. the class names, field and method
+ * references and name and type descriptors of its constant pool. Such symbols
+ * are returned by {@link ClassReader#readSymbols()}, which resolves them in a
+ * single pass over the constant pool, without parsing the fields, methods and
+ * attributes of the class. This is useful to quickly compute the dependencies
+ * between a large number of classes.
+ * <p>
+ * The symbols are stored in flat arrays, in constant pool order. Field and
+ * method references are stored as consecutive (owner, name, descriptor)
+ * triples, and name and type items as consecutive (name, descriptor) pairs.
+ * All the strings are obtained with {@link ClassReader#readUTF8 readUTF8}, so
+ * that they are shared between several readers if these readers use the same
+ * {@link UTF8Cache}.
+ */
+public class ClassSymbols {
+
+    /**
+     * The internal names of the classes referenced by the CONSTANT_Class
+     * items (see {@link Type#getInternalName() getInternalName}). These names
+     * can also be array type descriptors.
+     */
+    public final String[] classes;
+
+    /**
+     * The owner, name and descriptor of each CONSTANT_Fieldref item. The
+     * length of this array is three times the number of field references.
+     */
+    public final String[] fields;
+
+    /**
+     * The owner, name and descriptor of each CONSTANT_Methodref item. The
+     * length of this array is three times the number of method references.
+     */
+    public final String[] methods;
+
+    /**
+     * The owner, name and descriptor of each CONSTANT_InterfaceMethodref
+     * item. The length of this array is three times the number of interface
+     * method references.
+     */
+    public final String[] interfaceMethods;
+
+    /**
+     * The name and descriptor of each CONSTANT_NameAndType item, including
+     * those used by the above field and method references. The length of this
+     * array is two times the number of name and type items.
+     */
+    public final String[] nameAndTypes;
+
+    /**
+     * Constructs a new {@link ClassSymbols}.
+     */
+    ClassSymbols(final String[] classes, final String[] fields,
+            final String[] methods, final String[] interfaceMethods,
+            final String[] nameAndTypes) {
+        this.classes = classes;
+        this.fields = fields;
+        this.methods = methods;
+        this.interfaceMethods = interfaceMethods;
+        this.nameAndTypes = nameAndTypes;
+    }
+}
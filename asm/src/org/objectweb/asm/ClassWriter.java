@@ -29,6 +29,15 @@
  */
 package org.objectweb.asm;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+
 /**
  * A {@link ClassVisitor} that generates classes in bytecode form. More
  * precisely this visitor generates a byte array conforming to the Java class
@@ -242,6 +251,24 @@ public class ClassWriter extends ClassVisitor {
      */
     static final int INDY = 18;
 
+    /**
+     * The type of CONSTANT_Dynamic constant pool items. These items can be
+     * copied from a {@link ClassReader}, but can not be created or visited.
+     */
+    static final int CONDY = 17;
+
+    /**
+     * The type of CONSTANT_Module constant pool items. These items can be
+     * copied from a {@link ClassReader}, but can not be created or visited.
+     */
+    static final int MODULE = 19;
+
+    /**
+     * The type of CONSTANT_Package constant pool items. These items can be
+     * copied from a {@link ClassReader}, but can not be created or visited.
+     */
+    static final int PACKAGE = 20;
+
     /**
      * The base value for all CONSTANT_MethodHandle constant pool items.
      * Internally, ASM store the 9 variations of CONSTANT_MethodHandle into 9
@@ -298,10 +325,18 @@ public class ClassWriter extends ClassVisitor {
     final ByteVector pool;
 
     /**
-     * The constant pool's hash table data.
+     * The constant pool's hash table data. The items copied from a
+     * {@link ClassReader} are only read when an item with the same hash code
+     * is looked up: until then, their type is 0 and only their index and hash
+     * code are set.
      */
     Item[] items;
 
+    /**
+     * The buffer used to read the items copied from {@link #cr}.
+     */
+    private char[] buf;
+
     /**
      * The threshold of the constant pool's hash table.
      */
@@ -473,6 +508,36 @@ public class ClassWriter extends ClassVisitor {
      */
     MethodWriter lastMethod;
 
+    /**
+     * The option flags of this class writer. See {@link #COMPUTE_MAXS},
+     * {@link #COMPUTE_FRAMES}.
+     */
+    private final int flags;
+
+    /**
+     * The code buffers of the methods of the previous class written with this
+     * class writer, which can be reused for the next class. See
+     * {@link #reset()}.
+     */
+    private ByteVector[] codeBuffers;
+
+    /**
+     * The number of elements in {@link #codeBuffers}.
+     */
+    private int codeBufferCount;
+
+    /**
+     * An array that can be reused to store the basic blocks of methods, when
+     * their stack map frames are computed.
+     */
+    Label[] blocks;
+
+    /**
+     * An array that can be reused to store the control flow graph of methods,
+     * when their stack map frames are computed.
+     */
+    int[] graph;
+
     /**
      * <tt>true</tt> if the maximum stack size and number of local variables
      * must be automatically computed.
@@ -488,12 +553,50 @@ public class ClassWriter extends ClassVisitor {
      * <tt>true</tt> if the stack map tables of this class are invalid. The
      * {@link MethodWriter#resizeInstructions} method cannot transform existing
      * stack map tables, and so produces potentially invalid classes when it is
-     * executed. In this case the class is reread and rewritten with the
+     * executed. In this case the class is reread and rewritten: the methods
+     * whose stack map tables are invalid are rewritten with the
      * {@link #COMPUTE_FRAMES} option (the resizeInstructions method can resize
-     * stack map tables when this option is used).
+     * stack map tables when this option is used), and the other methods are
+     * copied as is.
      */
     boolean invalidFrames;
 
+    /**
+     * The byte arrays of the chunks of the class being written by the writeTo
+     * methods, or <tt>null</tt> if the class is not being written with these
+     * methods. A <tt>null</tt> element designates a part of the byte vector
+     * in which the class is being written. See {@link #putByteArray}.
+     */
+    private byte[][] chunks;
+
+    /**
+     * The offset and length of each chunk of {@link #chunks}.
+     */
+    private int[] chunkBounds;
+
+    /**
+     * The number of chunks in {@link #chunks}.
+     */
+    private int chunkCount;
+
+    /**
+     * The start, in the byte vector in which the class is being written, of
+     * the part of this vector that has not been added to {@link #chunks} yet.
+     */
+    private int chunkStart;
+
+    /**
+     * The methods whose stack map tables must be recomputed, in the order in
+     * which they are visited, when this class is reread because of
+     * {@link #invalidFrames}. <tt>null</tt> the rest of the time.
+     */
+    private boolean[] invalidFrameMethods;
+
+    /**
+     * The number of methods visited so far in {@link #invalidFrameMethods}.
+     */
+    private int invalidFrameMethodCount;
+
     // ------------------------------------------------------------------------
     // Static initializer
     // ------------------------------------------------------------------------
@@ -604,6 +707,7 @@ public class ClassWriter extends ClassVisitor {
         key2 = new Item();
         key3 = new Item();
         key4 = new Item();
+        this.flags = flags;
         this.computeMaxs = (flags & COMPUTE_MAXS) != 0;
         this.computeFrames = (flags & COMPUTE_FRAMES) != 0;
     }
@@ -617,7 +721,10 @@ public class ClassWriter extends ClassVisitor {
      * <li>The constant pool from the original class is copied as is in the new
      * class, which saves time. New constant pool entries will be added at the
      * end if necessary, but unused constant pool entries <i>won't be
-     * removed</i>.</li>
+     * removed</i>. The original constant pool entries are not decoded when they
+     * are copied, but only when an equal entry is looked up, so that the cost
+     * of this copy mostly depends on the number of entries that are actually
+     * used by the transformation.</li>
      * <li>Methods that are not transformed are copied as is in the new class,
      * directly from the original class bytecode (i.e. without emitting visit
      * events for all the method instructions), which saves a <i>lot</i> of
@@ -646,6 +753,113 @@ public class ClassWriter extends ClassVisitor {
         this.cr = classReader;
     }
 
+    // ------------------------------------------------------------------------
+    // Reuse
+    // ------------------------------------------------------------------------
+
+    /**
+     * Resets this class writer, so that it can be used to write a new class.
+     * The state of the previous class is cleared, but the buffers that have
+     * been allocated for it are kept, so that writing many classes with a
+     * single class writer allocates far less memory than using a new class
+     * writer for each class. The option flags of this class writer are kept
+     * too. <i>The byte arrays previously returned by {@link #toByteArray} are
+     * not affected, but the method visitors previously returned by
+     * {@link #visitMethod visitMethod} must no longer be used</i>.
+     */
+    public void reset() {
+        // keeps the code buffers of the previous methods, for the next ones
+        MethodWriter mw = firstMethod;
+        while (mw != null) {
+            if (codeBuffers == null) {
+                codeBuffers = new ByteVector[16];
+            } else if (codeBufferCount == codeBuffers.length) {
+                ByteVector[] newBuffers = new ByteVector[2 * codeBufferCount];
+                System.arraycopy(codeBuffers, 0, newBuffers, 0,
+                        codeBufferCount);
+                codeBuffers = newBuffers;
+            }
+            // new code buffers must be filled with 0 (see visitTableSwitchInsn)
+            ByteVector code = mw.code;
+            byte[] data = code.data;
+            for (int i = code.length - 1; i >= 0; --i) {
+                data[i] = 0;
+            }
+            code.length = 0;
+            codeBuffers[codeBufferCount++] = code;
+            mw = (MethodWriter) mw.mv;
+        }
+        // clears the constant pool, keeping its capacity
+        cr = null;
+        index = 1;
+        pool.length = 0;
+        for (int i = 0; i < items.length; ++i) {
+            items[i] = null;
+        }
+        if (typeTable != null) {
+            for (int i = 0; i <= typeCount; ++i) {
+                typeTable[i] = null;
+            }
+        }
+        typeCount = 0;
+        // clears the class state
+        version = 0;
+        access = 0;
+        name = 0;
+        thisName = null;
+        signature = 0;
+        superName = 0;
+        interfaceCount = 0;
+        interfaces = null;
+        sourceFile = 0;
+        sourceDebug = null;
+        enclosingMethodOwner = 0;
+        enclosingMethod = 0;
+        anns = null;
+        ianns = null;
+        attrs = null;
+        innerClassesCount = 0;
+        innerClasses = null;
+        bootstrapMethodsCount = 0;
+        bootstrapMethods = null;
+        firstField = null;
+        lastField = null;
+        firstMethod = null;
+        lastMethod = null;
+        computeMaxs = (flags & COMPUTE_MAXS) != 0;
+        computeFrames = (flags & COMPUTE_FRAMES) != 0;
+        invalidFrames = false;
+    }
+
+    /**
+     * Resets this class writer, so that it can be used to write a new class,
+     * and enables optimizations for "mostly add" bytecode transformations.
+     * See {@link #reset()} and {@link #ClassWriter(ClassReader, int)}.
+     * 
+     * @param classReader
+     *            the {@link ClassReader} used to read the original class.
+     */
+    public void reset(final ClassReader classReader) {
+        reset();
+        classReader.copyPool(this);
+        this.cr = classReader;
+    }
+
+    /**
+     * Returns a code buffer for a new method. This buffer is taken from the
+     * buffers of the previous class, if possible.
+     * 
+     * @return an empty byte vector.
+     */
+    ByteVector getCodeBuffer() {
+        if (codeBufferCount > 0) {
+            ByteVector code = codeBuffers[--codeBufferCount];
+            codeBuffers[codeBufferCount] = null;
+            return code;
+        }
+        return new ByteVector();
+    }
+
     // ------------------------------------------------------------------------
     // Implementation of the ClassVisitor abstract class
     // ------------------------------------------------------------------------
@@ -738,6 +952,14 @@ public class ClassWriter extends ClassVisitor {
     @Override
     public final MethodVisitor visitMethod(final int access, final String name,
             final String desc, final String signature, final String[] exceptions) {
+        if (invalidFrameMethods != null) {
+            if (invalidFrameMethods[invalidFrameMethodCount++]) {
+                MethodWriter mw = new MethodWriter(this, access, name, desc,
+                        signature, exceptions, false, true);
+                mw.invalidFrames = true;
+                return mw;
+            }
+        }
         return new MethodWriter(this, access, name, desc, signature,
                 exceptions, computeMaxs, computeFrames);
     }
@@ -756,6 +978,224 @@ public class ClassWriter extends ClassVisitor {
      * @return the bytecode of the class that was build with this class writer.
      */
     public byte[] toByteArray() {
+        ByteVector out = put();
+        return invalidFrames ? recomputeFrames(out.data) : out.data;
+    }
+
+    /**
+     * Writes the bytecode of the class that was build with this class writer
+     * to the given output stream. This method gives the same bytes as
+     * {@link #toByteArray}, but without copying the constant pool and the
+     * method bytecode in a single byte array first, which saves memory and
+     * time for large classes.
+     * 
+     * @param os
+     *            the output stream where the class must be written. This stream
+     *            is not closed by this method.
+     * @return the number of bytes written to the given output stream.
+     * @throws IOException
+     *             if a problem occurs while writing to the output stream.
+     */
+    public int writeTo(final OutputStream os) throws IOException {
+        try {
+            byte[] b = gather();
+            int size = 0;
+            for (int i = 0; i < chunkCount; ++i) {
+                int len = chunkBounds[2 * i + 1];
+                os.write(chunks[i] == null ? b : chunks[i],
+                        chunkBounds[2 * i], len);
+                size += len;
+            }
+            return size;
+        } finally {
+            chunks = null;
+        }
+    }
+
+    /**
+     * Writes the bytecode of the class that was build with this class writer
+     * to the given channel. This method gives the same bytes as
+     * {@link #toByteArray}, but without copying the constant pool and the
+     * method bytecode in a single byte array first. If the channel is a
+     * {@link GatheringByteChannel}, these byte arrays are written with
+     * gathering write operations.
+     * 
+     * @param channel
+     *            the channel where the class must be written. This channel must
+     *            be in blocking mode. It is not closed by this method.
+     * @return the number of bytes written to the given channel.
+     * @throws IOException
+     *             if a problem occurs while writing to the channel.
+     * @throws IllegalBlockingModeException
+     *             if the channel is a {@link SelectableChannel} in non-blocking
+     *             mode, in which case nothing is written, or if a write
+     *             operation does not write any byte, in which case only a part
+     *             of the class may have been written.
+     */
+    public int writeTo(final WritableByteChannel channel) throws IOException {
+        if (channel instanceof SelectableChannel
+                && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+        ByteBuffer[] buffers;
+        int size = 0;
+        try {
+            byte[] b = gather();
+            buffers = new ByteBuffer[chunkCount];
+            for (int i = 0; i < buffers.length; ++i) {
+                int len = chunkBounds[2 * i + 1];
+                buffers[i] = ByteBuffer.wrap(chunks[i] == null ? b : chunks[i],
+                        chunkBounds[2 * i], len);
+                size += len;
+            }
+        } finally {
+            chunks = null;
+        }
+        int i = 0;
+        while (i < buffers.length) {
+            long n;
+            if (channel instanceof GatheringByteChannel) {
+                n = ((GatheringByteChannel) channel).write(buffers, i,
+                        buffers.length - i);
+            } else {
+                n = channel.write(buffers[i]);
+            }
+            if (n == 0) {
+                // a blocking channel always writes at least one byte
+                throw new IllegalBlockingModeException();
+            }
+            while (i < buffers.length && !buffers[i].hasRemaining()) {
+                ++i;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes the bytecode of the class that was build with this class writer
+     * in the given buffer, at its current position. This method gives the
+     * same bytes as {@link #toByteArray}, but without copying the constant
+     * pool and the method bytecode in a single byte array first. The position
+     * of the buffer is advanced by the size of the class.
+     * 
+     * @param buffer
+     *            the buffer where the class must be written.
+     * @return the number of bytes written in the given buffer.
+     * @throws BufferOverflowException
+     *             if the buffer does not have enough remaining bytes for the
+     *             whole class. In this case nothing is written in the buffer.
+     */
+    public int writeTo(final ByteBuffer buffer) {
+        try {
+            byte[] b = gather();
+            int size = 0;
+            for (int i = 0; i < chunkCount; ++i) {
+                size += chunkBounds[2 * i + 1];
+            }
+            if (buffer.remaining() < size) {
+                throw new BufferOverflowException();
+            }
+            for (int i = 0; i < chunkCount; ++i) {
+                buffer.put(chunks[i] == null ? b : chunks[i],
+                        chunkBounds[2 * i], chunkBounds[2 * i + 1]);
+            }
+            return size;
+        } finally {
+            chunks = null;
+        }
+    }
+
+    /**
+     * Writes the bytecode of the class that was build with this class writer
+     * as a list of chunks, in {@link #chunks} and {@link #chunkBounds}. The
+     * constant pool and the method bytecode are not copied: only references to
+     * their byte arrays are stored in {@link #chunks}. The other parts of the
+     * class are written in a byte vector.
+     * 
+     * @return the data of the byte vector in which the chunks whose array is
+     *         <tt>null</tt> in {@link #chunks} are stored.
+     */
+    private byte[] gather() {
+        chunks = new byte[16][];
+        chunkBounds = new int[32];
+        chunkCount = 0;
+        chunkStart = 0;
+        ByteVector out = put();
+        if (chunks == null) {
+            // the class must be reread to recompute its frames
+            byte[] b = recomputeFrames(out.data);
+            chunks = new byte[][] { null };
+            chunkBounds = new int[] { 0, b.length };
+            chunkCount = 1;
+            return b;
+        }
+        addChunk(null, chunkStart, out.length - chunkStart);
+        return out.data;
+    }
+
+    /**
+     * Puts the given byte array in the given byte vector. If the writeTo
+     * methods are being used, and if the array part is large enough, it is not
+     * copied but added to the list of chunks of the class being written.
+     * 
+     * @param out
+     *            the byte vector in which the class is being written.
+     * @param b
+     *            an array of bytes.
+     * @param off
+     *            index of the first byte of b that must be copied.
+     * @param len
+     *            number of bytes of b that must be copied.
+     */
+    void putByteArray(final ByteVector out, final byte[] b, final int off,
+            final int len) {
+        if (chunks == null || len < 1024) {
+            out.putByteArray(b, off, len);
+        } else {
+            addChunk(null, chunkStart, out.length - chunkStart);
+            addChunk(b, off, len);
+            chunkStart = out.length;
+        }
+    }
+
+    /**
+     * Adds a chunk to the list of chunks of the class being written.
+     * 
+     * @param b
+     *            the array of bytes of the chunk, or <tt>null</tt> if it is
+     *            stored in the byte vector in which the class is being
+     *            written.
+     * @param off
+     *            index of the first byte of the chunk.
+     * @param len
+     *            number of bytes of the chunk.
+     */
+    private void addChunk(final byte[] b, final int off, final int len) {
+        if (len == 0) {
+            return;
+        }
+        if (chunkCount == chunks.length) {
+            byte[][] newChunks = new byte[2 * chunkCount][];
+            System.arraycopy(chunks, 0, newChunks, 0, chunkCount);
+            chunks = newChunks;
+            int[] newChunkBounds = new int[4 * chunkCount];
+            System.arraycopy(chunkBounds, 0, newChunkBounds, 0, 2 * chunkCount);
+            chunkBounds = newChunkBounds;
+        }
+        chunks[chunkCount] = b;
+        chunkBounds[2 * chunkCount] = off;
+        chunkBounds[2 * chunkCount + 1] = len;
+        ++chunkCount;
+    }
+
+    /**
+     * Writes the bytecode of the class that was build with this class writer.
+     * 
+     * @return a byte vector containing the bytecode of this class, or only its
+     *         parts that are not in {@link #chunks}, if this list is not
+     *         <tt>null</tt>.
+     */
+    private ByteVector put() {
         if (index > 0xFFFF) {
             throw new RuntimeException("Class file too large!");
         }
@@ -836,11 +1276,17 @@ public class ClassWriter extends ClassVisitor {
             size += attrs.getSize(this, null, 0, -1, -1);
         }
         size += pool.length;
+        if (invalidFrames) {
+            // the class will be reread, so it must be in a single byte array
+            chunks = null;
+        }
         // allocates a byte vector of this size, in order to avoid unnecessary
-        // arraycopy operations in the ByteVector.enlarge() method
-        ByteVector out = new ByteVector(size);
+        // arraycopy operations in the ByteVector.enlarge() method (the large
+        // arrays are not copied in this byte vector when chunks are used)
+        ByteVector out = new ByteVector(chunks == null ? size : 1024);
         out.putInt(0xCAFEBABE).putInt(version);
-        out.putShort(index).putByteArray(pool.data, 0, pool.length);
+        out.putShort(index);
+        putByteArray(out, pool.data, 0, pool.length);
         int mask = Opcodes.ACC_DEPRECATED | ACC_SYNTHETIC_ATTRIBUTE
                 | ((access & ACC_SYNTHETIC_ATTRIBUTE) / TO_ACC_SYNTHETIC);
         out.putShort(access & ~mask).putShort(name).putShort(superName);
@@ -907,25 +1353,56 @@ public class ClassWriter extends ClassVisitor {
         if (attrs != null) {
             attrs.put(this, null, 0, -1, -1, out);
         }
-        if (invalidFrames) {
-            anns = null;
-            ianns = null;
-            attrs = null;
-            innerClassesCount = 0;
-            innerClasses = null;
-            bootstrapMethodsCount = 0;
-            bootstrapMethods = null;
-            firstField = null;
-            lastField = null;
-            firstMethod = null;
-            lastMethod = null;
-            computeMaxs = false;
-            computeFrames = true;
-            invalidFrames = false;
-            new ClassReader(out.data).accept(this, ClassReader.SKIP_FRAMES);
-            return toByteArray();
+        return out;
+    }
+
+    /**
+     * Rereads and rewrites the class that was build with this class writer,
+     * in order to recompute the stack map tables of the methods whose frames
+     * have been invalidated by {@link MethodWriter#resizeInstructions}.
+     * 
+     * @param b
+     *            the bytecode of this class, with invalid stack map tables.
+     * @return the bytecode of this class, with valid stack map tables.
+     */
+    private byte[] recomputeFrames(final byte[] b) {
+        int n = 0;
+        MethodWriter mw = firstMethod;
+        while (mw != null) {
+            ++n;
+            mw = (MethodWriter) mw.mv;
+        }
+        boolean[] invalidFrameMethods = new boolean[n];
+        n = 0;
+        mw = firstMethod;
+        while (mw != null) {
+            invalidFrameMethods[n++] = mw.invalidFrames;
+            mw = (MethodWriter) mw.mv;
+        }
+        anns = null;
+        ianns = null;
+        attrs = null;
+        innerClassesCount = 0;
+        innerClasses = null;
+        bootstrapMethodsCount = 0;
+        bootstrapMethods = null;
+        firstField = null;
+        lastField = null;
+        firstMethod = null;
+        lastMethod = null;
+        invalidFrames = false;
+        // the constant pool of the class being reread is the constant pool
+        // of this writer, so its methods with valid frames can be copied
+        // as is, and only the other ones are visited (without frames)
+        cr = new ClassReader(b);
+        this.invalidFrameMethods = invalidFrameMethods;
+        invalidFrameMethodCount = 0;
+        try {
+            cr.accept(this, ClassReader.SKIP_FRAMES);
+        } finally {
+            this.invalidFrameMethods = null;
         }
-        return out.data;
+        return toByteArray();
     }
 
     // ------------------------------------------------------------------------
@@ -982,7 +1459,7 @@ public class ClassWriter extends ClassVisitor {
             }
         } else if (cst instanceof Handle) {
             Handle h = (Handle) cst;
-            return newHandleItem(h.tag, h.owner, h.name, h.desc);
+            return newHandleItem(h.tag, h.owner, h.name, h.desc, h.itf);
         } else {
             throw new IllegalArgumentException("value " + cst);
         }
@@ -1117,20 +1594,20 @@ public class ClassWriter extends ClassVisitor {
      *            the name of the field or method.
      * @param desc
      *            the descriptor of the field or method.
+     * @param itf
+     *            true if the owner is an interface.
      * @return a new or an already existing method type reference item.
      */
     Item newHandleItem(final int tag, final String owner, final String name,
-            final String desc) {
+            final String desc, final boolean itf) {
         key4.set(HANDLE_BASE + tag, owner, name, desc);
+        key4.intVal = itf ? 1 : 0;
         Item result = get(key4);
         if (result == null) {
             if (tag <= Opcodes.H_PUTSTATIC) {
                 put112(HANDLE, tag, newField(owner, name, desc));
             } else {
-                put112(HANDLE,
-                        tag,
-                        newMethod(owner, name, desc,
-                                tag == Opcodes.H_INVOKEINTERFACE));
+                put112(HANDLE, tag, newMethod(owner, name, desc, itf));
             }
             result = new Item(index++, key4);
             put(result);
@@ -1163,7 +1640,38 @@ public class ClassWriter extends ClassVisitor {
      */
     public int newHandle(final int tag, final String owner, final String name,
             final String desc) {
-        return newHandleItem(tag, owner, name, desc).index;
+        return newHandle(tag, owner, name, desc,
+                tag == Opcodes.H_INVOKEINTERFACE);
+    }
+
+    /**
+     * Adds a handle to the constant pool of the class being build. Does nothing
+     * if the constant pool already contains a similar item. <i>This method is
+     * intended for {@link Attribute} sub classes, and is normally not needed by
+     * class generators or adapters.</i>
+     * 
+     * @param tag
+     *            the kind of this handle. Must be {@link Opcodes#H_GETFIELD},
+     *            {@link Opcodes#H_GETSTATIC}, {@link Opcodes#H_PUTFIELD},
+     *            {@link Opcodes#H_PUTSTATIC}, {@link Opcodes#H_INVOKEVIRTUAL},
+     *            {@link Opcodes#H_INVOKESTATIC},
+     *            {@link Opcodes#H_INVOKESPECIAL},
+     *            {@link Opcodes#H_NEWINVOKESPECIAL} or
+     *            {@link Opcodes#H_INVOKEINTERFACE}.
+     * @param owner
+     *            the internal name of the field or method owner class.
+     * @param name
+     *            the name of the field or method.
+     * @param desc
+     *            the descriptor of the field or method.
+     * @param itf
+     *            true if the owner is an interface.
+     * @return the index of a new or already existing method type reference
+     *         item.
+     */
+    public int newHandle(final int tag, final String owner, final String name,
+            final String desc, final boolean itf) {
+        return newHandleItem(tag, owner, name, desc, itf).index;
     }
 
     /**
@@ -1195,7 +1703,7 @@ public class ClassWriter extends ClassVisitor {
 
         int hashCode = bsm.hashCode();
         bootstrapMethods.putShort(newHandle(bsm.tag, bsm.owner, bsm.name,
-                bsm.desc));
+                bsm.desc, bsm.itf));
 
         int argsLength = bsmArgs.length;
         bootstrapMethods.putShort(argsLength);
@@ -1640,10 +2148,18 @@ public class ClassWriter extends ClassVisitor {
      */
     private Item get(final Item key) {
         Item i = items[key.hashCode % items.length];
-        while (i != null && (i.type != key.type || !key.isEqualTo(i))) {
+        while (i != null) {
+            if (i.hashCode == key.hashCode) {
+                if (i.type == 0) {
+                    readItem(i);
+                }
+                if (i.type == key.type && key.isEqualTo(i)) {
+                    return i;
+                }
+            }
             i = i.next;
         }
-        return i;
+        return null;
     }
 
     /**
@@ -1676,6 +2192,22 @@ public class ClassWriter extends ClassVisitor {
         items[index] = i;
     }
 
+    /**
+     * Reads a constant pool item copied from {@link #cr}, which has not been
+     * read yet.
+     * 
+     * @param item
+     *            an item whose type is 0, and whose index is the index of the
+     *            corresponding item in the constant pool of {@link #cr}.
+     */
+    private void readItem(final Item item) {
+        int n = cr.getMaxStringLength();
+        if (buf == null || buf.length < n) {
+            buf = new char[n];
+        }
+        cr.readItem(item, buf);
+    }
+
     /**
      * Puts one byte and two shorts into the constant pool.
      * 
@@ -107,4 +107,32 @@ class Context {
      * The stack values of the latest stack map frame that has been parsed.
      */
     Object[] stack;
-}
\ No newline at end of file
+
+    /**
+     * The labels of the method currently being parsed, indexed by their
+     * offset. This table is reused for all the methods of the class, and is
+     * only grown when a method's code is larger than all the previous ones.
+     */
+    Label[] labels;
+
+    /**
+     * The offsets of the non null elements of {@link #labels labels}. These
+     * offsets are used to clear the label table before parsing a new method,
+     * without clearing the whole table.
+     */
+    int[] labelOffsets;
+
+    /**
+     * The number of elements in {@link #labelOffsets labelOffsets}, or -1 if
+     * the label table may contain labels whose offset has not been recorded
+     * (in which case it must be fully cleared).
+     */
+    int labelCount;
+
+    /**
+     * The labels that can be reused for the next parsed methods, linked to
+     * each other by their {@link Label#next} field. This list is only used
+     * with the {@link ClassReader#REUSE_LABELS} option.
+     */
+    Label freeLabels;
+}
\ No newline at end of file
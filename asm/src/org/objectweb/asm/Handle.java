@@ -65,7 +65,14 @@ public final class Handle {
     final String desc;
 
     /**
-     * Constructs a new field or method handle.
+     * Indicate if the owner is an interface or not.
+     */
+    final boolean itf;
+
+    /**
+     * Constructs a new field or method handle. The owner of the designated
+     * method is an interface if, and only if, the tag is
+     * {@link Opcodes#H_INVOKEINTERFACE}.
      * 
      * @param tag
      *            the kind of field or method designated by this Handle. Must be
@@ -86,10 +93,42 @@ public final class Handle {
      *            handle.
      */
     public Handle(int tag, String owner, String name, String desc) {
+        this(tag, owner, name, desc, tag == Opcodes.H_INVOKEINTERFACE);
+    }
+
+    /**
+     * Constructs a new field or method handle.
+     * 
+     * @param tag
+     *            the kind of field or method designated by this Handle. Must be
+     *            {@link Opcodes#H_GETFIELD}, {@link Opcodes#H_GETSTATIC},
+     *            {@link Opcodes#H_PUTFIELD}, {@link Opcodes#H_PUTSTATIC},
+     *            {@link Opcodes#H_INVOKEVIRTUAL},
+     *            {@link Opcodes#H_INVOKESTATIC},
+     *            {@link Opcodes#H_INVOKESPECIAL},
+     *            {@link Opcodes#H_NEWINVOKESPECIAL} or
+     *            {@link Opcodes#H_INVOKEINTERFACE}.
+     * @param owner
+     *            the internal name of the class that owns the field or method
+     *            designated by this handle.
+     * @param name
+     *            the name of the field or method designated by this handle.
+     * @param desc
+     *            the descriptor of the field or method designated by this
+     *            handle.
+     * @param itf
+     *            true if the owner is an interface. This is the case for
+     *            {@link Opcodes#H_INVOKEINTERFACE} handles, and for
+     *            {@link Opcodes#H_INVOKESTATIC} and
+     *            {@link Opcodes#H_INVOKESPECIAL} handles designating a static
+     *            or default interface method.
+     */
+    public Handle(int tag, String owner, String name, String desc, boolean itf) {
         this.tag = tag;
         this.owner = owner;
         this.name = name;
         this.desc = desc;
+        this.itf = itf;
     }
 
     /**
@@ -135,6 +174,17 @@ public final class Handle {
         return desc;
     }
 
+    /**
+     * Returns true if the owner of the field or method designated by this
+     * handle is an interface.
+     * 
+     * @return true if the owner of the field or method designated by this
+     *         handle is an interface.
+     */
+    public boolean isInterface() {
+        return itf;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
@@ -144,13 +194,14 @@ public final class Handle {
             return false;
         }
         Handle h = (Handle) obj;
-        return tag == h.tag && owner.equals(h.owner) && name.equals(h.name)
-                && desc.equals(h.desc);
+        return tag == h.tag && itf == h.itf && owner.equals(h.owner)
+                && name.equals(h.name) && desc.equals(h.desc);
     }
 
     @Override
     public int hashCode() {
-        return tag + owner.hashCode() * name.hashCode() * desc.hashCode();
+        return tag + (itf ? 64 : 0) + owner.hashCode() * name.hashCode()
+                * desc.hashCode();
     }
 
     /**
@@ -158,13 +209,14 @@ public final class Handle {
      * representation is:
      * 
      * <pre>
-     * owner '.' name desc ' ' '(' tag ')'
+     * owner '.' name desc ' ' '(' tag ')' [ ' ' itf ]
      * </pre>
      * 
      * . As this format is unambiguous, it can be parsed if necessary.
      */
     @Override
     public String toString() {
-        return owner + '.' + name + desc + " (" + tag + ')';
+        return owner + '.' + name + desc + " (" + tag + ')'
+                + (itf != (tag == Opcodes.H_INVOKEINTERFACE) ? " itf" : "");
     }
 }
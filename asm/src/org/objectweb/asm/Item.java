@@ -63,11 +63,15 @@ final class Item {
      * pool's hash table. These special item types are
      * {@link ClassWriter#TYPE_NORMAL}, {@link ClassWriter#TYPE_UNINIT} and
      * {@link ClassWriter#TYPE_MERGED}.
+     * 
+     * The type of the items copied from a {@link ClassReader} is 0 until they
+     * are read (see {@link ClassReader#copyPool copyPool}).
      */
     int type;
 
     /**
-     * Value of this item, for an integer item.
+     * Value of this item, for an integer item. For a method handle item, 1 if
+     * the owner of the designated method is an interface, and 0 otherwise.
      */
     int intVal;
 
@@ -304,7 +308,8 @@ final class Item {
         // case ClassWriter.HANDLE_BASE + 1..9
         default:
             return i.strVal1.equals(strVal1) && i.strVal2.equals(strVal2)
-                    && i.strVal3.equals(strVal3);
+                    && i.strVal3.equals(strVal3)
+                    && (type <= ClassWriter.HANDLE_BASE || i.intVal == intVal);
         }
     }
 
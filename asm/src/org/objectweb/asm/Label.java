@@ -59,8 +59,10 @@ public class Label {
     static final int RESIZED = 4;
 
     /**
-     * Indicates if this basic block has been pushed in the basic block stack.
-     * See {@link MethodWriter#visitMaxs visitMaxs}.
+     * Indicates if this basic block has been pushed in the basic block stack
+     * or, with {@link ClassWriter#COMPUTE_FRAMES}, if its input frame has
+     * changed and must be processed again. See {@link MethodWriter#visitMaxs
+     * visitMaxs}.
      */
     static final int PUSHED = 8;
 
@@ -235,6 +237,13 @@ public class Label {
      */
     Edge successors;
 
+    /**
+     * The index of this basic block in the list of basic blocks of its method,
+     * when the control flow graph is stored in arrays. See
+     * {@link MethodWriter#visitMaxs visitMaxs}.
+     */
+    int index;
+
     /**
      * The next basic block in the basic block stack. This stack is used in the
      * main loop of the fix point algorithm used in the second step of the
@@ -423,6 +432,25 @@ public class Label {
         return !ClassReader.FRAMES || frame == null ? this : frame.owner;
     }
 
+    /**
+     * Resets this label to its initial state, so that it can be reused in
+     * another method. The forward references array is kept, to be reused too.
+     * See {@link ClassReader#REUSE_LABELS}.
+     */
+    void reset() {
+        info = null;
+        status = 0;
+        line = 0;
+        position = 0;
+        referenceCount = 0;
+        inputStackTop = 0;
+        outputStackMax = 0;
+        frame = null;
+        successor = null;
+        successors = null;
+        next = null;
+    }
+
     // ------------------------------------------------------------------------
     // Methods related to subroutines
     // ------------------------------------------------------------------------
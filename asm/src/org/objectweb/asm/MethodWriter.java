@@ -216,7 +216,7 @@ class MethodWriter extends MethodVisitor {
     /**
      * The bytecode of this method.
      */
-    private ByteVector code = new ByteVector();
+    ByteVector code;
 
     /**
      * Maximum stack size of this method.
@@ -322,6 +322,13 @@ class MethodWriter extends MethodVisitor {
      */
     private boolean resize;
 
+    /**
+     * Indicates if the stack map table of this method has been invalidated by
+     * {@link #resizeInstructions}, and must be recomputed. Such a method is
+     * never copied as is from a {@link ClassReader}.
+     */
+    boolean invalidFrames;
+
     /**
      * The number of subroutines in this method.
      */
@@ -385,6 +392,20 @@ class MethodWriter extends MethodVisitor {
      */
     private int maxStackSize;
 
+    /**
+     * The number of basic blocks processed by the fix point algorithm that
+     * computes the stack map frames of this method. This counter and
+     * {@link #merges} are only read by the tests and benchmarks of this
+     * package, and are deliberately not part of the public API.
+     */
+    int iterations;
+
+    /**
+     * The number of {@link Frame#merge merge} operations done by the fix point
+     * algorithm that computes the stack map frames of this method.
+     */
+    int merges;
+
     // ------------------------------------------------------------------------
     // Constructor
     // ------------------------------------------------------------------------
@@ -424,6 +445,7 @@ class MethodWriter extends MethodVisitor {
         }
         cw.lastMethod = this;
         this.cw = cw;
+        this.code = cw.getCodeBuffer();
         this.access = access;
         if ("<init>".equals(name)) {
             this.access |= ACC_CONSTRUCTOR;
@@ -651,7 +673,7 @@ class MethodWriter extends MethodVisitor {
                 currentBlock.frame.execute(opcode, 0, null, null);
             } else {
                 // updates current and max stack sizes
-                int size = stackSize + Frame.SIZE[opcode];
+                int size = stackSize + OpcodeTable.SIZE[opcode];
                 if (size > maxStackSize) {
                     maxStackSize = size;
                 }
@@ -705,7 +727,7 @@ class MethodWriter extends MethodVisitor {
                     currentBlock.inputStackTop = stackSize;
                     noSuccessor();
                 } else { // xLOAD or xSTORE
-                    int size = stackSize + Frame.SIZE[opcode];
+                    int size = stackSize + OpcodeTable.SIZE[opcode];
                     if (size > maxStackSize) {
                         maxStackSize = size;
                     }
@@ -809,7 +831,13 @@ class MethodWriter extends MethodVisitor {
     @Override
     public void visitMethodInsn(final int opcode, final String owner,
             final String name, final String desc) {
-        boolean itf = opcode == Opcodes.INVOKEINTERFACE;
+        visitMethodInsn(opcode, owner, name, desc,
+                opcode == Opcodes.INVOKEINTERFACE);
+    }
+
+    @Override
+    public void visitMethodInsn(final int opcode, final String owner,
+            final String name, final String desc, final boolean itf) {
         Item i = cw.newMethodItem(owner, name, desc, itf);
         int argSize = i.intVal;
         // Label currentBlock = this.currentBlock;
@@ -847,7 +875,7 @@ class MethodWriter extends MethodVisitor {
             }
         }
         // adds the instruction to the bytecode of the method
-        if (itf) {
+        if (opcode == Opcodes.INVOKEINTERFACE) {
             if (argSize == 0) {
                 argSize = Type.getArgumentsAndReturnSizes(desc);
                 i.intVal = argSize;
@@ -933,7 +961,7 @@ class MethodWriter extends MethodVisitor {
                     // updates current stack size (max stack size unchanged
                     // because stack size variation always negative in this
                     // case)
-                    stackSize += Frame.SIZE[opcode];
+                    stackSize += OpcodeTable.SIZE[opcode];
                     addSuccessor(stackSize, label);
                 }
             }
@@ -1273,43 +1301,11 @@ class MethodWriter extends MethodVisitor {
 
             /*
              * fix point algorithm: mark the first basic block as 'changed'
-             * (i.e. put it in the 'changed' list) and, while there are changed
-             * basic blocks, choose one, mark it as unchanged, and update its
+             * and, while there are changed basic blocks, choose the first one
+             * in reverse postorder, mark it as unchanged, and update its
              * successors (which can be changed in the process).
              */
-            int max = 0;
-            Label changed = labels;
-            while (changed != null) {
-                // removes a basic block from the list of changed basic blocks
-                Label l = changed;
-                changed = changed.next;
-                l.next = null;
-                f = l.frame;
-                // a reachable jump target must be stored in the stack map
-                if ((l.status & Label.TARGET) != 0) {
-                    l.status |= Label.STORE;
-                }
-                // all visited labels are reachable, by definition
-                l.status |= Label.REACHABLE;
-                // updates the (absolute) maximum stack size
-                int blockMax = f.inputStack.length + l.outputStackMax;
-                if (blockMax > max) {
-                    max = blockMax;
-                }
-                // updates the successors of the current basic block
-                Edge e = l.successors;
-                while (e != null) {
-                    Label n = e.successor.getFirst();
-                    boolean change = f.merge(cw, n.frame, e.info);
-                    if (change && n.next == null) {
-                        // if n has changed and is not already in the 'changed'
-                        // list, adds it to this list
-                        n.next = changed;
-                        changed = n;
-                    }
-                    e = e.next;
-                }
-            }
+            int max = fixPoint();
 
             // visits all the frames that must be stored in the stack map
             Label l = labels;
@@ -1501,6 +1497,189 @@ class MethodWriter extends MethodVisitor {
         currentBlock.successors = b;
     }
 
+    /**
+     * Computes the input frames of the basic blocks of this method, and its
+     * maximum stack size, with the fix point algorithm described in
+     * {@link #visitMaxs visitMaxs}. This algorithm uses an array based
+     * representation of the control flow graph, built from the
+     * {@link Label#successors} lists. The input frame of the first basic block
+     * must already be initialized.
+     * 
+     * @return the maximum stack size of this method.
+     */
+    private int fixPoint() {
+        // finds the basic blocks, and sets their index
+        int n = 0;
+        int edges = 0;
+        for (Label l = labels; l != null; l = l.successor) {
+            ++n;
+            for (Edge e = l.successors; e != null; e = e.next) {
+                ++edges;
+            }
+        }
+        Label[] blocks = cw.blocks;
+        cw.blocks = null;
+        if (blocks == null || blocks.length < n) {
+            blocks = new Label[n];
+        }
+        n = 0;
+        for (Label l = labels; l != null; l = l.successor) {
+            l.index = n;
+            blocks[n++] = l;
+        }
+
+        /*
+         * builds the successors of the basic blocks, in compressed sparse row
+         * format: the successors of the i-th block are stored between the
+         * indexes graph[i] and graph[i + 1], as pairs of integers containing
+         * the index of the successor block and the info of the edge to this
+         * block. The successors of each block are stored in the reverse order
+         * of their creation, i.e. in the same order as in the Edge lists. The
+         * elements after the successors are used by the algorithms below.
+         */
+        int[] graph = cw.graph;
+        cw.graph = null;
+        if (graph == null || graph.length < 5 * n + 1 + 2 * edges) {
+            graph = new int[5 * n + 1 + 2 * edges];
+        } else {
+            for (int i = 0; i < n; ++i) {
+                graph[i] = 0;
+            }
+        }
+        // counts the successors of each block, ignoring the edges to labels
+        // that do not designate a basic block of this method
+        for (int i = 0; i < n; ++i) {
+            Edge e = blocks[i].successors;
+            while (e != null) {
+                Label l = e.successor.getFirst();
+                if (l.index < n && blocks[l.index] == l) {
+                    graph[i] += 2;
+                }
+                e = e.next;
+            }
+        }
+        // computes the end of the successor list of each block
+        int end = n + 1;
+        for (int i = 0; i < n; ++i) {
+            end += graph[i];
+            graph[i] = end;
+        }
+        graph[n] = end;
+        // fills the successor lists in the order of the Edge lists
+        int p = n + 1;
+        for (int i = 0; i < n; ++i) {
+            graph[i] = p;
+            Edge e = blocks[i].successors;
+            while (e != null) {
+                Label l = e.successor.getFirst();
+                if (l.index < n && blocks[l.index] == l) {
+                    graph[p] = l.index;
+                    graph[p + 1] = e.info;
+                    p += 2;
+                }
+                e = e.next;
+            }
+        }
+
+        int max = 0;
+        /*
+         * computes a reverse postorder of the blocks that are reachable
+         * from the first one, with a depth first search. The position of
+         * each block in this order is stored at index 'rpo' plus the index
+         * of this block (or -1 if this block is not reachable), and the
+         * blocks in this order are stored at index 'order' plus their
+         * position. The depth first search stack starts at 'stack' and
+         * contains pairs made of a block index and of the index of the
+         * next successor of this block to be visited.
+         */
+        int rpo = end;
+        int order = end + n;
+        int stack = end + 2 * n;
+        for (int i = 1; i < n; ++i) {
+            graph[rpo + i] = -1;
+        }
+        graph[rpo] = n;
+        graph[stack] = 0;
+        graph[stack + 1] = graph[0];
+        int top = stack + 2;
+        int first = n;
+        while (top > stack) {
+            int i = graph[top - 2];
+            int j = graph[top - 1];
+            if (j < graph[i + 1]) {
+                // visits the next successor of the block on top of stack
+                graph[top - 1] = j + 2;
+                int k = graph[j];
+                if (graph[rpo + k] == -1) {
+                    graph[rpo + k] = n;
+                    graph[top] = k;
+                    graph[top + 1] = graph[k];
+                    top += 2;
+                }
+            } else {
+                // all the successors of this block have been visited
+                top -= 2;
+                graph[rpo + i] = --first;
+                graph[order + first] = i;
+            }
+        }
+
+        /*
+         * processes the changed blocks, whose PUSHED flag is set, in
+         * reverse postorder. When the input frame of a block that has
+         * already been processed changes, i.e. when this block is the
+         * header of a loop, the algorithm goes back to this block. Hence
+         * the blocks of a loop are processed again only after all the
+         * blocks leading to its header have been processed.
+         */
+        int c = first;
+        while (c < n) {
+            int i = graph[order + c];
+            Label l = blocks[i];
+            if ((l.status & Label.PUSHED) == 0) {
+                ++c;
+                continue;
+            }
+            l.status &= ~Label.PUSHED;
+            ++iterations;
+            Frame f = l.frame;
+            // a reachable jump target must be stored in the stack map
+            if ((l.status & Label.TARGET) != 0) {
+                l.status |= Label.STORE;
+            }
+            // all visited labels are reachable, by definition
+            l.status |= Label.REACHABLE;
+            // updates the (absolute) maximum stack size
+            int blockMax = f.inputStack.length + l.outputStackMax;
+            if (blockMax > max) {
+                max = blockMax;
+            }
+            // updates the successors of the current basic block, and finds
+            // the next block to be processed
+            int next = c + 1;
+            for (int j = graph[i]; j < graph[i + 1]; j += 2) {
+                Label k = blocks[graph[j]];
+                ++merges;
+                boolean change = f.merge(cw, k.frame, graph[j + 1]);
+                if (change && (k.status & Label.PUSHED) == 0) {
+                    k.status |= Label.PUSHED;
+                    if (graph[rpo + graph[j]] < next) {
+                        next = graph[rpo + graph[j]];
+                    }
+                }
+            }
+            c = next;
+        }
+
+        // gives the other arrays back to the class writer
+        for (int i = 0; i < n; ++i) {
+            blocks[i] = null;
+        }
+        cw.blocks = blocks;
+        cw.graph = graph;
+        return max;
+    }
+
     /**
      * Ends the current basic block. This method must be used in the case where
      * the current basic block does not have any successor.
@@ -1961,7 +2140,7 @@ class MethodWriter extends MethodVisitor {
                 | ((access & ClassWriter.ACC_SYNTHETIC_ATTRIBUTE) / FACTOR);
         out.putShort(access & ~mask).putShort(name).putShort(desc);
         if (classReaderOffset != 0) {
-            out.putByteArray(cw.cr.b, classReaderOffset, classReaderLength);
+            cw.putByteArray(out, cw.cr.b, classReaderOffset, classReaderLength);
             return;
         }
         int attributeCount = 0;
@@ -2022,7 +2201,8 @@ class MethodWriter extends MethodVisitor {
             }
             out.putShort(cw.newUTF8("Code")).putInt(size);
             out.putShort(maxStack).putShort(maxLocals);
-            out.putInt(code.length).putByteArray(code.data, 0, code.length);
+            out.putInt(code.length);
+            cw.putByteArray(out, code.data, 0, code.length);
             out.putShort(handlerCount);
             if (handlerCount > 0) {
                 Handler h = firstHandler;
@@ -2494,12 +2674,14 @@ class MethodWriter extends MethodVisitor {
                  * inserting frames can change the format of the following
                  * frames, in case of packed frames. In practice the whole table
                  * must be recomputed. For this the frames are marked as
-                 * potentially invalid. This will cause the whole class to be
-                 * reread and rewritten with the COMPUTE_FRAMES option (see the
+                 * potentially invalid. This will cause the class to be reread,
+                 * and this method to be rewritten with the COMPUTE_FRAMES
+                 * option, the other methods being copied as is (see the
                  * ClassWriter.toByteArray method). This is not very efficient
                  * but is much easier and requires much less code than any other
                  * method I can think of.
                  */
+                invalidFrames = true;
                 cw.invalidFrames = true;
             }
         }
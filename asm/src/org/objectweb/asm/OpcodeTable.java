@@ -0,0 +1,557 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+/**
+ * Static properties of the JVM instructions. This class gives, for each
+ * opcode, the {@link MethodVisitor} method that visits the corresponding
+ * instructions, its effect on the control flow, the number of stack words
+ * that it pops and pushes, and its length in bytes. These properties are used
+ * by {@link MethodWriter} to compute the maximum stack size of methods, and by
+ * the <tt>commons</tt> and <tt>tree.analysis</tt> packages, which can thus
+ * replace instanceof tests and opcode ranges with a table lookup.
+ * <p>
+ * All the methods of this class take a JVM opcode between 0 and 201
+ * (inclusive), including the opcodes that are not used by {@link Opcodes},
+ * such as <tt>ILOAD_0</tt> or <tt>GOTO_W</tt>.
+ */
+public final class OpcodeTable {
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitInsn visitInsn}.
+     */
+    public static final int INSN = 0;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitIntInsn visitIntInsn}.
+     */
+    public static final int INT_INSN = 1;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitVarInsn visitVarInsn}.
+     */
+    public static final int VAR_INSN = 2;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitTypeInsn visitTypeInsn}.
+     */
+    public static final int TYPE_INSN = 3;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitFieldInsn visitFieldInsn}.
+     */
+    public static final int FIELD_INSN = 4;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitMethodInsn visitMethodInsn}.
+     */
+    public static final int METHOD_INSN = 5;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitInvokeDynamicInsn visitInvokeDynamicInsn}.
+     */
+    public static final int INVOKE_DYNAMIC_INSN = 6;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitJumpInsn visitJumpInsn}.
+     */
+    public static final int JUMP_INSN = 7;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitLdcInsn visitLdcInsn}.
+     */
+    public static final int LDC_INSN = 9;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitIincInsn visitIincInsn}.
+     */
+    public static final int IINC_INSN = 10;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitTableSwitchInsn visitTableSwitchInsn}.
+     */
+    public static final int TABLESWITCH_INSN = 11;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitLookupSwitchInsn visitLookupSwitchInsn}.
+     */
+    public static final int LOOKUPSWITCH_INSN = 12;
+
+    /**
+     * The type of the instructions visited with
+     * {@link MethodVisitor#visitMultiANewArrayInsn visitMultiANewArrayInsn}.
+     */
+    public static final int MULTIANEWARRAY_INSN = 13;
+
+    /**
+     * The control flow of the instructions that always continue with the next
+     * instruction, unless they throw an exception.
+     */
+    public static final int FLOW_NEXT = 0;
+
+    /**
+     * The control flow of the conditional jump instructions, which continue
+     * either with the next instruction or with their target.
+     */
+    public static final int FLOW_JUMP = 1;
+
+    /**
+     * The control flow of the GOTO instructions, which always continue with
+     * their target.
+     */
+    public static final int FLOW_GOTO = 2;
+
+    /**
+     * The control flow of the JSR instructions, which continue with their
+     * target and, after the corresponding RET, with the next instruction.
+     */
+    public static final int FLOW_JSR = 3;
+
+    /**
+     * The control flow of the RET instruction, which continues after the JSR
+     * instruction that called the current subroutine.
+     */
+    public static final int FLOW_RET = 4;
+
+    /**
+     * The control flow of the switch instructions, which continue with one of
+     * their targets.
+     */
+    public static final int FLOW_SWITCH = 5;
+
+    /**
+     * The control flow of the xRETURN instructions, which end the method.
+     */
+    public static final int FLOW_RETURN = 6;
+
+    /**
+     * The control flow of the ATHROW instruction, which continues with an
+     * exception handler or ends the method.
+     */
+    public static final int FLOW_THROW = 7;
+
+    /**
+     * The type of each instruction, or -1 for the opcodes that are not used by
+     * {@link MethodVisitor}.
+     */
+    private static final byte[] TYPE;
+
+    /**
+     * The control flow of each instruction.
+     */
+    private static final byte[] FLOW;
+
+    /**
+     * The number of stack words popped by each instruction, or -1 if this
+     * number depends on the operands of the instruction.
+     */
+    private static final byte[] POPS;
+
+    /**
+     * The number of stack words pushed by each instruction, or -1 if this
+     * number depends on the operands of the instruction.
+     */
+    private static final byte[] PUSHES;
+
+    /**
+     * The length in bytes of each instruction, in its shortest form, or 0 if
+     * this length depends on the operands of the instruction.
+     */
+    private static final byte[] LENGTH;
+
+    /**
+     * The stack size variation of each instruction, i.e. the number of words
+     * that it pushes minus the number of words that it pops, or 0 if this
+     * variation depends on the operands of the instruction.
+     */
+    static final int[] SIZE;
+
+    /**
+     * Computes the properties of each JVM instruction.
+     */
+    static {
+        TYPE = decode("AAAAAAAAAAAAAAAABBJ@@CCCCC@@@@@@@@@@@@@@@@@@@@AAAAAAAA"
+                + "CCCCC@@@@@@@@@@@@@@@@@@@@AAAAAAAAAAAAAAAAAAAAAAAAAAAAA"
+                + "AAAAAAAAAAAAAAAAAAAAAAAAKAAAAAAAAAAAAAAAAAAAAHHHHHHHHH"
+                + "HHHHHHHCLMAAAAAAEEEEFFFFGDBDAADDAA@NHH@@");
+        FLOW = decode("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"
+                + "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"
+                + "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAABBBBBBBBB"
+                + "BBBBBCDEFFGGGGGGAAAAAAAAAAAAAHAAAAAABBCD");
+        POPS = decode("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAACCCCCCCC"
+                + "BCBCBBBBBCCCCBBBBCCCCBBBBDEDEDDDDBCBCDCDECCECECECECECE"
+                + "CECECECEBCBCCDCDCDCECECEABBBCCCBBBCCCBBBECCEEBBBBBBCCC"
+                + "CCCCCAAABBBCBCBA@@@@@@@@@ABBBBBBBBA@BBAA");
+        PUSHES = decode("ABBBBBBBBCCBBBCCBB@BCBCBCBBBBBCCCCBBBBCCCCBBBBBCBCBBBB"
+                + "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAACDEEFGCBCBCBCBCBCBC"
+                + "BCBCBCBCBCBCBCBCBCBCBCBCACBCBBCBCCBCBBBBBBBBBAAAAAAAAA"
+                + "AAAAAABAAAAAAAAA@@@@@@@@@BBBBABBAAA@AAAB");
+        LENGTH = decode("BBBBBBBBBBBBBBBBCDCDDCCCCCBBBBBBBBBBBBBBBBBBBBBBBBBBBB"
+                + "CCCCCBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBBB"
+                + "BBBBBBBBBBBBBBBBBBBBBBBBDBBBBBBBBBBBBBBBBBBBBDDDDDDDDD"
+                + "DDDDDDDCAABBBBBBDDDDDDDFFDCDBBDDBBAEDDFF");
+
+        int[] b = new int[POPS.length];
+        for (int i = 0; i < b.length; ++i) {
+            if (POPS[i] >= 0 && PUSHES[i] >= 0) {
+                b[i] = PUSHES[i] - POPS[i];
+            }
+        }
+        SIZE = b;
+
+        // code to generate the above strings
+        //
+        // int NA = -1; // not applicable (unused or variable size opcode)
+        //
+        // int[][] p = new int[][] {
+        // // type, flow, pops, pushes, length
+        // { INSN, FLOW_NEXT, 0, 0, 1 }, // NOP
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // ACONST_NULL
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // ICONST_M1
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // ICONST_0
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // ICONST_1
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // ICONST_2
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // ICONST_3
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // ICONST_4
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // ICONST_5
+        // { INSN, FLOW_NEXT, 0, 2, 1 }, // LCONST_0
+        // { INSN, FLOW_NEXT, 0, 2, 1 }, // LCONST_1
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // FCONST_0
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // FCONST_1
+        // { INSN, FLOW_NEXT, 0, 1, 1 }, // FCONST_2
+        // { INSN, FLOW_NEXT, 0, 2, 1 }, // DCONST_0
+        // { INSN, FLOW_NEXT, 0, 2, 1 }, // DCONST_1
+        // { INT_INSN, FLOW_NEXT, 0, 1, 2 }, // BIPUSH
+        // { INT_INSN, FLOW_NEXT, 0, 1, 3 }, // SIPUSH
+        // { LDC_INSN, FLOW_NEXT, 0, NA, 2 }, // LDC
+        // { NA, FLOW_NEXT, 0, 1, 3 }, // LDC_W
+        // { NA, FLOW_NEXT, 0, 2, 3 }, // LDC2_W
+        // { VAR_INSN, FLOW_NEXT, 0, 1, 2 }, // ILOAD
+        // { VAR_INSN, FLOW_NEXT, 0, 2, 2 }, // LLOAD
+        // { VAR_INSN, FLOW_NEXT, 0, 1, 2 }, // FLOAD
+        // { VAR_INSN, FLOW_NEXT, 0, 2, 2 }, // DLOAD
+        // { VAR_INSN, FLOW_NEXT, 0, 1, 2 }, // ALOAD
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // ILOAD_0
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // ILOAD_1
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // ILOAD_2
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // ILOAD_3
+        // { NA, FLOW_NEXT, 0, 2, 1 }, // LLOAD_0
+        // { NA, FLOW_NEXT, 0, 2, 1 }, // LLOAD_1
+        // { NA, FLOW_NEXT, 0, 2, 1 }, // LLOAD_2
+        // { NA, FLOW_NEXT, 0, 2, 1 }, // LLOAD_3
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // FLOAD_0
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // FLOAD_1
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // FLOAD_2
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // FLOAD_3
+        // { NA, FLOW_NEXT, 0, 2, 1 }, // DLOAD_0
+        // { NA, FLOW_NEXT, 0, 2, 1 }, // DLOAD_1
+        // { NA, FLOW_NEXT, 0, 2, 1 }, // DLOAD_2
+        // { NA, FLOW_NEXT, 0, 2, 1 }, // DLOAD_3
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // ALOAD_0
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // ALOAD_1
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // ALOAD_2
+        // { NA, FLOW_NEXT, 0, 1, 1 }, // ALOAD_3
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IALOAD
+        // { INSN, FLOW_NEXT, 2, 2, 1 }, // LALOAD
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // FALOAD
+        // { INSN, FLOW_NEXT, 2, 2, 1 }, // DALOAD
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // AALOAD
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // BALOAD
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // CALOAD
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // SALOAD
+        // { VAR_INSN, FLOW_NEXT, 1, 0, 2 }, // ISTORE
+        // { VAR_INSN, FLOW_NEXT, 2, 0, 2 }, // LSTORE
+        // { VAR_INSN, FLOW_NEXT, 1, 0, 2 }, // FSTORE
+        // { VAR_INSN, FLOW_NEXT, 2, 0, 2 }, // DSTORE
+        // { VAR_INSN, FLOW_NEXT, 1, 0, 2 }, // ASTORE
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // ISTORE_0
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // ISTORE_1
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // ISTORE_2
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // ISTORE_3
+        // { NA, FLOW_NEXT, 2, 0, 1 }, // LSTORE_0
+        // { NA, FLOW_NEXT, 2, 0, 1 }, // LSTORE_1
+        // { NA, FLOW_NEXT, 2, 0, 1 }, // LSTORE_2
+        // { NA, FLOW_NEXT, 2, 0, 1 }, // LSTORE_3
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // FSTORE_0
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // FSTORE_1
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // FSTORE_2
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // FSTORE_3
+        // { NA, FLOW_NEXT, 2, 0, 1 }, // DSTORE_0
+        // { NA, FLOW_NEXT, 2, 0, 1 }, // DSTORE_1
+        // { NA, FLOW_NEXT, 2, 0, 1 }, // DSTORE_2
+        // { NA, FLOW_NEXT, 2, 0, 1 }, // DSTORE_3
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // ASTORE_0
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // ASTORE_1
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // ASTORE_2
+        // { NA, FLOW_NEXT, 1, 0, 1 }, // ASTORE_3
+        // { INSN, FLOW_NEXT, 3, 0, 1 }, // IASTORE
+        // { INSN, FLOW_NEXT, 4, 0, 1 }, // LASTORE
+        // { INSN, FLOW_NEXT, 3, 0, 1 }, // FASTORE
+        // { INSN, FLOW_NEXT, 4, 0, 1 }, // DASTORE
+        // { INSN, FLOW_NEXT, 3, 0, 1 }, // AASTORE
+        // { INSN, FLOW_NEXT, 3, 0, 1 }, // BASTORE
+        // { INSN, FLOW_NEXT, 3, 0, 1 }, // CASTORE
+        // { INSN, FLOW_NEXT, 3, 0, 1 }, // SASTORE
+        // { INSN, FLOW_NEXT, 1, 0, 1 }, // POP
+        // { INSN, FLOW_NEXT, 2, 0, 1 }, // POP2
+        // { INSN, FLOW_NEXT, 1, 2, 1 }, // DUP
+        // { INSN, FLOW_NEXT, 2, 3, 1 }, // DUP_X1
+        // { INSN, FLOW_NEXT, 3, 4, 1 }, // DUP_X2
+        // { INSN, FLOW_NEXT, 2, 4, 1 }, // DUP2
+        // { INSN, FLOW_NEXT, 3, 5, 1 }, // DUP2_X1
+        // { INSN, FLOW_NEXT, 4, 6, 1 }, // DUP2_X2
+        // { INSN, FLOW_NEXT, 2, 2, 1 }, // SWAP
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IADD
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // LADD
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // FADD
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // DADD
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // ISUB
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // LSUB
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // FSUB
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // DSUB
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IMUL
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // LMUL
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // FMUL
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // DMUL
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IDIV
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // LDIV
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // FDIV
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // DDIV
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IREM
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // LREM
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // FREM
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // DREM
+        // { INSN, FLOW_NEXT, 1, 1, 1 }, // INEG
+        // { INSN, FLOW_NEXT, 2, 2, 1 }, // LNEG
+        // { INSN, FLOW_NEXT, 1, 1, 1 }, // FNEG
+        // { INSN, FLOW_NEXT, 2, 2, 1 }, // DNEG
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // ISHL
+        // { INSN, FLOW_NEXT, 3, 2, 1 }, // LSHL
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // ISHR
+        // { INSN, FLOW_NEXT, 3, 2, 1 }, // LSHR
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IUSHR
+        // { INSN, FLOW_NEXT, 3, 2, 1 }, // LUSHR
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IAND
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // LAND
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IOR
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // LOR
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // IXOR
+        // { INSN, FLOW_NEXT, 4, 2, 1 }, // LXOR
+        // { IINC_INSN, FLOW_NEXT, 0, 0, 3 }, // IINC
+        // { INSN, FLOW_NEXT, 1, 2, 1 }, // I2L
+        // { INSN, FLOW_NEXT, 1, 1, 1 }, // I2F
+        // { INSN, FLOW_NEXT, 1, 2, 1 }, // I2D
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // L2I
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // L2F
+        // { INSN, FLOW_NEXT, 2, 2, 1 }, // L2D
+        // { INSN, FLOW_NEXT, 1, 1, 1 }, // F2I
+        // { INSN, FLOW_NEXT, 1, 2, 1 }, // F2L
+        // { INSN, FLOW_NEXT, 1, 2, 1 }, // F2D
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // D2I
+        // { INSN, FLOW_NEXT, 2, 2, 1 }, // D2L
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // D2F
+        // { INSN, FLOW_NEXT, 1, 1, 1 }, // I2B
+        // { INSN, FLOW_NEXT, 1, 1, 1 }, // I2C
+        // { INSN, FLOW_NEXT, 1, 1, 1 }, // I2S
+        // { INSN, FLOW_NEXT, 4, 1, 1 }, // LCMP
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // FCMPL
+        // { INSN, FLOW_NEXT, 2, 1, 1 }, // FCMPG
+        // { INSN, FLOW_NEXT, 4, 1, 1 }, // DCMPL
+        // { INSN, FLOW_NEXT, 4, 1, 1 }, // DCMPG
+        // { JUMP_INSN, FLOW_JUMP, 1, 0, 3 }, // IFEQ
+        // { JUMP_INSN, FLOW_JUMP, 1, 0, 3 }, // IFNE
+        // { JUMP_INSN, FLOW_JUMP, 1, 0, 3 }, // IFLT
+        // { JUMP_INSN, FLOW_JUMP, 1, 0, 3 }, // IFGE
+        // { JUMP_INSN, FLOW_JUMP, 1, 0, 3 }, // IFGT
+        // { JUMP_INSN, FLOW_JUMP, 1, 0, 3 }, // IFLE
+        // { JUMP_INSN, FLOW_JUMP, 2, 0, 3 }, // IF_ICMPEQ
+        // { JUMP_INSN, FLOW_JUMP, 2, 0, 3 }, // IF_ICMPNE
+        // { JUMP_INSN, FLOW_JUMP, 2, 0, 3 }, // IF_ICMPLT
+        // { JUMP_INSN, FLOW_JUMP, 2, 0, 3 }, // IF_ICMPGE
+        // { JUMP_INSN, FLOW_JUMP, 2, 0, 3 }, // IF_ICMPGT
+        // { JUMP_INSN, FLOW_JUMP, 2, 0, 3 }, // IF_ICMPLE
+        // { JUMP_INSN, FLOW_JUMP, 2, 0, 3 }, // IF_ACMPEQ
+        // { JUMP_INSN, FLOW_JUMP, 2, 0, 3 }, // IF_ACMPNE
+        // { JUMP_INSN, FLOW_GOTO, 0, 0, 3 }, // GOTO
+        // { JUMP_INSN, FLOW_JSR, 0, 1, 3 }, // JSR
+        // { VAR_INSN, FLOW_RET, 0, 0, 2 }, // RET
+        // { TABLESWITCH_INSN, FLOW_SWITCH, 1, 0, 0 }, // TABLESWITCH
+        // { LOOKUPSWITCH_INSN, FLOW_SWITCH, 1, 0, 0 }, // LOOKUPSWITCH
+        // { INSN, FLOW_RETURN, 1, 0, 1 }, // IRETURN
+        // { INSN, FLOW_RETURN, 2, 0, 1 }, // LRETURN
+        // { INSN, FLOW_RETURN, 1, 0, 1 }, // FRETURN
+        // { INSN, FLOW_RETURN, 2, 0, 1 }, // DRETURN
+        // { INSN, FLOW_RETURN, 1, 0, 1 }, // ARETURN
+        // { INSN, FLOW_RETURN, 0, 0, 1 }, // RETURN
+        // { FIELD_INSN, FLOW_NEXT, NA, NA, 3 }, // GETSTATIC
+        // { FIELD_INSN, FLOW_NEXT, NA, NA, 3 }, // PUTSTATIC
+        // { FIELD_INSN, FLOW_NEXT, NA, NA, 3 }, // GETFIELD
+        // { FIELD_INSN, FLOW_NEXT, NA, NA, 3 }, // PUTFIELD
+        // { METHOD_INSN, FLOW_NEXT, NA, NA, 3 }, // INVOKEVIRTUAL
+        // { METHOD_INSN, FLOW_NEXT, NA, NA, 3 }, // INVOKESPECIAL
+        // { METHOD_INSN, FLOW_NEXT, NA, NA, 3 }, // INVOKESTATIC
+        // { METHOD_INSN, FLOW_NEXT, NA, NA, 5 }, // INVOKEINTERFACE
+        // { INVOKE_DYNAMIC_INSN, FLOW_NEXT, NA, NA, 5 }, // INVOKEDYNAMIC
+        // { TYPE_INSN, FLOW_NEXT, 0, 1, 3 }, // NEW
+        // { INT_INSN, FLOW_NEXT, 1, 1, 2 }, // NEWARRAY
+        // { TYPE_INSN, FLOW_NEXT, 1, 1, 3 }, // ANEWARRAY
+        // { INSN, FLOW_NEXT, 1, 1, 1 }, // ARRAYLENGTH
+        // { INSN, FLOW_THROW, 1, 0, 1 }, // ATHROW
+        // { TYPE_INSN, FLOW_NEXT, 1, 1, 3 }, // CHECKCAST
+        // { TYPE_INSN, FLOW_NEXT, 1, 1, 3 }, // INSTANCEOF
+        // { INSN, FLOW_NEXT, 1, 0, 1 }, // MONITORENTER
+        // { INSN, FLOW_NEXT, 1, 0, 1 }, // MONITOREXIT
+        // { NA, FLOW_NEXT, 0, 0, 0 }, // WIDE
+        // { MULTIANEWARRAY_INSN, FLOW_NEXT, NA, NA, 4 }, // MULTIANEWARRAY
+        // { JUMP_INSN, FLOW_JUMP, 1, 0, 3 }, // IFNULL
+        // { JUMP_INSN, FLOW_JUMP, 1, 0, 3 }, // IFNONNULL
+        // { NA, FLOW_GOTO, 0, 0, 5 }, // GOTO_W
+        // { NA, FLOW_JSR, 0, 1, 5 }, // JSR_W
+        // };
+        // for (int k = 0; k < 5; ++k) {
+        // for (int i = 0; i < p.length; ++i) {
+        // System.err.print((char) ('A' + p[i][k]));
+        // }
+        // System.err.println();
+        // }
+    }
+
+    private OpcodeTable() {
+    }
+
+    /**
+     * Decodes a property of the JVM instructions.
+     * 
+     * @param s
+     *            a string containing, for each opcode, the value of the
+     *            property plus 'A'.
+     * @return the decoded values of the property, indexed by opcode.
+     */
+    private static byte[] decode(final String s) {
+        byte[] b = new byte[s.length()];
+        for (int i = 0; i < b.length; ++i) {
+            b[i] = (byte) (s.charAt(i) - 'A');
+        }
+        return b;
+    }
+
+    /**
+     * Returns the type of the given instruction.
+     * 
+     * @param opcode
+     *            a JVM opcode.
+     * @return the type of the given instruction, i.e. one of {@link #INSN},
+     *         {@link #INT_INSN}, ... {@link #MULTIANEWARRAY_INSN}, or -1 if
+     *         this opcode is not used by {@link MethodVisitor}. These values
+     *         are the same as those returned by the <tt>getType</tt> method of
+     *         the <tt>tree</tt> package instruction nodes.
+     */
+    public static int getType(final int opcode) {
+        return TYPE[opcode];
+    }
+
+    /**
+     * Returns the control flow of the given instruction.
+     * 
+     * @param opcode
+     *            a JVM opcode.
+     * @return the control flow of the given instruction, i.e. one of
+     *         {@link #FLOW_NEXT}, {@link #FLOW_JUMP}, ... {@link #FLOW_THROW}.
+     */
+    public static int getFlow(final int opcode) {
+        return FLOW[opcode];
+    }
+
+    /**
+     * Returns the number of stack words popped by the given instruction.
+     * 
+     * @param opcode
+     *            a JVM opcode.
+     * @return the number of stack words popped by the given instruction, or
+     *         -1 if this number depends on the operands of the instruction
+     *         (field and method instructions, and MULTIANEWARRAY).
+     */
+    public static int getStackPops(final int opcode) {
+        return POPS[opcode];
+    }
+
+    /**
+     * Returns the number of stack words pushed by the given instruction.
+     * 
+     * @param opcode
+     *            a JVM opcode.
+     * @return the number of stack words pushed by the given instruction, or
+     *         -1 if this number depends on the operands of the instruction
+     *         (LDC, field and method instructions, and MULTIANEWARRAY).
+     */
+    public static int getStackPushes(final int opcode) {
+        return PUSHES[opcode];
+    }
+
+    /**
+     * Returns the stack size variation of the given instruction.
+     * 
+     * @param opcode
+     *            a JVM opcode.
+     * @return the number of stack words pushed by the given instruction minus
+     *         the number of words that it pops, or 0 if this variation depends
+     *         on the operands of the instruction.
+     */
+    public static int getStackSizeDelta(final int opcode) {
+        return SIZE[opcode];
+    }
+
+    /**
+     * Returns the length of the given instruction.
+     * 
+     * @param opcode
+     *            a JVM opcode.
+     * @return the length in bytes of the given instruction in its shortest
+     *         form (i.e. with a one byte constant pool index for LDC, without
+     *         WIDE prefix, and with a two bytes jump offset), or 0 if this
+     *         length depends on the operands of the instruction (switch
+     *         instructions and WIDE).
+     */
+    public static int getLength(final int opcode) {
+        return LENGTH[opcode];
+    }
+}
@@ -0,0 +1,216 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+/**
+ * A bounded cache of parsed type and method descriptors. This cache returns
+ * canonical {@link Type} objects for type descriptors and, for method
+ * descriptors, precomputed argument types, return types and argument and
+ * return sizes. The same descriptors are parsed again and again when analyzing
+ * methods: a cache can be given to the interpreters of the
+ * <tt>tree.analysis</tt> package, which then use it, as well as the analyzers
+ * and frames using these interpreters, instead of the static methods of
+ * {@link Type}.
+ * <p>
+ * This cache is a direct mapped table of immutable entries, without any
+ * synchronization: each slot contains at most one descriptor, and a new
+ * descriptor simply replaces the old one in case of collision. It can
+ * therefore be used concurrently by several threads. <i>The arrays returned
+ * by {@link #getArgumentTypes getArgumentTypes} are shared, and must not be
+ * modified</i>.
+ */
+public class TypeCache {
+
+    /**
+     * The cached entries, indexed by the hash code of their descriptor, or
+     * <tt>null</tt> if this cache does not cache anything.
+     */
+    private final Entry[] entries;
+
+    /**
+     * Constructs a new {@link TypeCache} with a default size.
+     */
+    public TypeCache() {
+        this(4096);
+    }
+
+    /**
+     * Constructs a new {@link TypeCache}.
+     * 
+     * @param size
+     *            the maximum number of descriptors that this cache can
+     *            contain. This size is rounded up to the next power of two. If
+     *            it is 0, this cache does not cache anything, and all its
+     *            methods simply delegate to the corresponding static methods
+     *            of {@link Type}.
+     */
+    public TypeCache(final int size) {
+        if (size > 0) {
+            int n = 1;
+            while (n < size) {
+                n <<= 1;
+            }
+            entries = new Entry[n];
+        } else {
+            entries = null;
+        }
+    }
+
+    /**
+     * Returns the Java type corresponding to the given type descriptor. See
+     * {@link Type#getType(String)}.
+     * 
+     * @param typeDescriptor
+     *            a field or method type descriptor.
+     * @return the Java type corresponding to the given type descriptor.
+     */
+    public Type getType(final String typeDescriptor) {
+        if (entries == null) {
+            return Type.getType(typeDescriptor);
+        }
+        return get(typeDescriptor).type;
+    }
+
+    /**
+     * Returns the Java types corresponding to the argument types of the given
+     * method descriptor. See {@link Type#getArgumentTypes(String)}.
+     * 
+     * @param methodDescriptor
+     *            a method descriptor.
+     * @return the Java types corresponding to the argument types of the given
+     *         method descriptor. <i>This array must not be modified</i>.
+     */
+    public Type[] getArgumentTypes(final String methodDescriptor) {
+        if (entries == null) {
+            return Type.getArgumentTypes(methodDescriptor);
+        }
+        return get(methodDescriptor).argumentTypes;
+    }
+
+    /**
+     * Returns the Java type corresponding to the return type of the given
+     * method descriptor. See {@link Type#getReturnType(String)}.
+     * 
+     * @param methodDescriptor
+     *            a method descriptor.
+     * @return the Java type corresponding to the return type of the given
+     *         method descriptor.
+     */
+    public Type getReturnType(final String methodDescriptor) {
+        if (entries == null) {
+            return Type.getReturnType(methodDescriptor);
+        }
+        return get(methodDescriptor).returnType;
+    }
+
+    /**
+     * Computes the size of the arguments and of the return value of a method.
+     * See {@link Type#getArgumentsAndReturnSizes(String)}.
+     * 
+     * @param desc
+     *            the descriptor of a method.
+     * @return the size of the arguments of the method (plus one for the
+     *         implicit this argument), argSize, and the size of its return
+     *         value, retSize, packed into a single int i =
+     *         <tt>(argSize << 2) | retSize</tt> (argSize is therefore equal
+     *         to <tt>i >> 2</tt>, and retSize to <tt>i & 0x03</tt>).
+     */
+    public int getArgumentsAndReturnSizes(final String desc) {
+        if (entries == null) {
+            return Type.getArgumentsAndReturnSizes(desc);
+        }
+        return get(desc).sizes;
+    }
+
+    /**
+     * Returns the cache entry corresponding to the given descriptor. If this
+     * descriptor is not in the cache, it is parsed and added to the cache.
+     * 
+     * @param desc
+     *            a field or method type descriptor.
+     * @return the cache entry corresponding to the given descriptor.
+     */
+    private Entry get(final String desc) {
+        int h = desc.hashCode();
+        int i = (h ^ (h >>> 16)) & (entries.length - 1);
+        Entry e = entries[i];
+        if (e == null || !e.desc.equals(desc)) {
+            e = new Entry(desc);
+            entries[i] = e;
+        }
+        return e;
+    }
+
+    /**
+     * A parsed type or method descriptor.
+     */
+    private static final class Entry {
+
+        /**
+         * A field or method type descriptor.
+         */
+        final String desc;
+
+        /**
+         * The Java type corresponding to {@link #desc}.
+         */
+        final Type type;
+
+        /**
+         * The argument types of {@link #desc}, if it is a method descriptor.
+         */
+        final Type[] argumentTypes;
+
+        /**
+         * The return type of {@link #desc}, if it is a method descriptor.
+         */
+        final Type returnType;
+
+        /**
+         * The argument and return sizes of {@link #desc}, if it is a method
+         * descriptor (see {@link Type#getArgumentsAndReturnSizes(String)}).
+         */
+        final int sizes;
+
+        Entry(final String desc) {
+            this.desc = desc;
+            this.type = Type.getType(desc);
+            if (type.getSort() == Type.METHOD) {
+                argumentTypes = Type.getArgumentTypes(desc);
+                returnType = Type.getReturnType(desc);
+                sizes = Type.getArgumentsAndReturnSizes(desc);
+            } else {
+                argumentTypes = null;
+                returnType = null;
+                sizes = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+/**
+ * A bounded cache of decoded CONSTANT_Utf8 strings, which can be shared
+ * between several {@link ClassReader} objects (see
+ * {@link ClassReader#ClassReader(byte[], int, int, UTF8Cache) ClassReader}).
+ * Most classes reference the same names and descriptors ("java/lang/Object",
+ * "()V", "Code", ...), so that sharing the decoded strings between readers
+ * avoids decoding and allocating them again and again. This cache is keyed on
+ * the raw modified UTF8 bytes of the strings: a cached string is returned only
+ * if its encoded form is equal to the requested bytes.
+ * <p>
+ * The default implementation is a direct mapped table of strings, without any
+ * synchronization: each slot contains at most one string, and a new string
+ * simply replaces the old one in case of collision. Since strings are
+ * immutable, this cache can be used concurrently by several threads. This
+ * class can be subclassed to implement other caching strategies (for instance
+ * to intern the returned strings).
+ */
+public class UTF8Cache {
+
+    /**
+     * The cached strings, indexed by the hash code of their encoded form.
+     */
+    private final String[] strings;
+
+    /**
+     * The per thread buffers used to decode strings (see {@link #getBuffer}).
+     */
+    private final ThreadLocal<char[]> buffers;
+
+    /**
+     * Constructs a new {@link UTF8Cache} with a default size.
+     */
+    public UTF8Cache() {
+        this(4096);
+    }
+
+    /**
+     * Constructs a new {@link UTF8Cache}.
+     * 
+     * @param size
+     *            the maximum number of strings that this cache can contain.
+     *            This size is rounded up to the next power of two.
+     */
+    public UTF8Cache(final int size) {
+        int n = 1;
+        while (n < size) {
+            n <<= 1;
+        }
+        strings = new String[n];
+        buffers = new ThreadLocal<char[]>();
+    }
+
+    /**
+     * Returns the cached string corresponding to the given encoded string.
+     * 
+     * @param b
+     *            a byte array containing an encoded string.
+     * @param off
+     *            the start offset of the encoded string in b.
+     * @param len
+     *            the length of the encoded string, in bytes.
+     * @return the cached string corresponding to the given modified UTF8
+     *         bytes, or <tt>null</tt> if this string is not in the cache.
+     */
+    public String get(final byte[] b, final int off, final int len) {
+        String s = strings[hashCode(b, off, len) & (strings.length - 1)];
+        if (s == null || s.length() > len) {
+            return null;
+        }
+        int i = off;
+        int end = off + len;
+        int n = 0;
+        while (i < end) {
+            int c = b[i++] & 0xFF;
+            if (c >= 0x80) {
+                if (c < 0xE0 && c > 0xBF) { // 110x xxxx 10xx xxxx
+                    c = ((c & 0x1F) << 6) | (b[i++] & 0x3F);
+                } else { // 1110 xxxx 10xx xxxx 10xx xxxx
+                    c = ((c & 0x0F) << 12) | ((b[i++] & 0x3F) << 6)
+                            | (b[i++] & 0x3F);
+                }
+            }
+            if (n == s.length() || s.charAt(n++) != c) {
+                return null;
+            }
+        }
+        return n == s.length() ? s : null;
+    }
+
+    /**
+     * Adds a decoded string to this cache.
+     * 
+     * @param b
+     *            a byte array containing an encoded string.
+     * @param off
+     *            the start offset of the encoded string in b.
+     * @param len
+     *            the length of the encoded string, in bytes.
+     * @param s
+     *            the decoded form of the given modified UTF8 bytes.
+     */
+    public void put(final byte[] b, final int off, final int len,
+            final String s) {
+        strings[hashCode(b, off, len) & (strings.length - 1)] = s;
+    }
+
+    /**
+     * Returns a buffer that can be used by the current thread to decode
+     * strings. The content of the returned buffer is only meaningful during a
+     * single decoding operation, so that it can be shared by all the readers
+     * used in a given thread.
+     * 
+     * @param length
+     *            the minimum length of the requested buffer.
+     * @return a buffer of at least the given length, specific to the current
+     *         thread.
+     */
+    public char[] getBuffer(final int length) {
+        char[] buf = buffers.get();
+        if (buf == null || buf.length < length) {
+            buf = new char[Math.max(length, 256)];
+            buffers.set(buf);
+        }
+        return buf;
+    }
+
+    /**
+     * Computes the hash code of an encoded string.
+     * 
+     * @param b
+     *            a byte array containing an encoded string.
+     * @param off
+     *            the start offset of the encoded string in b.
+     * @param len
+     *            the length of the encoded string, in bytes.
+     * @return the hash code of the given bytes.
+     */
+    private static int hashCode(final byte[] b, final int off, final int len) {
+        int h = len;
+        for (int i = off + len - 1; i >= off; --i) {
+            h = 31 * h + b[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -39,6 +39,7 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 
 /**
  * A {@link org.objectweb.asm.MethodVisitor} to insert before, after and around
@@ -83,7 +84,7 @@ public abstract class AdviceAdapter extends GeneratorAdapter implements Opcodes
      * 
      * @param api
      *            the ASM API version implemented by this visitor. Must be one
-     *            of {@link Opcodes#ASM4}.
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
      * @param mv
      *            the method visitor to which this adapter delegates calls.
      * @param access
@@ -95,7 +96,31 @@ public abstract class AdviceAdapter extends GeneratorAdapter implements Opcodes
      */
     protected AdviceAdapter(final int api, final MethodVisitor mv,
             final int access, final String name, final String desc) {
-        super(api, mv, access, name, desc);
+        this(api, mv, access, name, desc, null);
+    }
+
+    /**
+     * Creates a new {@link AdviceAdapter}.
+     * 
+     * @param api
+     *            the ASM API version implemented by this visitor. Must be one
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
+     * @param mv
+     *            the method visitor to which this adapter delegates calls.
+     * @param access
+     *            the method's access flags (see {@link Opcodes}).
+     * @param name
+     *            the method's name.
+     * @param desc
+     *            the method's descriptor (see {@link Type Type}).
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    protected AdviceAdapter(final int api, final MethodVisitor mv,
+            final int access, final String name, final String desc,
+            final TypeCache typeCache) {
+        super(api, mv, access, name, desc, typeCache);
         methodAccess = access;
         methodDesc = desc;
         constructor = "<init>".equals(name);
@@ -416,9 +441,29 @@ public abstract class AdviceAdapter extends GeneratorAdapter implements Opcodes
     @Override
     public void visitMethodInsn(final int opcode, final String owner,
             final String name, final String desc) {
-        mv.visitMethodInsn(opcode, owner, name, desc);
+        if (api >= Opcodes.ASM5) {
+            super.visitMethodInsn(opcode, owner, name, desc);
+            return;
+        }
+        doVisitMethodInsn(opcode, owner, name, desc,
+                opcode == Opcodes.INVOKEINTERFACE);
+    }
+
+    @Override
+    public void visitMethodInsn(final int opcode, final String owner,
+            final String name, final String desc, final boolean itf) {
+        if (api < Opcodes.ASM5) {
+            super.visitMethodInsn(opcode, owner, name, desc, itf);
+            return;
+        }
+        doVisitMethodInsn(opcode, owner, name, desc, itf);
+    }
+
+    private void doVisitMethodInsn(final int opcode, final String owner,
+            final String name, final String desc, final boolean itf) {
+        mv.visitMethodInsn(opcode, owner, name, desc, itf);
         if (constructor) {
-            Type[] types = Type.getArgumentTypes(desc);
+            Type[] types = typeCache.getArgumentTypes(desc);
             for (int i = 0; i < types.length; i++) {
                 popValue();
                 if (types[i].getSize() == 2) {
@@ -444,7 +489,7 @@ public abstract class AdviceAdapter extends GeneratorAdapter implements Opcodes
                 break;
             }
 
-            Type returnType = Type.getReturnType(desc);
+            Type returnType = typeCache.getReturnType(desc);
             if (returnType != Type.VOID_TYPE) {
                 pushValue(OTHER);
                 if (returnType.getSize() == 2) {
@@ -459,7 +504,7 @@ public abstract class AdviceAdapter extends GeneratorAdapter implements Opcodes
             Object... bsmArgs) {
         mv.visitInvokeDynamicInsn(name, desc, bsm, bsmArgs);
         if (constructor) {
-            Type[] types = Type.getArgumentTypes(desc);
+            Type[] types = typeCache.getArgumentTypes(desc);
             for (int i = 0; i < types.length; i++) {
                 popValue();
                 if (types[i].getSize() == 2) {
@@ -467,7 +512,7 @@ public abstract class AdviceAdapter extends GeneratorAdapter implements Opcodes
                 }
             }
 
-            Type returnType = Type.getReturnType(desc);
+            Type returnType = typeCache.getReturnType(desc);
             if (returnType != Type.VOID_TYPE) {
                 pushValue(OTHER);
                 if (returnType.getSize() == 2) {
@@ -39,6 +39,7 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 
 /**
  * A {@link MethodVisitor} that keeps track of stack map frame changes between
@@ -119,6 +120,11 @@ public class AnalyzerAdapter extends MethodVisitor {
      */
     private String owner;
 
+    /**
+     * The cache used by this adapter to parse type and method descriptors.
+     */
+    protected final TypeCache typeCache;
+
     /**
      * Creates a new {@link AnalyzerAdapter}. <i>Subclasses must not use this
      * constructor</i>. Instead, they must use the
@@ -139,7 +145,34 @@ public class AnalyzerAdapter extends MethodVisitor {
      */
     public AnalyzerAdapter(final String owner, final int access,
             final String name, final String desc, final MethodVisitor mv) {
-        this(Opcodes.ASM4, owner, access, name, desc, mv);
+        this(Opcodes.ASM5, owner, access, name, desc, mv);
+    }
+
+    /**
+     * Creates a new {@link AnalyzerAdapter}. <i>Subclasses must not use this
+     * constructor</i>. Instead, they must use the
+     * {@link #AnalyzerAdapter(int, String, int, String, String, MethodVisitor, TypeCache)}
+     * version.
+     * 
+     * @param owner
+     *            the owner's class name.
+     * @param access
+     *            the method's access flags (see {@link Opcodes}).
+     * @param name
+     *            the method's name.
+     * @param desc
+     *            the method's descriptor (see {@link Type Type}).
+     * @param mv
+     *            the method visitor to which this adapter delegates calls. May
+     *            be <tt>null</tt>.
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    public AnalyzerAdapter(final String owner, final int access,
+            final String name, final String desc, final MethodVisitor mv,
+            final TypeCache typeCache) {
+        this(Opcodes.ASM5, owner, access, name, desc, mv, typeCache);
     }
 
     /**
@@ -147,7 +180,7 @@ public class AnalyzerAdapter extends MethodVisitor {
      * 
      * @param api
      *            the ASM API version implemented by this visitor. Must be one
-     *            of {@link Opcodes#ASM4}.
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
      * @param owner
      *            the owner's class name.
      * @param access
@@ -163,8 +196,38 @@ public class AnalyzerAdapter extends MethodVisitor {
     protected AnalyzerAdapter(final int api, final String owner,
             final int access, final String name, final String desc,
             final MethodVisitor mv) {
+        this(api, owner, access, name, desc, mv, null);
+    }
+
+    /**
+     * Creates a new {@link AnalyzerAdapter}.
+     * 
+     * @param api
+     *            the ASM API version implemented by this visitor. Must be one
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
+     * @param owner
+     *            the owner's class name.
+     * @param access
+     *            the method's access flags (see {@link Opcodes}).
+     * @param name
+     *            the method's name.
+     * @param desc
+     *            the method's descriptor (see {@link Type Type}).
+     * @param mv
+     *            the method visitor to which this adapter delegates calls. May
+     *            be <tt>null</tt>.
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors. A
+     *            cache can be shared by several adapters, even if they are
+     *            used concurrently. May be <tt>null</tt>, in which case
+     *            descriptors are parsed each time they are needed.
+     */
+    protected AnalyzerAdapter(final int api, final String owner,
+            final int access, final String name, final String desc,
+            final MethodVisitor mv, final TypeCache typeCache) {
         super(api, mv);
         this.owner = owner;
+        this.typeCache = typeCache == null ? new TypeCache(0) : typeCache;
         locals = new ArrayList<Object>();
         stack = new ArrayList<Object>();
         uninitializedTypes = new HashMap<Object, Object>();
@@ -176,7 +239,7 @@ public class AnalyzerAdapter extends MethodVisitor {
                 locals.add(owner);
             }
         }
-        Type[] types = Type.getArgumentTypes(desc);
+        Type[] types = this.typeCache.getArgumentTypes(desc);
         for (int i = 0; i < types.length; ++i) {
             Type type = types[i];
             switch (type.getSort()) {
@@ -305,8 +368,28 @@ public class AnalyzerAdapter extends MethodVisitor {
     @Override
     public void visitMethodInsn(final int opcode, final String owner,
             final String name, final String desc) {
+        if (api >= Opcodes.ASM5) {
+            super.visitMethodInsn(opcode, owner, name, desc);
+            return;
+        }
+        doVisitMethodInsn(opcode, owner, name, desc,
+                opcode == Opcodes.INVOKEINTERFACE);
+    }
+
+    @Override
+    public void visitMethodInsn(final int opcode, final String owner,
+            final String name, final String desc, final boolean itf) {
+        if (api < Opcodes.ASM5) {
+            super.visitMethodInsn(opcode, owner, name, desc, itf);
+            return;
+        }
+        doVisitMethodInsn(opcode, owner, name, desc, itf);
+    }
+
+    private void doVisitMethodInsn(final int opcode, final String owner,
+            final String name, final String desc, final boolean itf) {
         if (mv != null) {
-            mv.visitMethodInsn(opcode, owner, name, desc);
+            mv.visitMethodInsn(opcode, owner, name, desc, itf);
         }
         if (this.locals == null) {
             labels = null;
@@ -537,7 +620,7 @@ public class AnalyzerAdapter extends MethodVisitor {
         char c = desc.charAt(0);
         if (c == '(') {
             int n = 0;
-            Type[] types = Type.getArgumentTypes(desc);
+            Type[] types = typeCache.getArgumentTypes(desc);
             for (int i = 0; i < types.length; ++i) {
                 n += types[i].getSize();
             }
@@ -0,0 +1,251 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import org.objectweb.asm.signature.SignatureVisitor;
+
+/**
+ * A {@link Remapper} that memoizes the descriptors, internal names and
+ * signatures mapped by another remapper. Remapping the same generic signature
+ * requires to parse it with a
+ * {@link org.objectweb.asm.signature.SignatureReader}, to remap each of its
+ * class types, and to rebuild it with a
+ * {@link org.objectweb.asm.signature.SignatureWriter}. This is expensive, and
+ * the same signatures and descriptors typically occur thousands of times in
+ * the classes of a jar. This remapper computes each of them once with the
+ * remapper it wraps, and then returns the memoized result. It must therefore
+ * only be used with a remapper whose results only depend on its arguments.
+ * Field, method and type names are not memoized, and are mapped directly by
+ * the wrapped remapper.
+ * <p>
+ * The memoized results are stored in a direct mapped table of immutable
+ * entries, without any synchronization: each slot contains at most one
+ * result, and a new result simply replaces the old one in case of collision.
+ * A {@link CachingRemapper} can therefore be used concurrently by several
+ * threads if the wrapped remapper can.
+ */
+public class CachingRemapper extends Remapper {
+
+    /**
+     * The kind of the entries memoizing {@link #mapDesc mapDesc}.
+     */
+    private static final int DESC = 0;
+
+    /**
+     * The kind of the entries memoizing {@link #mapType(String) mapType}.
+     */
+    private static final int TYPE = 1;
+
+    /**
+     * The kind of the entries memoizing {@link #mapMethodDesc mapMethodDesc}.
+     */
+    private static final int METHOD_DESC = 2;
+
+    /**
+     * The kind of the entries memoizing {@link #mapSignature mapSignature}
+     * for class and method signatures.
+     */
+    private static final int SIGNATURE = 3;
+
+    /**
+     * The kind of the entries memoizing {@link #mapSignature mapSignature}
+     * for type signatures.
+     */
+    private static final int TYPE_SIGNATURE = 4;
+
+    /**
+     * The remapper whose results are memoized.
+     */
+    private final Remapper remapper;
+
+    /**
+     * The memoized results, indexed by the hash code of their argument and
+     * kind.
+     */
+    private final Entry[] entries;
+
+    /**
+     * Constructs a new {@link CachingRemapper} with a default size.
+     * 
+     * @param remapper
+     *            the remapper whose results must be memoized.
+     */
+    public CachingRemapper(final Remapper remapper) {
+        this(remapper, 4096);
+    }
+
+    /**
+     * Constructs a new {@link CachingRemapper}.
+     * 
+     * @param remapper
+     *            the remapper whose results must be memoized.
+     * @param size
+     *            the maximum number of results that this remapper can
+     *            memoize. This size is rounded up to the next power of two.
+     */
+    public CachingRemapper(final Remapper remapper, final int size) {
+        this.remapper = remapper;
+        int n = 1;
+        while (n < size) {
+            n <<= 1;
+        }
+        this.entries = new Entry[n];
+    }
+
+    @Override
+    public String mapDesc(final String desc) {
+        return get(DESC, desc);
+    }
+
+    @Override
+    public String mapType(final String type) {
+        if (type == null) {
+            return null;
+        }
+        return get(TYPE, type);
+    }
+
+    @Override
+    public String[] mapTypes(final String[] types) {
+        return remapper.mapTypes(types);
+    }
+
+    @Override
+    public String mapMethodDesc(final String desc) {
+        return get(METHOD_DESC, desc);
+    }
+
+    @Override
+    public Object mapValue(final Object value) {
+        return remapper.mapValue(value);
+    }
+
+    @Override
+    public String mapSignature(final String signature,
+            final boolean typeSignature) {
+        if (signature == null) {
+            return null;
+        }
+        return get(typeSignature ? TYPE_SIGNATURE : SIGNATURE, signature);
+    }
+
+    @Override
+    protected SignatureVisitor createRemappingSignatureAdapter(
+            final SignatureVisitor v) {
+        return remapper.createRemappingSignatureAdapter(v);
+    }
+
+    @Override
+    public String mapMethodName(final String owner, final String name,
+            final String desc) {
+        return remapper.mapMethodName(owner, name, desc);
+    }
+
+    @Override
+    public String mapInvokeDynamicMethodName(final String name,
+            final String desc) {
+        return remapper.mapInvokeDynamicMethodName(name, desc);
+    }
+
+    @Override
+    public String mapFieldName(final String owner, final String name,
+            final String desc) {
+        return remapper.mapFieldName(owner, name, desc);
+    }
+
+    @Override
+    public String map(final String typeName) {
+        return remapper.map(typeName);
+    }
+
+    /**
+     * Returns the memoized result of the given kind for the given argument.
+     * If this result is not memoized, it is computed with the wrapped
+     * remapper and memoized.
+     * 
+     * @param kind
+     *            the kind of the result, i.e. the remapper method that
+     *            computes it.
+     * @param key
+     *            the argument of this method.
+     * @return the result of the given method for the given argument.
+     */
+    private String get(final int kind, final String key) {
+        int h = key.hashCode() + kind;
+        int i = (h ^ (h >>> 16)) & (entries.length - 1);
+        Entry e = entries[i];
+        if (e == null || e.kind != kind || !e.key.equals(key)) {
+            String value;
+            switch (kind) {
+            case DESC:
+                value = remapper.mapDesc(key);
+                break;
+            case TYPE:
+                value = remapper.mapType(key);
+                break;
+            case METHOD_DESC:
+                value = remapper.mapMethodDesc(key);
+                break;
+            default:
+                value = remapper.mapSignature(key, kind == TYPE_SIGNATURE);
+            }
+            e = new Entry(kind, key, value);
+            entries[i] = e;
+        }
+        return e.value;
+    }
+
+    /**
+     * A memoized result.
+     */
+    private static final class Entry {
+
+        /**
+         * The kind of this result, i.e. the remapper method that computed it.
+         */
+        final int kind;
+
+        /**
+         * The argument of the remapper method that computed this result.
+         */
+        final String key;
+
+        /**
+         * The result of the remapper method.
+         */
+        final String value;
+
+        Entry(final int kind, final String key, final String value) {
+            this.kind = kind;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
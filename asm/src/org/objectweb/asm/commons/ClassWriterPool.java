@@ -0,0 +1,151 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.util.ArrayList;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * A pool of reusable {@link ClassWriter} objects. Each thread has its own set
+ * of class writers, so that this pool can be shared between threads without
+ * synchronization. A class writer must be obtained with {@link #acquire()},
+ * and given back with {@link #release release} when the class it has written
+ * is no longer needed (i.e. after {@link ClassWriter#toByteArray} has been
+ * called). Several class writers can be acquired at the same time by a
+ * single thread, for instance to write a class while another one is being
+ * written.
+ */
+public class ClassWriterPool {
+
+    /**
+     * The option flags of the class writers of this pool.
+     */
+    private final int flags;
+
+    /**
+     * The maximum number of free class writers kept for each thread.
+     */
+    private final int maxSize;
+
+    /**
+     * The free class writers of each thread.
+     */
+    private final ThreadLocal<ArrayList<ClassWriter>> writers;
+
+    /**
+     * Constructs a new {@link ClassWriterPool}.
+     * 
+     * @param flags
+     *            the option flags of the class writers of this pool. See
+     *            {@link ClassWriter#ClassWriter(int)}.
+     */
+    public ClassWriterPool(final int flags) {
+        this(flags, 4);
+    }
+
+    /**
+     * Constructs a new {@link ClassWriterPool}.
+     * 
+     * @param flags
+     *            the option flags of the class writers of this pool. See
+     *            {@link ClassWriter#ClassWriter(int)}.
+     * @param maxSize
+     *            the maximum number of free class writers kept for each
+     *            thread.
+     */
+    public ClassWriterPool(final int flags, final int maxSize) {
+        this.flags = flags;
+        this.maxSize = maxSize;
+        this.writers = new ThreadLocal<ArrayList<ClassWriter>>() {
+            @Override
+            protected ArrayList<ClassWriter> initialValue() {
+                return new ArrayList<ClassWriter>();
+            }
+        };
+    }
+
+    /**
+     * Returns an empty class writer.
+     * 
+     * @return a free class writer of the current thread, or a new class
+     *         writer if there is none.
+     */
+    public ClassWriter acquire() {
+        ArrayList<ClassWriter> free = writers.get();
+        int n = free.size();
+        return n == 0 ? newClassWriter(flags) : free.remove(n - 1);
+    }
+
+    /**
+     * Returns an empty class writer which copies the constant pool of the
+     * given class. See {@link ClassWriter#ClassWriter(ClassReader, int)}.
+     * 
+     * @param classReader
+     *            the {@link ClassReader} used to read the original class.
+     * @return a free class writer of the current thread, or a new class
+     *         writer if there is none.
+     */
+    public ClassWriter acquire(final ClassReader classReader) {
+        ClassWriter cw = acquire();
+        cw.reset(classReader);
+        return cw;
+    }
+
+    /**
+     * Gives back a class writer to this pool. The class writer is reset, and
+     * must no longer be used by the caller.
+     * 
+     * @param cw
+     *            a class writer obtained with {@link #acquire()}, in the
+     *            current thread.
+     */
+    public void release(final ClassWriter cw) {
+        ArrayList<ClassWriter> free = writers.get();
+        if (free.size() < maxSize) {
+            cw.reset();
+            free.add(cw);
+        }
+    }
+
+    /**
+     * Creates a new class writer. This method can be overridden to create
+     * instances of a {@link ClassWriter} subclass, such as a
+     * {@link HierarchyClassWriter}.
+     * 
+     * @param flags
+     *            the option flags of the class writer.
+     * @return a new class writer.
+     */
+    protected ClassWriter newClassWriter(final int flags) {
+        return new ClassWriter(flags);
+    }
+}
@@ -32,6 +32,7 @@ package org.objectweb.asm.commons;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.OpcodeTable;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -46,7 +47,7 @@ public class CodeSizeEvaluator extends MethodVisitor implements Opcodes {
     private int maxSize;
 
     public CodeSizeEvaluator(final MethodVisitor mv) {
-        this(Opcodes.ASM4, mv);
+        this(Opcodes.ASM5, mv);
     }
 
     protected CodeSizeEvaluator(final int api, final MethodVisitor mv) {
@@ -72,13 +73,9 @@ public class CodeSizeEvaluator extends MethodVisitor implements Opcodes {
 
     @Override
     public void visitIntInsn(final int opcode, final int operand) {
-        if (opcode == SIPUSH) {
-            minSize += 3;
-            maxSize += 3;
-        } else {
-            minSize += 2;
-            maxSize += 2;
-        }
+        int length = OpcodeTable.getLength(opcode);
+        minSize += length;
+        maxSize += length;
         if (mv != null) {
             mv.visitIntInsn(opcode, operand);
         }
@@ -123,15 +120,31 @@ public class CodeSizeEvaluator extends MethodVisitor implements Opcodes {
     @Override
     public void visitMethodInsn(final int opcode, final String owner,
             final String name, final String desc) {
-        if (opcode == INVOKEINTERFACE) {
-            minSize += 5;
-            maxSize += 5;
-        } else {
-            minSize += 3;
-            maxSize += 3;
+        if (api >= ASM5) {
+            super.visitMethodInsn(opcode, owner, name, desc);
+            return;
+        }
+        doVisitMethodInsn(opcode, owner, name, desc,
+                opcode == INVOKEINTERFACE);
+    }
+
+    @Override
+    public void visitMethodInsn(final int opcode, final String owner,
+            final String name, final String desc, final boolean itf) {
+        if (api < ASM5) {
+            super.visitMethodInsn(opcode, owner, name, desc, itf);
+            return;
         }
+        doVisitMethodInsn(opcode, owner, name, desc, itf);
+    }
+
+    private void doVisitMethodInsn(final int opcode, final String owner,
+            final String name, final String desc, final boolean itf) {
+        int length = OpcodeTable.getLength(opcode);
+        minSize += length;
+        maxSize += length;
         if (mv != null) {
-            mv.visitMethodInsn(opcode, owner, name, desc);
+            mv.visitMethodInsn(opcode, owner, name, desc, itf);
         }
     }
 
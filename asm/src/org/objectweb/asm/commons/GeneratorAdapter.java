@@ -39,6 +39,7 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 
 /**
  * A {@link org.objectweb.asm.MethodVisitor} with convenient methods to generate
@@ -258,7 +259,30 @@ public class GeneratorAdapter extends LocalVariablesSorter {
      */
     public GeneratorAdapter(final MethodVisitor mv, final int access,
             final String name, final String desc) {
-        this(Opcodes.ASM4, mv, access, name, desc);
+        this(Opcodes.ASM5, mv, access, name, desc);
+    }
+
+    /**
+     * Creates a new {@link GeneratorAdapter}. <i>Subclasses must not use this
+     * constructor</i>. Instead, they must use the
+     * {@link #GeneratorAdapter(int, MethodVisitor, int, String, String, TypeCache)}
+     * version.
+     * 
+     * @param mv
+     *            the method visitor to which this adapter delegates calls.
+     * @param access
+     *            the method's access flags (see {@link Opcodes}).
+     * @param name
+     *            the method's name.
+     * @param desc
+     *            the method's descriptor (see {@link Type Type}).
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    public GeneratorAdapter(final MethodVisitor mv, final int access,
+            final String name, final String desc, final TypeCache typeCache) {
+        this(Opcodes.ASM5, mv, access, name, desc, typeCache);
     }
 
     /**
@@ -266,7 +290,7 @@ public class GeneratorAdapter extends LocalVariablesSorter {
      * 
      * @param api
      *            the ASM API version implemented by this visitor. Must be one
-     *            of {@link Opcodes#ASM4}.
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
      * @param mv
      *            the method visitor to which this adapter delegates calls.
      * @param access
@@ -278,10 +302,34 @@ public class GeneratorAdapter extends LocalVariablesSorter {
      */
     protected GeneratorAdapter(final int api, final MethodVisitor mv,
             final int access, final String name, final String desc) {
-        super(api, access, desc, mv);
+        this(api, mv, access, name, desc, null);
+    }
+
+    /**
+     * Creates a new {@link GeneratorAdapter}.
+     * 
+     * @param api
+     *            the ASM API version implemented by this visitor. Must be one
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
+     * @param mv
+     *            the method visitor to which this adapter delegates calls.
+     * @param access
+     *            the method's access flags (see {@link Opcodes}).
+     * @param name
+     *            the method's name.
+     * @param desc
+     *            the method's descriptor (see {@link Type Type}).
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    protected GeneratorAdapter(final int api, final MethodVisitor mv,
+            final int access, final String name, final String desc,
+            final TypeCache typeCache) {
+        super(api, access, desc, mv, typeCache);
         this.access = access;
-        this.returnType = Type.getReturnType(desc);
-        this.argumentTypes = Type.getArgumentTypes(desc);
+        this.returnType = this.typeCache.getReturnType(desc);
+        this.argumentTypes = this.typeCache.getArgumentTypes(desc);
     }
 
     /**
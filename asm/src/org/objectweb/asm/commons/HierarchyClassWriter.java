@@ -0,0 +1,89 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * A {@link ClassWriter} that computes common super classes with a
+ * {@link TypeHierarchy}, instead of loading classes with
+ * {@link Class#forName}. This is faster, avoids loading the classes that are
+ * being transformed, and works even if these classes are not in the class
+ * path, provided the type hierarchy can find their class files.
+ */
+public class HierarchyClassWriter extends ClassWriter {
+
+    /**
+     * The type hierarchy used to compute common super classes.
+     */
+    private final TypeHierarchy hierarchy;
+
+    /**
+     * Constructs a new {@link HierarchyClassWriter} object.
+     * 
+     * @param flags
+     *            option flags that can be used to modify the default behavior
+     *            of this class. See {@link ClassWriter#ClassWriter(int)}.
+     * @param hierarchy
+     *            the type hierarchy used to compute common super classes. It
+     *            can be shared between several class writers.
+     */
+    public HierarchyClassWriter(final int flags,
+            final TypeHierarchy hierarchy) {
+        super(flags);
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Constructs a new {@link HierarchyClassWriter} object and enables
+     * optimizations for "mostly add" bytecode transformations. See
+     * {@link ClassWriter#ClassWriter(ClassReader, int)}.
+     * 
+     * @param classReader
+     *            the {@link ClassReader} used to read the original class.
+     * @param flags
+     *            option flags that can be used to modify the default behavior
+     *            of this class. See {@link ClassWriter#ClassWriter(int)}.
+     * @param hierarchy
+     *            the type hierarchy used to compute common super classes. It
+     *            can be shared between several class writers.
+     */
+    public HierarchyClassWriter(final ClassReader classReader,
+            final int flags, final TypeHierarchy hierarchy) {
+        super(classReader, flags);
+        this.hierarchy = hierarchy;
+    }
+
+    @Override
+    protected String getCommonSuperClass(final String type1, final String type2) {
+        return hierarchy.getCommonSuperClass(type1, type2);
+    }
+}
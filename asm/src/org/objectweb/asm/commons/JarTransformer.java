@@ -0,0 +1,421 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * A transformer of jar or zip archives. Each class of the input archive is
+ * transformed with a {@link ClassReader}, a class visitor chain created by a
+ * {@link ClassVisitorFactory} and a {@link ClassWriter}, while the other
+ * entries are copied unchanged. Classes are transformed concurrently with an
+ * {@link ExecutorService}, but the entries of the output archive are always
+ * written in the same order as in the input archive, and only a bounded
+ * number of entries are kept in memory at any given time.
+ * <p>
+ * This class also measures the time spent reading the input archive,
+ * transforming classes, and writing the output archive. These counters are
+ * cumulated over all the calls to {@link #transform transform}.
+ */
+public class JarTransformer {
+
+    /**
+     * The factory used to create the class visitor chain for each class.
+     */
+    private final ClassVisitorFactory factory;
+
+    /**
+     * The flags used to read classes. See {@link ClassReader#accept}.
+     */
+    private final int readerFlags;
+
+    /**
+     * The flags used to write classes. See {@link ClassWriter#ClassWriter}.
+     */
+    private final int writerFlags;
+
+    /**
+     * The executor used to transform classes, or <tt>null</tt> to transform
+     * them in the thread calling {@link #transform transform}.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The maximum number of entries that have been read from the input
+     * archive but not yet written to the output archive.
+     */
+    private final int maxPendingEntries;
+
+    /**
+     * The time spent reading the input archive, in nanoseconds.
+     */
+    private final AtomicLong readTime = new AtomicLong();
+
+    /**
+     * The time spent transforming classes, in nanoseconds.
+     */
+    private final AtomicLong transformTime = new AtomicLong();
+
+    /**
+     * The time spent writing the output archive, in nanoseconds.
+     */
+    private final AtomicLong writeTime = new AtomicLong();
+
+    /**
+     * The number of transformed classes.
+     */
+    private final AtomicLong classCount = new AtomicLong();
+
+    /**
+     * The number of copied resources.
+     */
+    private final AtomicLong resourceCount = new AtomicLong();
+
+    /**
+     * Constructs a new {@link JarTransformer}.
+     * 
+     * @param factory
+     *            the factory used to create the class visitor chain for each
+     *            class.
+     * @param executor
+     *            the executor used to transform classes, or <tt>null</tt> to
+     *            transform them in the thread calling {@link #transform
+     *            transform}.
+     */
+    public JarTransformer(final ClassVisitorFactory factory,
+            final ExecutorService executor) {
+        this(factory, 0, 0, executor, 256);
+    }
+
+    /**
+     * Constructs a new {@link JarTransformer}.
+     * 
+     * @param factory
+     *            the factory used to create the class visitor chain for each
+     *            class.
+     * @param readerFlags
+     *            the flags used to read classes. See
+     *            {@link ClassReader#accept(org.objectweb.asm.ClassVisitor, int)
+     *            accept}.
+     * @param writerFlags
+     *            the flags used to write classes. See
+     *            {@link ClassWriter#ClassWriter(int) ClassWriter}.
+     * @param executor
+     *            the executor used to transform classes, or <tt>null</tt> to
+     *            transform them in the thread calling {@link #transform
+     *            transform}.
+     * @param maxPendingEntries
+     *            the maximum number of entries that have been read from the
+     *            input archive but not yet written to the output archive. This
+     *            bounds the memory used by this transformer.
+     */
+    public JarTransformer(final ClassVisitorFactory factory,
+            final int readerFlags, final int writerFlags,
+            final ExecutorService executor, final int maxPendingEntries) {
+        if (maxPendingEntries < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.factory = factory;
+        this.readerFlags = readerFlags;
+        this.writerFlags = writerFlags;
+        this.executor = executor;
+        this.maxPendingEntries = maxPendingEntries;
+    }
+
+    /**
+     * Transforms an archive.
+     * 
+     * @param in
+     *            the input archive. This stream is not closed by this method.
+     * @param out
+     *            the output archive. This stream is finished but not closed
+     *            by this method.
+     * @throws IOException
+     *             if the input archive cannot be read, if the output archive
+     *             cannot be written, or if a class transformation fails with
+     *             a checked exception.
+     */
+    public void transform(final InputStream in, final OutputStream out)
+            throws IOException {
+        ZipInputStream zis = new ZipInputStream(in);
+        ZipOutputStream zos = new ZipOutputStream(out);
+        LinkedList<Entry> pending = new LinkedList<Entry>();
+        try {
+            while (true) {
+                long t = System.nanoTime();
+                ZipEntry ze = zis.getNextEntry();
+                if (ze == null) {
+                    readTime.addAndGet(System.nanoTime() - t);
+                    break;
+                }
+                final byte[] b = readEntry(zis, ze);
+                readTime.addAndGet(System.nanoTime() - t);
+                Entry e = new Entry(ze);
+                if (ze.getName().endsWith(".class")) {
+                    Callable<byte[]> task = new Callable<byte[]>() {
+                        public byte[] call() {
+                            return transform(b);
+                        }
+                    };
+                    if (executor == null) {
+                        FutureTask<byte[]> f = new FutureTask<byte[]>(task);
+                        f.run();
+                        e.result = f;
+                    } else {
+                        e.result = executor.submit(task);
+                    }
+                } else {
+                    e.data = b;
+                }
+                pending.add(e);
+                if (pending.size() >= maxPendingEntries) {
+                    write(pending.removeFirst(), zos);
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.removeFirst(), zos);
+            }
+            zos.finish();
+        } finally {
+            for (Entry e : pending) {
+                if (e.result != null) {
+                    e.result.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Transforms a class.
+     * 
+     * @param b
+     *            the bytecode of the class to be transformed.
+     * @return the bytecode of the transformed class.
+     */
+    protected byte[] transform(final byte[] b) {
+        long t = System.nanoTime();
+        ClassReader cr = new ClassReader(b);
+        ClassWriter cw = newClassWriter(cr, writerFlags);
+        cr.accept(factory.createClassVisitor(cw), readerFlags);
+        byte[] result = cw.toByteArray();
+        transformTime.addAndGet(System.nanoTime() - t);
+        classCount.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Creates the {@link ClassWriter} used to write a transformed class. The
+     * default implementation returns a {@link ClassWriter} that copies the
+     * constant pool of the original class. This method can be overridden to
+     * use a {@link ClassWriter} subclass, for instance one that can compute
+     * common super classes without loading them.
+     * 
+     * @param cr
+     *            the reader of the original class.
+     * @param flags
+     *            the flags to be used to construct the class writer.
+     * @return a new class writer.
+     */
+    protected ClassWriter newClassWriter(final ClassReader cr,
+            final int flags) {
+        return new ClassWriter(cr, flags);
+    }
+
+    /**
+     * Returns the time spent reading the input archives.
+     * 
+     * @return the time spent reading the input archives, in nanoseconds.
+     */
+    public long getReadTime() {
+        return readTime.get();
+    }
+
+    /**
+     * Returns the time spent transforming classes. This time is the sum of
+     * the times spent by each thread, so that it can be greater than the
+     * elapsed time.
+     * 
+     * @return the time spent transforming classes, in nanoseconds.
+     */
+    public long getTransformTime() {
+        return transformTime.get();
+    }
+
+    /**
+     * Returns the time spent writing the output archives, including the time
+     * spent waiting for the classes to be transformed.
+     * 
+     * @return the time spent writing the output archives, in nanoseconds.
+     */
+    public long getWriteTime() {
+        return writeTime.get();
+    }
+
+    /**
+     * Returns the number of transformed classes.
+     * 
+     * @return the number of transformed classes.
+     */
+    public long getClassCount() {
+        return classCount.get();
+    }
+
+    /**
+     * Returns the number of resources copied without transformation.
+     * 
+     * @return the number of resources copied without transformation.
+     */
+    public long getResourceCount() {
+        return resourceCount.get();
+    }
+
+    /**
+     * Writes an entry to the output archive, waiting for its transformation
+     * if necessary.
+     * 
+     * @param e
+     *            the entry to be written.
+     * @param zos
+     *            the output archive.
+     * @throws IOException
+     *             if the entry cannot be written or if its transformation
+     *             failed with a checked exception.
+     */
+    private void write(final Entry e, final ZipOutputStream zos)
+            throws IOException {
+        long t = System.nanoTime();
+        byte[] b = e.data;
+        if (e.result != null) {
+            try {
+                b = e.result.get();
+            } catch (InterruptedException ie) {
+                throw new InterruptedIOException();
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                IOException ioe = new IOException(e.entry.getName());
+                ioe.initCause(cause);
+                throw ioe;
+            }
+        } else {
+            resourceCount.incrementAndGet();
+        }
+        ZipEntry ze = new ZipEntry(e.entry.getName());
+        ze.setTime(e.entry.getTime());
+        ze.setComment(e.entry.getComment());
+        ze.setExtra(e.entry.getExtra());
+        zos.putNextEntry(ze);
+        zos.write(b);
+        zos.closeEntry();
+        writeTime.addAndGet(System.nanoTime() - t);
+    }
+
+    /**
+     * Reads the content of the current entry of an archive.
+     * 
+     * @param zis
+     *            the input archive.
+     * @param ze
+     *            the current entry of zis.
+     * @return the content of the current entry.
+     * @throws IOException
+     *             if the entry cannot be read.
+     */
+    private static byte[] readEntry(final ZipInputStream zis,
+            final ZipEntry ze) throws IOException {
+        long size = ze.getSize();
+        byte[] b = new byte[size < 0 ? 8192 : (int) size];
+        int len = 0;
+        while (true) {
+            if (len == b.length) {
+                if (size >= 0) {
+                    return b;
+                }
+                byte[] c = new byte[2 * b.length];
+                System.arraycopy(b, 0, c, 0, len);
+                b = c;
+            }
+            int n = zis.read(b, len, b.length - len);
+            if (n == -1) {
+                byte[] c = new byte[len];
+                System.arraycopy(b, 0, c, 0, len);
+                return c;
+            }
+            len += n;
+        }
+    }
+
+    /**
+     * An entry which has been read from the input archive, but not yet
+     * written to the output archive.
+     */
+    private static class Entry {
+
+        /**
+         * The entry of the input archive.
+         */
+        final ZipEntry entry;
+
+        /**
+         * The content of this entry, if it is not a class.
+         */
+        byte[] data;
+
+        /**
+         * The result of the transformation of this entry, if it is a class.
+         */
+        Future<byte[]> result;
+
+        Entry(final ZipEntry entry) {
+            this.entry = entry;
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 
 /**
  * A {@link MethodVisitor} that renumbers local variables in their order of
@@ -78,6 +79,12 @@ public class LocalVariablesSorter extends MethodVisitor {
      */
     private boolean changed;
 
+    /**
+     * The cache used by this adapter, and by its subclasses, to parse type and
+     * method descriptors.
+     */
+    protected final TypeCache typeCache;
+
     /**
      * Creates a new {@link LocalVariablesSorter}. <i>Subclasses must not use
      * this constructor</i>. Instead, they must use the
@@ -92,7 +99,28 @@ public class LocalVariablesSorter extends MethodVisitor {
      */
     public LocalVariablesSorter(final int access, final String desc,
             final MethodVisitor mv) {
-        this(Opcodes.ASM4, access, desc, mv);
+        this(Opcodes.ASM5, access, desc, mv);
+    }
+
+    /**
+     * Creates a new {@link LocalVariablesSorter}. <i>Subclasses must not use
+     * this constructor</i>. Instead, they must use the
+     * {@link #LocalVariablesSorter(int, int, String, MethodVisitor, TypeCache)}
+     * version.
+     * 
+     * @param access
+     *            access flags of the adapted method.
+     * @param desc
+     *            the method's descriptor (see {@link Type Type}).
+     * @param mv
+     *            the method visitor to which this adapter delegates calls.
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    public LocalVariablesSorter(final int access, final String desc,
+            final MethodVisitor mv, final TypeCache typeCache) {
+        this(Opcodes.ASM5, access, desc, mv, typeCache);
     }
 
     /**
@@ -100,7 +128,7 @@ public class LocalVariablesSorter extends MethodVisitor {
      * 
      * @param api
      *            the ASM API version implemented by this visitor. Must be one
-     *            of {@link Opcodes#ASM4}.
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
      * @param access
      *            access flags of the adapted method.
      * @param desc
@@ -110,8 +138,33 @@ public class LocalVariablesSorter extends MethodVisitor {
      */
     protected LocalVariablesSorter(final int api, final int access,
             final String desc, final MethodVisitor mv) {
+        this(api, access, desc, mv, null);
+    }
+
+    /**
+     * Creates a new {@link LocalVariablesSorter}.
+     * 
+     * @param api
+     *            the ASM API version implemented by this visitor. Must be one
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
+     * @param access
+     *            access flags of the adapted method.
+     * @param desc
+     *            the method's descriptor (see {@link Type Type}).
+     * @param mv
+     *            the method visitor to which this adapter delegates calls.
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors. A
+     *            cache can be shared by several adapters, even if they are
+     *            used concurrently. May be <tt>null</tt>, in which case
+     *            descriptors are parsed each time they are needed.
+     */
+    protected LocalVariablesSorter(final int api, final int access,
+            final String desc, final MethodVisitor mv,
+            final TypeCache typeCache) {
         super(api, mv);
-        Type[] args = Type.getArgumentTypes(desc);
+        this.typeCache = typeCache == null ? new TypeCache(0) : typeCache;
+        Type[] args = this.typeCache.getArgumentTypes(desc);
         nextLocal = (Opcodes.ACC_STATIC & access) == 0 ? 1 : 0;
         for (int i = 0; i < args.length; i++) {
             nextLocal += args[i].getSize();
@@ -167,7 +220,7 @@ public class LocalVariablesSorter extends MethodVisitor {
     public void visitLocalVariable(final String name, final String desc,
             final String signature, final Label start, final Label end,
             final int index) {
-        int newIndex = remap(index, Type.getType(desc));
+        int newIndex = remap(index, typeCache.getType(desc));
         mv.visitLocalVariable(name, desc, signature, start, end, newIndex);
     }
 
@@ -0,0 +1,535 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * A class reader driver which parses and writes the methods of large classes
+ * in parallel. The methods of the class are split in slices, each slice is
+ * processed by its own {@link ClassReader} in a task submitted to an
+ * {@link ExecutorService} (typically a
+ * {@link java.util.concurrent.ForkJoinPool ForkJoinPool}), which visits its
+ * methods with {@link ClassReader#acceptMethod acceptMethod}.
+ * <p>
+ * With {@link #write write}, each slice writes its methods with its own
+ * {@link ClassWriter}: each method is written in its own buffer, with a
+ * constant pool per slice, and the maximum stack sizes and stack map frames,
+ * if they must be computed, are computed in parallel. The written methods are
+ * then merged in the calling thread, in their original order, with the other
+ * parts of the class, in a new {@link ClassWriter} whose constant pool
+ * contains the constants of all the slices. This merge parses the written
+ * methods again, to renumber their constants, but does not compute anything
+ * again.
+ * <p>
+ * With {@link #accept accept}, the methods of each slice are stored in
+ * {@link MethodNode} objects. These method nodes, together with the other
+ * parts of the class, are then sent to the given class visitor in the calling
+ * thread, in the same order as with
+ * {@link ClassReader#accept(ClassVisitor, int) ClassReader.accept}.
+ * <p>
+ * In both cases the result does not depend on the number of threads or on
+ * their scheduling: the same class, or the same events, are produced at each
+ * run. The methods can also be transformed in parallel, before being written
+ * or stored in method nodes, by overriding the {@link #createMethodVisitor
+ * createMethodVisitor} method.
+ */
+public class ParallelMethodReader {
+
+    /**
+     * The executor used to process the slices of methods, or <tt>null</tt> to
+     * process them in the calling thread.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The maximum number of slices in which the methods of a class are split.
+     */
+    private final int parallelism;
+
+    /**
+     * The minimum number of methods in each slice.
+     */
+    private final int minMethodsPerSlice;
+
+    /**
+     * Constructs a new {@link ParallelMethodReader}.
+     * 
+     * @param executor
+     *            the executor used to process the methods, or <tt>null</tt>
+     *            to process them in the calling thread.
+     * @param parallelism
+     *            the maximum number of slices in which the methods of a class
+     *            are split, typically the number of threads of the executor.
+     */
+    public ParallelMethodReader(final ExecutorService executor,
+            final int parallelism) {
+        this(executor, parallelism, 64);
+    }
+
+    /**
+     * Constructs a new {@link ParallelMethodReader}.
+     * 
+     * @param executor
+     *            the executor used to process the methods, or <tt>null</tt>
+     *            to process them in the calling thread.
+     * @param parallelism
+     *            the maximum number of slices in which the methods of a class
+     *            are split, typically the number of threads of the executor.
+     * @param minMethodsPerSlice
+     *            the minimum number of methods in each slice. Classes with
+     *            less than twice this number of methods are processed in a
+     *            single slice, in the calling thread.
+     */
+    public ParallelMethodReader(final ExecutorService executor,
+            final int parallelism, final int minMethodsPerSlice) {
+        if (parallelism < 1 || minMethodsPerSlice < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.minMethodsPerSlice = minMethodsPerSlice;
+    }
+
+    /**
+     * Reads and writes the given class, processing its methods in parallel.
+     * 
+     * @param b
+     *            the bytecode of the class to be read.
+     * @param flags
+     *            option flags that can be used to modify the default behavior
+     *            of the reader. See
+     *            {@link ClassReader#accept(ClassVisitor, int) accept}.
+     * @param writerFlags
+     *            option flags that can be used to modify the default behavior
+     *            of the writers of the methods. See
+     *            {@link ClassWriter#ClassWriter(int) ClassWriter}.
+     * @return the bytecode of the written class.
+     */
+    public byte[] write(final byte[] b, final int flags,
+            final int writerFlags) {
+        return write(b, 0, b.length, flags, writerFlags);
+    }
+
+    /**
+     * Reads and writes the given class, processing its methods in parallel.
+     * 
+     * @param b
+     *            the bytecode of the class to be read.
+     * @param off
+     *            the start offset of the class data.
+     * @param len
+     *            the length of the class data.
+     * @param flags
+     *            option flags that can be used to modify the default behavior
+     *            of the reader. See
+     *            {@link ClassReader#accept(ClassVisitor, int) accept}.
+     * @param writerFlags
+     *            option flags that can be used to modify the default behavior
+     *            of the writers of the methods. See
+     *            {@link ClassWriter#ClassWriter(int) ClassWriter}.
+     * @return the bytecode of the written class.
+     */
+    public byte[] write(final byte[] b, final int off, final int len,
+            final int flags, final int writerFlags) {
+        ClassReader cr = new ClassReader(b, off, len);
+        int[] offsets = cr.getMethodOffsets();
+        int n = getSliceCount(offsets.length);
+        final WriterSlice[] slices = new WriterSlice[n];
+        for (int i = 0; i < slices.length; ++i) {
+            ClassReader r = i == 0 ? cr : new ClassReader(b, off, len);
+            slices[i] = new WriterSlice(r, offsets, flags, i * offsets.length
+                    / slices.length, (i + 1) * offsets.length / slices.length,
+                    writerFlags);
+        }
+        run(slices);
+        final ClassWriter cw = new ClassWriter(0);
+        cr.accept(new ClassVisitor(Opcodes.ASM5, cw) {
+            private int index;
+
+            private int slice;
+
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                while (index >= slices[slice].end) {
+                    ++slice;
+                }
+                slices[slice].acceptMethod(cw, index++);
+                return null;
+            }
+        }, flags | ClassReader.SKIP_CODE);
+        return cw.toByteArray();
+    }
+
+    /**
+     * Makes the given visitor visit the given class.
+     * 
+     * @param b
+     *            the bytecode of the class to be read.
+     * @param cv
+     *            the visitor that must visit this class.
+     * @param flags
+     *            option flags that can be used to modify the default behavior
+     *            of this class. See
+     *            {@link ClassReader#accept(ClassVisitor, int) accept}.
+     */
+    public void accept(final byte[] b, final ClassVisitor cv, final int flags) {
+        accept(b, 0, b.length, cv, flags);
+    }
+
+    /**
+     * Makes the given visitor visit the given class.
+     * 
+     * @param b
+     *            the bytecode of the class to be read.
+     * @param off
+     *            the start offset of the class data.
+     * @param len
+     *            the length of the class data.
+     * @param cv
+     *            the visitor that must visit this class.
+     * @param flags
+     *            option flags that can be used to modify the default behavior
+     *            of this class. See
+     *            {@link ClassReader#accept(ClassVisitor, int) accept}.
+     */
+    public void accept(final byte[] b, final int off, final int len,
+            final ClassVisitor cv, final int flags) {
+        ClassReader cr = new ClassReader(b, off, len);
+        int[] offsets = cr.getMethodOffsets();
+        final MethodNode[] methods = new MethodNode[offsets.length];
+        Slice[] slices = new Slice[getSliceCount(offsets.length)];
+        for (int i = 0; i < slices.length; ++i) {
+            ClassReader r = i == 0 ? cr : new ClassReader(b, off, len);
+            slices[i] = new NodeSlice(r, offsets, flags, i * offsets.length
+                    / slices.length, (i + 1) * offsets.length / slices.length,
+                    methods);
+        }
+        run(slices);
+        cr.accept(new ClassVisitor(Opcodes.ASM5, cv) {
+            private int index;
+
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                MethodNode mn = methods[index];
+                methods[index++] = null;
+                if (mn != null) {
+                    mn.accept(cv);
+                }
+                return null;
+            }
+        }, flags | ClassReader.SKIP_CODE);
+    }
+
+    /**
+     * Creates the method visitor chain used to transform a method. This
+     * method is called concurrently from several threads, and must therefore
+     * return a new (or otherwise thread safe) visitor chain at each call. The
+     * default implementation returns the given method visitor.
+     * 
+     * @param mv
+     *            the method visitor to which the transformed method must be
+     *            sent.
+     * @param access
+     *            the method's access flags.
+     * @param name
+     *            the method's name.
+     * @param desc
+     *            the method's descriptor.
+     * @return the first method visitor of the created chain, or <tt>null</tt>
+     *         to remove the method.
+     */
+    protected MethodVisitor createMethodVisitor(final MethodVisitor mv,
+            final int access, final String name, final String desc) {
+        return mv;
+    }
+
+    /**
+     * Creates the class writer used by {@link #write write} to write a slice
+     * of methods. This method is called concurrently from several threads.
+     * The default implementation returns a new {@link ClassWriter}. It can be
+     * overridden to use another {@link ClassWriter#getCommonSuperClass
+     * getCommonSuperClass} method.
+     * 
+     * @param writerFlags
+     *            the flags passed to {@link #write write}.
+     * @return a new class writer.
+     */
+    protected ClassWriter createClassWriter(final int writerFlags) {
+        return new ClassWriter(writerFlags);
+    }
+
+    /**
+     * Returns the number of slices in which the given methods must be split.
+     * 
+     * @param methods
+     *            the number of methods of a class.
+     * @return the number of slices in which these methods must be split.
+     */
+    private int getSliceCount(final int methods) {
+        if (executor == null) {
+            return 1;
+        }
+        return Math.max(1,
+                Math.min(parallelism, methods / minMethodsPerSlice));
+    }
+
+    /**
+     * Processes the given slices of methods, in parallel if there are several
+     * slices, and waits for the end of their processing.
+     * 
+     * @param slices
+     *            the slices to be processed.
+     */
+    private void run(final Slice[] slices) {
+        if (slices.length == 1) {
+            slices[0].call();
+            return;
+        }
+        Future<?>[] results = new Future<?>[slices.length];
+        try {
+            for (int i = 0; i < slices.length; ++i) {
+                results[i] = executor.submit(slices[i]);
+            }
+            for (int i = 0; i < slices.length; ++i) {
+                get(results[i]);
+            }
+        } finally {
+            for (int i = 0; i < slices.length; ++i) {
+                if (results[i] != null) {
+                    results[i].cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the processing of a slice of methods.
+     * 
+     * @param f
+     *            the result of a {@link Slice} task.
+     */
+    private static void get(final Future<?> f) {
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    /**
+     * A task visiting a slice of the methods of a class.
+     */
+    private abstract static class Slice extends ClassVisitor implements
+            Callable<Object> {
+
+        /**
+         * The reader used to parse the methods of this slice.
+         */
+        final ClassReader cr;
+
+        /**
+         * The start offset of each method of the class in {@link #cr cr}.
+         */
+        private final int[] offsets;
+
+        /**
+         * The flags used to parse the methods of this slice.
+         */
+        private final int flags;
+
+        /**
+         * The index of the first method of this slice.
+         */
+        final int start;
+
+        /**
+         * The index of the method following the last method of this slice.
+         */
+        final int end;
+
+        /**
+         * The index of the method currently visited by {@link #cr cr}.
+         */
+        int index;
+
+        Slice(final ClassReader cr, final int[] offsets, final int flags,
+                final int start, final int end) {
+            super(Opcodes.ASM5);
+            this.cr = cr;
+            this.offsets = offsets;
+            this.flags = flags;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Object call() {
+            Attribute[] attrs = new Attribute[0];
+            for (index = start; index < end; ++index) {
+                cr.acceptMethod(this, offsets[index], attrs, flags);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A task parsing a slice of the methods of a class into method nodes.
+     */
+    private class NodeSlice extends Slice {
+
+        /**
+         * The method nodes of the class, indexed by method index.
+         */
+        private final MethodNode[] methods;
+
+        NodeSlice(final ClassReader cr, final int[] offsets, final int flags,
+                final int start, final int end, final MethodNode[] methods) {
+            super(cr, offsets, flags, start, end);
+            this.methods = methods;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(final int access, final String name,
+                final String desc, final String signature,
+                final String[] exceptions) {
+            MethodNode mn = new MethodNode(access, name, desc, signature,
+                    exceptions);
+            MethodVisitor mv = createMethodVisitor(mn, access, name, desc);
+            if (mv != null) {
+                methods[index] = mn;
+            }
+            return mv;
+        }
+    }
+
+    /**
+     * A task writing a slice of the methods of a class with its own class
+     * writer.
+     */
+    private class WriterSlice extends Slice {
+
+        /**
+         * The writer used to write the methods of this slice.
+         */
+        private ClassWriter cw;
+
+        /**
+         * The flags used to create {@link #cw cw}.
+         */
+        private final int writerFlags;
+
+        /**
+         * Whether each method of this slice has been written or removed.
+         * Removed methods are still declared in {@link #cw cw}, but without
+         * code, so that the methods of this slice and of {@link #written
+         * written} have the same indexes.
+         */
+        private final boolean[] removed;
+
+        /**
+         * A reader of the class produced by {@link #cw cw}.
+         */
+        private ClassReader written;
+
+        /**
+         * The start offset of each method of {@link #written written}.
+         */
+        private int[] writtenOffsets;
+
+        WriterSlice(final ClassReader cr, final int[] offsets,
+                final int flags, final int start, final int end,
+                final int writerFlags) {
+            super(cr, offsets, flags, start, end);
+            this.writerFlags = writerFlags;
+            this.removed = new boolean[end - start];
+        }
+
+        @Override
+        public Object call() {
+            cw = createClassWriter(writerFlags);
+            cw.visit(cr.readInt(cr.getItem(1) - 7), cr.getAccess(),
+                    cr.getClassName(), null, cr.getSuperName(),
+                    cr.getInterfaces());
+            super.call();
+            cw.visitEnd();
+            written = new ClassReader(cw.toByteArray());
+            writtenOffsets = written.getMethodOffsets();
+            cw = null;
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(final int access, final String name,
+                final String desc, final String signature,
+                final String[] exceptions) {
+            MethodVisitor mv = createMethodVisitor(cw.visitMethod(access,
+                    name, desc, signature, exceptions), access, name, desc);
+            removed[index - start] = mv == null;
+            return mv;
+        }
+
+        /**
+         * Copies a method written by this slice to the given class writer.
+         * 
+         * @param cw
+         *            the class writer to which the method must be copied.
+         * @param i
+         *            the index of a method of this slice in the class.
+         */
+        void acceptMethod(final ClassWriter cw, final int i) {
+            if (!removed[i - start]) {
+                written.acceptMethod(cw, writtenOffsets[i - start],
+                        new Attribute[0], 0);
+            }
+        }
+    }
+}
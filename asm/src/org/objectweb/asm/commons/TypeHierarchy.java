@@ -0,0 +1,262 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.objectweb.asm.ClassHeader;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * A provider of type hierarchy information, used to compute the common super
+ * class of two types without loading them (see {@link HierarchyClassWriter}
+ * ). The super types of each class are found by scanning its header with
+ * {@link ClassReader#scanHeader(byte[])}, from a class file which is found
+ * with {@link #getClassBytes getClassBytes}. Both the class headers and the
+ * common super classes are cached. This class is thread safe, so that a
+ * single instance can be shared by several class writers and threads.
+ */
+public class TypeHierarchy {
+
+    /**
+     * The class loader used to find class files.
+     */
+    private final ClassLoader loader;
+
+    /**
+     * The headers of the classes that have already been scanned, indexed by
+     * internal name.
+     */
+    private final ConcurrentMap<String, ClassHeader> headers;
+
+    /**
+     * The common super classes that have already been computed, indexed by
+     * the internal names of the two types, separated with a space.
+     */
+    private final ConcurrentMap<String, String> commonSuperClasses;
+
+    /**
+     * Constructs a new {@link TypeHierarchy} which finds class files with the
+     * class loader of this class.
+     */
+    public TypeHierarchy() {
+        this(TypeHierarchy.class.getClassLoader());
+    }
+
+    /**
+     * Constructs a new {@link TypeHierarchy}.
+     * 
+     * @param loader
+     *            the class loader used to find class files. Classes are not
+     *            loaded with this loader, only their class files are read, as
+     *            resources. May be <tt>null</tt> to use the system class
+     *            loader.
+     */
+    public TypeHierarchy(final ClassLoader loader) {
+        this.loader = loader == null ? ClassLoader.getSystemClassLoader()
+                : loader;
+        this.headers = new ConcurrentHashMap<String, ClassHeader>();
+        this.commonSuperClasses = new ConcurrentHashMap<String, String>();
+    }
+
+    /**
+     * Returns the common super class of the two given types. This method has
+     * the same semantics as {@link ClassWriter#getCommonSuperClass}, but it
+     * does not load any class.
+     * 
+     * @param type1
+     *            the internal name of a class.
+     * @param type2
+     *            the internal name of another class.
+     * @return the internal name of the common super class of the two given
+     *         classes.
+     */
+    public String getCommonSuperClass(final String type1, final String type2) {
+        String key = type1.compareTo(type2) < 0 ? type1 + ' ' + type2 : type2
+                + ' ' + type1;
+        String result = commonSuperClasses.get(key);
+        if (result == null) {
+            result = computeCommonSuperClass(type1, type2);
+            commonSuperClasses.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the internal name of the super class of the given type.
+     * 
+     * @param type
+     *            the internal name of a class or interface.
+     * @return the internal name of the super class of the given type, or
+     *         <tt>null</tt> for {@link Object}.
+     */
+    public String getSuperClass(final String type) {
+        return getHeader(type).superName;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the given type is an interface.
+     * 
+     * @param type
+     *            the internal name of a class or interface.
+     * @return <tt>true</tt> if the given type is an interface.
+     */
+    public boolean isInterface(final String type) {
+        return (getHeader(type).access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if a type is a sub type of another type.
+     * 
+     * @param type
+     *            the internal name of a class or interface.
+     * @param superType
+     *            the internal name of a class or interface.
+     * @return <tt>true</tt> if type is equal to superType, or if superType is
+     *         a super class or a super interface, direct or not, of type.
+     */
+    public boolean isSubType(final String type, final String superType) {
+        if (type.equals(superType) || "java/lang/Object".equals(superType)) {
+            return true;
+        }
+        if ("java/lang/Object".equals(type)) {
+            return false;
+        }
+        ClassHeader h = getHeader(type);
+        if (h.superName != null && isSubType(h.superName, superType)) {
+            return true;
+        }
+        for (int i = 0; i < h.interfaces.length; ++i) {
+            if (isSubType(h.interfaces[i], superType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the header of the given type.
+     * 
+     * @param type
+     *            the internal name of a class or interface.
+     * @return the header of the given type.
+     */
+    protected ClassHeader getHeader(final String type) {
+        ClassHeader h = headers.get(type);
+        if (h == null) {
+            byte[] b;
+            try {
+                b = getClassBytes(type);
+            } catch (IOException e) {
+                throw new RuntimeException(e.toString());
+            }
+            if (b == null) {
+                throw new RuntimeException("Class not found: " + type);
+            }
+            h = ClassReader.scanHeader(b);
+            headers.put(type, h);
+        }
+        return h;
+    }
+
+    /**
+     * Returns the class file of the given type. The default implementation
+     * reads this class file as a resource of the class loader of this type
+     * hierarchy. This method can be overridden to find class files elsewhere,
+     * for instance in the classes being transformed.
+     * 
+     * @param type
+     *            the internal name of a class or interface.
+     * @return the content of the class file of the given type, or
+     *         <tt>null</tt> if this class file cannot be found.
+     * @throws IOException
+     *             if the class file cannot be read.
+     */
+    protected byte[] getClassBytes(final String type) throws IOException {
+        InputStream is = loader.getResourceAsStream(type + ".class");
+        if (is == null) {
+            return null;
+        }
+        try {
+            byte[] b = new byte[Math.max(is.available(), 1024)];
+            int len = 0;
+            int n;
+            while ((n = is.read(b, len, b.length - len)) != -1) {
+                len += n;
+                if (len == b.length) {
+                    byte[] c = new byte[2 * b.length];
+                    System.arraycopy(b, 0, c, 0, len);
+                    b = c;
+                }
+            }
+            if (len < b.length) {
+                byte[] c = new byte[len];
+                System.arraycopy(b, 0, c, 0, len);
+                b = c;
+            }
+            return b;
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Computes the common super class of the two given types.
+     * 
+     * @param type1
+     *            the internal name of a class.
+     * @param type2
+     *            the internal name of another class.
+     * @return the internal name of the common super class of the two given
+     *         classes.
+     */
+    private String computeCommonSuperClass(final String type1,
+            final String type2) {
+        if (isSubType(type2, type1)) {
+            return type1;
+        }
+        if (isSubType(type1, type2)) {
+            return type2;
+        }
+        if (isInterface(type1) || isInterface(type2)) {
+            return "java/lang/Object";
+        }
+        String type = type1;
+        do {
+            type = getSuperClass(type);
+        } while (!isSubType(type2, type));
+        return type;
+    }
+}
@@ -138,10 +138,10 @@ public abstract class AbstractInsnNode {
     AbstractInsnNode next;
 
     /**
-     * Index of this instruction in the list to which it belongs. The value of
-     * this field is correct only when {@link InsnList#cache} is not null. A
-     * value of -1 indicates that this instruction does not belong to any
-     * {@link InsnList}.
+     * Index of this instruction in the {@link InsnList#cache} of the list to
+     * which it belongs. The value of this field is correct only when this
+     * cache is not null. A value of -1 indicates that this instruction does
+     * not belong to any {@link InsnList}.
      */
     int index;
 
@@ -35,6 +35,7 @@ import java.util.List;
 
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
@@ -170,7 +171,7 @@ public class ClassNode extends ClassVisitor {
      * version.
      */
     public ClassNode() {
-        this(Opcodes.ASM4);
+        this(Opcodes.ASM5);
     }
 
     /**
@@ -178,7 +179,7 @@ public class ClassNode extends ClassVisitor {
      * 
      * @param api
      *            the ASM API version implemented by this visitor. Must be one
-     *            of {@link Opcodes#ASM4}.
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
      */
     public ClassNode(final int api) {
         super(api);
@@ -275,6 +276,101 @@ public class ClassNode extends ClassVisitor {
     public void visitEnd() {
     }
 
+    // ------------------------------------------------------------------------
+    // Lazy read method
+    // ------------------------------------------------------------------------
+
+    /**
+     * Reads the given class in this node, without reading the code of its
+     * methods. This method is equivalent to <tt>cr.accept(this, flags)</tt>,
+     * except that the instructions, try catch blocks, local variables, and
+     * maximum stack size and locals of each method are only read from cr when
+     * the {@link MethodNode#instructions instructions} of this method are
+     * first accessed. Furthermore, a method whose instructions have not been
+     * accessed is visited directly from cr by {@link #accept accept}, which
+     * means that it is copied as is if the visitor is a
+     * {@link org.objectweb.asm.ClassWriter ClassWriter} whose constant pool
+     * was copied from cr (provided its access flags, name, descriptor,
+     * signature and exceptions have not been changed). This saves a lot of
+     * time and memory when only a few methods of a class must be analyzed or
+     * transformed.
+     * <p>
+     * <i>The annotations and non standard attributes of a method must not be
+     * changed unless its instructions have been accessed first (otherwise
+     * these changes would be ignored by {@link #accept accept}). Likewise,
+     * the {@link MethodNode#tryCatchBlocks tryCatchBlocks},
+     * {@link MethodNode#localVariables localVariables},
+     * {@link MethodNode#maxStack maxStack} and {@link MethodNode#maxLocals
+     * maxLocals} fields of a method are only valid once its instructions
+     * have been accessed, and the original code of a method is never read if
+     * its instructions field is replaced with a new list before its original
+     * instructions have been accessed.</i>
+     * 
+     * @param cr
+     *            the reader of the class to be read. This reader must not be
+     *            used concurrently by another thread as long as the code of
+     *            some methods has not been read.
+     * @param flags
+     *            option flags that can be used to modify the default behavior
+     *            of the reader. See
+     *            {@link ClassReader#accept(ClassVisitor, int) accept}.
+     */
+    public void readLazily(final ClassReader cr, final int flags) {
+        if ((flags & ClassReader.SKIP_CODE) != 0) {
+            cr.accept(this, flags);
+            return;
+        }
+        final int[] offsets = cr.getMethodOffsets();
+        cr.accept(new ClassVisitor(Opcodes.ASM4, this) {
+            private int index;
+
+            private MethodNode pending;
+
+            private MethodVisitor pendingVisitor;
+
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                visitPending();
+                MethodVisitor mv = super.visitMethod(access, name, desc,
+                        signature, exceptions);
+                int offset = offsets[index++];
+                if (mv == null) {
+                    return null;
+                }
+                MethodNode mn;
+                if (mv.getClass() == MethodNode.class) {
+                    mn = (MethodNode) mv;
+                } else {
+                    // mv may need the code of the method before visitEnd, so
+                    // the method is stored in a temporary method node, and
+                    // sent to mv with its code after it has been read
+                    mn = new MethodNode(access, name, desc, signature,
+                            exceptions);
+                    pending = mn;
+                    pendingVisitor = mv;
+                }
+                mn.setReader(cr, offset, flags);
+                return mn;
+            }
+
+            @Override
+            public void visitEnd() {
+                visitPending();
+                super.visitEnd();
+            }
+
+            private void visitPending() {
+                if (pending != null) {
+                    pending.accept(pendingVisitor);
+                    pending = null;
+                    pendingVisitor = null;
+                }
+            }
+        }, flags | ClassReader.SKIP_CODE);
+    }
+
     // ------------------------------------------------------------------------
     // Accept method
     // ------------------------------------------------------------------------
@@ -286,10 +382,13 @@ public class ClassNode extends ClassVisitor {
      * API than the given version.
      * 
      * @param api
-     *            an ASM API version. Must be one of {@link Opcodes#ASM4}.
+     *            an ASM API version. Must be one of {@link Opcodes#ASM4} or
+     *            {@link Opcodes#ASM5}.
      */
     public void check(final int api) {
-        // nothing to do
+        for (int i = 0; i < methods.size(); ++i) {
+            methods.get(i).check(api);
+        }
     }
 
     /**
@@ -35,8 +35,13 @@ import java.util.NoSuchElementException;
 import org.objectweb.asm.MethodVisitor;
 
 /**
- * A doubly linked list of {@link AbstractInsnNode} objects. <i>This
- * implementation is not thread safe</i>.
+ * A doubly linked list of {@link AbstractInsnNode} objects. The first call
+ * to {@link #get get} or {@link #indexOf indexOf} builds an index of the
+ * instructions of this list, which is then updated incrementally by the
+ * methods that modify the list. This index is a gap buffer, so that it can be
+ * updated in constant time for a sequence of changes made at or near the same
+ * position, as done by most code optimizers. <i>This implementation is not
+ * thread safe</i>.
  */
 public class InsnList {
 
@@ -56,17 +61,42 @@ public class InsnList {
     private AbstractInsnNode last;
 
     /**
-     * A cache of the instructions of this list. This cache is used to improve
-     * the performance of the {@link #get} method.
+     * A cache of the instructions of this list, or <tt>null</tt> if it has
+     * not been built yet. This cache is used to improve the performance of the
+     * {@link #get} and {@link #indexOf} methods. The instructions are stored
+     * in the [0, {@link #gapStart}) and [{@link #gapEnd}, cache.length)
+     * ranges of this array, in the same order as in the list, and the
+     * {@link AbstractInsnNode#index index} of each instruction is its
+     * position in this array. The elements of the gap are all <tt>null</tt>.
      */
     AbstractInsnNode[] cache;
 
+    /**
+     * The start of the gap of {@link #cache}.
+     */
+    private int gapStart;
+
+    /**
+     * The end of the gap of {@link #cache} (exclusive).
+     */
+    private int gapEnd;
+
+    /**
+     * The method whose code must be read before this list can be used, or
+     * <tt>null</tt> if this list is complete. See {@link ClassNode#readLazily
+     * readLazily}.
+     */
+    MethodNode method;
+
     /**
      * Returns the number of instructions in this list.
      * 
      * @return the number of instructions in this list.
      */
     public int size() {
+        if (method != null) {
+            method.readCode(this);
+        }
         return size;
     }
 
@@ -77,6 +107,9 @@ public class InsnList {
      *         is empty.
      */
     public AbstractInsnNode getFirst() {
+        if (method != null) {
+            method.readCode(this);
+        }
         return first;
     }
 
@@ -87,6 +120,9 @@ public class InsnList {
      *         is empty.
      */
     public AbstractInsnNode getLast() {
+        if (method != null) {
+            method.readCode(this);
+        }
         return last;
     }
 
@@ -94,7 +130,8 @@ public class InsnList {
      * Returns the instruction whose index is given. This method builds a cache
      * of the instructions in this list to avoid scanning the whole list each
      * time it is called. Once the cache is built, this method run in constant
-     * time. This cache is invalidated by all the methods that modify the list.
+     * time. This cache is then updated by all the methods that modify the
+     * list.
      * 
      * @param index
      *            the index of the instruction that must be returned.
@@ -103,25 +140,37 @@ public class InsnList {
      *             if (index < 0 || index >= size()).
      */
     public AbstractInsnNode get(final int index) {
+        if (method != null) {
+            method.readCode(this);
+        }
         if (index < 0 || index >= size) {
             throw new IndexOutOfBoundsException();
         }
         if (cache == null) {
-            cache = toArray();
+            buildCache();
         }
-        return cache[index];
+        return cache[index < gapStart ? index : index + gapEnd - gapStart];
     }
 
     /**
      * Returns <tt>true</tt> if the given instruction belongs to this list. This
-     * method always scans the instructions of this list until it finds the
-     * given instruction or reaches the end of the list.
+     * method runs in constant time if the cache of the instructions of this
+     * list has been built (see {@link #get get}). Otherwise it scans the
+     * instructions of this list until it finds the given instruction or
+     * reaches the end of the list.
      * 
      * @param insn
      *            an instruction.
      * @return <tt>true</tt> if the given instruction belongs to this list.
      */
     public boolean contains(final AbstractInsnNode insn) {
+        if (method != null) {
+            method.readCode(this);
+        }
+        if (cache != null) {
+            int index = insn.index;
+            return index >= 0 && index < cache.length && cache[index] == insn;
+        }
         AbstractInsnNode i = first;
         while (i != null && i != insn) {
             i = i.next;
@@ -133,7 +182,7 @@ public class InsnList {
      * Returns the index of the given instruction in this list. This method
      * builds a cache of the instruction indexes to avoid scanning the whole
      * list each time it is called. Once the cache is built, this method run in
-     * constant time. The cache is invalidated by all the methods that modify
+     * constant time. The cache is then updated by all the methods that modify
      * the list.
      * 
      * @param insn
@@ -144,10 +193,13 @@ public class InsnList {
      *         instruction belongs to an instruction list or not.
      */
     public int indexOf(final AbstractInsnNode insn) {
+        if (method != null) {
+            method.readCode(this);
+        }
         if (cache == null) {
-            cache = toArray();
+            buildCache();
         }
-        return insn.index;
+        return index(insn);
     }
 
     /**
@@ -157,6 +209,9 @@ public class InsnList {
      *            the method visitor that must visit the instructions.
      */
     public void accept(final MethodVisitor mv) {
+        if (method != null) {
+            method.readCode(this);
+        }
         AbstractInsnNode insn = first;
         while (insn != null) {
             insn.accept(mv);
@@ -180,6 +235,9 @@ public class InsnList {
      */
     @SuppressWarnings("unchecked")
     public ListIterator<AbstractInsnNode> iterator(int index) {
+        if (method != null) {
+            method.readCode(this);
+        }
         return new InsnListIterator(index);
     }
 
@@ -189,12 +247,14 @@ public class InsnList {
      * @return an array containing all of the instructions in this list.
      */
     public AbstractInsnNode[] toArray() {
+        if (method != null) {
+            method.readCode(this);
+        }
         int i = 0;
         AbstractInsnNode elem = first;
         AbstractInsnNode[] insns = new AbstractInsnNode[size];
         while (elem != null) {
-            insns[i] = elem;
-            elem.index = i++;
+            insns[i++] = elem;
             elem = elem.next;
         }
         return insns;
@@ -210,6 +270,9 @@ public class InsnList {
      *            {@link InsnList}</i>.
      */
     public void set(final AbstractInsnNode location, final AbstractInsnNode insn) {
+        if (method != null) {
+            method.readCode(this);
+        }
         AbstractInsnNode next = location.next;
         insn.next = next;
         if (next != null) {
@@ -244,6 +307,9 @@ public class InsnList {
      *            {@link InsnList}</i>.
      */
     public void add(final AbstractInsnNode insn) {
+        if (method != null) {
+            method.readCode(this);
+        }
         ++size;
         if (last == null) {
             first = insn;
@@ -253,8 +319,11 @@ public class InsnList {
             insn.prev = last;
         }
         last = insn;
-        cache = null;
-        insn.index = 0; // insn now belongs to an InsnList
+        if (cache != null) {
+            insertCache(size - 1, insn, 1);
+        } else {
+            insn.index = 0; // insn now belongs to an InsnList
+        }
     }
 
     /**
@@ -265,10 +334,19 @@ public class InsnList {
      *            list must be different from 'this'.
      */
     public void add(final InsnList insns) {
+        if (method != null) {
+            method.readCode(this);
+        }
+        if (insns.method != null) {
+            insns.method.readCode(insns);
+        }
         if (insns.size == 0) {
             return;
         }
         size += insns.size;
+        if (cache != null) {
+            insertCache(size - insns.size, insns.first, insns.size);
+        }
         if (last == null) {
             first = insns.first;
             last = insns.last;
@@ -278,7 +356,6 @@ public class InsnList {
             elem.prev = last;
             last = insns.last;
         }
-        cache = null;
         insns.removeAll(false);
     }
 
@@ -290,6 +367,9 @@ public class InsnList {
      *            {@link InsnList}</i>.
      */
     public void insert(final AbstractInsnNode insn) {
+        if (method != null) {
+            method.readCode(this);
+        }
         ++size;
         if (first == null) {
             first = insn;
@@ -299,8 +379,11 @@ public class InsnList {
             insn.next = first;
         }
         first = insn;
-        cache = null;
-        insn.index = 0; // insn now belongs to an InsnList
+        if (cache != null) {
+            insertCache(0, insn, 1);
+        } else {
+            insn.index = 0; // insn now belongs to an InsnList
+        }
     }
 
     /**
@@ -311,10 +394,19 @@ public class InsnList {
      *            list must be different from 'this'.
      */
     public void insert(final InsnList insns) {
+        if (method != null) {
+            method.readCode(this);
+        }
+        if (insns.method != null) {
+            insns.method.readCode(insns);
+        }
         if (insns.size == 0) {
             return;
         }
         size += insns.size;
+        if (cache != null) {
+            insertCache(0, insns.first, insns.size);
+        }
         if (first == null) {
             first = insns.first;
             last = insns.last;
@@ -324,7 +416,6 @@ public class InsnList {
             elem.next = first;
             first = insns.first;
         }
-        cache = null;
         insns.removeAll(false);
     }
 
@@ -340,6 +431,9 @@ public class InsnList {
      */
     public void insert(final AbstractInsnNode location,
             final AbstractInsnNode insn) {
+        if (method != null) {
+            method.readCode(this);
+        }
         ++size;
         AbstractInsnNode next = location.next;
         if (next == null) {
@@ -350,8 +444,11 @@ public class InsnList {
         location.next = insn;
         insn.next = next;
         insn.prev = location;
-        cache = null;
-        insn.index = 0; // insn now belongs to an InsnList
+        if (cache != null) {
+            insertCache(index(location) + 1, insn, 1);
+        } else {
+            insn.index = 0; // insn now belongs to an InsnList
+        }
     }
 
     /**
@@ -365,12 +462,21 @@ public class InsnList {
      *            the process. This list must be different from 'this'.
      */
     public void insert(final AbstractInsnNode location, final InsnList insns) {
+        if (method != null) {
+            method.readCode(this);
+        }
+        if (insns.method != null) {
+            insns.method.readCode(insns);
+        }
         if (insns.size == 0) {
             return;
         }
         size += insns.size;
         AbstractInsnNode ifirst = insns.first;
         AbstractInsnNode ilast = insns.last;
+        if (cache != null) {
+            insertCache(index(location) + 1, ifirst, insns.size);
+        }
         AbstractInsnNode next = location.next;
         if (next == null) {
             last = ilast;
@@ -380,7 +486,6 @@ public class InsnList {
         location.next = ifirst;
         ilast.next = next;
         ifirst.prev = location;
-        cache = null;
         insns.removeAll(false);
     }
 
@@ -396,6 +501,9 @@ public class InsnList {
      */
     public void insertBefore(final AbstractInsnNode location,
             final AbstractInsnNode insn) {
+        if (method != null) {
+            method.readCode(this);
+        }
         ++size;
         AbstractInsnNode prev = location.prev;
         if (prev == null) {
@@ -406,8 +514,11 @@ public class InsnList {
         location.prev = insn;
         insn.next = location;
         insn.prev = prev;
-        cache = null;
-        insn.index = 0; // insn now belongs to an InsnList
+        if (cache != null) {
+            insertCache(index(location), insn, 1);
+        } else {
+            insn.index = 0; // insn now belongs to an InsnList
+        }
     }
 
     /**
@@ -422,12 +533,21 @@ public class InsnList {
      */
     public void insertBefore(final AbstractInsnNode location,
             final InsnList insns) {
+        if (method != null) {
+            method.readCode(this);
+        }
+        if (insns.method != null) {
+            insns.method.readCode(insns);
+        }
         if (insns.size == 0) {
             return;
         }
         size += insns.size;
         AbstractInsnNode ifirst = insns.first;
         AbstractInsnNode ilast = insns.last;
+        if (cache != null) {
+            insertCache(index(location), ifirst, insns.size);
+        }
         AbstractInsnNode prev = location.prev;
         if (prev == null) {
             first = ifirst;
@@ -437,7 +557,6 @@ public class InsnList {
         location.prev = ilast;
         ilast.next = location;
         ifirst.prev = prev;
-        cache = null;
         insns.removeAll(false);
     }
 
@@ -448,6 +567,13 @@ public class InsnList {
      *            the instruction <i>of this list</i> that must be removed.
      */
     public void remove(final AbstractInsnNode insn) {
+        if (method != null) {
+            method.readCode(this);
+        }
+        if (cache != null) {
+            moveGap(index(insn), 0);
+            cache[gapEnd++] = null;
+        }
         --size;
         AbstractInsnNode next = insn.next;
         AbstractInsnNode prev = insn.prev;
@@ -468,7 +594,6 @@ public class InsnList {
                 next.prev = prev;
             }
         }
-        cache = null;
         insn.index = -1; // insn no longer belongs to an InsnList
         insn.prev = null;
         insn.next = null;
@@ -502,6 +627,9 @@ public class InsnList {
      * Removes all of the instructions of this list.
      */
     public void clear() {
+        if (method != null) {
+            method.readCode(this);
+        }
         removeAll(false);
     }
 
@@ -511,6 +639,9 @@ public class InsnList {
      * <code>ClassWriter</code>s.
      */
     public void resetLabels() {
+        if (method != null) {
+            method.readCode(this);
+        }
         AbstractInsnNode insn = first;
         while (insn != null) {
             if (insn instanceof LabelNode) {
@@ -520,6 +651,115 @@ public class InsnList {
         }
     }
 
+    /**
+     * Builds the cache of the instructions of this list.
+     */
+    private void buildCache() {
+        AbstractInsnNode[] c = new AbstractInsnNode[size];
+        int i = 0;
+        AbstractInsnNode insn = first;
+        while (insn != null) {
+            c[i] = insn;
+            insn.index = i++;
+            insn = insn.next;
+        }
+        cache = c;
+        gapStart = i;
+        gapEnd = i;
+    }
+
+    /**
+     * Returns the index of the given instruction in this list. The cache of
+     * the instructions of this list must have been built.
+     * 
+     * @param insn
+     *            an instruction <i>of this list</i>.
+     * @return the index of the given instruction in this list.
+     */
+    private int index(final AbstractInsnNode insn) {
+        int index = insn.index;
+        return index < gapStart ? index : index - (gapEnd - gapStart);
+    }
+
+    /**
+     * Adds instructions to the cache of the instructions of this list.
+     * 
+     * @param index
+     *            the index in this list of the first added instruction.
+     * @param insn
+     *            the first added instruction. The other ones are obtained
+     *            with its {@link AbstractInsnNode#next next} field.
+     * @param n
+     *            the number of added instructions.
+     */
+    private void insertCache(final int index, AbstractInsnNode insn,
+            final int n) {
+        moveGap(index, n);
+        AbstractInsnNode[] c = cache;
+        int i = gapStart;
+        for (int j = 0; j < n; ++j) {
+            c[i] = insn;
+            insn.index = i++;
+            insn = insn.next;
+        }
+        gapStart = i;
+    }
+
+    /**
+     * Moves the gap of the cache of the instructions of this list, and
+     * enlarges it if necessary.
+     * 
+     * @param index
+     *            the index in this list of the instruction that must follow
+     *            the gap.
+     * @param n
+     *            the minimum size of the gap.
+     */
+    private void moveGap(final int index, final int n) {
+        AbstractInsnNode[] c = cache;
+        int start = gapStart;
+        int end = gapEnd;
+        if (index < start) {
+            // moves the instructions in [index, start) after the gap
+            int count = start - index;
+            System.arraycopy(c, index, c, end - count, count);
+            for (int i = end - count; i < end; ++i) {
+                c[i].index = i;
+            }
+            for (int i = Math.min(start, end - count) - 1; i >= index; --i) {
+                c[i] = null;
+            }
+            start = index;
+            end -= count;
+        } else if (index > start) {
+            // moves the instructions in [end, end + count) before the gap
+            int count = index - start;
+            System.arraycopy(c, end, c, start, count);
+            for (int i = start; i < index; ++i) {
+                c[i].index = i;
+            }
+            for (int i = Math.max(index, end); i < end + count; ++i) {
+                c[i] = null;
+            }
+            start = index;
+            end += count;
+        }
+        if (end - start < n) {
+            int tail = c.length - end;
+            int length = Math.max(2 * c.length, c.length + n + 16);
+            AbstractInsnNode[] d = new AbstractInsnNode[length];
+            System.arraycopy(c, 0, d, 0, start);
+            System.arraycopy(c, end, d, length - tail, tail);
+            end = length - tail;
+            for (int i = end; i < length; ++i) {
+                d[i].index = i;
+            }
+            cache = d;
+        }
+        gapStart = start;
+        gapEnd = end;
+    }
+
     // this class is not generified because it will create bridges
     private final class InsnListIterator implements ListIterator {
 
@@ -571,20 +811,14 @@ public class InsnList {
             if (next == null) {
                 return size();
             }
-            if (cache == null) {
-                cache = toArray();
-            }
-            return next.index;
+            return indexOf(next);
         }
 
         public int previousIndex() {
             if (prev == null) {
                 return -1;
             }
-            if (cache == null) {
-                cache = toArray();
-            }
-            return prev.index;
+            return indexOf(prev);
         }
 
         public void add(Object o) {
@@ -35,6 +35,7 @@ import java.util.List;
 
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
@@ -171,13 +172,42 @@ public class MethodNode extends MethodVisitor {
      */
     private boolean visited;
 
+    /**
+     * The reader of the class containing this method, if the code of this
+     * method has not been read yet, or <tt>null</tt> otherwise. See
+     * {@link ClassNode#readLazily readLazily}.
+     */
+    private ClassReader reader;
+
+    /**
+     * The start offset of this method in {@link #reader reader}.
+     */
+    private int readerOffset;
+
+    /**
+     * The flags used to read the code of this method.
+     */
+    private int readerFlags;
+
+    /**
+     * The access flags of this method when it was read.
+     */
+    private int readerAccess;
+
+    /**
+     * The name, descriptor, signature and exceptions of this method when it
+     * was read. Used with {@link #readerAccess readerAccess} to detect if the
+     * header of this method has been changed since then.
+     */
+    private String[] readerHeader;
+
     /**
      * Constructs an uninitialized {@link MethodNode}. <i>Subclasses must not
      * use this constructor</i>. Instead, they must use the
      * {@link #MethodNode(int)} version.
      */
     public MethodNode() {
-        this(Opcodes.ASM4);
+        this(Opcodes.ASM5);
     }
 
     /**
@@ -185,7 +215,7 @@ public class MethodNode extends MethodVisitor {
      * 
      * @param api
      *            the ASM API version implemented by this visitor. Must be one
-     *            of {@link Opcodes#ASM4}.
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
      */
     public MethodNode(final int api) {
         super(api);
@@ -214,7 +244,7 @@ public class MethodNode extends MethodVisitor {
      */
     public MethodNode(final int access, final String name, final String desc,
             final String signature, final String[] exceptions) {
-        this(Opcodes.ASM4, access, name, desc, signature, exceptions);
+        this(Opcodes.ASM5, access, name, desc, signature, exceptions);
     }
 
     /**
@@ -222,7 +252,7 @@ public class MethodNode extends MethodVisitor {
      * 
      * @param api
      *            the ASM API version implemented by this visitor. Must be one
-     *            of {@link Opcodes#ASM4}.
+     *            of {@link Opcodes#ASM4} or {@link Opcodes#ASM5}.
      * @param access
      *            the method's access flags (see {@link Opcodes}). This
      *            parameter also indicates if the method is synthetic and/or
@@ -368,9 +398,23 @@ public class MethodNode extends MethodVisitor {
     @Override
     public void visitMethodInsn(final int opcode, final String owner,
             final String name, final String desc) {
+        if (api >= Opcodes.ASM5) {
+            super.visitMethodInsn(opcode, owner, name, desc);
+            return;
+        }
         instructions.add(new MethodInsnNode(opcode, owner, name, desc));
     }
 
+    @Override
+    public void visitMethodInsn(final int opcode, final String owner,
+            final String name, final String desc, final boolean itf) {
+        if (api < Opcodes.ASM5) {
+            super.visitMethodInsn(opcode, owner, name, desc, itf);
+            return;
+        }
+        instructions.add(new MethodInsnNode(opcode, owner, name, desc, itf));
+    }
+
     @Override
     public void visitInvokeDynamicInsn(String name, String desc, Handle bsm,
             Object... bsmArgs) {
@@ -494,10 +538,23 @@ public class MethodNode extends MethodVisitor {
      * versions of the ASM API than the given version.
      * 
      * @param api
-     *            an ASM API version. Must be one of {@link Opcodes#ASM4}.
+     *            an ASM API version. Must be one of {@link Opcodes#ASM4} or
+     *            {@link Opcodes#ASM5}.
      */
     public void check(final int api) {
-        // nothing to do
+        if (api == Opcodes.ASM4) {
+            // INVOKESPECIAL and INVOKESTATIC instructions can not refer to
+            // interface methods with the ASM4 API
+            for (int i = 0; i < instructions.size(); ++i) {
+                AbstractInsnNode insn = instructions.get(i);
+                if (insn instanceof MethodInsnNode) {
+                    MethodInsnNode mi = (MethodInsnNode) insn;
+                    if (mi.itf != (mi.opcode == Opcodes.INVOKEINTERFACE)) {
+                        throw new RuntimeException();
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -507,6 +564,15 @@ public class MethodNode extends MethodVisitor {
      *            a class visitor.
      */
     public void accept(final ClassVisitor cv) {
+        if (reader != null && instructions.method == this
+                && isHeaderUnchanged()) {
+            // the method is visited (or copied as is, if cv is a ClassWriter
+            // whose constant pool was copied from reader) from the original
+            // class, without reading its code in this node
+            reader.acceptMethod(cv, readerOffset, new Attribute[0],
+                    readerFlags);
+            return;
+        }
         String[] exceptions = new String[this.exceptions.size()];
         this.exceptions.toArray(exceptions);
         MethodVisitor mv = cv.visitMethod(access, name, desc, signature,
@@ -594,4 +660,104 @@ public class MethodNode extends MethodVisitor {
         }
         mv.visitEnd();
     }
+
+    /**
+     * Marks the code of this method as not read yet. The code is read from
+     * the given class reader when {@link #instructions instructions} is first
+     * accessed.
+     * 
+     * @param cr
+     *            the reader of the class containing this method.
+     * @param offset
+     *            the start offset of this method in cr.
+     * @param flags
+     *            the flags to be used to read the code of this method.
+     */
+    void setReader(final ClassReader cr, final int offset, final int flags) {
+        reader = cr;
+        readerOffset = offset;
+        readerFlags = flags;
+        readerAccess = access;
+        int n = exceptions.size();
+        String[] header = new String[3 + n];
+        header[0] = name;
+        header[1] = desc;
+        header[2] = signature;
+        for (int i = 0; i < n; ++i) {
+            header[3 + i] = exceptions.get(i);
+        }
+        readerHeader = header;
+        instructions.method = this;
+    }
+
+    /**
+     * Returns true if the access flags, name, descriptor, signature and
+     * exceptions of this method have not been changed since it was read.
+     * 
+     * @return true if the header of this method has not been changed.
+     */
+    private boolean isHeaderUnchanged() {
+        String[] header = readerHeader;
+        int n = exceptions.size();
+        if (access != readerAccess || name != header[0] || desc != header[1]
+                || signature != header[2] || n != header.length - 3) {
+            return false;
+        }
+        for (int i = 0; i < n; ++i) {
+            if (exceptions.get(i) != header[3 + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the code of this method in the given instruction list, which
+     * must be the list that was in {@link #instructions instructions} when
+     * {@link #setReader setReader} was called. The try catch blocks, local
+     * variables, and maximum stack size and locals of this method are also
+     * set during this process.
+     * 
+     * @param insns
+     *            the instruction list of this method whose code has not been
+     *            read yet.
+     */
+    void readCode(final InsnList insns) {
+        ClassReader cr = reader;
+        insns.method = null;
+        reader = null;
+        readerHeader = null;
+        InsnList current = instructions;
+        instructions = insns;
+        cr.acceptMethod(new ClassVisitor(Opcodes.ASM4) {
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM5, MethodNode.this) {
+                    private boolean code;
+
+                    @Override
+                    public void visitAttribute(final Attribute attr) {
+                        // method attributes have already been read
+                        if (code) {
+                            super.visitAttribute(attr);
+                        }
+                    }
+
+                    @Override
+                    public void visitCode() {
+                        code = true;
+                        super.visitCode();
+                    }
+
+                    @Override
+                    public void visitEnd() {
+                    }
+                };
+            }
+        }, readerOffset, new Attribute[0], readerFlags
+                | ClassReader.SKIP_ANNOTATIONS);
+        instructions = current;
+    }
 }
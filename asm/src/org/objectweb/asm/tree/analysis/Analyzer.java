@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.objectweb.asm.OpcodeTable;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -60,6 +61,8 @@ public class Analyzer<V extends Value> implements Opcodes {
 
     private final Interpreter<V> interpreter;
 
+    private final boolean blockFrames;
+
     private int n;
 
     private InsnList insns;
@@ -76,6 +79,12 @@ public class Analyzer<V extends Value> implements Opcodes {
 
     private int top;
 
+    private boolean[] blockStarts;
+
+    private int cursor;
+
+    private Frame<V> cursorFrame;
+
     /**
      * Constructs a new {@link Analyzer}.
      * 
@@ -84,7 +93,29 @@ public class Analyzer<V extends Value> implements Opcodes {
      *            bytecode instructions.
      */
     public Analyzer(final Interpreter<V> interpreter) {
+        this(interpreter, false);
+    }
+
+    /**
+     * Constructs a new {@link Analyzer}.
+     * 
+     * @param interpreter
+     *            the interpreter to be used to symbolically interpret the
+     *            bytecode instructions.
+     * @param blockFrames
+     *            <tt>true</tt> to keep only the frames at the beginning of
+     *            each basic block, in order to reduce the memory needed to
+     *            analyze large methods. In this case the arrays returned by
+     *            {@link #analyze analyze} and {@link #getFrames getFrames}
+     *            contain <tt>null</tt> for the other instructions, and the
+     *            frames of these instructions must be obtained with
+     *            {@link #getFrame getFrame}. This option is ignored for
+     *            methods containing JSR instructions.
+     */
+    public Analyzer(final Interpreter<V> interpreter,
+            final boolean blockFrames) {
         this.interpreter = interpreter;
+        this.blockFrames = blockFrames;
     }
 
     /**
@@ -104,6 +135,8 @@ public class Analyzer<V extends Value> implements Opcodes {
      */
     public Frame<V>[] analyze(final String owner, final MethodNode m)
             throws AnalyzerException {
+        blockStarts = null;
+        cursorFrame = null;
         if ((m.access & (ACC_ABSTRACT | ACC_NATIVE)) != 0) {
             frames = (Frame<V>[]) new Frame<?>[0];
             return frames;
@@ -117,18 +150,36 @@ public class Analyzer<V extends Value> implements Opcodes {
         queue = new int[n];
         top = 0;
 
-        // computes exception handlers for each instruction
-        for (int i = 0; i < m.tryCatchBlocks.size(); ++i) {
-            TryCatchBlockNode tcb = m.tryCatchBlocks.get(i);
-            int begin = insns.indexOf(tcb.start);
-            int end = insns.indexOf(tcb.end);
-            for (int j = begin; j < end; ++j) {
-                List<TryCatchBlockNode> insnHandlers = handlers[j];
-                if (insnHandlers == null) {
-                    insnHandlers = new ArrayList<TryCatchBlockNode>();
-                    handlers[j] = insnHandlers;
+        // computes exception handlers for each instruction (instructions
+        // covered by the same try catch blocks share the same list)
+        int nTcb = m.tryCatchBlocks.size();
+        if (nTcb > 0) {
+            int[] begins = new int[nTcb];
+            int[] ends = new int[nTcb];
+            boolean[] bounds = new boolean[n + 1];
+            for (int i = 0; i < nTcb; ++i) {
+                TryCatchBlockNode tcb = m.tryCatchBlocks.get(i);
+                begins[i] = insns.indexOf(tcb.start);
+                ends[i] = insns.indexOf(tcb.end);
+                if (begins[i] < ends[i]) {
+                    bounds[begins[i]] = true;
+                    bounds[ends[i]] = true;
+                }
+            }
+            List<TryCatchBlockNode> insnHandlers = null;
+            for (int j = 0; j < n; ++j) {
+                if (bounds[j]) {
+                    insnHandlers = null;
+                    for (int i = 0; i < nTcb; ++i) {
+                        if (begins[i] <= j && j < ends[i]) {
+                            if (insnHandlers == null) {
+                                insnHandlers = new ArrayList<TryCatchBlockNode>();
+                            }
+                            insnHandlers.add(m.tryCatchBlocks.get(i));
+                        }
+                    }
                 }
-                insnHandlers.add(tcb);
+                handlers[j] = insnHandlers;
             }
         }
 
@@ -157,8 +208,9 @@ public class Analyzer<V extends Value> implements Opcodes {
         // initializes the data structures for the control flow analysis
         Frame<V> current = newFrame(m.maxLocals, m.maxStack);
         Frame<V> handler = newFrame(m.maxLocals, m.maxStack);
-        current.setReturn(interpreter.newValue(Type.getReturnType(m.desc)));
-        Type[] args = Type.getArgumentTypes(m.desc);
+        current.setReturn(interpreter.newValue(interpreter.typeCache
+                .getReturnType(m.desc)));
+        Type[] args = interpreter.typeCache.getArgumentTypes(m.desc);
         int local = 0;
         if ((m.access & ACC_STATIC) == 0) {
             Type ctype = Type.getObjectType(owner);
@@ -177,6 +229,11 @@ public class Analyzer<V extends Value> implements Opcodes {
 
         init(owner, m);
 
+        if (blockFrames && subroutineHeads.isEmpty()) {
+            analyzeBlocks(current, handler);
+            return frames;
+        }
+
         // control flow analysis
         while (top > 0) {
             int insn = queue[--top];
@@ -188,7 +245,8 @@ public class Analyzer<V extends Value> implements Opcodes {
             try {
                 insnNode = m.instructions.get(insn);
                 int insnOpcode = insnNode.getOpcode();
-                int insnType = insnNode.getType();
+                int insnType = insnOpcode < 0 ? insnNode.getType()
+                        : OpcodeTable.getType(insnOpcode);
 
                 if (insnType == AbstractInsnNode.LABEL
                         || insnType == AbstractInsnNode.LINE
@@ -199,43 +257,59 @@ public class Analyzer<V extends Value> implements Opcodes {
                     current.init(f).execute(insnNode, interpreter);
                     subroutine = subroutine == null ? null : subroutine.copy();
 
-                    if (insnNode instanceof JumpInsnNode) {
-                        JumpInsnNode j = (JumpInsnNode) insnNode;
-                        if (insnOpcode != GOTO && insnOpcode != JSR) {
+                    int flow = OpcodeTable.getFlow(insnOpcode);
+                    switch (flow) {
+                    case OpcodeTable.FLOW_JUMP:
+                    case OpcodeTable.FLOW_GOTO: {
+                        if (flow == OpcodeTable.FLOW_JUMP
+                                && newControlFlowEdge(insn, insn + 1, f)) {
                             merge(insn + 1, current, subroutine);
                             newControlFlowEdge(insn, insn + 1);
                         }
+                        JumpInsnNode j = (JumpInsnNode) insnNode;
                         int jump = insns.indexOf(j.label);
-                        if (insnOpcode == JSR) {
-                            merge(jump, current, new Subroutine(j.label,
-                                    m.maxLocals, j));
-                        } else {
-                            merge(jump, current, subroutine);
-                        }
-                        newControlFlowEdge(insn, jump);
-                    } else if (insnNode instanceof LookupSwitchInsnNode) {
-                        LookupSwitchInsnNode lsi = (LookupSwitchInsnNode) insnNode;
-                        int jump = insns.indexOf(lsi.dflt);
-                        merge(jump, current, subroutine);
-                        newControlFlowEdge(insn, jump);
-                        for (int j = 0; j < lsi.labels.size(); ++j) {
-                            LabelNode label = lsi.labels.get(j);
-                            jump = insns.indexOf(label);
+                        if (flow == OpcodeTable.FLOW_GOTO
+                                || newControlFlowEdge(insn, jump, f)) {
                             merge(jump, current, subroutine);
                             newControlFlowEdge(insn, jump);
                         }
-                    } else if (insnNode instanceof TableSwitchInsnNode) {
-                        TableSwitchInsnNode tsi = (TableSwitchInsnNode) insnNode;
-                        int jump = insns.indexOf(tsi.dflt);
-                        merge(jump, current, subroutine);
+                        break;
+                    }
+                    case OpcodeTable.FLOW_JSR: {
+                        JumpInsnNode j = (JumpInsnNode) insnNode;
+                        int jump = insns.indexOf(j.label);
+                        merge(jump, current, new Subroutine(j.label,
+                                m.maxLocals, j));
                         newControlFlowEdge(insn, jump);
-                        for (int j = 0; j < tsi.labels.size(); ++j) {
-                            LabelNode label = tsi.labels.get(j);
-                            jump = insns.indexOf(label);
+                        break;
+                    }
+                    case OpcodeTable.FLOW_SWITCH: {
+                        LabelNode dflt;
+                        List<LabelNode> labels;
+                        if (insnOpcode == LOOKUPSWITCH) {
+                            LookupSwitchInsnNode lsi = (LookupSwitchInsnNode) insnNode;
+                            dflt = lsi.dflt;
+                            labels = lsi.labels;
+                        } else {
+                            TableSwitchInsnNode tsi = (TableSwitchInsnNode) insnNode;
+                            dflt = tsi.dflt;
+                            labels = tsi.labels;
+                        }
+                        int jump = insns.indexOf(dflt);
+                        if (newControlFlowEdge(insn, jump, f)) {
                             merge(jump, current, subroutine);
                             newControlFlowEdge(insn, jump);
                         }
-                    } else if (insnOpcode == RET) {
+                        for (int j = 0; j < labels.size(); ++j) {
+                            jump = insns.indexOf(labels.get(j));
+                            if (newControlFlowEdge(insn, jump, f)) {
+                                merge(jump, current, subroutine);
+                                newControlFlowEdge(insn, jump);
+                            }
+                        }
+                        break;
+                    }
+                    case OpcodeTable.FLOW_RET:
                         if (subroutine == null) {
                             throw new AnalyzerException(insnNode,
                                     "RET instruction outside of a sub routine");
@@ -249,8 +323,11 @@ public class Analyzer<V extends Value> implements Opcodes {
                                 newControlFlowEdge(insn, call + 1);
                             }
                         }
-                    } else if (insnOpcode != ATHROW
-                            && (insnOpcode < IRETURN || insnOpcode > RETURN)) {
+                        break;
+                    case OpcodeTable.FLOW_RETURN:
+                    case OpcodeTable.FLOW_THROW:
+                        break;
+                    default:
                         if (subroutine != null) {
                             if (insnNode instanceof VarInsnNode) {
                                 int var = ((VarInsnNode) insnNode).var;
@@ -311,7 +388,8 @@ public class Analyzer<V extends Value> implements Opcodes {
             if (subroutines[insn] != null) {
                 return;
             }
-            subroutines[insn] = sub.copy();
+            // the main subroutine is shared, since it is removed afterwards
+            subroutines[insn] = sub.start == null ? sub : sub.copy();
             AbstractInsnNode node = insns.get(insn);
 
             // calls findSubroutine recursively on normal successors
@@ -367,6 +445,222 @@ public class Analyzer<V extends Value> implements Opcodes {
         }
     }
 
+    /**
+     * Analyzes the method whose data structures have been initialized by
+     * {@link #analyze analyze}, keeping only the frames at the beginning of
+     * each basic block. The method must not contain JSR instructions.
+     * 
+     * @param current
+     *            the frame used to execute the instructions of each block.
+     * @param handler
+     *            the frame used to compute the frames of exception handlers.
+     * @throws AnalyzerException
+     *             if a problem occurs during the analysis.
+     */
+    private void analyzeBlocks(final Frame<V> current, final Frame<V> handler)
+            throws AnalyzerException {
+        // computes the beginning of each basic block
+        boolean[] starts = new boolean[n + 1];
+        starts[0] = true;
+        for (int i = 0; i < n; ++i) {
+            AbstractInsnNode insnNode = insns.get(i);
+            int insnOpcode = insnNode.getOpcode();
+            if (insnOpcode < 0) {
+                continue;
+            }
+            switch (OpcodeTable.getFlow(insnOpcode)) {
+            case OpcodeTable.FLOW_JUMP:
+            case OpcodeTable.FLOW_GOTO:
+                starts[insns.indexOf(((JumpInsnNode) insnNode).label)] = true;
+                starts[i + 1] = true;
+                break;
+            case OpcodeTable.FLOW_SWITCH: {
+                LabelNode dflt;
+                List<LabelNode> labels;
+                if (insnOpcode == LOOKUPSWITCH) {
+                    LookupSwitchInsnNode lsi = (LookupSwitchInsnNode) insnNode;
+                    dflt = lsi.dflt;
+                    labels = lsi.labels;
+                } else {
+                    TableSwitchInsnNode tsi = (TableSwitchInsnNode) insnNode;
+                    dflt = tsi.dflt;
+                    labels = tsi.labels;
+                }
+                starts[insns.indexOf(dflt)] = true;
+                for (int j = 0; j < labels.size(); ++j) {
+                    starts[insns.indexOf(labels.get(j))] = true;
+                }
+                starts[i + 1] = true;
+                break;
+            }
+            case OpcodeTable.FLOW_RETURN:
+            case OpcodeTable.FLOW_THROW:
+                starts[i + 1] = true;
+                break;
+            }
+            List<TryCatchBlockNode> insnHandlers = handlers[i];
+            if (insnHandlers != null) {
+                for (int j = 0; j < insnHandlers.size(); ++j) {
+                    starts[insns.indexOf(insnHandlers.get(j).handler)] = true;
+                }
+            }
+        }
+        blockStarts = starts;
+        Frame<V> condition = newFrame(current);
+
+        // control flow analysis
+        while (top > 0) {
+            int insn = queue[--top];
+            queued[insn] = false;
+            current.init(frames[insn]);
+            AbstractInsnNode insnNode = null;
+            try {
+                while (true) {
+                    insnNode = insns.get(insn);
+                    List<TryCatchBlockNode> insnHandlers = handlers[insn];
+                    if (insnHandlers != null) {
+                        for (int i = 0; i < insnHandlers.size(); ++i) {
+                            TryCatchBlockNode tcb = insnHandlers.get(i);
+                            Type type;
+                            if (tcb.type == null) {
+                                type = Type.getObjectType("java/lang/Throwable");
+                            } else {
+                                type = Type.getObjectType(tcb.type);
+                            }
+                            int jump = insns.indexOf(tcb.handler);
+                            if (newControlFlowExceptionEdge(insn, tcb)) {
+                                handler.init(current);
+                                handler.clearStack();
+                                handler.push(interpreter.newValue(type));
+                                merge(jump, handler, null);
+                            }
+                        }
+                    }
+
+                    int insnOpcode = insnNode.getOpcode();
+                    if (insnOpcode >= 0) {
+                        int flow = OpcodeTable.getFlow(insnOpcode);
+                        if (flow == OpcodeTable.FLOW_JUMP
+                                || flow == OpcodeTable.FLOW_SWITCH) {
+                            condition.init(current);
+                        }
+                        current.execute(insnNode, interpreter);
+                        if (flow == OpcodeTable.FLOW_JUMP
+                                || flow == OpcodeTable.FLOW_GOTO) {
+                            if (flow == OpcodeTable.FLOW_JUMP
+                                    && newControlFlowEdge(insn, insn + 1,
+                                            condition)) {
+                                merge(insn + 1, current, null);
+                                newControlFlowEdge(insn, insn + 1);
+                            }
+                            JumpInsnNode j = (JumpInsnNode) insnNode;
+                            int jump = insns.indexOf(j.label);
+                            if (flow == OpcodeTable.FLOW_GOTO
+                                    || newControlFlowEdge(insn, jump,
+                                            condition)) {
+                                merge(jump, current, null);
+                                newControlFlowEdge(insn, jump);
+                            }
+                            break;
+                        } else if (flow == OpcodeTable.FLOW_SWITCH) {
+                            LabelNode dflt;
+                            List<LabelNode> labels;
+                            if (insnOpcode == LOOKUPSWITCH) {
+                                LookupSwitchInsnNode lsi = (LookupSwitchInsnNode) insnNode;
+                                dflt = lsi.dflt;
+                                labels = lsi.labels;
+                            } else {
+                                TableSwitchInsnNode tsi = (TableSwitchInsnNode) insnNode;
+                                dflt = tsi.dflt;
+                                labels = tsi.labels;
+                            }
+                            int jump = insns.indexOf(dflt);
+                            if (newControlFlowEdge(insn, jump, condition)) {
+                                merge(jump, current, null);
+                                newControlFlowEdge(insn, jump);
+                            }
+                            for (int j = 0; j < labels.size(); ++j) {
+                                jump = insns.indexOf(labels.get(j));
+                                if (newControlFlowEdge(insn, jump, condition)) {
+                                    merge(jump, current, null);
+                                    newControlFlowEdge(insn, jump);
+                                }
+                            }
+                            break;
+                        } else if (flow == OpcodeTable.FLOW_RET) {
+                            throw new AnalyzerException(insnNode,
+                                    "RET instruction outside of a sub routine");
+                        } else if (flow == OpcodeTable.FLOW_RETURN
+                                || flow == OpcodeTable.FLOW_THROW) {
+                            break;
+                        }
+                    }
+                    newControlFlowEdge(insn, insn + 1);
+                    if (starts[++insn]) {
+                        merge(insn, current, null);
+                        break;
+                    }
+                }
+            } catch (AnalyzerException e) {
+                throw new AnalyzerException(e.node, "Error at instruction "
+                        + insn + ": " + e.getMessage(), e);
+            } catch (Exception e) {
+                throw new AnalyzerException(insnNode, "Error at instruction "
+                        + insn + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the symbolic stack frame of the given instruction of the last
+     * recently analyzed method. If this analyzer keeps only the frames at the
+     * beginning of each basic block (see
+     * {@link #Analyzer(Interpreter, boolean)}), the frame of an instruction
+     * inside a basic block is recomputed from the frame at the beginning of
+     * this block. This is done incrementally when the instructions of a block
+     * are requested in increasing order, as when iterating over the
+     * instructions of the method. The returned frame must not be modified.
+     * 
+     * @param insn
+     *            the index of an instruction of the last recently analyzed
+     *            method.
+     * @return the symbolic state of the execution stack frame just before
+     *         this instruction, or <tt>null</tt> if this instruction cannot
+     *         be reached.
+     * @throws AnalyzerException
+     *             if a problem occurs while recomputing the frame.
+     */
+    public Frame<V> getFrame(final int insn) throws AnalyzerException {
+        boolean[] starts = blockStarts;
+        if (starts == null || starts[insn]) {
+            return frames[insn];
+        }
+        int start = insn;
+        while (!starts[start]) {
+            --start;
+        }
+        if (frames[start] == null) {
+            return null;
+        }
+        if (cursorFrame == null || cursor < start || cursor > insn) {
+            cursorFrame = newFrame(frames[start]);
+            cursor = start;
+        }
+        try {
+            while (cursor < insn) {
+                AbstractInsnNode insnNode = insns.get(cursor);
+                if (insnNode.getOpcode() >= 0) {
+                    cursorFrame.execute(insnNode, interpreter);
+                }
+                ++cursor;
+            }
+        } catch (AnalyzerException e) {
+            cursorFrame = null;
+            throw e;
+        }
+        return newFrame(cursorFrame);
+    }
+
     /**
      * Returns the symbolic stack frame for each instruction of the last
      * recently analyzed method.
@@ -447,6 +741,33 @@ public class Analyzer<V extends Value> implements Opcodes {
     protected void newControlFlowEdge(final int insn, final int successor) {
     }
 
+    /**
+     * Creates a control flow graph edge of a conditional jump or switch
+     * instruction. This method is called by the {@link #analyze analyze}
+     * method for each successor of the IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE,
+     * IF_ICMPxx, IF_ACMPxx, IFNULL, IFNONNULL, TABLESWITCH and LOOKUPSWITCH
+     * instructions, before {@link #newControlFlowEdge(int, int)
+     * newControlFlowEdge(int, int)}. It can be overridden in order to ignore
+     * the edges that can never be taken, given the values that the instruction
+     * pops from the stack. The successors of the ignored edges are not
+     * reached, unless they are reached through other edges.
+     * 
+     * @param insn
+     *            an instruction index.
+     * @param successor
+     *            index of a successor instruction.
+     * @param frame
+     *            the symbolic state of the execution stack frame just before
+     *            the instruction. This frame must not be modified.
+     * @return true if this edge must be considered in the data flow analysis
+     *         performed by this analyzer, or false otherwise. The default
+     *         implementation of this method always returns true.
+     */
+    protected boolean newControlFlowEdge(final int insn, final int successor,
+            final Frame<V> frame) {
+        return true;
+    }
+
     /**
      * Creates a control flow graph edge corresponding to an exception handler.
      * The default implementation of this method does nothing. It can be
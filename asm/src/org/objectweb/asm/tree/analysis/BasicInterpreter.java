@@ -34,6 +34,7 @@ import java.util.List;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.IntInsnNode;
@@ -56,10 +57,25 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements
         super(ASM4);
     }
 
+    /**
+     * Constructs a new {@link BasicInterpreter}.
+     * 
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    public BasicInterpreter(final TypeCache typeCache) {
+        super(ASM4, typeCache);
+    }
+
     protected BasicInterpreter(final int api) {
         super(api);
     }
 
+    protected BasicInterpreter(final int api, final TypeCache typeCache) {
+        super(api, typeCache);
+    }
+
     @Override
     public BasicValue newValue(final Type type) {
         if (type == null) {
@@ -148,7 +164,8 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements
         case JSR:
             return BasicValue.RETURNADDRESS_VALUE;
         case GETSTATIC:
-            return newValue(Type.getType(((FieldInsnNode) insn).desc));
+            return newValue(typeCache.getType(
+                    ((FieldInsnNode) insn).desc));
         case NEW:
             return newValue(Type.getObjectType(((TypeInsnNode) insn).desc));
         default:
@@ -206,7 +223,8 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements
         case PUTSTATIC:
             return null;
         case GETFIELD:
-            return newValue(Type.getType(((FieldInsnNode) insn).desc));
+            return newValue(typeCache.getType(
+                    ((FieldInsnNode) insn).desc));
         case NEWARRAY:
             switch (((IntInsnNode) insn).operand) {
             case T_BOOLEAN:
@@ -333,12 +351,14 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements
             final List<? extends BasicValue> values) throws AnalyzerException {
         int opcode = insn.getOpcode();
         if (opcode == MULTIANEWARRAY) {
-            return newValue(Type.getType(((MultiANewArrayInsnNode) insn).desc));
+            return newValue(typeCache.getType(
+                    ((MultiANewArrayInsnNode) insn).desc));
         } else if (opcode == INVOKEDYNAMIC) {
-            return newValue(Type
+            return newValue(typeCache
                     .getReturnType(((InvokeDynamicInsnNode) insn).desc));
         } else {
-            return newValue(Type.getReturnType(((MethodInsnNode) insn).desc));
+            return newValue(typeCache.getReturnType(
+                    ((MethodInsnNode) insn).desc));
         }
     }
 
@@ -32,6 +32,7 @@ package org.objectweb.asm.tree.analysis;
 import java.util.List;
 
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
@@ -50,10 +51,25 @@ public class BasicVerifier extends BasicInterpreter {
         super(ASM4);
     }
 
+    /**
+     * Constructs a new {@link BasicVerifier}.
+     * 
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    public BasicVerifier(final TypeCache typeCache) {
+        super(ASM4, typeCache);
+    }
+
     protected BasicVerifier(final int api) {
         super(api);
     }
 
+    protected BasicVerifier(final int api, final TypeCache typeCache) {
+        super(api, typeCache);
+    }
+
     @Override
     public BasicValue copyOperation(final AbstractInsnNode insn,
             final BasicValue value) throws AnalyzerException {
@@ -173,7 +189,8 @@ public class BasicVerifier extends BasicInterpreter {
             }
             return super.unaryOperation(insn, value);
         case PUTSTATIC:
-            expected = newValue(Type.getType(((FieldInsnNode) insn).desc));
+            expected = newValue(typeCache.getType(
+                    ((FieldInsnNode) insn).desc));
             break;
         default:
             throw new Error("Internal error.");
@@ -293,7 +310,7 @@ public class BasicVerifier extends BasicInterpreter {
         case PUTFIELD:
             FieldInsnNode fin = (FieldInsnNode) insn;
             expected1 = newValue(Type.getObjectType(fin.owner));
-            expected2 = newValue(Type.getType(fin.desc));
+            expected2 = newValue(typeCache.getType(fin.desc));
             break;
         default:
             throw new Error("Internal error.");
@@ -394,7 +411,7 @@ public class BasicVerifier extends BasicInterpreter {
             }
             String desc = (opcode == INVOKEDYNAMIC) ? ((InvokeDynamicInsnNode) insn).desc
                     : ((MethodInsnNode) insn).desc;
-            Type[] args = Type.getArgumentTypes(desc);
+            Type[] args = typeCache.getArgumentTypes(desc);
             while (i < values.size()) {
                 BasicValue expected = newValue(args[j++]);
                 BasicValue encountered = values.get(i++);
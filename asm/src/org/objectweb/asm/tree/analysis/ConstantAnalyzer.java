@@ -0,0 +1,217 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.tree.analysis;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+
+/**
+ * An {@link Analyzer} that performs a sparse conditional constant propagation.
+ * This analyzer ignores the control flow edges of the conditional jump and
+ * switch instructions that can never be taken, given the {@link ConstantValue}
+ * values that these instructions pop from the stack. Hence the instructions
+ * that can only be reached through such edges have a <tt>null</tt> frame, and
+ * the values merged at the join points of the control flow graph only come
+ * from the branches that can be taken.
+ */
+public class ConstantAnalyzer extends Analyzer<ConstantValue> {
+
+    private InsnList insns;
+
+    /**
+     * Constructs a new {@link ConstantAnalyzer} with a
+     * {@link ConstantInterpreter}.
+     */
+    public ConstantAnalyzer() {
+        this(new ConstantInterpreter());
+    }
+
+    /**
+     * Constructs a new {@link ConstantAnalyzer}.
+     * 
+     * @param interpreter
+     *            the interpreter to be used to symbolically interpret the
+     *            bytecode instructions.
+     */
+    public ConstantAnalyzer(final Interpreter<ConstantValue> interpreter) {
+        super(interpreter);
+    }
+
+    @Override
+    protected void init(final String owner, final MethodNode m)
+            throws AnalyzerException {
+        insns = m.instructions;
+    }
+
+    @Override
+    protected boolean newControlFlowEdge(final int insn, final int successor,
+            final Frame<ConstantValue> frame) {
+        AbstractInsnNode next = getSuccessor(insns.get(insn), frame);
+        return next == null || insns.indexOf(next) == successor;
+    }
+
+    /**
+     * Returns the successor of a conditional jump or switch instruction, if it
+     * can be computed from the values that this instruction pops from the
+     * stack.
+     * 
+     * @param insn
+     *            a conditional jump or switch instruction.
+     * @param frame
+     *            the symbolic state of the execution stack frame just before
+     *            this instruction.
+     * @return the label to which the instruction always jumps, the instruction
+     *         that follows it if it is a conditional jump which is never taken,
+     *         or <tt>null</tt> if the successor of this instruction is not
+     *         known.
+     */
+    public static AbstractInsnNode getSuccessor(final AbstractInsnNode insn,
+            final Frame<? extends ConstantValue> frame) {
+        int top = frame.getStackSize();
+        int opcode = insn.getOpcode();
+        boolean jump;
+        switch (opcode) {
+        case IFEQ:
+        case IFNE:
+        case IFLT:
+        case IFGE:
+        case IFGT:
+        case IFLE: {
+            Object v = frame.getStack(top - 1).getValue();
+            if (!(v instanceof Integer)) {
+                return null;
+            }
+            jump = compare(opcode - IFEQ, ((Integer) v).intValue(), 0);
+            break;
+        }
+        case IF_ICMPEQ:
+        case IF_ICMPNE:
+        case IF_ICMPLT:
+        case IF_ICMPGE:
+        case IF_ICMPGT:
+        case IF_ICMPLE: {
+            Object v1 = frame.getStack(top - 2).getValue();
+            Object v2 = frame.getStack(top - 1).getValue();
+            if (!(v1 instanceof Integer) || !(v2 instanceof Integer)) {
+                return null;
+            }
+            jump = compare(opcode - IF_ICMPEQ,
+                    ((Integer) v1).intValue(), ((Integer) v2).intValue());
+            break;
+        }
+        case IF_ACMPEQ:
+        case IF_ACMPNE: {
+            ConstantValue v1 = frame.getStack(top - 2);
+            ConstantValue v2 = frame.getStack(top - 1);
+            boolean equal;
+            if (v1.isNull() && v2.isNull()) {
+                equal = true;
+            } else if ((v1.isNull() && v2.isNonNull())
+                    || (v1.isNonNull() && v2.isNull())) {
+                equal = false;
+            } else if (v1.getValue() instanceof String
+                    && v2.getValue() instanceof String) {
+                // string constants are interned
+                equal = v1.getValue().equals(v2.getValue());
+            } else {
+                return null;
+            }
+            jump = equal == (opcode == IF_ACMPEQ);
+            break;
+        }
+        case IFNULL:
+        case IFNONNULL: {
+            ConstantValue v = frame.getStack(top - 1);
+            if (!v.isNull() && !v.isNonNull()) {
+                return null;
+            }
+            jump = v.isNull() == (opcode == IFNULL);
+            break;
+        }
+        case TABLESWITCH: {
+            Object v = frame.getStack(top - 1).getValue();
+            if (!(v instanceof Integer)) {
+                return null;
+            }
+            TableSwitchInsnNode tsi = (TableSwitchInsnNode) insn;
+            int key = ((Integer) v).intValue();
+            if (key < tsi.min || key > tsi.max) {
+                return tsi.dflt;
+            }
+            return tsi.labels.get(key - tsi.min);
+        }
+        case LOOKUPSWITCH: {
+            Object v = frame.getStack(top - 1).getValue();
+            if (!(v instanceof Integer)) {
+                return null;
+            }
+            LookupSwitchInsnNode lsi = (LookupSwitchInsnNode) insn;
+            int i = lsi.keys.indexOf(v);
+            return i == -1 ? lsi.dflt : lsi.labels.get(i);
+        }
+        default:
+            return null;
+        }
+        return jump ? ((JumpInsnNode) insn).label : insn.getNext();
+    }
+
+    /**
+     * Compares two integers.
+     * 
+     * @param cond
+     *            the comparison to be done, as the opcode of an IFxx or
+     *            IF_ICMPxx instruction minus IFEQ or IF_ICMPEQ, respectively.
+     * @param i1
+     *            the first integer.
+     * @param i2
+     *            the second integer.
+     * @return the result of the comparison.
+     */
+    private static boolean compare(final int cond, final int i1, final int i2) {
+        switch (cond) {
+        case 0:
+            return i1 == i2;
+        case 1:
+            return i1 != i2;
+        case 2:
+            return i1 < i2;
+        case 3:
+            return i1 >= i2;
+        case 4:
+            return i1 > i2;
+        default:
+            return i1 <= i2;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.tree.analysis;
+
+import java.util.Iterator;
+
+import org.objectweb.asm.OpcodeTable;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+/**
+ * A transformation that folds constants and removes dead code, based on the
+ * frames computed by a {@link ConstantAnalyzer}. This transformation:
+ * <ul>
+ * <li>replaces the arithmetic, conversion and comparison instructions whose
+ * result is constant with an instruction pushing this constant, and the
+ * xLOAD instructions loading a constant with such an instruction if it does
+ * not need a constant pool item,</li>
+ * <li>replaces the conditional jump and switch instructions whose successor is
+ * known with a GOTO, or with nothing if the jump is never taken,</li>
+ * <li>removes the unreachable instructions, the GOTO instructions to the next
+ * instruction, and the try catch blocks which no longer cover any
+ * instruction.</li>
+ * </ul>
+ * The values consumed by the replaced instructions are popped from the stack,
+ * and the POP and POP2 instructions which immediately follow an instruction
+ * that pushes a value without side effect are then removed with this
+ * instruction.
+ * <p>
+ * The maxStack and maxLocals fields of the transformed method must be set
+ * before the transformation, and remain valid after it. Stack map frames which
+ * were not expanded (see {@link org.objectweb.asm.ClassReader#EXPAND_FRAMES
+ * EXPAND_FRAMES}) must be recomputed, for instance with
+ * {@link org.objectweb.asm.ClassWriter#COMPUTE_FRAMES COMPUTE_FRAMES}.
+ */
+public class ConstantFolder implements Opcodes {
+
+    private final Interpreter<ConstantValue> interpreter;
+
+    /**
+     * Constructs a new {@link ConstantFolder}.
+     */
+    public ConstantFolder() {
+        this(new ConstantInterpreter());
+    }
+
+    /**
+     * Constructs a new {@link ConstantFolder}.
+     * 
+     * @param interpreter
+     *            the interpreter used to compute the constant values.
+     */
+    public ConstantFolder(final Interpreter<ConstantValue> interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    /**
+     * Folds the constants and removes the dead code of the given method.
+     * 
+     * @param owner
+     *            the internal name of the class to which the method belongs.
+     * @param m
+     *            the method to be transformed.
+     * @return <tt>true</tt> if the method has been changed.
+     * @throws AnalyzerException
+     *             if a problem occurs during the analysis of the method.
+     */
+    public boolean transform(final String owner, final MethodNode m)
+            throws AnalyzerException {
+        InsnList insns = m.instructions;
+        if (insns.size() == 0) {
+            return false;
+        }
+        Analyzer<ConstantValue> a = new ConstantAnalyzer(interpreter);
+        Frame<ConstantValue>[] frames = a.analyze(owner, m);
+        Frame<ConstantValue> current = new Frame<ConstantValue>(m.maxLocals,
+                m.maxStack);
+        AbstractInsnNode[] nodes = insns.toArray();
+        boolean changes = false;
+        for (int i = 0; i < nodes.length; ++i) {
+            AbstractInsnNode insn = nodes[i];
+            Frame<ConstantValue> f = frames[i];
+            int opcode = insn.getOpcode();
+            if (f == null) {
+                if (!(insn instanceof LabelNode)) {
+                    insns.remove(insn);
+                    changes = true;
+                }
+            } else if (opcode >= ILOAD && opcode <= ALOAD) {
+                ConstantValue v = f.getLocal(((VarInsnNode) insn).var);
+                if (v.isConstant()) {
+                    AbstractInsnNode push = newPushInsn(v);
+                    if (!(push instanceof LdcInsnNode)) {
+                        insns.set(insn, push);
+                        changes = true;
+                    }
+                }
+            } else if (opcode >= IADD && opcode <= DCMPG && opcode != IINC) {
+                ConstantValue v;
+                try {
+                    current.init(f).execute(insn, interpreter);
+                    v = current.pop();
+                } catch (AnalyzerException e) {
+                    throw new AnalyzerException(e.node, "Error at instruction "
+                            + i + ": " + e.getMessage(), e);
+                }
+                if (v.isConstant()) {
+                    pop(insns, insn, f);
+                    insns.set(insn, newPushInsn(v));
+                    changes = true;
+                }
+            } else if (opcode >= 0) {
+                int flow = OpcodeTable.getFlow(opcode);
+                if (flow == OpcodeTable.FLOW_JUMP
+                        || flow == OpcodeTable.FLOW_SWITCH) {
+                    AbstractInsnNode next = ConstantAnalyzer.getSuccessor(
+                            insn, f);
+                    if (next != null) {
+                        pop(insns, insn, f);
+                        if (next != insn.getNext()) {
+                            insns.insertBefore(insn, new JumpInsnNode(GOTO,
+                                    (LabelNode) next));
+                        }
+                        insns.remove(insn);
+                        changes = true;
+                    }
+                }
+            }
+        }
+        changes |= removePops(insns);
+        changes |= removeGotos(insns);
+        changes |= removeTryCatchBlocks(m);
+        if (changes) {
+            removeFrames(insns);
+        }
+        return changes;
+    }
+
+    /**
+     * Inserts POP or POP2 instructions before the given instruction, in order
+     * to pop the values that this instruction pops from the stack.
+     */
+    private static void pop(final InsnList insns, final AbstractInsnNode insn,
+            final Frame<ConstantValue> f) {
+        int words = OpcodeTable.getStackPops(insn.getOpcode());
+        int top = f.getStackSize();
+        while (words > 0) {
+            int size = f.getStack(--top).getSize();
+            insns.insertBefore(insn, new InsnNode(size == 1 ? POP : POP2));
+            words -= size;
+        }
+    }
+
+    /**
+     * Removes the POP and POP2 instructions which immediately follow an
+     * instruction that pushes a value without side effect, along with this
+     * instruction.
+     */
+    private static boolean removePops(final InsnList insns) {
+        boolean changes = false;
+        AbstractInsnNode insn = insns.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            int opcode = insn.getOpcode();
+            if (opcode == POP || opcode == POP2) {
+                AbstractInsnNode prev = insn.getPrevious();
+                while (prev != null
+                        && prev.getType() == AbstractInsnNode.LINE) {
+                    prev = prev.getPrevious();
+                }
+                if (prev != null
+                        && getPushSize(prev) == (opcode == POP ? 1 : 2)) {
+                    insns.remove(prev);
+                    insns.remove(insn);
+                    changes = true;
+                }
+            }
+            insn = next;
+        }
+        return changes;
+    }
+
+    /**
+     * Removes the GOTO instructions which jump to the next instruction.
+     */
+    private static boolean removeGotos(final InsnList insns) {
+        boolean changes = false;
+        AbstractInsnNode insn = insns.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn.getOpcode() == GOTO) {
+                LabelNode label = ((JumpInsnNode) insn).label;
+                AbstractInsnNode target = next;
+                while (target != null && target != label
+                        && target.getOpcode() < 0) {
+                    target = target.getNext();
+                }
+                if (target == label) {
+                    insns.remove(insn);
+                    changes = true;
+                }
+            }
+            insn = next;
+        }
+        return changes;
+    }
+
+    /**
+     * Removes the stack map frames which are followed by another frame without
+     * any instruction in between, since they would be at the same bytecode
+     * offset. The last frame is kept, which is valid for expanded frames, since
+     * the code falls through from the previous ones to this one.
+     */
+    private static void removeFrames(final InsnList insns) {
+        AbstractInsnNode frame = null;
+        AbstractInsnNode insn = insns.getFirst();
+        while (insn != null) {
+            if (insn.getType() == AbstractInsnNode.FRAME) {
+                if (frame != null) {
+                    insns.remove(frame);
+                }
+                frame = insn;
+            } else if (insn.getOpcode() >= 0) {
+                frame = null;
+            }
+            insn = insn.getNext();
+        }
+        if (frame != null) {
+            insns.remove(frame);
+        }
+    }
+
+    /**
+     * Removes the try catch blocks which do not cover any instruction.
+     */
+    private static boolean removeTryCatchBlocks(final MethodNode m) {
+        boolean changes = false;
+        Iterator<TryCatchBlockNode> i = m.tryCatchBlocks.iterator();
+        while (i.hasNext()) {
+            TryCatchBlockNode tcb = i.next();
+            AbstractInsnNode insn = tcb.start;
+            while (insn != null && insn != tcb.end && insn.getOpcode() < 0) {
+                insn = insn.getNext();
+            }
+            if (insn == tcb.end) {
+                i.remove();
+                changes = true;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the size of the value pushed by the given instruction, if this
+     * instruction has no side effect and does not pop any value.
+     * 
+     * @param insn
+     *            an instruction.
+     * @return the size of the value pushed by this instruction, or 0 if it has
+     *         side effects, or if it pops values from the stack (DUP and DUP2
+     *         are considered as pushing one or two words without popping any
+     *         value).
+     */
+    private static int getPushSize(final AbstractInsnNode insn) {
+        switch (insn.getOpcode()) {
+        case ACONST_NULL:
+        case ICONST_M1:
+        case ICONST_0:
+        case ICONST_1:
+        case ICONST_2:
+        case ICONST_3:
+        case ICONST_4:
+        case ICONST_5:
+        case FCONST_0:
+        case FCONST_1:
+        case FCONST_2:
+        case BIPUSH:
+        case SIPUSH:
+        case ILOAD:
+        case FLOAD:
+        case ALOAD:
+        case DUP:
+            return 1;
+        case LCONST_0:
+        case LCONST_1:
+        case DCONST_0:
+        case DCONST_1:
+        case LLOAD:
+        case DLOAD:
+        case DUP2:
+            return 2;
+        case LDC:
+            Object cst = ((LdcInsnNode) insn).cst;
+            if (cst instanceof Long || cst instanceof Double) {
+                return 2;
+            } else if (cst instanceof Integer || cst instanceof Float
+                    || cst instanceof String) {
+                return 1;
+            }
+            // loading a class or method handle may fail
+            return 0;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Returns an instruction pushing the given constant value.
+     * 
+     * @param v
+     *            a constant value.
+     * @return an instruction pushing this value.
+     */
+    private static AbstractInsnNode newPushInsn(final ConstantValue v) {
+        Object cst = v.getValue();
+        if (cst instanceof Integer) {
+            int i = ((Integer) cst).intValue();
+            if (i >= -1 && i <= 5) {
+                return new InsnNode(ICONST_0 + i);
+            } else if (i >= Byte.MIN_VALUE && i <= Byte.MAX_VALUE) {
+                return new IntInsnNode(BIPUSH, i);
+            } else if (i >= Short.MIN_VALUE && i <= Short.MAX_VALUE) {
+                return new IntInsnNode(SIPUSH, i);
+            }
+        } else if (cst instanceof Long) {
+            long l = ((Long) cst).longValue();
+            if (l == 0L || l == 1L) {
+                return new InsnNode(LCONST_0 + (int) l);
+            }
+        } else if (cst instanceof Float) {
+            float f = ((Float) cst).floatValue();
+            if (Float.floatToIntBits(f) == 0 || f == 1f || f == 2f) {
+                return new InsnNode(FCONST_0 + (int) f);
+            }
+        } else if (cst instanceof Double) {
+            double d = ((Double) cst).doubleValue();
+            if (Double.doubleToLongBits(d) == 0L || d == 1d) {
+                return new InsnNode(DCONST_0 + (int) d);
+            }
+        } else if (cst == null) {
+            return new InsnNode(ACONST_NULL);
+        }
+        return new LdcInsnNode(cst);
+    }
+}
@@ -0,0 +1,602 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.tree.analysis;
+
+import java.util.List;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+
+/**
+ * An {@link Interpreter} for {@link ConstantValue} values. This interpreter
+ * computes the constant int, long, float, double and string values, and the
+ * null-ness of reference values. Arithmetic and conversion instructions whose
+ * arguments are constant produce a constant result, computed with the JVM
+ * semantics, except the integer divisions and remainders by zero, which throw
+ * an exception. Used with a {@link ConstantAnalyzer}, which ignores the
+ * branches that are never taken, this interpreter performs a sparse
+ * conditional constant propagation.
+ */
+public class ConstantInterpreter extends Interpreter<ConstantValue> implements
+        Opcodes {
+
+    public ConstantInterpreter() {
+        super(ASM4);
+    }
+
+    /**
+     * Constructs a new {@link ConstantInterpreter}.
+     * 
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    public ConstantInterpreter(final TypeCache typeCache) {
+        super(ASM4, typeCache);
+    }
+
+    protected ConstantInterpreter(final int api) {
+        super(api);
+    }
+
+    protected ConstantInterpreter(final int api, final TypeCache typeCache) {
+        super(api, typeCache);
+    }
+
+    @Override
+    public ConstantValue newValue(final Type type) {
+        if (type == null) {
+            return ConstantValue.UNINITIALIZED_VALUE;
+        }
+        switch (type.getSort()) {
+        case Type.VOID:
+            return null;
+        case Type.BOOLEAN:
+        case Type.CHAR:
+        case Type.BYTE:
+        case Type.SHORT:
+        case Type.INT:
+            return ConstantValue.INT_VALUE;
+        case Type.FLOAT:
+            return ConstantValue.FLOAT_VALUE;
+        case Type.LONG:
+            return ConstantValue.LONG_VALUE;
+        case Type.DOUBLE:
+            return ConstantValue.DOUBLE_VALUE;
+        case Type.ARRAY:
+        case Type.OBJECT:
+            return ConstantValue.REFERENCE_VALUE;
+        default:
+            throw new Error("Internal error");
+        }
+    }
+
+    @Override
+    public ConstantValue newOperation(final AbstractInsnNode insn)
+            throws AnalyzerException {
+        switch (insn.getOpcode()) {
+        case ACONST_NULL:
+            return ConstantValue.NULL_VALUE;
+        case ICONST_M1:
+        case ICONST_0:
+        case ICONST_1:
+        case ICONST_2:
+        case ICONST_3:
+        case ICONST_4:
+        case ICONST_5:
+            return newInt(insn.getOpcode() - ICONST_0);
+        case LCONST_0:
+        case LCONST_1:
+            return newLong(insn.getOpcode() - LCONST_0);
+        case FCONST_0:
+        case FCONST_1:
+        case FCONST_2:
+            return newFloat(insn.getOpcode() - FCONST_0);
+        case DCONST_0:
+        case DCONST_1:
+            return newDouble(insn.getOpcode() - DCONST_0);
+        case BIPUSH:
+        case SIPUSH:
+            return newInt(((IntInsnNode) insn).operand);
+        case LDC:
+            Object cst = ((LdcInsnNode) insn).cst;
+            if (cst instanceof Integer) {
+                return new ConstantValue(Type.INT_TYPE, cst);
+            } else if (cst instanceof Float) {
+                return new ConstantValue(Type.FLOAT_TYPE, cst);
+            } else if (cst instanceof Long) {
+                return new ConstantValue(Type.LONG_TYPE, cst);
+            } else if (cst instanceof Double) {
+                return new ConstantValue(Type.DOUBLE_TYPE, cst);
+            } else if (cst instanceof String) {
+                return new ConstantValue(
+                        ConstantValue.REFERENCE_VALUE.getType(), cst);
+            } else {
+                return ConstantValue.NONNULL_VALUE;
+            }
+        case JSR:
+            return ConstantValue.RETURNADDRESS_VALUE;
+        case GETSTATIC:
+            return newValue(typeCache.getType(
+                    ((FieldInsnNode) insn).desc));
+        case NEW:
+            return ConstantValue.NONNULL_VALUE;
+        default:
+            throw new Error("Internal error.");
+        }
+    }
+
+    @Override
+    public ConstantValue copyOperation(final AbstractInsnNode insn,
+            final ConstantValue value) throws AnalyzerException {
+        return value;
+    }
+
+    @Override
+    public ConstantValue unaryOperation(final AbstractInsnNode insn,
+            final ConstantValue value) throws AnalyzerException {
+        Object v = value.getValue();
+        switch (insn.getOpcode()) {
+        case INEG:
+        case IINC:
+        case I2L:
+        case I2F:
+        case I2D:
+        case I2B:
+        case I2C:
+        case I2S:
+            if (v instanceof Integer) {
+                return unaryOperation(insn.getOpcode(), insn,
+                        ((Integer) v).intValue());
+            }
+            break;
+        case LNEG:
+        case L2I:
+        case L2F:
+        case L2D:
+            if (v instanceof Long) {
+                long l = ((Long) v).longValue();
+                switch (insn.getOpcode()) {
+                case LNEG:
+                    return newLong(-l);
+                case L2I:
+                    return newInt((int) l);
+                case L2F:
+                    return newFloat(l);
+                default:
+                    return newDouble(l);
+                }
+            }
+            break;
+        case FNEG:
+        case F2I:
+        case F2L:
+        case F2D:
+            if (v instanceof Float) {
+                float f = ((Float) v).floatValue();
+                switch (insn.getOpcode()) {
+                case FNEG:
+                    return newFloat(-f);
+                case F2I:
+                    return newInt((int) f);
+                case F2L:
+                    return newLong((long) f);
+                default:
+                    return newDouble(f);
+                }
+            }
+            break;
+        case DNEG:
+        case D2I:
+        case D2L:
+        case D2F:
+            if (v instanceof Double) {
+                double d = ((Double) v).doubleValue();
+                switch (insn.getOpcode()) {
+                case DNEG:
+                    return newDouble(-d);
+                case D2I:
+                    return newInt((int) d);
+                case D2L:
+                    return newLong((long) d);
+                default:
+                    return newFloat((float) d);
+                }
+            }
+            break;
+        case IFEQ:
+        case IFNE:
+        case IFLT:
+        case IFGE:
+        case IFGT:
+        case IFLE:
+        case TABLESWITCH:
+        case LOOKUPSWITCH:
+        case IRETURN:
+        case LRETURN:
+        case FRETURN:
+        case DRETURN:
+        case ARETURN:
+        case PUTSTATIC:
+            return null;
+        case GETFIELD:
+            return newValue(typeCache.getType(
+                    ((FieldInsnNode) insn).desc));
+        case NEWARRAY:
+        case ANEWARRAY:
+            return ConstantValue.NONNULL_VALUE;
+        case ARRAYLENGTH:
+            return ConstantValue.INT_VALUE;
+        case ATHROW:
+            return null;
+        case CHECKCAST:
+            return value;
+        case INSTANCEOF:
+            return value.isNull() ? newInt(0) : ConstantValue.INT_VALUE;
+        case MONITORENTER:
+        case MONITOREXIT:
+        case IFNULL:
+        case IFNONNULL:
+            return null;
+        default:
+            throw new Error("Internal error.");
+        }
+        return newValue(getResultType(insn.getOpcode()));
+    }
+
+    private ConstantValue unaryOperation(final int opcode,
+            final AbstractInsnNode insn, final int i) {
+        switch (opcode) {
+        case INEG:
+            return newInt(-i);
+        case IINC:
+            return newInt(i + ((IincInsnNode) insn).incr);
+        case I2L:
+            return newLong(i);
+        case I2F:
+            return newFloat(i);
+        case I2D:
+            return newDouble(i);
+        case I2B:
+            return newInt((byte) i);
+        case I2C:
+            return newInt((char) i);
+        default:
+            return newInt((short) i);
+        }
+    }
+
+    @Override
+    public ConstantValue binaryOperation(final AbstractInsnNode insn,
+            final ConstantValue value1, final ConstantValue value2)
+            throws AnalyzerException {
+        int opcode = insn.getOpcode();
+        Object v1 = value1.getValue();
+        Object v2 = value2.getValue();
+        switch (opcode) {
+        case IALOAD:
+        case BALOAD:
+        case CALOAD:
+        case SALOAD:
+            return ConstantValue.INT_VALUE;
+        case FALOAD:
+            return ConstantValue.FLOAT_VALUE;
+        case LALOAD:
+            return ConstantValue.LONG_VALUE;
+        case DALOAD:
+            return ConstantValue.DOUBLE_VALUE;
+        case AALOAD:
+            return ConstantValue.REFERENCE_VALUE;
+        case IADD:
+        case ISUB:
+        case IMUL:
+        case IDIV:
+        case IREM:
+        case ISHL:
+        case ISHR:
+        case IUSHR:
+        case IAND:
+        case IOR:
+        case IXOR:
+            if (v1 instanceof Integer && v2 instanceof Integer) {
+                int i1 = ((Integer) v1).intValue();
+                int i2 = ((Integer) v2).intValue();
+                if (i2 != 0 || (opcode != IDIV && opcode != IREM)) {
+                    return newInt(binaryOperation(opcode, i1, i2));
+                }
+            }
+            return ConstantValue.INT_VALUE;
+        case LADD:
+        case LSUB:
+        case LMUL:
+        case LDIV:
+        case LREM:
+        case LAND:
+        case LOR:
+        case LXOR:
+            if (v1 instanceof Long && v2 instanceof Long) {
+                long l1 = ((Long) v1).longValue();
+                long l2 = ((Long) v2).longValue();
+                if (l2 != 0 || (opcode != LDIV && opcode != LREM)) {
+                    return newLong(binaryOperation(opcode, l1, l2));
+                }
+            }
+            return ConstantValue.LONG_VALUE;
+        case LSHL:
+        case LSHR:
+        case LUSHR:
+            if (v1 instanceof Long && v2 instanceof Integer) {
+                long l = ((Long) v1).longValue();
+                int i = ((Integer) v2).intValue();
+                if (opcode == LSHL) {
+                    return newLong(l << i);
+                } else if (opcode == LSHR) {
+                    return newLong(l >> i);
+                } else {
+                    return newLong(l >>> i);
+                }
+            }
+            return ConstantValue.LONG_VALUE;
+        case FADD:
+        case FSUB:
+        case FMUL:
+        case FDIV:
+        case FREM:
+            if (v1 instanceof Float && v2 instanceof Float) {
+                float f1 = ((Float) v1).floatValue();
+                float f2 = ((Float) v2).floatValue();
+                switch (opcode) {
+                case FADD:
+                    return newFloat(f1 + f2);
+                case FSUB:
+                    return newFloat(f1 - f2);
+                case FMUL:
+                    return newFloat(f1 * f2);
+                case FDIV:
+                    return newFloat(f1 / f2);
+                default:
+                    return newFloat(f1 % f2);
+                }
+            }
+            return ConstantValue.FLOAT_VALUE;
+        case DADD:
+        case DSUB:
+        case DMUL:
+        case DDIV:
+        case DREM:
+            if (v1 instanceof Double && v2 instanceof Double) {
+                double d1 = ((Double) v1).doubleValue();
+                double d2 = ((Double) v2).doubleValue();
+                switch (opcode) {
+                case DADD:
+                    return newDouble(d1 + d2);
+                case DSUB:
+                    return newDouble(d1 - d2);
+                case DMUL:
+                    return newDouble(d1 * d2);
+                case DDIV:
+                    return newDouble(d1 / d2);
+                default:
+                    return newDouble(d1 % d2);
+                }
+            }
+            return ConstantValue.DOUBLE_VALUE;
+        case LCMP:
+            if (v1 instanceof Long && v2 instanceof Long) {
+                long l1 = ((Long) v1).longValue();
+                long l2 = ((Long) v2).longValue();
+                return newInt(l1 < l2 ? -1 : (l1 == l2 ? 0 : 1));
+            }
+            return ConstantValue.INT_VALUE;
+        case FCMPL:
+        case FCMPG:
+            if (v1 instanceof Float && v2 instanceof Float) {
+                float f1 = ((Float) v1).floatValue();
+                float f2 = ((Float) v2).floatValue();
+                if (Float.isNaN(f1) || Float.isNaN(f2)) {
+                    return newInt(opcode == FCMPG ? 1 : -1);
+                }
+                return newInt(f1 < f2 ? -1 : (f1 == f2 ? 0 : 1));
+            }
+            return ConstantValue.INT_VALUE;
+        case DCMPL:
+        case DCMPG:
+            if (v1 instanceof Double && v2 instanceof Double) {
+                double d1 = ((Double) v1).doubleValue();
+                double d2 = ((Double) v2).doubleValue();
+                if (Double.isNaN(d1) || Double.isNaN(d2)) {
+                    return newInt(opcode == DCMPG ? 1 : -1);
+                }
+                return newInt(d1 < d2 ? -1 : (d1 == d2 ? 0 : 1));
+            }
+            return ConstantValue.INT_VALUE;
+        case IF_ICMPEQ:
+        case IF_ICMPNE:
+        case IF_ICMPLT:
+        case IF_ICMPGE:
+        case IF_ICMPGT:
+        case IF_ICMPLE:
+        case IF_ACMPEQ:
+        case IF_ACMPNE:
+        case PUTFIELD:
+            return null;
+        default:
+            throw new Error("Internal error.");
+        }
+    }
+
+    private static int binaryOperation(final int opcode, final int i1,
+            final int i2) {
+        switch (opcode) {
+        case IADD:
+            return i1 + i2;
+        case ISUB:
+            return i1 - i2;
+        case IMUL:
+            return i1 * i2;
+        case IDIV:
+            return i1 / i2;
+        case IREM:
+            return i1 % i2;
+        case ISHL:
+            return i1 << i2;
+        case ISHR:
+            return i1 >> i2;
+        case IUSHR:
+            return i1 >>> i2;
+        case IAND:
+            return i1 & i2;
+        case IOR:
+            return i1 | i2;
+        default:
+            return i1 ^ i2;
+        }
+    }
+
+    private static long binaryOperation(final int opcode, final long l1,
+            final long l2) {
+        switch (opcode) {
+        case LADD:
+            return l1 + l2;
+        case LSUB:
+            return l1 - l2;
+        case LMUL:
+            return l1 * l2;
+        case LDIV:
+            return l1 / l2;
+        case LREM:
+            return l1 % l2;
+        case LAND:
+            return l1 & l2;
+        case LOR:
+            return l1 | l2;
+        default:
+            return l1 ^ l2;
+        }
+    }
+
+    @Override
+    public ConstantValue ternaryOperation(final AbstractInsnNode insn,
+            final ConstantValue value1, final ConstantValue value2,
+            final ConstantValue value3) throws AnalyzerException {
+        return null;
+    }
+
+    @Override
+    public ConstantValue naryOperation(final AbstractInsnNode insn,
+            final List<? extends ConstantValue> values)
+            throws AnalyzerException {
+        int opcode = insn.getOpcode();
+        if (opcode == MULTIANEWARRAY) {
+            return ConstantValue.NONNULL_VALUE;
+        } else if (opcode == INVOKEDYNAMIC) {
+            return newValue(typeCache
+                    .getReturnType(((InvokeDynamicInsnNode) insn).desc));
+        } else {
+            return newValue(typeCache.getReturnType(
+                    ((MethodInsnNode) insn).desc));
+        }
+    }
+
+    @Override
+    public void returnOperation(final AbstractInsnNode insn,
+            final ConstantValue value, final ConstantValue expected)
+            throws AnalyzerException {
+    }
+
+    @Override
+    public ConstantValue merge(final ConstantValue v, final ConstantValue w) {
+        if (v.equals(w)) {
+            return v;
+        }
+        Type type = v.getType();
+        if (type == null || !type.equals(w.getType())) {
+            return ConstantValue.UNINITIALIZED_VALUE;
+        }
+        ConstantValue u;
+        if (v.isReference()) {
+            u = v.isNonNull() && w.isNonNull() ? ConstantValue.NONNULL_VALUE
+                    : ConstantValue.REFERENCE_VALUE;
+        } else {
+            u = newValue(type);
+        }
+        return u.equals(v) ? v : u;
+    }
+
+    // ------------------------------------------------------------------------
+    // Utility methods
+    // ------------------------------------------------------------------------
+
+    private static Type getResultType(final int opcode) {
+        switch (opcode) {
+        case I2L:
+        case F2L:
+        case D2L:
+        case LNEG:
+            return Type.LONG_TYPE;
+        case I2F:
+        case L2F:
+        case D2F:
+        case FNEG:
+            return Type.FLOAT_TYPE;
+        case I2D:
+        case L2D:
+        case F2D:
+        case DNEG:
+            return Type.DOUBLE_TYPE;
+        default:
+            return Type.INT_TYPE;
+        }
+    }
+
+    private static ConstantValue newInt(final int i) {
+        return new ConstantValue(Type.INT_TYPE, new Integer(i));
+    }
+
+    private static ConstantValue newLong(final long l) {
+        return new ConstantValue(Type.LONG_TYPE, new Long(l));
+    }
+
+    private static ConstantValue newFloat(final float f) {
+        return new ConstantValue(Type.FLOAT_TYPE, new Float(f));
+    }
+
+    private static ConstantValue newDouble(final double d) {
+        return new ConstantValue(Type.DOUBLE_TYPE, new Double(d));
+    }
+}
@@ -0,0 +1,207 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.tree.analysis;
+
+import org.objectweb.asm.Type;
+
+/**
+ * A {@link BasicValue} that also represents the constant value of a primitive
+ * value or of a string, and the null-ness of a reference value. Two values are
+ * equal if they have the same type, the same constant value and the same
+ * null-ness. Float and double constants are compared with their bit patterns,
+ * so that 0.0 and -0.0 are different constants.
+ */
+public class ConstantValue extends BasicValue {
+
+    public static final ConstantValue UNINITIALIZED_VALUE = new ConstantValue(
+            null);
+
+    public static final ConstantValue INT_VALUE = new ConstantValue(
+            Type.INT_TYPE);
+
+    public static final ConstantValue FLOAT_VALUE = new ConstantValue(
+            Type.FLOAT_TYPE);
+
+    public static final ConstantValue LONG_VALUE = new ConstantValue(
+            Type.LONG_TYPE);
+
+    public static final ConstantValue DOUBLE_VALUE = new ConstantValue(
+            Type.DOUBLE_TYPE);
+
+    public static final ConstantValue REFERENCE_VALUE = new ConstantValue(
+            BasicValue.REFERENCE_VALUE.getType());
+
+    public static final ConstantValue NULL_VALUE = new ConstantValue(
+            BasicValue.REFERENCE_VALUE.getType(), null, 1);
+
+    public static final ConstantValue NONNULL_VALUE = new ConstantValue(
+            BasicValue.REFERENCE_VALUE.getType(), null, 2);
+
+    public static final ConstantValue RETURNADDRESS_VALUE = new ConstantValue(
+            Type.VOID_TYPE);
+
+    /**
+     * The constant value of this value, or <tt>null</tt> if it is unknown.
+     */
+    private final Object value;
+
+    /**
+     * The null-ness of this value. 0 if this value may be null, 1 if it is
+     * always null, and 2 if it is never null.
+     */
+    private final int nullness;
+
+    /**
+     * Constructs a value of the given type, whose value is unknown.
+     * 
+     * @param type
+     *            the type of this value, in the type system of
+     *            {@link BasicValue}.
+     */
+    public ConstantValue(final Type type) {
+        this(type, null, 0);
+    }
+
+    /**
+     * Constructs a constant value.
+     * 
+     * @param type
+     *            the type of this value, in the type system of
+     *            {@link BasicValue}.
+     * @param value
+     *            an {@link Integer}, a {@link Float}, a {@link Long} or a
+     *            {@link Double} if <tt>type</tt> is the int, float, long or
+     *            double type, respectively, or a {@link String} if
+     *            <tt>type</tt> is a reference type.
+     */
+    public ConstantValue(final Type type, final Object value) {
+        this(type, value, value instanceof String ? 2 : 0);
+    }
+
+    private ConstantValue(final Type type, final Object value,
+            final int nullness) {
+        super(type);
+        this.value = value;
+        this.nullness = nullness;
+    }
+
+    /**
+     * Returns the constant value of this value.
+     * 
+     * @return an {@link Integer}, a {@link Float}, a {@link Long}, a
+     *         {@link Double} or a {@link String}, or <tt>null</tt> if the
+     *         value is unknown (or is the <tt>null</tt> reference, see
+     *         {@link #isNull isNull}).
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the value of this value is known.
+     * 
+     * @return <tt>true</tt> if {@link #getValue getValue} returns a non null
+     *         value, or if this value is the <tt>null</tt> reference.
+     */
+    public boolean isConstant() {
+        return value != null || nullness == 1;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this value is always the <tt>null</tt>
+     * reference.
+     * 
+     * @return <tt>true</tt> if this value is always the <tt>null</tt>
+     *         reference.
+     */
+    public boolean isNull() {
+        return nullness == 1;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this value is a reference that is never
+     * <tt>null</tt>.
+     * 
+     * @return <tt>true</tt> if this value is a reference that is never
+     *         <tt>null</tt>.
+     */
+    public boolean isNonNull() {
+        return nullness == 2;
+    }
+
+    @Override
+    public boolean equals(final Object value) {
+        if (value == this) {
+            return true;
+        } else if (value instanceof ConstantValue) {
+            ConstantValue v = (ConstantValue) value;
+            if (nullness != v.nullness || !super.equals(v)) {
+                return false;
+            }
+            return this.value == null ? v.value == null : this.value
+                    .equals(v.value);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ nullness
+                ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        if (value instanceof String) {
+            return '"' + (String) value + '"';
+        } else if (value instanceof Long) {
+            return value + "L";
+        } else if (value instanceof Float) {
+            return value + "F";
+        } else if (value instanceof Double) {
+            return value + "D";
+        } else if (value != null) {
+            return value.toString();
+        } else if (nullness == 1) {
+            return "null";
+        } else if (nullness == 2) {
+            return "R!";
+        } else if (getType() == null) {
+            return ".";
+        } else if (getType() == Type.VOID_TYPE) {
+            return "A";
+        } else if (isReference()) {
+            return "R";
+        } else {
+            return getType().getDescriptor();
+        }
+    }
+}
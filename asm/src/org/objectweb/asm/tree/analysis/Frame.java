@@ -34,6 +34,7 @@ import java.util.List;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.IincInsnNode;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
@@ -598,13 +599,14 @@ public class Frame<V extends Value> {
         case Opcodes.INVOKEINTERFACE: {
             values = new ArrayList<V>();
             String desc = ((MethodInsnNode) insn).desc;
-            for (int i = Type.getArgumentTypes(desc).length; i > 0; --i) {
+            TypeCache cache = interpreter.typeCache;
+            for (int i = cache.getArgumentTypes(desc).length; i > 0; --i) {
                 values.add(0, pop());
             }
             if (insn.getOpcode() != Opcodes.INVOKESTATIC) {
                 values.add(0, pop());
             }
-            if (Type.getReturnType(desc) == Type.VOID_TYPE) {
+            if (cache.getReturnType(desc) == Type.VOID_TYPE) {
                 interpreter.naryOperation(insn, values);
             } else {
                 push(interpreter.naryOperation(insn, values));
@@ -614,10 +616,11 @@ public class Frame<V extends Value> {
         case Opcodes.INVOKEDYNAMIC: {
             values = new ArrayList<V>();
             String desc = ((InvokeDynamicInsnNode) insn).desc;
-            for (int i = Type.getArgumentTypes(desc).length; i > 0; --i) {
+            TypeCache cache = interpreter.typeCache;
+            for (int i = cache.getArgumentTypes(desc).length; i > 0; --i) {
                 values.add(0, pop());
             }
-            if (Type.getReturnType(desc) == Type.VOID_TYPE) {
+            if (cache.getReturnType(desc) == Type.VOID_TYPE) {
                 interpreter.naryOperation(insn, values);
             } else {
                 push(interpreter.naryOperation(insn, values));
@@ -32,6 +32,7 @@ package org.objectweb.asm.tree.analysis;
 import java.util.List;
 
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.tree.AbstractInsnNode;
 
 /**
@@ -51,8 +52,30 @@ public abstract class Interpreter<V extends Value> {
 
     protected final int api;
 
+    /**
+     * The cache used by this interpreter, and by the {@link Analyzer} and
+     * {@link Frame} objects using it, to parse type and method descriptors.
+     */
+    protected final TypeCache typeCache;
+
     protected Interpreter(final int api) {
+        this(api, null);
+    }
+
+    /**
+     * Constructs a new {@link Interpreter}.
+     * 
+     * @param api
+     *            the ASM API version implemented by this interpreter.
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors. A
+     *            cache can be shared by several interpreters, even if they are
+     *            used concurrently. May be <tt>null</tt>, in which case
+     *            descriptors are parsed each time they are needed.
+     */
+    protected Interpreter(final int api, final TypeCache typeCache) {
         this.api = api;
+        this.typeCache = typeCache == null ? new TypeCache(0) : typeCache;
     }
 
     /**
@@ -0,0 +1,430 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.tree.analysis;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * A driver which analyzes the methods of one or more classes in parallel. Each
+ * method is analyzed by its own {@link Analyzer}, with its own
+ * {@link Interpreter}, in a task submitted to an {@link ExecutorService}
+ * (typically a {@link java.util.concurrent.ForkJoinPool ForkJoinPool}). The
+ * result of each analysis is sent to the {@link #analyzed analyzed} or
+ * {@link #failed failed} method, in the thread which analyzed the method.
+ * These methods are therefore called concurrently from several threads, in no
+ * particular order, and must be thread safe.
+ * <p>
+ * The analysis of a method can be bounded in time, in which case methods whose
+ * analysis takes longer than this time are reported as failed. The analysis of
+ * all the methods can also be stopped with {@link #cancel cancel}.
+ * 
+ * @param <V>
+ *            type of the Value used for the analysis.
+ */
+public abstract class ParallelAnalyzer<V extends Value> {
+
+    /**
+     * The access flags of the methods without code.
+     */
+    private static final int NO_CODE = Opcodes.ACC_ABSTRACT
+            | Opcodes.ACC_NATIVE;
+
+    /**
+     * The executor used to analyze the methods, or <tt>null</tt> to analyze
+     * them in the thread calling {@link #analyze(Iterable) analyze}.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The maximum analysis time of a method, in nanoseconds, or 0 if this
+     * time is not bounded.
+     */
+    private final long timeout;
+
+    /**
+     * The maximum number of methods whose analysis has been submitted but is
+     * not yet finished.
+     */
+    private final int maxPendingMethods;
+
+    /**
+     * <tt>true</tt> if {@link #cancel cancel} has been called.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The number of methods successfully analyzed.
+     */
+    private final AtomicLong methodCount = new AtomicLong();
+
+    /**
+     * The number of methods whose analysis failed, including those whose
+     * analysis timed out.
+     */
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /**
+     * The number of methods whose analysis timed out.
+     */
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    /**
+     * Constructs a new {@link ParallelAnalyzer}.
+     * 
+     * @param executor
+     *            the executor used to analyze the methods, or <tt>null</tt> to
+     *            analyze them in the thread calling {@link #analyze(Iterable)
+     *            analyze}.
+     * @param timeout
+     *            the maximum analysis time of a method, in milliseconds, or 0
+     *            to not bound this time.
+     */
+    public ParallelAnalyzer(final ExecutorService executor,
+            final long timeout) {
+        this(executor, timeout, 1024);
+    }
+
+    /**
+     * Constructs a new {@link ParallelAnalyzer}.
+     * 
+     * @param executor
+     *            the executor used to analyze the methods, or <tt>null</tt> to
+     *            analyze them in the thread calling {@link #analyze(Iterable)
+     *            analyze}.
+     * @param timeout
+     *            the maximum analysis time of a method, in milliseconds, or 0
+     *            to not bound this time.
+     * @param maxPendingMethods
+     *            the maximum number of methods whose analysis has been
+     *            submitted but is not yet finished. This bounds the number of
+     *            classes retrieved in advance from the iterator passed to
+     *            {@link #analyze(Iterable) analyze}.
+     */
+    public ParallelAnalyzer(final ExecutorService executor,
+            final long timeout, final int maxPendingMethods) {
+        if (timeout < 0 || maxPendingMethods < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.executor = executor;
+        this.timeout = timeout * 1000000L;
+        this.maxPendingMethods = maxPendingMethods;
+    }
+
+    /**
+     * Analyzes the methods of the given class. This method returns when all
+     * these methods have been analyzed, or when this driver is cancelled.
+     * 
+     * @param cn
+     *            the class whose methods must be analyzed.
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting for the
+     *             analysis of the methods.
+     */
+    public void analyze(final ClassNode cn) throws InterruptedException {
+        analyze(Collections.singleton(cn));
+    }
+
+    /**
+     * Analyzes the methods of the given classes. The methods without code are
+     * ignored. This method returns when all the other methods have been
+     * analyzed, or when this driver is cancelled. The classes are retrieved
+     * from the given iterable as the analysis progresses, which makes it
+     * possible to analyze large archives with a bounded amount of memory.
+     * 
+     * @param classes
+     *            the classes whose methods must be analyzed.
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting for the
+     *             analysis of the methods.
+     */
+    public void analyze(final Iterable<ClassNode> classes)
+            throws InterruptedException {
+        LinkedList<Future<Object>> pending = new LinkedList<Future<Object>>();
+        try {
+            for (ClassNode cn : classes) {
+                for (MethodNode mn : cn.methods) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if ((mn.access & NO_CODE) != 0) {
+                        continue;
+                    }
+                    Task task = new Task(cn, mn);
+                    if (executor == null) {
+                        FutureTask<Object> f = new FutureTask<Object>(task);
+                        f.run();
+                        pending.add(f);
+                    } else {
+                        pending.add(executor.submit(task));
+                    }
+                    if (pending.size() >= maxPendingMethods) {
+                        get(pending.removeFirst());
+                    }
+                }
+            }
+            while (!pending.isEmpty()) {
+                get(pending.removeFirst());
+            }
+        } finally {
+            for (Future<Object> f : pending) {
+                f.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Stops the analysis of the methods. The methods whose analysis has not
+     * yet started are not analyzed, the methods being analyzed are abandoned
+     * without being reported, and {@link #analyze(Iterable) analyze} returns
+     * as soon as possible. This method can be called from any thread,
+     * including from {@link #analyzed analyzed} or {@link #failed failed}.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns <tt>true</tt> if {@link #cancel cancel} has been called.
+     * 
+     * @return <tt>true</tt> if {@link #cancel cancel} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the number of methods successfully analyzed.
+     * 
+     * @return the number of methods successfully analyzed.
+     */
+    public long getMethodCount() {
+        return methodCount.get();
+    }
+
+    /**
+     * Returns the number of methods whose analysis failed, including those
+     * whose analysis timed out.
+     * 
+     * @return the number of methods whose analysis failed.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Returns the number of methods whose analysis timed out.
+     * 
+     * @return the number of methods whose analysis timed out.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Creates the interpreter used to analyze a method. This method is called
+     * concurrently from several threads, and must return a new interpreter
+     * (or an otherwise thread safe one) at each call.
+     * 
+     * @param cn
+     *            the class to which the analyzed method belongs.
+     * @return the interpreter used to analyze a method of this class.
+     */
+    protected abstract Interpreter<V> newInterpreter(ClassNode cn);
+
+    /**
+     * Called when a method has been successfully analyzed. This method is
+     * called concurrently from several threads. The default implementation of
+     * this method does nothing.
+     * 
+     * @param cn
+     *            the class to which the analyzed method belongs.
+     * @param mn
+     *            the analyzed method.
+     * @param frames
+     *            the symbolic stack frames computed for this method. See
+     *            {@link Analyzer#analyze Analyzer.analyze}.
+     */
+    protected void analyzed(final ClassNode cn, final MethodNode mn,
+            final Frame<V>[] frames) {
+    }
+
+    /**
+     * Called when the analysis of a method failed, or timed out. This method
+     * is called concurrently from several threads. The default implementation
+     * of this method does nothing.
+     * 
+     * @param cn
+     *            the class to which the analyzed method belongs.
+     * @param mn
+     *            the analyzed method.
+     * @param e
+     *            the cause of the failure.
+     */
+    protected void failed(final ClassNode cn, final MethodNode mn,
+            final AnalyzerException e) {
+    }
+
+    /**
+     * Waits for the analysis of a method.
+     * 
+     * @param f
+     *            the result of a {@link Task}.
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting.
+     */
+    private static void get(final Future<Object> f)
+            throws InterruptedException {
+        try {
+            f.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    /**
+     * The exception used to abort the analysis of a method.
+     */
+    private static class Abort extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * A task analyzing a method.
+     */
+    private class Task implements Callable<Object> {
+
+        /**
+         * The class to which the analyzed method belongs.
+         */
+        private final ClassNode cn;
+
+        /**
+         * The analyzed method.
+         */
+        private final MethodNode mn;
+
+        Task(final ClassNode cn, final MethodNode mn) {
+            this.cn = cn;
+            this.mn = mn;
+        }
+
+        public Object call() {
+            if (cancelled) {
+                return null;
+            }
+            Guard a = new Guard(newInterpreter(cn));
+            Frame<V>[] frames;
+            try {
+                frames = a.analyze(cn.name, mn);
+            } catch (AnalyzerException e) {
+                if (e.getCause() instanceof Abort) {
+                    if (!a.timedOut) {
+                        return null;
+                    }
+                    timeoutCount.incrementAndGet();
+                    e = new AnalyzerException(e.node, "Analysis timeout", e);
+                }
+                failureCount.incrementAndGet();
+                failed(cn, mn, e);
+                return null;
+            }
+            methodCount.incrementAndGet();
+            analyzed(cn, mn, frames);
+            return null;
+        }
+    }
+
+    /**
+     * An analyzer which aborts its analysis when it takes too much time, or
+     * when the driver is cancelled or the current thread interrupted.
+     */
+    private class Guard extends Analyzer<V> {
+
+        /**
+         * The time after which the analysis must be aborted, or 0 if this
+         * time is not bounded.
+         */
+        private final long deadline;
+
+        /**
+         * <tt>true</tt> if the analysis has been aborted because it took too
+         * much time.
+         */
+        boolean timedOut;
+
+        /**
+         * The number of control flow edges created since the last check of
+         * the deadline.
+         */
+        private int edges;
+
+        Guard(final Interpreter<V> interpreter) {
+            super(interpreter);
+            deadline = timeout == 0 ? 0 : System.nanoTime() + timeout;
+        }
+
+        @Override
+        protected void newControlFlowEdge(final int insn, final int successor) {
+            if (++edges == 1024) {
+                edges = 0;
+                if (cancelled || Thread.currentThread().isInterrupted()) {
+                    throw new Abort();
+                }
+                if (deadline != 0 && System.nanoTime() - deadline > 0) {
+                    timedOut = true;
+                    throw new Abort();
+                }
+            }
+        }
+
+        @Override
+        protected boolean newControlFlowExceptionEdge(final int insn,
+                final int successor) {
+            newControlFlowEdge(insn, successor);
+            return true;
+        }
+    }
+}
@@ -32,6 +32,7 @@ package org.objectweb.asm.tree.analysis;
 import java.util.List;
 
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 
 /**
  * An extended {@link BasicVerifier} that performs more precise verifications.
@@ -114,7 +115,15 @@ public class SimpleVerifier extends BasicVerifier {
     protected SimpleVerifier(final int api, final Type currentClass,
             final Type currentSuperClass,
             final List<Type> currentClassInterfaces, final boolean isInterface) {
-        super(api);
+        this(api, currentClass, currentSuperClass, currentClassInterfaces,
+                isInterface, null);
+    }
+
+    protected SimpleVerifier(final int api, final Type currentClass,
+            final Type currentSuperClass,
+            final List<Type> currentClassInterfaces, final boolean isInterface,
+            final TypeCache typeCache) {
+        super(api, typeCache);
         this.currentClass = currentClass;
         this.currentSuperClass = currentSuperClass;
         this.currentClassInterfaces = currentClassInterfaces;
@@ -158,7 +167,7 @@ public class SimpleVerifier extends BasicVerifier {
                 for (int i = 0; i < type.getDimensions(); ++i) {
                     desc = '[' + desc;
                 }
-                v = new BasicValue(Type.getType(desc));
+                v = new BasicValue(typeCache.getType(desc));
             } else {
                 v = new BasicValue(type);
             }
@@ -35,6 +35,7 @@ import java.util.Set;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
@@ -53,10 +54,25 @@ public class SourceInterpreter extends Interpreter<SourceValue> implements
         super(ASM4);
     }
 
+    /**
+     * Constructs a new {@link SourceInterpreter}.
+     * 
+     * @param typeCache
+     *            the cache to be used to parse type and method descriptors,
+     *            or <tt>null</tt>.
+     */
+    public SourceInterpreter(final TypeCache typeCache) {
+        super(ASM4, typeCache);
+    }
+
     protected SourceInterpreter(final int api) {
         super(api);
     }
 
+    protected SourceInterpreter(final int api, final TypeCache typeCache) {
+        super(api, typeCache);
+    }
+
     @Override
     public SourceValue newValue(final Type type) {
         if (type == Type.VOID_TYPE) {
@@ -80,7 +96,8 @@ public class SourceInterpreter extends Interpreter<SourceValue> implements
             size = cst instanceof Long || cst instanceof Double ? 2 : 1;
             break;
         case GETSTATIC:
-            size = Type.getType(((FieldInsnNode) insn).desc).getSize();
+            size = typeCache.getType(
+                    ((FieldInsnNode) insn).desc).getSize();
             break;
         default:
             size = 1;
@@ -110,7 +127,8 @@ public class SourceInterpreter extends Interpreter<SourceValue> implements
             size = 2;
             break;
         case GETFIELD:
-            size = Type.getType(((FieldInsnNode) insn).desc).getSize();
+            size = typeCache.getType(
+                    ((FieldInsnNode) insn).desc).getSize();
             break;
         default:
             size = 1;
@@ -166,7 +184,7 @@ public class SourceInterpreter extends Interpreter<SourceValue> implements
         } else {
             String desc = (opcode == INVOKEDYNAMIC) ? ((InvokeDynamicInsnNode) insn).desc
                     : ((MethodInsnNode) insn).desc;
-            size = Type.getReturnType(desc).getSize();
+            size = typeCache.getReturnType(desc).getSize();
         }
         return new SourceValue(size, insn);
     }
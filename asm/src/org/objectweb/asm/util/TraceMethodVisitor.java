@@ -51,7 +51,7 @@ public final class TraceMethodVisitor extends MethodVisitor {
     }
 
     public TraceMethodVisitor(final MethodVisitor mv, final Printer p) {
-        super(Opcodes.ASM4, mv);
+        super(Opcodes.ASM5, mv);
         this.p = p;
     }
 
@@ -132,9 +132,9 @@ public final class TraceMethodVisitor extends MethodVisitor {
 
     @Override
     public void visitMethodInsn(final int opcode, final String owner,
-            final String name, final String desc) {
-        p.visitMethodInsn(opcode, owner, name, desc);
-        super.visitMethodInsn(opcode, owner, name, desc);
+            final String name, final String desc, final boolean itf) {
+        p.visitMethodInsn(opcode, owner, name, desc, itf);
+        super.visitMethodInsn(opcode, owner, name, desc, itf);
     }
 
     @Override
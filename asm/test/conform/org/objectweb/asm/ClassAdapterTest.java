@@ -48,12 +48,12 @@ public class ClassAdapterTest extends AbstractTest {
     public void test() throws Exception {
         ClassReader cr = new ClassReader(is);
         ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-        cr.accept(new ClassVisitor(Opcodes.ASM4, cw) {
+        cr.accept(new ClassVisitor(Opcodes.ASM5, cw) {
 
             @Override
             public FieldVisitor visitField(int access, String name,
                     String desc, String signature, Object value) {
-                return new FieldVisitor(Opcodes.ASM4, super.visitField(access,
+                return new FieldVisitor(Opcodes.ASM5, super.visitField(access,
                         name, desc, signature, value)) {
                     @Override
                     public AnnotationVisitor visitAnnotation(String desc,
@@ -67,7 +67,7 @@ public class ClassAdapterTest extends AbstractTest {
             @Override
             public MethodVisitor visitMethod(int access, String name,
                     String desc, String signature, String[] exceptions) {
-                return new MethodVisitor(Opcodes.ASM4, super.visitMethod(
+                return new MethodVisitor(Opcodes.ASM5, super.visitMethod(
                         access, name, desc, signature, exceptions)) {
                     @Override
                     public AnnotationVisitor visitAnnotationDefault() {
@@ -104,7 +104,7 @@ public class ClassAdapterTest extends AbstractTest {
     static class AnnotationAdapter extends AnnotationVisitor {
 
         public AnnotationAdapter(final AnnotationVisitor av) {
-            super(Opcodes.ASM4, av);
+            super(Opcodes.ASM5, av);
         }
 
         @Override
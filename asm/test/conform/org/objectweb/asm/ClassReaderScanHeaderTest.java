@@ -0,0 +1,82 @@
+/***
+ * ASM tests
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestSuite;
+
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * ClassReader scanHeader tests.
+ */
+public class ClassReaderScanHeaderTest extends AbstractTest {
+
+    public static TestSuite suite() throws Exception {
+        return new ClassReaderScanHeaderTest().getSuite();
+    }
+
+    @Override
+    public void test() throws Exception {
+        ClassReader cr = new ClassReader(is);
+        ClassNode cn = new ClassNode();
+        cr.accept(cn, ClassReader.SKIP_CODE);
+        ClassHeader h = ClassReader.scanHeader(cr.b, 0, cr.b.length, true);
+        assertEquals(cn.version, h.version);
+        assertEquals(cr.getAccess(), h.access);
+        assertEquals(cn.name, h.name);
+        assertEquals(cn.superName, h.superName);
+        assertEquals(cn.interfaces, Arrays.asList(h.interfaces));
+        assertEquals(getDescriptors(cn.visibleAnnotations),
+                Arrays.asList(h.visibleAnnotations));
+        assertEquals(getDescriptors(cn.invisibleAnnotations),
+                Arrays.asList(h.invisibleAnnotations));
+
+        h = ClassReader.scanHeader(cr.b);
+        assertEquals(cn.name, h.name);
+        assertNull(h.visibleAnnotations);
+        assertNull(h.invisibleAnnotations);
+    }
+
+    private static List<String> getDescriptors(
+            final List<AnnotationNode> anns) {
+        List<String> descs = new ArrayList<String>();
+        if (anns != null) {
+            for (int i = 0; i < anns.size(); ++i) {
+                descs.add(anns.get(i).desc);
+            }
+        }
+        return descs;
+    }
+}
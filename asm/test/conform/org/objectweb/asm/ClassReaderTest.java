@@ -44,9 +44,9 @@ public class ClassReaderTest extends AbstractTest {
 
     @Override
     public void test() throws Exception {
-        new ClassReader(is).accept(new ClassVisitor(Opcodes.ASM4) {
+        new ClassReader(is).accept(new ClassVisitor(Opcodes.ASM5) {
 
-            AnnotationVisitor av = new AnnotationVisitor(Opcodes.ASM4) {
+            AnnotationVisitor av = new AnnotationVisitor(Opcodes.ASM5) {
 
                 @Override
                 public AnnotationVisitor visitAnnotation(String name,
@@ -69,7 +69,7 @@ public class ClassReaderTest extends AbstractTest {
             @Override
             public FieldVisitor visitField(int access, String name,
                     String desc, String signature, Object value) {
-                return new FieldVisitor(Opcodes.ASM4) {
+                return new FieldVisitor(Opcodes.ASM5) {
 
                     @Override
                     public AnnotationVisitor visitAnnotation(String desc,
@@ -82,7 +82,7 @@ public class ClassReaderTest extends AbstractTest {
             @Override
             public MethodVisitor visitMethod(int access, String name,
                     String desc, String signature, String[] exceptions) {
-                return new MethodVisitor(Opcodes.ASM4) {
+                return new MethodVisitor(Opcodes.ASM5) {
 
                     @Override
                     public AnnotationVisitor visitAnnotationDefault() {
@@ -31,9 +31,19 @@ package org.objectweb.asm;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+
 /**
  * ClassReader unit tests.
  * 
@@ -91,4 +101,517 @@ public class ClassReaderUnitTest extends TestCase implements Opcodes {
         interfaces = new ClassReader(Opcodes.class.getName()).getInterfaces();
         assertNotNull(interfaces);
     }
+
+    public void testReadClassFromSlowStream() throws Exception {
+        final ClassReader cr = new ClassReader(ClassReader.class.getName());
+        InputStream is = new InputStream() {
+            int i;
+
+            @Override
+            public int read() {
+                return i < cr.b.length ? cr.b[i++] & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                int c = read();
+                if (c == -1) {
+                    return -1;
+                }
+                b[off] = (byte) c;
+                return 1;
+            }
+        };
+        assertTrue(Arrays.equals(cr.b, new ClassReader(is).b));
+    }
+
+    public void testByteBuffer() throws Exception {
+        byte[] b = new ClassReader(getClass().getName()).b;
+        byte[] c = new byte[b.length + 20];
+        System.arraycopy(b, 0, c, 10, b.length);
+        ByteBuffer buf = ByteBuffer.wrap(c, 10, b.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(c.length);
+        direct.put(c).position(10);
+        direct.limit(10 + b.length);
+        ByteBuffer[] bufs = { ByteBuffer.wrap(b), buf, buf.slice(),
+                buf.asReadOnlyBuffer(), direct };
+        ClassWriter ref = new ClassWriter(0);
+        new ClassReader(b).accept(ref, 0);
+        for (int i = 0; i < bufs.length; ++i) {
+            int position = bufs[i].position();
+            ClassReader cr = new ClassReader(bufs[i]);
+            assertEquals(position, bufs[i].position());
+            assertEquals(getClass().getName().replace('.', '/'),
+                    cr.getClassName());
+            ClassWriter cw = new ClassWriter(0);
+            cr.accept(cw, 0);
+            assertTrue(Arrays.equals(ref.toByteArray(), cw.toByteArray()));
+            cw = new ClassWriter(cr, 0);
+            cr.accept(cw, 0);
+            assertTrue(Arrays.equals(b, cw.toByteArray()));
+        }
+        assertSame(c, new ClassReader(buf).b);
+    }
+
+    public void testUTF8Cache() throws Exception {
+        ClassReader cr = new ClassReader(getClass().getName());
+        UTF8Cache cache = new UTF8Cache(16);
+        for (int i = 0; i < 2; ++i) {
+            ClassReader ccr = new ClassReader(cr.b, 0, cr.b.length, cache);
+            assertEquals(cr.getClassName(), ccr.getClassName());
+            assertEquals(cr.getSuperName(), ccr.getSuperName());
+            assertEquals(cr.getInterfaces()[0], ccr.getInterfaces()[0]);
+            ClassWriter cw = new ClassWriter(0);
+            cr.accept(cw, 0);
+            ClassWriter ccw = new ClassWriter(0);
+            ccr.accept(ccw, 0);
+            assertTrue(Arrays.equals(cw.toByteArray(),
+                    ccw.toByteArray()));
+        }
+    }
+
+    public void testReuseLabels() throws Exception {
+        ClassReader cr = new ClassReader(getClass().getName());
+        assertEquals(0, countSharedLabels(cr, 0));
+        assertTrue(countSharedLabels(cr, ClassReader.REUSE_LABELS) > 0);
+        assertTrue(countSharedLabels(cr, ClassReader.REUSE_LABELS
+                | ClassReader.EXPAND_FRAMES) > 0);
+    }
+
+    public void testNewClassVersions() {
+        int[] versions = { V1_8, 0 << 16 | 61, 0 << 16 | 65 };
+        for (int i = 0; i < versions.length; ++i) {
+            ClassWriter cw = new ClassWriter(0);
+            cw.visit(versions[i], ACC_PUBLIC, "C", null, "java/lang/Object",
+                    null);
+            cw.visitEnd();
+            ClassReader cr = new ClassReader(cw.toByteArray());
+            assertEquals("C", cr.getClassName());
+            ClassWriter ccw = new ClassWriter(cr, 0);
+            cr.accept(ccw, 0);
+            assertEquals(versions[i], cr.readInt(4));
+            assertEquals(versions[i], new ClassReader(ccw.toByteArray())
+                    .readInt(4));
+        }
+    }
+
+    public void testCopyNewConstantPoolItems() {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(0 << 16 | 61, ACC_PUBLIC, "C", null, "java/lang/Object",
+                null);
+        MethodVisitor mv = cw.visitMethod(ACC_STATIC, "m", "()I", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(new Integer(123456));
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(1, 0);
+        mv.visitEnd();
+        int name = cw.newUTF8("p");
+        int nameType = cw.newNameType("f", "I");
+        cw.visitEnd();
+        byte[] b = cw.toByteArray();
+        ClassReader cr = new ClassReader(b);
+        int n = cr.getItemCount();
+
+        // adds CONSTANT_Module, CONSTANT_Package and CONSTANT_Dynamic items
+        byte[] items = { ClassWriter.MODULE, (byte) (name >> 8), (byte) name,
+                ClassWriter.PACKAGE, (byte) (name >> 8), (byte) name,
+                ClassWriter.CONDY, 0, 0, (byte) (nameType >> 8),
+                (byte) nameType };
+        byte[] c = new byte[b.length + items.length];
+        System.arraycopy(b, 0, c, 0, cr.header);
+        System.arraycopy(items, 0, c, cr.header, items.length);
+        System.arraycopy(b, cr.header, c, cr.header + items.length, b.length
+                - cr.header);
+        c[8] = (byte) ((n + 3) >> 8);
+        c[9] = (byte) (n + 3);
+
+        // these items are copied as is, and do not prevent visiting the class
+        cr = new ClassReader(c);
+        assertEquals(n + 3, cr.getItemCount());
+        ClassWriter ccw = new ClassWriter(cr, 0);
+        cr.accept(ccw, 0);
+        byte[] d = ccw.toByteArray();
+        assertEquals(n + 3, new ClassReader(d).getItemCount());
+        assertTrue(Arrays.equals(c, d));
+        cw = new ClassWriter(0);
+        cr.accept(cw, 0);
+        assertTrue(new ClassReader(cw.toByteArray()).getItemCount() < n);
+        try {
+            cr.readConst(n + 2, new char[cr.getMaxStringLength()]);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+
+        // unknown constant pool items can not be skipped
+        c[cr.getItem(n + 2) - 1] = 2;
+        try {
+            new ClassReader(c);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testInterfaceMethodCalls() throws Exception {
+        // an interface with a static and a default method
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(V1_8, ACC_PUBLIC + ACC_ABSTRACT + ACC_INTERFACE, "I", null,
+                "java/lang/Object", null);
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC + ACC_STATIC, "s", "()I",
+                null, null);
+        mv.visitCode();
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(1, 0);
+        mv.visitEnd();
+        mv = cw.visitMethod(ACC_PUBLIC, "d", "()I", null, null);
+        mv.visitCode();
+        mv.visitInsn(ICONST_2);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(1, 1);
+        mv.visitEnd();
+        cw.visitEnd();
+        final byte[] i = cw.toByteArray();
+
+        // a class calling them with INVOKESTATIC, INVOKESPECIAL and an
+        // INVOKESTATIC method handle, which refer to interface methods
+        cw = new ClassWriter(0);
+        cw.visit(V1_8, ACC_PUBLIC, "C", null, "java/lang/Object",
+                new String[] { "I" });
+        mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(1, 1);
+        mv.visitEnd();
+        mv = cw.visitMethod(ACC_PUBLIC + ACC_STATIC, "m", "()I", null, null);
+        mv.visitCode();
+        mv.visitMethodInsn(INVOKESTATIC, "I", "s", "()I", true);
+        mv.visitTypeInsn(NEW, "C");
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, "C", "<init>", "()V", false);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "C", "n", "()I", false);
+        mv.visitInsn(IADD);
+        mv.visitLdcInsn(new Handle(H_INVOKESTATIC, "I", "s", "()I", true));
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/invoke/MethodHandle",
+                "invokeExact", "()I", false);
+        mv.visitInsn(IADD);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(3, 0);
+        mv.visitEnd();
+        mv = cw.visitMethod(ACC_PUBLIC, "n", "()I", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, "I", "d", "()I", true);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(1, 1);
+        mv.visitEnd();
+        cw.visitEnd();
+        byte[] c = cw.toByteArray();
+        assertEquals(new Integer(4), invoke(i, c));
+
+        // the code of the methods can be copied as is
+        ClassReader cr = new ClassReader(c);
+        ClassWriter ccw = new ClassWriter(cr, 0);
+        cr.accept(ccw, 0);
+        byte[] d = ccw.toByteArray();
+        assertTrue(Arrays.equals(c, d));
+
+        // or visited, directly or through adapters implementing the ASM5 API
+        ccw = new ClassWriter(0);
+        cr.accept(ccw, 0);
+        assertTrue(Arrays.equals(c, ccw.toByteArray()));
+        ccw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cr.accept(ccw, 0);
+        assertEquals(new Integer(4), invoke(i, ccw.toByteArray()));
+        ccw = new ClassWriter(0);
+        cr.accept(new ClassVisitor(ASM5, ccw) {
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                return new MethodVisitor(ASM5, super.visitMethod(access,
+                        name, desc, signature, exceptions)) {
+                };
+            }
+        }, 0);
+        assertTrue(Arrays.equals(c, ccw.toByteArray()));
+
+        // or stored in a ClassNode
+        ClassNode cn = new ClassNode();
+        cr.accept(cn, 0);
+        InsnList insns = cn.methods.get(1).instructions;
+        assertTrue(((MethodInsnNode) insns.get(0)).itf);
+        assertTrue(((Handle) ((LdcInsnNode) insns.get(6)).cst).isInterface());
+        ccw = new ClassWriter(0);
+        cn.accept(ccw);
+        assertTrue(Arrays.equals(c, ccw.toByteArray()));
+        try {
+            cn.check(ASM4);
+            fail();
+        } catch (RuntimeException e) {
+        }
+
+        // but not through adapters implementing the ASM4 API
+        try {
+            cr.accept(new ClassVisitor(ASM4, new ClassWriter(0)) {
+                @Override
+                public MethodVisitor visitMethod(final int access,
+                        final String name, final String desc,
+                        final String signature, final String[] exceptions) {
+                    return new MethodVisitor(ASM4, super.visitMethod(access,
+                            name, desc, signature, exceptions)) {
+                    };
+                }
+            }, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    private static Object invoke(final byte[] i, final byte[] c)
+            throws Exception {
+        Class<?> k = new ClassLoader() {
+            @Override
+            protected Class<?> findClass(final String name)
+                    throws ClassNotFoundException {
+                if (name.equals("I")) {
+                    return defineClass(name, i, 0, i.length);
+                }
+                if (name.equals("C")) {
+                    return defineClass(name, c, 0, c.length);
+                }
+                throw new ClassNotFoundException(name);
+            }
+        }.loadClass("C");
+        Method m = k.getMethod("m");
+        return m.invoke(null);
+    }
+
+    public void testScanHeaderAnnotations() {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(V1_5, ACC_PUBLIC, "C", null, "java/lang/Object", null);
+        AnnotationVisitor av = cw.visitAnnotation("LX;", true);
+        av.visit("a", new Integer(1));
+        av.visit("b", new Integer(2));
+        av.visitEnd();
+        cw.visitAnnotation("LY;", true).visitEnd();
+        av = cw.visitAnnotation("LZ;", false);
+        AnnotationVisitor aav = av.visitAnnotation("c", "LW;");
+        aav.visit("d", new Integer(1));
+        aav.visit("e", "s");
+        aav.visitEnd();
+        aav = av.visitArray("f");
+        aav.visit(null, new Integer(1));
+        aav.visit(null, new Integer(2));
+        aav.visitEnd();
+        av.visitEnum("g", "LE;", "V");
+        av.visitEnd();
+        cw.visitAnnotation("LV;", false).visitEnd();
+        cw.visitEnd();
+        byte[] b = cw.toByteArray();
+
+        ClassHeader h = ClassReader.scanHeader(b, 0, b.length, true);
+        assertEquals(Arrays.asList(new String[] { "LX;", "LY;" }),
+                Arrays.asList(h.visibleAnnotations));
+        assertEquals(Arrays.asList(new String[] { "LZ;", "LV;" }),
+                Arrays.asList(h.invisibleAnnotations));
+    }
+
+    public void testReadSymbols() {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(V1_5, ACC_PUBLIC, "C", null, "java/lang/Object", null);
+        MethodVisitor mv = cw.visitMethod(ACC_STATIC, "m", "()V", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(new Long(1L));
+        mv.visitFieldInsn(GETSTATIC, "A", "f", "J");
+        mv.visitMethodInsn(INVOKESTATIC, "B", "g", "(JJ)V");
+        mv.visitMethodInsn(INVOKEINTERFACE, "I", "h", "()V");
+        mv.visitTypeInsn(ANEWARRAY, "[LD;");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(4, 0);
+        mv.visitEnd();
+        cw.newNameType("n", "LE;");
+        cw.visitEnd();
+
+        UTF8Cache cache = new UTF8Cache(1024);
+        ClassReader cr = new ClassReader(cw.toByteArray());
+        ClassSymbols s = new ClassReader(cr.b, 0, cr.b.length, cache)
+                .readSymbols();
+        assertEquals(Arrays.asList(new String[] { "C", "java/lang/Object",
+                "A", "B", "I", "[LD;" }), Arrays.asList(s.classes));
+        assertEquals(Arrays.asList(new String[] { "A", "f", "J" }),
+                Arrays.asList(s.fields));
+        assertEquals(Arrays.asList(new String[] { "B", "g", "(JJ)V" }),
+                Arrays.asList(s.methods));
+        assertEquals(Arrays.asList(new String[] { "I", "h", "()V" }),
+                Arrays.asList(s.interfaceMethods));
+        assertEquals(Arrays.asList(new String[] { "f", "J", "g", "(JJ)V", "h",
+                "()V", "n", "LE;" }), Arrays.asList(s.nameAndTypes));
+
+        // strings are shared between readers using the same cache
+        ClassSymbols t = new ClassReader(cr.b, 0, cr.b.length, cache)
+                .readSymbols();
+        for (int i = 0; i < s.classes.length; ++i) {
+            assertSame(s.classes[i], t.classes[i]);
+        }
+        assertSame(s.methods[2], t.methods[2]);
+    }
+
+    public void testSkipAnnotationsAndAttributes() {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(V1_5, ACC_PUBLIC, "C", null, "java/lang/Object", null);
+        cw.visitAnnotation("LA;", true).visitEnd();
+        cw.visitAnnotation("LB;", false).visitEnd();
+        cw.visitAttribute(newAttribute());
+        FieldVisitor fv = cw.visitField(ACC_PUBLIC, "f", "I", null, null);
+        fv.visitAnnotation("LA;", true).visitEnd();
+        fv.visitAttribute(newAttribute());
+        fv.visitEnd();
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "m", "(I)I", null, null);
+        AnnotationVisitor av = mv.visitAnnotationDefault();
+        av.visit(null, new Integer(1));
+        av.visitEnd();
+        mv.visitAnnotation("LA;", true).visitEnd();
+        mv.visitParameterAnnotation(0, "LA;", true).visitEnd();
+        mv.visitParameterAnnotation(0, "LB;", false).visitEnd();
+        mv.visitAttribute(newAttribute());
+        mv.visitCode();
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(1, 2);
+        mv.visitEnd();
+        cw.visitEnd();
+        ClassReader cr = new ClassReader(cw.toByteArray());
+
+        assertEquals("7 3 2 1", countEvents(cr, 0));
+        assertEquals("0 3 2 1", countEvents(cr, ClassReader.SKIP_ANNOTATIONS));
+        assertEquals("7 0 2 1", countEvents(cr, ClassReader.SKIP_ATTRIBUTES));
+        assertEquals("7 0 0 0", countEvents(cr, ClassReader.SKIP_CODE
+                | ClassReader.SKIP_ATTRIBUTES));
+        assertEquals("0 0 2 1", countEvents(cr, ClassReader.SKIP_ANNOTATIONS
+                | ClassReader.SKIP_ATTRIBUTES));
+    }
+
+    private static Attribute newAttribute() {
+        Attribute attr = new Attribute("Foo") {
+        };
+        attr.value = new byte[] { 1, 2, 3 };
+        return attr;
+    }
+
+    /**
+     * Returns the number of annotations (including annotation defaults),
+     * attributes, instructions and visitMaxs events visited for the given
+     * class and flags.
+     */
+    private static String countEvents(final ClassReader cr, final int flags) {
+        final int[] n = new int[4];
+        cr.accept(new ClassVisitor(Opcodes.ASM4) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc,
+                    boolean visible) {
+                ++n[0];
+                return null;
+            }
+
+            @Override
+            public void visitAttribute(Attribute attr) {
+                ++n[1];
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name,
+                    String desc, String signature, Object value) {
+                return new FieldVisitor(Opcodes.ASM4) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String desc,
+                            boolean visible) {
+                        ++n[0];
+                        return null;
+                    }
+
+                    @Override
+                    public void visitAttribute(Attribute attr) {
+                        ++n[1];
+                    }
+                };
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name,
+                    String desc, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM4) {
+                    @Override
+                    public AnnotationVisitor visitAnnotationDefault() {
+                        ++n[0];
+                        return null;
+                    }
+
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String desc,
+                            boolean visible) {
+                        ++n[0];
+                        return null;
+                    }
+
+                    @Override
+                    public AnnotationVisitor visitParameterAnnotation(
+                            int parameter, String desc, boolean visible) {
+                        ++n[0];
+                        return null;
+                    }
+
+                    @Override
+                    public void visitAttribute(Attribute attr) {
+                        ++n[1];
+                    }
+
+                    @Override
+                    public void visitVarInsn(int opcode, int var) {
+                        ++n[2];
+                    }
+
+                    @Override
+                    public void visitInsn(int opcode) {
+                        ++n[2];
+                    }
+
+                    @Override
+                    public void visitMaxs(int maxStack, int maxLocals) {
+                        ++n[3];
+                    }
+                };
+            }
+        }, flags);
+        return n[0] + " " + n[1] + " " + n[2] + " " + n[3];
+    }
+
+    private static int countSharedLabels(final ClassReader cr,
+            final int flags) {
+        final Map<Label, String> owners = new IdentityHashMap<Label, String>();
+        final int[] shared = new int[1];
+        cr.accept(new ClassVisitor(Opcodes.ASM4) {
+            @Override
+            public MethodVisitor visitMethod(int access, final String name,
+                    final String desc, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM4) {
+                    @Override
+                    public void visitLabel(Label label) {
+                        assertEquals(0, label.status & ~Label.DEBUG);
+                        assertNull(label.info);
+                        String owner = owners.put(label, name + desc);
+                        if (owner != null && !owner.equals(name + desc)) {
+                            ++shared[0];
+                        }
+                        label.info = name;
+                    }
+                };
+            }
+        }, flags);
+        return shared[0];
+    }
 }
@@ -51,12 +51,28 @@ public class ClassWriterCopyPoolTest extends AbstractTest {
         cr.accept(new ChangeExceptionAdapter(cw2), 0);
         assertEquals(new ClassReader(cw1.toByteArray()),
                 new ClassReader(cw2.toByteArray()));
+        // the copied constant pool items must be found again when the methods
+        // are not copied as is, so no item should be added to the pool
+        cr = new ClassReader(cr.b);
+        ClassWriter cw3 = new ClassWriter(cr, 0);
+        cr.accept(new ClassVisitor(Opcodes.ASM5, cw3) {
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM5, super.visitMethod(
+                        access, name, desc, signature, exceptions)) {
+                };
+            }
+        }, 0);
+        assertEquals(cr.getItemCount(),
+                new ClassReader(cw3.toByteArray()).getItemCount());
     }
 
     static class ChangeExceptionAdapter extends ClassVisitor {
 
         public ChangeExceptionAdapter(final ClassVisitor cv) {
-            super(Opcodes.ASM4, cv);
+            super(Opcodes.ASM5, cv);
         }
 
         @Override
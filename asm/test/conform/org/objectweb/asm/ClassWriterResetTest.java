@@ -0,0 +1,72 @@
+/***
+ * ASM tests
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.util.Arrays;
+
+import junit.framework.TestSuite;
+
+/**
+ * ClassWriter tests with class writers reused with {@link ClassWriter#reset}.
+ */
+public class ClassWriterResetTest extends AbstractTest {
+
+    private static final ClassWriter CW = new ClassWriter(0);
+
+    private static final ClassWriter CW_MAXS = new ClassWriter(
+            ClassWriter.COMPUTE_MAXS);
+
+    public static TestSuite suite() throws Exception {
+        return new ClassWriterResetTest().getSuite();
+    }
+
+    @Override
+    public void test() throws Exception {
+        ClassReader cr = new ClassReader(is);
+
+        ClassWriter cw = new ClassWriter(0);
+        cr.accept(cw, 0);
+        CW.reset();
+        cr.accept(CW, 0);
+        assertTrue(Arrays.equals(cw.toByteArray(), CW.toByteArray()));
+
+        cw = new ClassWriter(cr, 0);
+        cr.accept(cw, 0);
+        CW.reset(cr);
+        cr.accept(CW, 0);
+        assertTrue(Arrays.equals(cw.toByteArray(), CW.toByteArray()));
+
+        cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cr.accept(cw, 0);
+        CW_MAXS.reset();
+        cr.accept(CW_MAXS, 0);
+        assertTrue(Arrays.equals(cw.toByteArray(), CW_MAXS.toByteArray()));
+    }
+}
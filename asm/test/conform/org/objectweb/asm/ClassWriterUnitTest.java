@@ -29,6 +29,13 @@
  */
 package org.objectweb.asm;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
+
 import junit.framework.TestCase;
 
 /**
@@ -48,6 +55,178 @@ public class ClassWriterUnitTest extends TestCase {
         cw.newMethod("A", "m", "()V", false);
     }
 
+    public void testCopyPool() {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, "A", null,
+                "java/lang/Object", null);
+        int[] indexes = newConsts(cw);
+        cw.visitEnd();
+        ClassReader cr = new ClassReader(cw.toByteArray());
+        cw = new ClassWriter(cr, 0);
+        int n = cr.getItemCount();
+        int[] copiedIndexes = newConsts(cw);
+        for (int i = 0; i < indexes.length; ++i) {
+            assertEquals(indexes[i], copiedIndexes[i]);
+        }
+        assertEquals(n, new ClassReader(cw.toByteArray()).getItemCount());
+    }
+
+    private static int[] newConsts(final ClassWriter cw) {
+        Handle h = new Handle(Opcodes.H_INVOKESTATIC, "A", "m", "()V");
+        return new int[] { cw.newUTF8("\u0000\u00E9\u20AC\uFFFF"),
+                cw.newClass("p/\u00E9t\u00E9"), cw.newConst("a\u0000b"),
+                cw.newConst(new Integer(-1)), cw.newConst(new Float(1.5f)),
+                cw.newConst(new Long(Long.MAX_VALUE)),
+                cw.newConst(new Double(-2.5)), cw.newConst(Type.getType("[I")),
+                cw.newConst(Type.getMethodType("(J)V")), cw.newConst(h),
+                cw.newField("A", "\u00E9", "I"),
+                cw.newMethod("A", "m", "()V", false),
+                cw.newMethod("I", "m", "()V", true),
+                cw.newNameType("m", "()V"),
+                cw.newInvokeDynamic("m", "()V", h, new Object[] { "a", h }) };
+    }
+
+    public void testResizeInstructionsWithFrames() throws Exception {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "A", null,
+                "java/lang/Object", null);
+        // a method whose declared frame differs from the computed one
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "a", "()V",
+                null, null);
+        mv.visitCode();
+        Label l = new Label();
+        mv.visitLdcInsn("a");
+        mv.visitVarInsn(Opcodes.ASTORE, 0);
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitJumpInsn(Opcodes.IFEQ, l);
+        mv.visitInsn(Opcodes.NOP);
+        mv.visitLabel(l);
+        mv.visitFrame(Opcodes.F_FULL, 1, new Object[] { "java/lang/Object" },
+                0, null);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(1, 1);
+        mv.visitEnd();
+        // a method whose forward jump must be resized
+        mv = cw.visitMethod(Opcodes.ACC_STATIC, "b", "()V", null, null);
+        mv.visitCode();
+        l = new Label();
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitJumpInsn(Opcodes.IFEQ, l);
+        for (int i = 0; i < 33000; ++i) {
+            mv.visitInsn(Opcodes.NOP);
+        }
+        mv.visitLabel(l);
+        mv.visitFrame(Opcodes.F_FULL, 0, null, 0, null);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(1, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        final byte[] b = cw.toByteArray();
+
+        // only the frames of the resized method must have been recomputed
+        final String[] local = new String[1];
+        new ClassReader(b).accept(new ClassVisitor(Opcodes.ASM4) {
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                if (!name.equals("a")) {
+                    return null;
+                }
+                return new MethodVisitor(Opcodes.ASM4) {
+                    @Override
+                    public void visitFrame(final int type, final int nLocal,
+                            final Object[] local2, final int nStack,
+                            final Object[] stack) {
+                        local[0] = (String) local2[0];
+                    }
+                };
+            }
+        }, ClassReader.EXPAND_FRAMES);
+        assertEquals("java/lang/Object", local[0]);
+        Class<?> c = new ClassLoader() {
+            @Override
+            protected Class<?> findClass(final String name)
+                    throws ClassNotFoundException {
+                return defineClass(name, b, 0, b.length);
+            }
+        }.loadClass("A");
+        // the class must be verified successfully
+        Method m = c.getDeclaredMethod("b");
+        m.setAccessible(true);
+        m.invoke(null);
+    }
+
+    public void testComputeFramesFixPointCounters() {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "A", null,
+                "java/lang/Object", null);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "m", "(I)V",
+                null, null);
+        mv.visitCode();
+        Label loop = new Label();
+        Label exit = new Label();
+        mv.visitInsn(Opcodes.ACONST_NULL);
+        mv.visitVarInsn(Opcodes.ASTORE, 1);
+        mv.visitLabel(loop);
+        mv.visitVarInsn(Opcodes.ILOAD, 0);
+        mv.visitJumpInsn(Opcodes.IFEQ, exit);
+        mv.visitLdcInsn("a");
+        mv.visitVarInsn(Opcodes.ASTORE, 1);
+        mv.visitIincInsn(0, -1);
+        mv.visitJumpInsn(Opcodes.GOTO, loop);
+        mv.visitLabel(exit);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        // the blocks are processed in reverse postorder, i.e. start, loop,
+        // exit and loop body. The loop body changes the type of the local
+        // variable 1, so loop, exit and loop body are then processed again
+        MethodWriter mw = cw.firstMethod;
+        assertEquals(7, mw.iterations);
+        assertEquals(7, mw.merges);
+    }
+
+    public void testWriteToNonBlockingChannel() throws IOException {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, "A", null,
+                "java/lang/Object", null);
+        cw.visitEnd();
+
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            try {
+                cw.writeTo(pipe.sink());
+                fail();
+            } catch (IllegalBlockingModeException e) {
+            }
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+
+        // a channel which never accepts any byte
+        WritableByteChannel channel = new WritableByteChannel() {
+            public int write(final ByteBuffer src) {
+                return 0;
+            }
+
+            public boolean isOpen() {
+                return true;
+            }
+
+            public void close() {
+            }
+        };
+        try {
+            cw.writeTo(channel);
+            fail();
+        } catch (IllegalBlockingModeException e) {
+        }
+    }
+
     public void testIllegalNewConstArgument() {
         ClassWriter cw = new ClassWriter(0);
         try {
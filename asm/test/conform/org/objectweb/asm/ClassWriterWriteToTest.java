@@ -0,0 +1,131 @@
+/***
+ * ASM tests
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+
+import junit.framework.TestSuite;
+
+/**
+ * ClassWriter tests for the {@link ClassWriter#writeTo writeTo} methods.
+ */
+public class ClassWriterWriteToTest extends AbstractTest {
+
+    public static TestSuite suite() throws Exception {
+        return new ClassWriterWriteToTest().getSuite();
+    }
+
+    @Override
+    public void test() throws Exception {
+        ClassReader cr = new ClassReader(is);
+        ClassWriter cw = new ClassWriter(0);
+        cr.accept(cw, 0);
+        assertWriteTo(cw);
+        cw = new ClassWriter(cr, 0);
+        cr.accept(cw, 0);
+        assertWriteTo(cw);
+    }
+
+    private static void assertWriteTo(final ClassWriter cw) throws Exception {
+        byte[] b = cw.toByteArray();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        assertEquals(b.length, cw.writeTo(bos));
+        assertTrue(Arrays.equals(b, bos.toByteArray()));
+
+        bos = new ByteArrayOutputStream();
+        assertEquals(b.length, cw.writeTo(Channels.newChannel(bos)));
+        assertTrue(Arrays.equals(b, bos.toByteArray()));
+
+        SlowChannel channel = new SlowChannel();
+        assertEquals(b.length, cw.writeTo(channel));
+        assertTrue(Arrays.equals(b, channel.bos.toByteArray()));
+
+        ByteBuffer buffer = ByteBuffer.allocate(b.length + 2);
+        buffer.position(1);
+        assertEquals(b.length, cw.writeTo(buffer));
+        assertEquals(b.length + 1, buffer.position());
+        byte[] b2 = new byte[b.length];
+        System.arraycopy(buffer.array(), 1, b2, 0, b.length);
+        assertTrue(Arrays.equals(b, b2));
+
+        buffer = ByteBuffer.allocate(b.length - 1);
+        try {
+            cw.writeTo(buffer);
+            fail();
+        } catch (BufferOverflowException e) {
+            assertEquals(0, buffer.position());
+        }
+
+        assertTrue(Arrays.equals(b, cw.toByteArray()));
+    }
+
+    /**
+     * A gathering channel that writes at most 1000 bytes per operation.
+     */
+    static class SlowChannel implements GatheringByteChannel {
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        public int write(final ByteBuffer src) throws IOException {
+            int n = Math.min(src.remaining(), 1000);
+            for (int i = 0; i < n; ++i) {
+                bos.write(src.get());
+            }
+            return n;
+        }
+
+        public long write(final ByteBuffer[] srcs, final int offset,
+                final int length) throws IOException {
+            long n = 0;
+            for (int i = offset; i < offset + length && n < 1000; ++i) {
+                n += write(srcs[i]);
+            }
+            return n;
+        }
+
+        public long write(final ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import org.objectweb.asm.tree.MethodNode;
+
+import junit.framework.TestCase;
+
+/**
+ * OpcodeTable unit tests.
+ */
+public class OpcodeTableUnitTest extends TestCase implements Opcodes {
+
+    private static final Handle BSM = new Handle(H_INVOKESTATIC, "C", "m",
+            "()V");
+
+    private static void visitInsn(final MethodVisitor mv, final int opcode,
+            final Label label) {
+        switch (OpcodeTable.getType(opcode)) {
+        case OpcodeTable.INSN:
+            mv.visitInsn(opcode);
+            break;
+        case OpcodeTable.INT_INSN:
+            mv.visitIntInsn(opcode, opcode == NEWARRAY ? T_INT : 1);
+            break;
+        case OpcodeTable.VAR_INSN:
+            mv.visitVarInsn(opcode, 5);
+            break;
+        case OpcodeTable.TYPE_INSN:
+            mv.visitTypeInsn(opcode, "C");
+            break;
+        case OpcodeTable.FIELD_INSN:
+            mv.visitFieldInsn(opcode, "C", "f", "I");
+            break;
+        case OpcodeTable.METHOD_INSN:
+            mv.visitMethodInsn(opcode, "C", "m", "()V");
+            break;
+        case OpcodeTable.INVOKE_DYNAMIC_INSN:
+            mv.visitInvokeDynamicInsn("m", "()V", BSM);
+            break;
+        case OpcodeTable.JUMP_INSN:
+            mv.visitJumpInsn(opcode, label);
+            break;
+        case OpcodeTable.LDC_INSN:
+            mv.visitLdcInsn("s");
+            break;
+        case OpcodeTable.IINC_INSN:
+            mv.visitIincInsn(5, 1);
+            break;
+        case OpcodeTable.TABLESWITCH_INSN:
+            mv.visitTableSwitchInsn(0, 0, label, label);
+            break;
+        case OpcodeTable.LOOKUPSWITCH_INSN:
+            mv.visitLookupSwitchInsn(label, new int[0], new Label[0]);
+            break;
+        case OpcodeTable.MULTIANEWARRAY_INSN:
+            mv.visitMultiANewArrayInsn("[[I", 2);
+            break;
+        default:
+            fail();
+        }
+    }
+
+    public void testGetType() {
+        int n = 0;
+        for (int opcode = 0; opcode < 202; ++opcode) {
+            if (OpcodeTable.getType(opcode) < 0) {
+                continue;
+            }
+            MethodNode mn = new MethodNode();
+            visitInsn(mn, opcode, new Label());
+            assertEquals(opcode, mn.instructions.getLast().getOpcode());
+            assertEquals(OpcodeTable.getType(opcode), mn.instructions
+                    .getLast().getType());
+            ++n;
+        }
+        assertEquals(157, n);
+        assertEquals(-1, OpcodeTable.getType(26)); // ILOAD_0
+        assertEquals(-1, OpcodeTable.getType(196));
+    }
+
+    public void testGetLength() {
+        ClassWriter cw = new ClassWriter(0);
+        MethodWriter mw = (MethodWriter) cw.visitMethod(ACC_STATIC, "m",
+                "()V", null, null);
+        mw.visitCode();
+        Label label = new Label();
+        mw.visitLabel(label);
+        for (int opcode = 0; opcode < 202; ++opcode) {
+            int length = OpcodeTable.getLength(opcode);
+            if (OpcodeTable.getType(opcode) < 0 || length == 0) {
+                continue;
+            }
+            int start = mw.code.length;
+            visitInsn(mw, opcode, label);
+            assertEquals(length, mw.code.length - start);
+        }
+        assertEquals(0, OpcodeTable.getLength(TABLESWITCH));
+        assertEquals(0, OpcodeTable.getLength(LOOKUPSWITCH));
+    }
+
+    public void testGetFlow() {
+        assertEquals(OpcodeTable.FLOW_NEXT, OpcodeTable.getFlow(NOP));
+        assertEquals(OpcodeTable.FLOW_NEXT, OpcodeTable.getFlow(INVOKESTATIC));
+        assertEquals(OpcodeTable.FLOW_JUMP, OpcodeTable.getFlow(IFEQ));
+        assertEquals(OpcodeTable.FLOW_JUMP, OpcodeTable.getFlow(IF_ACMPNE));
+        assertEquals(OpcodeTable.FLOW_JUMP, OpcodeTable.getFlow(IFNONNULL));
+        assertEquals(OpcodeTable.FLOW_GOTO, OpcodeTable.getFlow(GOTO));
+        assertEquals(OpcodeTable.FLOW_JSR, OpcodeTable.getFlow(JSR));
+        assertEquals(OpcodeTable.FLOW_RET, OpcodeTable.getFlow(RET));
+        assertEquals(OpcodeTable.FLOW_SWITCH, OpcodeTable.getFlow(TABLESWITCH));
+        assertEquals(OpcodeTable.FLOW_SWITCH,
+                OpcodeTable.getFlow(LOOKUPSWITCH));
+        assertEquals(OpcodeTable.FLOW_RETURN, OpcodeTable.getFlow(IRETURN));
+        assertEquals(OpcodeTable.FLOW_RETURN, OpcodeTable.getFlow(RETURN));
+        assertEquals(OpcodeTable.FLOW_THROW, OpcodeTable.getFlow(ATHROW));
+    }
+
+    public void testGetStackPopsAndPushes() {
+        for (int opcode = 0; opcode < 202; ++opcode) {
+            int pops = OpcodeTable.getStackPops(opcode);
+            int pushes = OpcodeTable.getStackPushes(opcode);
+            int delta = pops < 0 || pushes < 0 ? 0 : pushes - pops;
+            assertEquals(delta, OpcodeTable.getStackSizeDelta(opcode));
+        }
+        assertEquals(4, OpcodeTable.getStackPops(DUP2_X2));
+        assertEquals(6, OpcodeTable.getStackPushes(DUP2_X2));
+        assertEquals(4, OpcodeTable.getStackPops(LASTORE));
+        assertEquals(3, OpcodeTable.getStackPops(LSHL));
+        assertEquals(2, OpcodeTable.getStackPushes(I2D));
+        assertEquals(-1, OpcodeTable.getStackPushes(LDC));
+        assertEquals(-1, OpcodeTable.getStackPops(INVOKEVIRTUAL));
+        assertEquals(-1, OpcodeTable.getStackPops(MULTIANEWARRAY));
+    }
+}
@@ -0,0 +1,203 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.commons.AdviceAdapter;
+import org.objectweb.asm.commons.AnalyzerAdapter;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.LocalVariablesSorter;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.BasicInterpreter;
+import org.objectweb.asm.tree.analysis.BasicVerifier;
+import org.objectweb.asm.tree.analysis.ConstantInterpreter;
+import org.objectweb.asm.tree.analysis.Interpreter;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.Value;
+
+/**
+ * TypeCache unit tests.
+ */
+public class TypeCacheUnitTest extends TestCase {
+
+    private static final String[] DESCRIPTORS = { "V", "I", "[J",
+            "Ljava/lang/Object;", "[[Ljava/lang/String;", "()V",
+            "(IJ[DLjava/lang/Object;)[Z", "(Ljava/lang/String;)J" };
+
+    public void testGetType() {
+        TypeCache cache = new TypeCache();
+        for (int i = 0; i < DESCRIPTORS.length; ++i) {
+            String desc = DESCRIPTORS[i];
+            Type t = cache.getType(desc);
+            assertEquals(Type.getType(desc), t);
+            assertSame(t, cache.getType(new String(desc)));
+        }
+    }
+
+    public void testMethodDescriptors() {
+        TypeCache cache = new TypeCache();
+        for (int i = 0; i < DESCRIPTORS.length; ++i) {
+            String desc = DESCRIPTORS[i];
+            if (desc.charAt(0) != '(') {
+                continue;
+            }
+            Type[] args = cache.getArgumentTypes(desc);
+            assertTrue(Arrays.equals(Type.getArgumentTypes(desc), args));
+            assertSame(args, cache.getArgumentTypes(desc));
+            assertEquals(Type.getReturnType(desc), cache.getReturnType(desc));
+            assertEquals(Type.getArgumentsAndReturnSizes(desc),
+                    cache.getArgumentsAndReturnSizes(desc));
+        }
+        assertSame(Type.VOID_TYPE, cache.getReturnType("()V"));
+    }
+
+    public void testCollision() {
+        TypeCache cache = new TypeCache(1);
+        Type t = cache.getType("Ljava/lang/Object;");
+        assertSame(t, cache.getType("Ljava/lang/Object;"));
+        Type[] args = cache.getArgumentTypes("(I)V");
+        assertEquals(t, cache.getType("Ljava/lang/Object;"));
+        assertNotSame(t, cache.getType("Ljava/lang/Object;"));
+        assertNotSame(args, cache.getArgumentTypes("(I)V"));
+    }
+
+    public void testNoCache() {
+        TypeCache cache = new TypeCache(0);
+        for (int i = 0; i < DESCRIPTORS.length; ++i) {
+            String desc = DESCRIPTORS[i];
+            assertEquals(Type.getType(desc), cache.getType(desc));
+        }
+        Type[] args = cache.getArgumentTypes("(IJ)V");
+        assertTrue(Arrays.equals(Type.getArgumentTypes("(IJ)V"), args));
+        assertNotSame(args, cache.getArgumentTypes("(IJ)V"));
+        assertEquals(1 << 2 | 1, cache.getArgumentsAndReturnSizes("()I"));
+    }
+
+    public void testInterpreters() throws Exception {
+        final Set<String> descs = new HashSet<String>();
+        TypeCache cache = new TypeCache() {
+            @Override
+            public Type getReturnType(final String methodDescriptor) {
+                descs.add(methodDescriptor);
+                return super.getReturnType(methodDescriptor);
+            }
+        };
+        MethodNode mn = new MethodNode(Opcodes.ACC_STATIC, "m", "()J", null,
+                null);
+        Handle bsm = new Handle(Opcodes.H_INVOKESTATIC, "C", "bsm",
+                "()Ljava/lang/invoke/CallSite;");
+        mn.instructions.add(new InvokeDynamicInsnNode("d", "()I", bsm));
+        mn.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "C", "s",
+                "(I)J"));
+        mn.instructions.add(new InsnNode(Opcodes.LRETURN));
+        mn.maxStack = 2;
+        List<Interpreter<?>> interpreters = new ArrayList<Interpreter<?>>();
+        interpreters.add(new BasicInterpreter(cache));
+        interpreters.add(new BasicVerifier(cache));
+        interpreters.add(new SourceInterpreter(cache));
+        interpreters.add(new ConstantInterpreter(cache));
+        for (Interpreter<?> interpreter : interpreters) {
+            descs.clear();
+            analyze(interpreter, mn);
+            assertEquals(interpreter.getClass().getName(), new HashSet<String>(
+                    Arrays.asList("()J", "()I", "(I)J")), descs);
+        }
+        analyze(new BasicVerifier(null), mn);
+    }
+
+    public void testAdapters() {
+        final Set<String> descs = new HashSet<String>();
+        TypeCache cache = new TypeCache() {
+            @Override
+            public Type getType(final String typeDescriptor) {
+                descs.add(typeDescriptor);
+                return super.getType(typeDescriptor);
+            }
+
+            @Override
+            public Type[] getArgumentTypes(final String methodDescriptor) {
+                descs.add(methodDescriptor);
+                return super.getArgumentTypes(methodDescriptor);
+            }
+
+            @Override
+            public Type getReturnType(final String methodDescriptor) {
+                descs.add(methodDescriptor);
+                return super.getReturnType(methodDescriptor);
+            }
+        };
+        MethodVisitor mv = new MethodVisitor(Opcodes.ASM5) {
+        };
+
+        MethodVisitor lvs = new LocalVariablesSorter(0, "(I)V", mv, cache);
+        lvs.visitLocalVariable("x", "J", null, new Label(), new Label(), 2);
+        assertEquals(new HashSet<String>(Arrays.asList("(I)V", "J")), descs);
+
+        descs.clear();
+        new GeneratorAdapter(mv, 0, "m", "(I)J", cache);
+        assertEquals(new HashSet<String>(Arrays.asList("(I)J")), descs);
+
+        descs.clear();
+        MethodVisitor aa = new AnalyzerAdapter("C", 0, "m", "(I)V", mv, cache);
+        aa.visitInsn(Opcodes.LCONST_0);
+        aa.visitMethodInsn(Opcodes.INVOKESTATIC, "C", "s", "(J)I");
+        assertEquals(new HashSet<String>(Arrays.asList("(I)V", "(J)I")), descs);
+
+        descs.clear();
+        MethodVisitor advice = new AdviceAdapter(Opcodes.ASM5, mv, 0,
+                "<init>", "(I)V", cache) {
+        };
+        advice.visitCode();
+        advice.visitInsn(Opcodes.LCONST_0);
+        advice.visitMethodInsn(Opcodes.INVOKESTATIC, "C", "s", "(J)I");
+        advice.visitInvokeDynamicInsn("d", "(I)V", new Handle(
+                Opcodes.H_INVOKESTATIC, "C", "bsm",
+                "()Ljava/lang/invoke/CallSite;"));
+        assertEquals(new HashSet<String>(Arrays.asList("(I)V", "(J)I")), descs);
+    }
+
+    private static <V extends Value> void analyze(
+            final Interpreter<V> interpreter, final MethodNode mn)
+            throws AnalyzerException {
+        new Analyzer<V>(interpreter).analyze("C", mn);
+    }
+}
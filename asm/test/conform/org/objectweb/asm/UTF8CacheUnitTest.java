@@ -0,0 +1,77 @@
+/***
+ * ASM tests
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import junit.framework.TestCase;
+
+/**
+ * UTF8Cache unit tests.
+ */
+public class UTF8CacheUnitTest extends TestCase {
+
+    private static byte[] encode(final String s) throws Exception {
+        ByteVector bv = new ByteVector();
+        bv.putUTF8(s);
+        byte[] b = new byte[bv.length - 2];
+        System.arraycopy(bv.data, 2, b, 0, b.length);
+        return b;
+    }
+
+    public void testGetPut() throws Exception {
+        UTF8Cache cache = new UTF8Cache();
+        String[] strings = { "", "java/lang/Object", "()V", "\u00e9t\u00e9",
+                "\u0000", "\u20ac" };
+        for (int i = 0; i < strings.length; ++i) {
+            byte[] b = encode(strings[i]);
+            assertNull(cache.get(b, 0, b.length));
+            cache.put(b, 0, b.length, strings[i]);
+            assertSame(strings[i], cache.get(b, 0, b.length));
+        }
+    }
+
+    public void testCollision() throws Exception {
+        UTF8Cache cache = new UTF8Cache(1);
+        byte[] b1 = encode("()V");
+        byte[] b2 = encode("()I");
+        cache.put(b1, 0, b1.length, "()V");
+        assertNull(cache.get(b2, 0, b2.length));
+        cache.put(b2, 0, b2.length, "()I");
+        assertNull(cache.get(b1, 0, b1.length));
+        assertEquals("()I", cache.get(b2, 0, b2.length));
+    }
+
+    public void testGetBuffer() {
+        UTF8Cache cache = new UTF8Cache();
+        char[] buf = cache.getBuffer(10);
+        assertTrue(buf.length >= 10);
+        assertSame(buf, cache.getBuffer(10));
+        assertTrue(cache.getBuffer(1000).length >= 1000);
+    }
+}
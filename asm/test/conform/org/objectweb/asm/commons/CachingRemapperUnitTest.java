@@ -0,0 +1,118 @@
+/***
+ * ASM tests
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * CachingRemapper unit tests.
+ */
+public class CachingRemapperUnitTest extends TestCase {
+
+    private static final String SIGNATURE = "<T:Ljava/lang/Object;>"
+            + "(Ljava/util/Map<TT;Lp/A;>;[Lp/A$B;)Lp/C<Lp/A;>.D;";
+
+    private int calls;
+
+    private Remapper newRemapper() {
+        Map<String, String> mapping = new HashMap<String, String>();
+        mapping.put("p/A", "q/X");
+        mapping.put("p/A$B", "q/X$B");
+        mapping.put("p/C", "q/Y");
+        mapping.put("p/C$D", "q/Y$D");
+        return new SimpleRemapper(mapping) {
+            @Override
+            public String map(String key) {
+                ++calls;
+                return super.map(key);
+            }
+        };
+    }
+
+    public void testMapSignature() {
+        Remapper r = newRemapper();
+        Remapper c = new CachingRemapper(newRemapper(), 16);
+        String expected = r.mapSignature(SIGNATURE, false);
+        assertEquals("<T:Ljava/lang/Object;>"
+                + "(Ljava/util/Map<TT;Lq/X;>;[Lq/X$B;)Lq/Y<Lq/X;>.D;",
+                expected);
+        calls = 0;
+        assertEquals(expected, c.mapSignature(SIGNATURE, false));
+        int n = calls;
+        assertTrue(n > 0);
+        for (int i = 0; i < 10; ++i) {
+            assertSame(c.mapSignature(SIGNATURE, false),
+                    c.mapSignature(SIGNATURE, false));
+        }
+        assertEquals(n, calls);
+        assertEquals("Lq/X;", c.mapSignature("Lp/A;", true));
+        assertEquals(null, c.mapSignature(null, true));
+    }
+
+    public void testMapDescAndTypes() {
+        Remapper r = newRemapper();
+        Remapper c = new CachingRemapper(newRemapper(), 16);
+        String[] descs = { "Lp/A;", "[[Lp/A$B;", "I", "Ljava/lang/String;" };
+        for (int i = 0; i < descs.length; ++i) {
+            assertEquals(r.mapDesc(descs[i]), c.mapDesc(descs[i]));
+            assertEquals(r.mapDesc(descs[i]), c.mapDesc(descs[i]));
+        }
+        String desc = "(Lp/A;I[Lp/C;)Lp/A$B;";
+        assertEquals(r.mapMethodDesc(desc), c.mapMethodDesc(desc));
+        assertEquals(r.mapMethodDesc(desc), c.mapMethodDesc(desc));
+        assertEquals("q/X", c.mapType("p/A"));
+        assertEquals("[Lq/X;", c.mapType("[Lp/A;"));
+        assertEquals("q/X", c.mapType("p/A"));
+        assertEquals(null, c.mapType(null));
+        String[] types = { "p/A", "p/C" };
+        assertTrue(Arrays.equals(r.mapTypes(types), c.mapTypes(types)));
+    }
+
+    public void testRemapClass() throws Exception {
+        ClassReader cr = new ClassReader(Remapper.class.getName());
+        Map<String, String> mapping = new HashMap<String, String>();
+        mapping.put("org/objectweb/asm/Type", "p/T");
+        mapping.put("org/objectweb/asm/signature/SignatureVisitor", "p/S");
+        ClassWriter cw = new ClassWriter(0);
+        cr.accept(new RemappingClassAdapter(cw, new SimpleRemapper(mapping)),
+                ClassReader.EXPAND_FRAMES);
+        ClassWriter ccw = new ClassWriter(0);
+        cr.accept(new RemappingClassAdapter(ccw, new CachingRemapper(
+                new SimpleRemapper(mapping))), ClassReader.EXPAND_FRAMES);
+        assertTrue(Arrays.equals(cw.toByteArray(), ccw.toByteArray()));
+    }
+}
@@ -0,0 +1,80 @@
+/***
+ * ASM tests
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * ClassWriterPool unit tests.
+ */
+public class ClassWriterPoolUnitTest extends TestCase {
+
+    public void testAcquireRelease() throws Exception {
+        ClassWriterPool pool = new ClassWriterPool(0, 1);
+        ClassWriter cw1 = pool.acquire();
+        ClassWriter cw2 = pool.acquire();
+        assertNotSame(cw1, cw2);
+        pool.release(cw1);
+        pool.release(cw2);
+        assertSame(cw1, pool.acquire());
+        assertNotSame(cw2, pool.acquire());
+    }
+
+    public void testReuse() throws Exception {
+        ClassWriterPool pool = new ClassWriterPool(ClassWriter.COMPUTE_MAXS);
+        String[] names = { "org.objectweb.asm.ClassReader",
+                "org.objectweb.asm.Type", "org.objectweb.asm.ClassReader" };
+        for (int i = 0; i < names.length; ++i) {
+            ClassReader cr = new ClassReader(names[i]);
+            ClassWriter pcw = pool.acquire(cr);
+            cr.accept(pcw, 0);
+            ClassWriter ref = new ClassWriter(cr, ClassWriter.COMPUTE_MAXS);
+            cr.accept(ref, 0);
+            assertTrue(Arrays.equals(ref.toByteArray(), pcw.toByteArray()));
+            pool.release(pcw);
+        }
+    }
+
+    public void testSubclass() {
+        final TypeHierarchy h = new TypeHierarchy();
+        ClassWriterPool pool = new ClassWriterPool(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected ClassWriter newClassWriter(final int flags) {
+                return new HierarchyClassWriter(flags, h);
+            }
+        };
+        assertTrue(pool.acquire() instanceof HierarchyClassWriter);
+    }
+}
@@ -0,0 +1,173 @@
+/***
+ * ASM tests
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * JarTransformer unit tests.
+ */
+public class JarTransformerUnitTest extends TestCase {
+
+    private static final String[] CLASSES = { "org.objectweb.asm.ClassReader",
+            "org.objectweb.asm.ClassWriter", "org.objectweb.asm.Type",
+            "org.objectweb.asm.commons.GeneratorAdapter",
+            "org.objectweb.asm.commons.JarTransformer" };
+
+    private ExecutorService executor;
+
+    private byte[] jar;
+
+    @Override
+    protected void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ZipOutputStream zos = new ZipOutputStream(bos);
+        zos.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+        zos.write("Manifest-Version: 1.0\n".getBytes());
+        for (int i = 0; i < CLASSES.length; ++i) {
+            zos.putNextEntry(new ZipEntry(CLASSES[i].replace('.', '/')
+                    + ".class"));
+            zos.write(new ClassReader(CLASSES[i]).b);
+            zos.putNextEntry(new ZipEntry("resource" + i + ".txt"));
+            zos.write(new byte[i * 1000]);
+        }
+        zos.close();
+        jar = bos.toByteArray();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private byte[] transform(final JarTransformer t) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        t.transform(new ByteArrayInputStream(jar), bos);
+        return bos.toByteArray();
+    }
+
+    private static ZipEntry nextEntry(final ZipInputStream zis,
+            final byte[][] b) throws IOException {
+        ZipEntry e = zis.getNextEntry();
+        if (e != null) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int n;
+            while ((n = zis.read(buf)) != -1) {
+                bos.write(buf, 0, n);
+            }
+            b[0] = bos.toByteArray();
+        }
+        return e;
+    }
+
+    public void testTransform() throws IOException {
+        ClassVisitorFactory factory = new ClassVisitorFactory() {
+            public ClassVisitor createClassVisitor(final ClassVisitor cv) {
+                return new ClassVisitor(Opcodes.ASM4, cv) {
+                    @Override
+                    public void visitEnd() {
+                        cv.visitField(Opcodes.ACC_PUBLIC, "added", "I",
+                                null, null);
+                        super.visitEnd();
+                    }
+                };
+            }
+        };
+        JarTransformer t = new JarTransformer(factory, 0,
+                ClassWriter.COMPUTE_MAXS, executor, 2);
+        byte[] out = transform(t);
+        assertEquals(CLASSES.length, t.getClassCount());
+        assertEquals(CLASSES.length + 1, t.getResourceCount());
+        assertTrue(t.getTransformTime() > 0);
+
+        ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(jar));
+        ZipInputStream res = new ZipInputStream(new ByteArrayInputStream(out));
+        byte[][] b1 = new byte[1][];
+        byte[][] b2 = new byte[1][];
+        ZipEntry e1;
+        while ((e1 = nextEntry(in, b1)) != null) {
+            ZipEntry e2 = nextEntry(res, b2);
+            assertEquals(e1.getName(), e2.getName());
+            if (e1.getName().endsWith(".class")) {
+                ClassNode cn = new ClassNode();
+                new ClassReader(b2[0]).accept(cn, 0);
+                ClassNode orig = new ClassNode();
+                new ClassReader(b1[0]).accept(orig, 0);
+                assertEquals(orig.name, cn.name);
+                assertEquals(orig.fields.size() + 1, cn.fields.size());
+            } else {
+                assertTrue(Arrays.equals(b1[0], b2[0]));
+            }
+        }
+        assertNull(res.getNextEntry());
+    }
+
+    public void testSequentialAndParallelResultsAreEqual() throws IOException {
+        ClassVisitorFactory factory = new ClassVisitorFactory() {
+            public ClassVisitor createClassVisitor(final ClassVisitor cv) {
+                return cv;
+            }
+        };
+        byte[] seq = transform(new JarTransformer(factory, null));
+        byte[] par = transform(new JarTransformer(factory, 0, 0, executor, 3));
+        assertTrue(Arrays.equals(seq, par));
+    }
+
+    public void testTransformFailure() throws IOException {
+        ClassVisitorFactory factory = new ClassVisitorFactory() {
+            public ClassVisitor createClassVisitor(final ClassVisitor cv) {
+                throw new IllegalStateException();
+            }
+        };
+        try {
+            transform(new JarTransformer(factory, executor));
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+}
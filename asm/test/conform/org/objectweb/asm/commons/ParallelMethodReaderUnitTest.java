@@ -0,0 +1,243 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.util.TraceClassVisitor;
+
+/**
+ * ParallelMethodReader unit tests.
+ */
+public class ParallelMethodReaderUnitTest extends TestCase {
+
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private static byte[] generateClass(final int methods) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "C", null,
+                "java/lang/Object", null);
+        cw.visitField(Opcodes.ACC_PUBLIC, "f", "I", null, null).visitEnd();
+        for (int i = 0; i < methods; ++i) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "m" + i,
+                    "(I)I", null, null);
+            mv.visitCode();
+            Label l = new Label();
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitJumpInsn(Opcodes.IFEQ, l);
+            mv.visitLdcInsn(new Integer(i));
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitLabel(l);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, "C", "f", "I");
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static String trace(final byte[] b) {
+        StringWriter sw = new StringWriter();
+        new ClassReader(b).accept(new TraceClassVisitor(new PrintWriter(sw)),
+                0);
+        return sw.toString();
+    }
+
+    private static byte[] write(final ParallelMethodReader r, final byte[] b) {
+        ClassWriter cw = new ClassWriter(0);
+        r.accept(b, cw, 0);
+        return cw.toByteArray();
+    }
+
+    public void testAccept() throws Exception {
+        byte[] b = generateClass(1000);
+        byte[] par = write(new ParallelMethodReader(executor, 4, 16), b);
+        assertEquals(trace(b), trace(par));
+
+        b = new ClassReader("org.objectweb.asm.ClassReader").b;
+        par = write(new ParallelMethodReader(executor, 4, 4), b);
+        assertEquals(trace(b), trace(par));
+    }
+
+    public void testSequentialAndParallelResultsAreEqual() {
+        byte[] b = generateClass(1000);
+        byte[] seq = write(new ParallelMethodReader(null, 1), b);
+        byte[] par = write(new ParallelMethodReader(executor, 7, 1), b);
+        assertTrue(Arrays.equals(seq, par));
+    }
+
+    public void testCreateMethodVisitor() {
+        byte[] b = generateClass(100);
+        ParallelMethodReader r = new ParallelMethodReader(executor, 4, 4) {
+            @Override
+            protected MethodVisitor createMethodVisitor(final MethodVisitor mv,
+                    final int access, final String name, final String desc) {
+                if (name.endsWith("0")) {
+                    return null;
+                }
+                return new MethodVisitor(Opcodes.ASM4, mv) {
+                    @Override
+                    public void visitLdcInsn(final Object cst) {
+                        super.visitLdcInsn(new Integer(-1));
+                    }
+                };
+            }
+        };
+        final int[] counts = new int[2];
+        r.accept(b, new ClassVisitor(Opcodes.ASM4) {
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                counts[0]++;
+                assertEquals("m" + (counts[0] + (counts[0] - 1) / 9), name);
+                return new MethodVisitor(Opcodes.ASM4) {
+                    @Override
+                    public void visitLdcInsn(final Object cst) {
+                        assertEquals(new Integer(-1), cst);
+                        counts[1]++;
+                    }
+                };
+            }
+        }, 0);
+        assertEquals(90, counts[0]);
+        assertEquals(90, counts[1]);
+    }
+
+    public void testWrite() throws Exception {
+        byte[] b = generateClass(1000);
+        byte[] par = new ParallelMethodReader(executor, 4, 16).write(b, 0, 0);
+        assertEquals(trace(b), trace(par));
+
+        b = new ClassReader("org.objectweb.asm.ClassReader").b;
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        new ClassReader(b).accept(cw, 0);
+        par = new ParallelMethodReader(executor, 4, 4).write(b, 0,
+                ClassWriter.COMPUTE_FRAMES);
+        assertEquals(trace(cw.toByteArray()), trace(par));
+    }
+
+    public void testWriteSequentialAndParallelResultsAreEqual() {
+        byte[] b = generateClass(1000);
+        byte[] seq = new ParallelMethodReader(null, 1).write(b, 0,
+                ClassWriter.COMPUTE_FRAMES);
+        byte[] par = new ParallelMethodReader(executor, 7, 1).write(b, 0,
+                ClassWriter.COMPUTE_FRAMES);
+        assertTrue(Arrays.equals(seq, par));
+    }
+
+    public void testWriteCreateMethodVisitor() {
+        byte[] b = generateClass(100);
+        ParallelMethodReader r = new ParallelMethodReader(executor, 4, 4) {
+            @Override
+            protected MethodVisitor createMethodVisitor(final MethodVisitor mv,
+                    final int access, final String name, final String desc) {
+                if (name.endsWith("0")) {
+                    return null;
+                }
+                return new MethodVisitor(Opcodes.ASM5, mv) {
+                    @Override
+                    public void visitLdcInsn(final Object cst) {
+                        super.visitLdcInsn(new Integer(-1));
+                    }
+                };
+            }
+        };
+        final int[] counts = new int[2];
+        new ClassReader(r.write(b, 0, ClassWriter.COMPUTE_MAXS)).accept(
+                new ClassVisitor(Opcodes.ASM5) {
+                    @Override
+                    public MethodVisitor visitMethod(final int access,
+                            final String name, final String desc,
+                            final String signature, final String[] exceptions) {
+                        counts[0]++;
+                        assertEquals("m" + (counts[0] + (counts[0] - 1) / 9),
+                                name);
+                        return new MethodVisitor(Opcodes.ASM5) {
+                            @Override
+                            public void visitLdcInsn(final Object cst) {
+                                assertEquals(new Integer(-1), cst);
+                                counts[1]++;
+                            }
+                        };
+                    }
+                }, 0);
+        assertEquals(90, counts[0]);
+        assertEquals(90, counts[1]);
+    }
+
+    public void testAcceptFailure() {
+        byte[] b = generateClass(100);
+        ParallelMethodReader r = new ParallelMethodReader(executor, 4, 4) {
+            @Override
+            protected MethodVisitor createMethodVisitor(final MethodVisitor mv,
+                    final int access, final String name, final String desc) {
+                if (name.equals("m42")) {
+                    throw new IllegalStateException();
+                }
+                return mv;
+            }
+        };
+        try {
+            r.accept(b, new ClassWriter(0), 0);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        try {
+            r.write(b, 0, 0);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+}
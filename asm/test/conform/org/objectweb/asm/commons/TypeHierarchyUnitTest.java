@@ -0,0 +1,111 @@
+/***
+ * ASM tests
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.commons;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+
+/**
+ * TypeHierarchy unit tests.
+ */
+public class TypeHierarchyUnitTest extends TestCase {
+
+    private static String name(final Class<?> c) {
+        return c.getName().replace('.', '/');
+    }
+
+    private void assertCommonSuperClass(final TypeHierarchy h,
+            final Class<?> c1, final Class<?> c2, final Class<?> expected) {
+        assertEquals(name(expected), h.getCommonSuperClass(name(c1), name(c2)));
+        assertEquals(name(expected), h.getCommonSuperClass(name(c2), name(c1)));
+    }
+
+    public void testGetCommonSuperClass() {
+        TypeHierarchy h = new TypeHierarchy();
+        assertCommonSuperClass(h, ClassReader.class, ClassReader.class,
+                ClassReader.class);
+        assertCommonSuperClass(h, ClassReader.class, ClassWriter.class,
+                Object.class);
+        assertCommonSuperClass(h, GeneratorAdapter.class,
+                AnalyzerAdapter.class, MethodVisitor.class);
+        assertCommonSuperClass(h, GeneratorAdapter.class,
+                LocalVariablesSorter.class, LocalVariablesSorter.class);
+        assertCommonSuperClass(h, AdviceAdapter.class, Opcodes.class,
+                Opcodes.class);
+        assertCommonSuperClass(h, Opcodes.class, ClassVisitorFactory.class,
+                Object.class);
+        assertCommonSuperClass(h, ClassWriter.class, Opcodes.class,
+                Object.class);
+        assertCommonSuperClass(h, Analyzer.class, SourceInterpreter.class,
+                Object.class);
+    }
+
+    public void testSubTypes() {
+        TypeHierarchy h = new TypeHierarchy();
+        assertTrue(h.isSubType(name(AdviceAdapter.class), name(Opcodes.class)));
+        assertTrue(h.isSubType(name(AdviceAdapter.class),
+                name(MethodVisitor.class)));
+        assertFalse(h.isSubType(name(MethodVisitor.class),
+                name(AdviceAdapter.class)));
+        assertTrue(h.isInterface(name(Opcodes.class)));
+        assertFalse(h.isInterface(name(ClassWriter.class)));
+        assertEquals(name(ClassVisitor.class),
+                h.getSuperClass(name(ClassWriter.class)));
+    }
+
+    public void testClassNotFound() {
+        try {
+            new TypeHierarchy().getCommonSuperClass("a/B", "c/D");
+            fail();
+        } catch (RuntimeException e) {
+        }
+    }
+
+    public void testComputeFrames() throws IOException {
+        final TypeHierarchy h = new TypeHierarchy();
+        ClassReader cr = new ClassReader(name(GeneratorAdapter.class));
+        ClassWriter cw = new HierarchyClassWriter(ClassWriter.COMPUTE_FRAMES,
+                h);
+        cr.accept(cw, ClassReader.SKIP_FRAMES);
+        ClassWriter ref = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cr.accept(ref, ClassReader.SKIP_FRAMES);
+        assertTrue(Arrays.equals(ref.toByteArray(), cw.toByteArray()));
+    }
+}
@@ -29,11 +29,21 @@
  */
 package org.objectweb.asm.tree;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+
 import junit.framework.TestCase;
 
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.JSRInlinerAdapter;
+import org.objectweb.asm.util.TraceClassVisitor;
 
 /**
  * ClassNode unit tests.
@@ -153,4 +163,106 @@ public class ClassNodeUnitTest extends TestCase implements Opcodes {
         n.accept(n1);
         n.accept(n1);
     }
+
+    private static String trace(final ClassNode cn) {
+        StringWriter sw = new StringWriter();
+        cn.accept(new TraceClassVisitor(new PrintWriter(sw)));
+        return sw.toString();
+    }
+
+    public void testReadLazily() throws Exception {
+        ClassReader cr = new ClassReader("org.objectweb.asm.ClassReader");
+        ClassNode cn = new ClassNode();
+        cr.accept(cn, 0);
+        ClassNode lazy = new ClassNode();
+        lazy.readLazily(cr, 0);
+        assertEquals(cn.methods.size(), lazy.methods.size());
+        // methods whose code has not been read are visited from cr
+        assertEquals(trace(cn), trace(lazy));
+        // or copied as is
+        ClassWriter cw = new ClassWriter(cr, 0);
+        cr.accept(cw, 0);
+        ClassWriter lcw = new ClassWriter(cr, 0);
+        lazy.accept(lcw);
+        assertTrue(Arrays.equals(cw.toByteArray(), lcw.toByteArray()));
+        // the code is read when the instructions are accessed
+        for (int i = 0; i < lazy.methods.size(); ++i) {
+            MethodNode mn = lazy.methods.get(i);
+            MethodNode m = cn.methods.get(i);
+            assertEquals(m.instructions.size(), mn.instructions.size());
+            assertEquals(m.tryCatchBlocks.size(), mn.tryCatchBlocks.size());
+            assertEquals(m.maxStack, mn.maxStack);
+            assertEquals(m.maxLocals, mn.maxLocals);
+        }
+        assertEquals(trace(cn), trace(lazy));
+    }
+
+    public void testReadLazilyTransform() throws Exception {
+        ClassReader cr = new ClassReader("org.objectweb.asm.ClassReader");
+        ClassNode cn = new ClassNode();
+        cn.readLazily(cr, 0);
+        MethodNode accept = null;
+        MethodNode renamed = null;
+        for (int i = 0; i < cn.methods.size(); ++i) {
+            MethodNode mn = cn.methods.get(i);
+            if ("accept".equals(mn.name) && accept == null) {
+                accept = mn;
+            } else if ("getClassName".equals(mn.name)) {
+                renamed = mn;
+            }
+        }
+        accept.instructions.insert(new InsnNode(NOP));
+        renamed.name = "getName";
+        ClassWriter cw = new ClassWriter(cr, 0);
+        cn.accept(cw);
+
+        ClassNode result = new ClassNode();
+        new ClassReader(cw.toByteArray()).accept(result, 0);
+        ClassNode orig = new ClassNode();
+        cr.accept(orig, 0);
+        assertEquals(orig.methods.size(), result.methods.size());
+        for (int i = 0; i < orig.methods.size(); ++i) {
+            MethodNode m = orig.methods.get(i);
+            MethodNode mn = result.methods.get(i);
+            int n = m.instructions.size();
+            if (m.name.equals("getClassName")) {
+                assertEquals("getName", mn.name);
+            } else {
+                assertEquals(m.name, mn.name);
+            }
+            if (i == cn.methods.indexOf(accept)) {
+                assertEquals(n + 1, mn.instructions.size());
+                assertEquals(NOP, mn.instructions.getFirst().getOpcode());
+            } else {
+                assertEquals(n, mn.instructions.size());
+            }
+        }
+    }
+
+    public void testReadLazilyWithMethodVisitors() throws Exception {
+        ClassReader cr = new ClassReader("org.objectweb.asm.ClassReader");
+        ClassNode cn = new ClassNode();
+        cr.accept(cn, 0);
+        final int[] count = new int[1];
+        ClassNode lazy = new ClassNode() {
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                    final String name, final String desc,
+                    final String signature, final String[] exceptions) {
+                MethodVisitor mv = super.visitMethod(access, name, desc,
+                        signature, exceptions);
+                return new JSRInlinerAdapter(mv, access, name, desc,
+                        signature, exceptions) {
+                    @Override
+                    public void visitEnd() {
+                        count[0] += instructions.size() > 0 ? 1 : 0;
+                        super.visitEnd();
+                    }
+                };
+            }
+        };
+        lazy.readLazily(cr, 0);
+        assertTrue(count[0] > 0);
+        assertEquals(trace(cn), trace(lazy));
+    }
 }
@@ -29,8 +29,11 @@
  */
 package org.objectweb.asm.tree;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -678,6 +681,83 @@ public class InsnListUnitTest extends TestCase {
 
         assertNotSame(label, labelNode.getLabel());
     }
+
+    public void testIncrementalIndexes() {
+        Random r = new Random(42);
+        List<AbstractInsnNode> model = new ArrayList<AbstractInsnNode>();
+        for (int i = 0; i < 100; ++i) {
+            InsnNode insn = new InsnNode(0);
+            l1.add(insn);
+            model.add(insn);
+        }
+        assertEquals(model.get(50), l1.get(50));
+        for (int i = 0; i < 5000; ++i) {
+            int n = model.size();
+            int k = n == 0 ? 0 : r.nextInt(n);
+            switch (r.nextInt(n < 50 ? 5 : 7)) {
+            case 0:
+                InsnNode insn = new InsnNode(0);
+                l1.add(insn);
+                model.add(insn);
+                break;
+            case 1:
+                insn = new InsnNode(0);
+                l1.insert(insn);
+                model.add(0, insn);
+                break;
+            case 2:
+                if (n > 0) {
+                    insn = new InsnNode(0);
+                    l1.insert(model.get(k), insn);
+                    model.add(k + 1, insn);
+                }
+                break;
+            case 3:
+                if (n > 0) {
+                    insn = new InsnNode(0);
+                    l1.insertBefore(model.get(k), insn);
+                    model.add(k, insn);
+                }
+                break;
+            case 4:
+                InsnList insns = new InsnList();
+                for (int j = r.nextInt(4); j >= 0; --j) {
+                    insn = new InsnNode(0);
+                    insns.add(insn);
+                    model.add(Math.min(k, n) + insns.size() - 1, insn);
+                }
+                if (n == 0) {
+                    l1.add(insns);
+                } else {
+                    l1.insertBefore(model.get(k + insns.size()), insns);
+                }
+                break;
+            case 5:
+                if (n > 0) {
+                    insn = new InsnNode(0);
+                    l1.set(model.get(k), insn);
+                    model.set(k, insn);
+                }
+                break;
+            default:
+                AbstractInsnNode removed = model.remove(k);
+                l1.remove(removed);
+                assertFalse(l1.contains(removed));
+                break;
+            }
+            assertEquals(model.size(), l1.size());
+            if (model.size() > 0) {
+                k = r.nextInt(model.size());
+                assertSame(model.get(k), l1.get(k));
+                assertEquals(k, l1.indexOf(model.get(k)));
+                assertTrue(l1.contains(model.get(k)));
+            }
+        }
+        assertEquals(model.toArray(new AbstractInsnNode[0]), l1.toArray());
+        for (int i = 0; i < model.size(); ++i) {
+            assertEquals(i, l1.indexOf(model.get(i)));
+        }
+    }
 }
 
 class CheckedInsnList extends InsnList {
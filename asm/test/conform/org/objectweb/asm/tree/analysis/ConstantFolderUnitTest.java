@@ -0,0 +1,347 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.tree.analysis;
+
+import java.lang.reflect.Method;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * ConstantFolder and ConstantAnalyzer unit tests.
+ */
+public class ConstantFolderUnitTest extends TestCase implements Opcodes {
+
+    private MethodNode mn;
+
+    @Override
+    protected void setUp() throws Exception {
+        mn = new MethodNode(ACC_PUBLIC + ACC_STATIC, "m", "(I)I", null, null);
+    }
+
+    private boolean transform() throws Exception {
+        mn.maxStack = 4;
+        mn.maxLocals = 4;
+        return new ConstantFolder().transform("C", mn);
+    }
+
+    private int[] getOpcodes() {
+        int n = 0;
+        for (int i = 0; i < mn.instructions.size(); ++i) {
+            if (mn.instructions.get(i).getOpcode() >= 0) {
+                ++n;
+            }
+        }
+        int[] opcodes = new int[n];
+        n = 0;
+        for (int i = 0; i < mn.instructions.size(); ++i) {
+            int opcode = mn.instructions.get(i).getOpcode();
+            if (opcode >= 0) {
+                opcodes[n++] = opcode;
+            }
+        }
+        return opcodes;
+    }
+
+    private void assertOpcodes(final int... expected) {
+        int[] actual = getOpcodes();
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i], actual[i]);
+        }
+    }
+
+    private Object invoke(final int arg) throws Exception {
+        ClassNode cn = new ClassNode();
+        cn.version = V1_6;
+        cn.access = ACC_PUBLIC;
+        cn.name = "C";
+        cn.superName = "java/lang/Object";
+        cn.methods.add(mn);
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cn.accept(cw);
+        final byte[] b = cw.toByteArray();
+        Class<?> c = new ClassLoader() {
+            @Override
+            protected Class<?> findClass(final String name)
+                    throws ClassNotFoundException {
+                if (name.equals("C")) {
+                    return defineClass(name, b, 0, b.length);
+                }
+                throw new ClassNotFoundException(name);
+            }
+        }.loadClass("C");
+        Method m = c.getMethod("m", int.class);
+        return m.invoke(null, new Integer(arg));
+    }
+
+    public void testFoldArithmetic() throws Exception {
+        mn.visitInsn(ICONST_2);
+        mn.visitInsn(ICONST_3);
+        mn.visitInsn(IMUL);
+        mn.visitIntInsn(BIPUSH, 10);
+        mn.visitInsn(IADD);
+        mn.visitInsn(IRETURN);
+        assertTrue(transform());
+        assertOpcodes(BIPUSH, IRETURN);
+        assertEquals(16, ((IntInsnNode) mn.instructions.getFirst()).operand);
+        assertEquals(new Integer(16), invoke(0));
+    }
+
+    public void testFoldLocals() throws Exception {
+        mn.visitLdcInsn(new Long(3L));
+        mn.visitVarInsn(LSTORE, 1);
+        mn.visitVarInsn(LLOAD, 1);
+        mn.visitVarInsn(ILOAD, 0);
+        mn.visitInsn(LSHL);
+        mn.visitVarInsn(LLOAD, 1);
+        mn.visitInsn(LCONST_1);
+        mn.visitInsn(LADD);
+        mn.visitInsn(LMUL);
+        mn.visitInsn(L2I);
+        mn.visitInsn(IRETURN);
+        assertTrue(transform());
+        assertOpcodes(LDC, LSTORE, LLOAD, ILOAD, LSHL, LDC, LMUL, L2I,
+                IRETURN);
+        assertEquals(new Long(4L), ((LdcInsnNode) mn.instructions.get(5)).cst);
+        assertEquals(new Integer(24), invoke(1));
+    }
+
+    public void testDivisionByZero() throws Exception {
+        mn.visitInsn(ICONST_1);
+        mn.visitInsn(ICONST_0);
+        mn.visitInsn(IDIV);
+        mn.visitInsn(IRETURN);
+        assertFalse(transform());
+        assertOpcodes(ICONST_1, ICONST_0, IDIV, IRETURN);
+    }
+
+    public void testFloatingPoint() throws Exception {
+        mn.visitInsn(FCONST_0);
+        mn.visitInsn(FNEG);
+        mn.visitInsn(FCONST_0);
+        mn.visitInsn(FCONST_0);
+        mn.visitInsn(FDIV);
+        mn.visitInsn(FCMPG);
+        mn.visitInsn(IRETURN);
+        assertTrue(transform());
+        assertOpcodes(ICONST_1, IRETURN);
+
+        setUp();
+        mn.visitInsn(DCONST_0);
+        mn.visitInsn(DNEG);
+        mn.visitInsn(D2F);
+        mn.visitVarInsn(ILOAD, 0);
+        mn.visitInsn(I2F);
+        mn.visitInsn(FADD);
+        mn.visitInsn(F2I);
+        mn.visitInsn(IRETURN);
+        assertTrue(transform());
+        AbstractInsnNode insn = mn.instructions.getFirst();
+        assertEquals(LDC, insn.getOpcode());
+        assertEquals(new Float(-0f), ((LdcInsnNode) insn).cst);
+        assertOpcodes(LDC, ILOAD, I2F, FADD, F2I, IRETURN);
+        assertEquals(new Integer(3), invoke(3));
+    }
+
+    public void testRemoveBranch() throws Exception {
+        Label l = new Label();
+        mn.visitInsn(ICONST_0);
+        mn.visitJumpInsn(IFEQ, l);
+        mn.visitInsn(ICONST_1);
+        mn.visitInsn(IRETURN);
+        mn.visitLabel(l);
+        mn.visitInsn(ICONST_2);
+        mn.visitInsn(IRETURN);
+        assertTrue(transform());
+        assertOpcodes(ICONST_2, IRETURN);
+        assertEquals(new Integer(2), invoke(0));
+    }
+
+    public void testKeepBranch() throws Exception {
+        Label l = new Label();
+        mn.visitVarInsn(ILOAD, 0);
+        mn.visitJumpInsn(IFEQ, l);
+        mn.visitInsn(ICONST_1);
+        mn.visitInsn(IRETURN);
+        mn.visitLabel(l);
+        mn.visitInsn(ICONST_2);
+        mn.visitInsn(IRETURN);
+        assertFalse(transform());
+        assertEquals(new Integer(1), invoke(1));
+        assertEquals(new Integer(2), invoke(0));
+    }
+
+    public void testSparseConditional() throws Exception {
+        // x = 0; for (i = 0; i < n; ++i) { if (x != 0) x = 1; } return x;
+        Label l0 = new Label();
+        Label l1 = new Label();
+        Label l2 = new Label();
+        mn.visitInsn(ICONST_0);
+        mn.visitVarInsn(ISTORE, 1);
+        mn.visitInsn(ICONST_0);
+        mn.visitVarInsn(ISTORE, 2);
+        mn.visitLabel(l0);
+        mn.visitVarInsn(ILOAD, 2);
+        mn.visitVarInsn(ILOAD, 0);
+        mn.visitJumpInsn(IF_ICMPGE, l2);
+        mn.visitVarInsn(ILOAD, 1);
+        mn.visitJumpInsn(IFEQ, l1);
+        mn.visitInsn(ICONST_1);
+        mn.visitVarInsn(ISTORE, 1);
+        mn.visitLabel(l1);
+        mn.visitIincInsn(2, 1);
+        mn.visitJumpInsn(GOTO, l0);
+        mn.visitLabel(l2);
+        mn.visitVarInsn(ILOAD, 1);
+        mn.visitInsn(IRETURN);
+        mn.maxStack = 2;
+        mn.maxLocals = 3;
+
+        Frame<ConstantValue>[] frames = new ConstantAnalyzer().analyze("C",
+                mn);
+        int ret = mn.instructions.size() - 1;
+        assertEquals(new Integer(0), frames[ret].getStack(0).getValue());
+        assertNull(frames[mn.instructions.indexOf(mn.instructions.get(ret)
+                .getPrevious().getPrevious().getPrevious().getPrevious()
+                .getPrevious().getPrevious())]);
+
+        assertTrue(transform());
+        assertOpcodes(ICONST_0, ISTORE, ICONST_0, ISTORE, ILOAD, ILOAD,
+                IF_ICMPGE, IINC, GOTO, ICONST_0, IRETURN);
+        assertEquals(new Integer(0), invoke(5));
+    }
+
+    public void testNullness() throws Exception {
+        Label l = new Label();
+        mn.visitTypeInsn(NEW, "java/lang/Object");
+        mn.visitInsn(DUP);
+        mn.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mn.visitInsn(ACONST_NULL);
+        mn.visitJumpInsn(IF_ACMPEQ, l);
+        mn.visitInsn(ACONST_NULL);
+        mn.visitJumpInsn(IFNONNULL, l);
+        mn.visitLdcInsn("a");
+        mn.visitLdcInsn("a");
+        mn.visitJumpInsn(IF_ACMPNE, l);
+        mn.visitInsn(ICONST_1);
+        mn.visitInsn(IRETURN);
+        mn.visitLabel(l);
+        mn.visitInsn(ICONST_0);
+        mn.visitInsn(IRETURN);
+        assertTrue(transform());
+        assertOpcodes(NEW, DUP, INVOKESPECIAL, POP, ICONST_1, IRETURN);
+        assertEquals(new Integer(1), invoke(0));
+    }
+
+    public void testSwitch() throws Exception {
+        Label l0 = new Label();
+        Label l1 = new Label();
+        Label l2 = new Label();
+        mn.visitInsn(ICONST_1);
+        mn.visitTableSwitchInsn(0, 1, l2, l0, l1);
+        mn.visitLabel(l0);
+        mn.visitInsn(ICONST_0);
+        mn.visitInsn(IRETURN);
+        mn.visitLabel(l1);
+        mn.visitVarInsn(ILOAD, 0);
+        mn.visitLookupSwitchInsn(l2, new int[] { 3 }, new Label[] { l0 });
+        mn.visitLabel(l2);
+        mn.visitInsn(ICONST_2);
+        mn.visitInsn(IRETURN);
+        assertTrue(transform());
+        assertOpcodes(GOTO, ICONST_0, IRETURN, ILOAD, LOOKUPSWITCH, ICONST_2,
+                IRETURN);
+        assertEquals(new Integer(0), invoke(3));
+        assertEquals(new Integer(2), invoke(4));
+    }
+
+    public void testRemoveTryCatchBlock() throws Exception {
+        Label l0 = new Label();
+        Label l1 = new Label();
+        Label l2 = new Label();
+        Label handler = new Label();
+        mn.visitTryCatchBlock(l0, l1, handler, null);
+        mn.visitInsn(ICONST_1);
+        mn.visitJumpInsn(IFNE, l2);
+        mn.visitLabel(l0);
+        mn.visitInsn(ACONST_NULL);
+        mn.visitInsn(ATHROW);
+        mn.visitLabel(l1);
+        mn.visitLabel(l2);
+        mn.visitInsn(ICONST_0);
+        mn.visitInsn(IRETURN);
+        mn.visitLabel(handler);
+        mn.visitInsn(POP);
+        mn.visitInsn(ICONST_1);
+        mn.visitInsn(IRETURN);
+        assertTrue(transform());
+        assertEquals(0, mn.tryCatchBlocks.size());
+        assertOpcodes(ICONST_0, IRETURN);
+        assertEquals(new Integer(0), invoke(0));
+    }
+
+    public void testBlockFrames() throws Exception {
+        Label l = new Label();
+        mn.visitInsn(ICONST_3);
+        mn.visitVarInsn(ISTORE, 1);
+        mn.visitVarInsn(ILOAD, 1);
+        mn.visitJumpInsn(IFNE, l);
+        mn.visitInsn(ICONST_1);
+        mn.visitVarInsn(ISTORE, 1);
+        mn.visitLabel(l);
+        mn.visitVarInsn(ILOAD, 1);
+        mn.visitInsn(IRETURN);
+        mn.maxStack = 1;
+        mn.maxLocals = 2;
+        Analyzer<ConstantValue> a = new Analyzer<ConstantValue>(
+                new ConstantInterpreter(), true) {
+            @Override
+            protected boolean newControlFlowEdge(final int insn,
+                    final int successor, final Frame<ConstantValue> frame) {
+                AbstractInsnNode next = ConstantAnalyzer.getSuccessor(
+                        mn.instructions.get(insn), frame);
+                return next == null
+                        || mn.instructions.indexOf(next) == successor;
+            }
+        };
+        Frame<ConstantValue>[] frames = a.analyze("C", mn);
+        assertNull(frames[4]);
+        assertEquals(new Integer(3), a.getFrame(7).getLocal(1).getValue());
+    }
+}
@@ -0,0 +1,210 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm.tree.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+/**
+ * ParallelAnalyzer unit tests.
+ */
+public class ParallelAnalyzerUnitTest extends TestCase {
+
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private static List<ClassNode> readClasses(final String... names)
+            throws Exception {
+        List<ClassNode> classes = new ArrayList<ClassNode>();
+        for (int i = 0; i < names.length; ++i) {
+            ClassNode cn = new ClassNode();
+            new ClassReader(names[i]).accept(cn, 0);
+            classes.add(cn);
+        }
+        return classes;
+    }
+
+    private static ClassNode generateClass(final MethodNode mn) {
+        ClassNode cn = new ClassNode();
+        cn.version = Opcodes.V1_6;
+        cn.access = Opcodes.ACC_PUBLIC;
+        cn.name = "C";
+        cn.superName = "java/lang/Object";
+        cn.methods.add(mn);
+        return cn;
+    }
+
+    public void testAnalyze() throws Exception {
+        List<ClassNode> classes = readClasses("java.lang.String",
+                "java.util.ArrayList", "java.util.HashMap");
+        final Set<MethodNode> analyzed = Collections
+                .synchronizedSet(new HashSet<MethodNode>());
+        ParallelAnalyzer<BasicValue> pa = new ParallelAnalyzer<BasicValue>(
+                executor, 0, 16) {
+            @Override
+            protected Interpreter<BasicValue> newInterpreter(
+                    final ClassNode cn) {
+                return new BasicVerifier();
+            }
+
+            @Override
+            protected void analyzed(final ClassNode cn, final MethodNode mn,
+                    final Frame<BasicValue>[] frames) {
+                assertEquals(mn.instructions.size(), frames.length);
+                assertNotNull(frames[0]);
+                assertTrue(analyzed.add(mn));
+            }
+
+            @Override
+            protected void failed(final ClassNode cn, final MethodNode mn,
+                    final AnalyzerException e) {
+                fail(cn.name + "." + mn.name + ": " + e.getMessage());
+            }
+        };
+        pa.analyze(classes);
+
+        int n = 0;
+        for (ClassNode cn : classes) {
+            for (MethodNode mn : cn.methods) {
+                if (mn.instructions.size() > 0) {
+                    assertTrue(analyzed.contains(mn));
+                    ++n;
+                }
+            }
+        }
+        assertEquals(n, analyzed.size());
+        assertEquals(n, pa.getMethodCount());
+        assertEquals(0, pa.getFailureCount());
+    }
+
+    public void testFailure() throws Exception {
+        MethodNode mn = new MethodNode(Opcodes.ACC_STATIC, "m", "()I", null,
+                null);
+        mn.instructions.add(new InsnNode(Opcodes.ACONST_NULL));
+        mn.instructions.add(new InsnNode(Opcodes.IRETURN));
+        mn.maxStack = 1;
+        final List<AnalyzerException> failures = new ArrayList<AnalyzerException>();
+        ParallelAnalyzer<BasicValue> pa = new ParallelAnalyzer<BasicValue>(
+                executor, 0) {
+            @Override
+            protected Interpreter<BasicValue> newInterpreter(
+                    final ClassNode cn) {
+                return new BasicVerifier();
+            }
+
+            @Override
+            protected void failed(final ClassNode cn, final MethodNode mn,
+                    final AnalyzerException e) {
+                failures.add(e);
+            }
+        };
+        pa.analyze(generateClass(mn));
+        assertEquals(1, failures.size());
+        assertEquals(0, pa.getMethodCount());
+        assertEquals(1, pa.getFailureCount());
+        assertEquals(0, pa.getTimeoutCount());
+    }
+
+    public void testTimeout() throws Exception {
+        MethodNode mn = new MethodNode(Opcodes.ACC_STATIC, "m", "()V", null,
+                null);
+        for (int i = 0; i < 50000; ++i) {
+            mn.instructions.add(new InsnNode(Opcodes.ACONST_NULL));
+            mn.instructions.add(new VarInsnNode(Opcodes.ASTORE, i % 1000));
+        }
+        mn.instructions.add(new InsnNode(Opcodes.RETURN));
+        mn.maxStack = 1;
+        mn.maxLocals = 1000;
+        final List<AnalyzerException> failures = new ArrayList<AnalyzerException>();
+        ParallelAnalyzer<SourceValue> pa = new ParallelAnalyzer<SourceValue>(
+                executor, 1) {
+            @Override
+            protected Interpreter<SourceValue> newInterpreter(
+                    final ClassNode cn) {
+                return new SourceInterpreter();
+            }
+
+            @Override
+            protected void failed(final ClassNode cn, final MethodNode mn,
+                    final AnalyzerException e) {
+                failures.add(e);
+            }
+        };
+        pa.analyze(generateClass(mn));
+        assertEquals(1, failures.size());
+        assertEquals("Analysis timeout", failures.get(0).getMessage());
+        assertEquals(1, pa.getTimeoutCount());
+    }
+
+    public void testCancel() throws Exception {
+        List<ClassNode> classes = readClasses("java.lang.String",
+                "java.util.ArrayList");
+        ParallelAnalyzer<BasicValue> pa = new ParallelAnalyzer<BasicValue>(
+                null, 0) {
+            @Override
+            protected Interpreter<BasicValue> newInterpreter(
+                    final ClassNode cn) {
+                return new BasicInterpreter();
+            }
+
+            @Override
+            protected void analyzed(final ClassNode cn, final MethodNode mn,
+                    final Frame<BasicValue>[] frames) {
+                cancel();
+            }
+        };
+        pa.analyze(classes);
+        assertTrue(pa.isCancelled());
+        assertEquals(1, pa.getMethodCount());
+    }
+}
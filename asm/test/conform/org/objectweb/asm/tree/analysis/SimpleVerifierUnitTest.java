@@ -426,6 +426,28 @@ public class SimpleVerifierUnitTest extends TestCase implements Opcodes {
         assertValid();
     }
 
+    public void testRetOutsideSubroutine() {
+        mn.visitInsn(ACONST_NULL);
+        mn.visitVarInsn(ASTORE, 0);
+        mn.visitVarInsn(RET, 0);
+        mn.visitInsn(RETURN);
+        mn.visitMaxs(10, 10);
+        assertRetOutsideSubroutine(new Analyzer<BasicValue>(
+                new BasicVerifier()));
+        assertRetOutsideSubroutine(new Analyzer<BasicValue>(
+                new BasicVerifier(), true));
+    }
+
+    private void assertRetOutsideSubroutine(final Analyzer<?> a) {
+        try {
+            a.analyze("C", mn);
+            fail();
+        } catch (AnalyzerException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith(
+                    "RET instruction outside of a sub routine"));
+        }
+    }
+
     public void testClassNotFound() {
         Label l0 = new Label();
         mn.visitVarInsn(ALOAD, 0);
@@ -189,6 +189,13 @@ public abstract class ALLPerfTest {
             }
         });
 
+        runTestAll("get class info", "scanHeader", new RunTest() {
+            @Override
+            public void test(byte[] bytes, int[] errors) {
+                ClassReader.scanHeader(bytes, 0, bytes.length, true);
+            }
+        });
+
         runTestAll("deserialize", "", new RunTest() {
             @Override
             public void test(byte[] bytes, int[] errors) {
@@ -196,6 +203,29 @@ public abstract class ALLPerfTest {
             }
         });
 
+        runTestAll("deserialize", "UTF8Cache", new RunTest() {
+            UTF8Cache cache;
+
+            @Override
+            public void init() {
+                cache = new UTF8Cache();
+            }
+
+            @Override
+            public void test(byte[] bytes, int[] errors) {
+                new ClassReader(bytes, 0, bytes.length, cache).accept(
+                        new EmptyVisitor(), 0);
+            }
+        });
+
+        runTestAll("deserialize", "REUSE_LABELS", new RunTest() {
+            @Override
+            public void test(byte[] bytes, int[] errors) {
+                new ClassReader(bytes).accept(new EmptyVisitor(),
+                        ClassReader.REUSE_LABELS);
+            }
+        });
+
         runTest("deserialize", "tree package", new RunTest() {
             @Override
             public void test(byte[] bytes, int[] errors) {
@@ -0,0 +1,230 @@
+/***
+ * ASM performance test: measures the performances of asm package
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+/**
+ * Allocation and throughput tests for the asm package. Each test is run
+ * several times over the same set of classes, and the time and the number of
+ * bytes allocated by the current thread are reported for each run (the
+ * allocated bytes are only available on JVMs whose ThreadMXBean supports
+ * getThreadAllocatedBytes).
+ */
+public class AllocPerfTest {
+
+    static List<byte[]> classes = new ArrayList<byte[]>();
+
+    static int repeats;
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out
+                    .println("java AllocPerfTest <jar-file> <number-of-runs>");
+            System.exit(1);
+        }
+        JarInputStream jar = new JarInputStream(new FileInputStream(args[0]));
+        JarEntry entry = jar.getNextJarEntry();
+        while (entry != null) {
+            if (entry.getName().endsWith(".class")) {
+                classes.add(new ClassReader(jar).b);
+            }
+            entry = jar.getNextJarEntry();
+        }
+        jar.close();
+        repeats = Integer.parseInt(args[1]);
+        System.out.println("Found " + classes.size() + " classes.");
+
+        runTest("deserialize", "", new AllocTest() {
+            @Override
+            public void test(byte[] bytes) {
+                new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM4) {
+                }, 0);
+            }
+        });
+
+        runTest("deserialize", "UTF8Cache", new AllocTest() {
+            UTF8Cache cache;
+
+            @Override
+            public void init() {
+                cache = new UTF8Cache();
+            }
+
+            @Override
+            public void test(byte[] bytes) {
+                new ClassReader(bytes, 0, bytes.length, cache).accept(
+                        new ClassVisitor(Opcodes.ASM4) {
+                        }, 0);
+            }
+        });
+
+        runTest("deserialize", "REUSE_LABELS", new AllocTest() {
+            @Override
+            public void test(byte[] bytes) {
+                new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM4) {
+                }, ClassReader.REUSE_LABELS);
+            }
+        });
+
+        runTest("deserialize and reserialize", "", new AllocTest() {
+            @Override
+            public void test(byte[] bytes) {
+                ClassWriter cw = new ClassWriter(0);
+                new ClassReader(bytes).accept(cw, 0);
+                cw.toByteArray();
+            }
+        });
+
+        runTest("deserialize and reserialize", "UTF8Cache", new AllocTest() {
+            UTF8Cache cache;
+
+            @Override
+            public void init() {
+                cache = new UTF8Cache();
+            }
+
+            @Override
+            public void test(byte[] bytes) {
+                ClassWriter cw = new ClassWriter(0);
+                new ClassReader(bytes, 0, bytes.length, cache).accept(cw, 0);
+                cw.toByteArray();
+            }
+        });
+        runTest("deserialize and reserialize", "reused ClassWriter",
+                new AllocTest() {
+                    ClassWriter cw;
+
+                    @Override
+                    public void init() {
+                        cw = new ClassWriter(0);
+                    }
+
+                    @Override
+                    public void test(byte[] bytes) {
+                        cw.reset();
+                        new ClassReader(bytes).accept(cw, 0);
+                        cw.toByteArray();
+                    }
+                });
+
+        runTest("deserialize and reserialize", "copyPool", new AllocTest() {
+            @Override
+            public void test(byte[] bytes) {
+                ClassReader cr = new ClassReader(bytes);
+                ClassWriter cw = new ClassWriter(cr, 0);
+                cr.accept(cw, 0);
+                cw.toByteArray();
+            }
+        });
+
+        runTest("deserialize and reserialize", "copyPool and reused "
+                + "ClassWriter", new AllocTest() {
+            ClassWriter cw;
+
+            @Override
+            public void init() {
+                cw = new ClassWriter(0);
+            }
+
+            @Override
+            public void test(byte[] bytes) {
+                ClassReader cr = new ClassReader(bytes);
+                cw.reset(cr);
+                cr.accept(cw, 0);
+                cw.toByteArray();
+            }
+        });
+    }
+
+    static abstract class AllocTest {
+
+        public void init() {
+        }
+
+        public abstract void test(byte[] bytes) throws Exception;
+    }
+
+    static void runTest(final String testName, String with,
+            final AllocTest allocTest) {
+        if (with.length() > 0) {
+            with = " with " + with;
+        }
+        System.out.println("\nStarting " + testName + with + " test.");
+        allocTest.init();
+        for (int i = 0; i < repeats; ++i) {
+            int errors = 0;
+            long bytes = getAllocatedBytes();
+            long t = System.currentTimeMillis();
+            for (int j = 0; j < classes.size(); ++j) {
+                try {
+                    allocTest.test(classes.get(j));
+                } catch (Exception e) {
+                    errors++;
+                }
+            }
+            t = System.currentTimeMillis() - t;
+            bytes = bytes == -1 ? -1 : getAllocatedBytes() - bytes;
+            System.out.println("- to " + testName + ' ' + classes.size()
+                    + " classes" + with + " = " + t + " ms, "
+                    + (bytes == -1 ? "?" : Long.toString(bytes / 1024))
+                    + " KB allocated"
+                    + (errors > 0 ? " (" + errors + " errors)" : "") + '.');
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread.
+     * 
+     * @return the number of bytes allocated so far by the current thread, or
+     *         -1 if this information is not available.
+     */
+    static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        try {
+            Method m = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes",
+                            new Class[] { long.class });
+            Object bytes = m.invoke(bean, new Object[] { new Long(Thread
+                    .currentThread().getId()) });
+            return ((Long) bytes).longValue();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/***
+ * ASM performance test: measures the performances of asm package
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Performance tests for the computation of the maximum stack size and of the
+ * stack map frames in {@link ClassWriter}. The tests use the classes of a jar
+ * file which contain the largest methods, i.e. the methods with the largest
+ * number of instructions. Each test is run several times over the same set of
+ * classes, and the time and the number of bytes allocated by the current
+ * thread are reported for each run. The number of iterations and of frame
+ * merges done by the fix point algorithm of {@link ClassWriter#COMPUTE_FRAMES}
+ * are also reported.
+ */
+public class ComputeFramesPerfTest {
+
+    static List<byte[]> classes = new ArrayList<byte[]>();
+
+    static int repeats;
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("java ComputeFramesPerfTest <jar-file> "
+                    + "<number-of-classes> <number-of-runs>");
+            System.exit(1);
+        }
+        final List<byte[]> all = new ArrayList<byte[]>();
+        final List<Integer> sizes = new ArrayList<Integer>();
+        JarInputStream jar = new JarInputStream(new FileInputStream(args[0]));
+        JarEntry entry = jar.getNextJarEntry();
+        while (entry != null) {
+            if (entry.getName().endsWith(".class")) {
+                ClassReader cr = new ClassReader(jar);
+                byte[] b = cr.b;
+                try {
+                    // only keeps the classes whose frames can be computed
+                    ClassWriter cw = new ClassWriter(
+                            ClassWriter.COMPUTE_FRAMES);
+                    cr.accept(cw, ClassReader.SKIP_FRAMES);
+                    cw.toByteArray();
+                } catch (Throwable t) {
+                    b = null;
+                }
+                if (b != null) {
+                    ClassNode cn = new ClassNode();
+                    cr.accept(cn, ClassReader.SKIP_DEBUG);
+                    int size = 0;
+                    for (int i = 0; i < cn.methods.size(); ++i) {
+                        MethodNode mn = cn.methods.get(i);
+                        size = Math.max(size, mn.instructions.size());
+                    }
+                    all.add(b);
+                    sizes.add(new Integer(size));
+                }
+            }
+            entry = jar.getNextJarEntry();
+        }
+        jar.close();
+        List<Integer> indexes = new ArrayList<Integer>();
+        for (int i = 0; i < all.size(); ++i) {
+            indexes.add(new Integer(i));
+        }
+        Collections.sort(indexes, new Comparator<Integer>() {
+            public int compare(final Integer i, final Integer j) {
+                return sizes.get(j.intValue()).compareTo(
+                        sizes.get(i.intValue()));
+            }
+        });
+        int n = Math.min(Integer.parseInt(args[1]), indexes.size());
+        for (int i = 0; i < n; ++i) {
+            classes.add(all.get(indexes.get(i).intValue()));
+        }
+        repeats = Integer.parseInt(args[2]);
+        System.out.println("Selected " + classes.size() + " classes, with "
+                + "methods of " + sizes.get(indexes.get(n - 1).intValue())
+                + " to " + sizes.get(indexes.get(0).intValue())
+                + " instructions.");
+        printFixPointCounters();
+
+        runTest("COMPUTE_MAXS", ClassWriter.COMPUTE_MAXS);
+        runTest("COMPUTE_FRAMES", ClassWriter.COMPUTE_FRAMES);
+    }
+
+    static void printFixPointCounters() {
+        int methods = 0;
+        long iterations = 0;
+        long merges = 0;
+        int maxMerges = 0;
+        for (int i = 0; i < classes.size(); ++i) {
+            ClassReader cr = new ClassReader(classes.get(i));
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+            cr.accept(cw, ClassReader.SKIP_FRAMES);
+            MethodWriter mw = cw.firstMethod;
+            while (mw != null) {
+                methods += 1;
+                iterations += mw.iterations;
+                merges += mw.merges;
+                maxMerges = Math.max(maxMerges, mw.merges);
+                mw = (MethodWriter) mw.mv;
+            }
+        }
+        System.out.println("COMPUTE_FRAMES fix point: " + iterations
+                + " iterations and " + merges + " merges for " + methods
+                + " methods, at most " + maxMerges + " merges per method.");
+    }
+
+    static void runTest(final String with, final int flags) {
+        System.out.println("\nStarting deserialize and reserialize with "
+                + with + " test.");
+        for (int i = 0; i < repeats; ++i) {
+            long bytes = AllocPerfTest.getAllocatedBytes();
+            long t = System.currentTimeMillis();
+            for (int j = 0; j < classes.size(); ++j) {
+                ClassReader cr = new ClassReader(classes.get(j));
+                ClassWriter cw = new ClassWriter(flags);
+                cr.accept(cw, ClassReader.SKIP_FRAMES);
+                cw.toByteArray();
+            }
+            t = System.currentTimeMillis() - t;
+            bytes = bytes == -1 ? -1 : AllocPerfTest.getAllocatedBytes()
+                    - bytes;
+            System.out.println("- to deserialize and reserialize "
+                    + classes.size() + " classes with " + with + " = " + t
+                    + " ms, "
+                    + (bytes == -1 ? "?" : Long.toString(bytes / 1024))
+                    + " KB allocated.");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/***
+ * ASM performance test: measures the performances of asm package
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.util.Random;
+
+/**
+ * Performance tests for the constant pool hash table of {@link ClassWriter},
+ * with classes containing many constants. Each test is first run several times
+ * to warm up the JIT, and then measured over the same number of iterations,
+ * whose average time per operation is reported.
+ */
+public class ConstantPoolPerfTest {
+
+    static int iterations;
+
+    public static void main(final String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        iterations = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final String[] names = new String[n];
+        Random random = new Random(0);
+        for (int i = 0; i < n; ++i) {
+            names[i] = "pkg/C" + Integer.toString(random.nextInt() >>> 1, 36);
+        }
+        System.out.println("Classes with " + n + " constants of each kind.");
+
+        final byte[][] bytes = new byte[1][];
+        runTest("intern new constants", new PerfTest() {
+            @Override
+            public void test() {
+                ClassWriter cw = new ClassWriter(0);
+                intern(cw, names);
+                bytes[0] = cw.toByteArray();
+            }
+        });
+
+        runTest("intern existing constants", new PerfTest() {
+            ClassWriter cw;
+
+            @Override
+            public void init() {
+                cw = new ClassWriter(0);
+                intern(cw, names);
+            }
+
+            @Override
+            public void test() {
+                intern(cw, names);
+            }
+        });
+
+        runTest("copy constant pool", new PerfTest() {
+            @Override
+            public void test() {
+                ClassReader cr = new ClassReader(bytes[0]);
+                ClassWriter cw = new ClassWriter(cr, 0);
+                cr.accept(cw, 0);
+                cw.toByteArray();
+            }
+        });
+    }
+
+    static void intern(final ClassWriter cw, final String[] names) {
+        cw.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, "pkg/Constants", null,
+                "java/lang/Object", null);
+        for (int i = 0; i < names.length; ++i) {
+            String name = names[i];
+            cw.newClass(name);
+            cw.newField(name, "f", "I");
+            cw.newMethod(name, "m", "()V", false);
+            cw.newConst(name);
+            cw.newConst(new Integer(i));
+            cw.newConst(new Long(i));
+        }
+        cw.visitEnd();
+    }
+
+    static abstract class PerfTest {
+
+        public void init() {
+        }
+
+        public abstract void test();
+    }
+
+    static void runTest(final String testName, final PerfTest perfTest) {
+        perfTest.init();
+        for (int i = 0; i < iterations; ++i) {
+            perfTest.test();
+        }
+        long t = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            perfTest.test();
+        }
+        t = System.nanoTime() - t;
+        System.out.println("- " + testName + " = " + t / iterations / 1000
+                + " us/op");
+    }
+}
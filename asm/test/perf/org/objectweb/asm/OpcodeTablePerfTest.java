@@ -0,0 +1,123 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.BasicInterpreter;
+import org.objectweb.asm.tree.analysis.BasicValue;
+
+/**
+ * Performance tests for the code using the {@link OpcodeTable}. The tests
+ * rewrite the classes of a jar file with the {@link ClassWriter#COMPUTE_MAXS}
+ * option, and analyze them with a {@link BasicInterpreter}. The classes are
+ * parsed once before each analyze test, so that only the {@link Analyzer}
+ * itself is measured. Each test is run several times, and the time of each
+ * run is reported.
+ */
+public class OpcodeTablePerfTest {
+
+    static List<byte[]> classes = new ArrayList<byte[]>();
+
+    static int repeats;
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("java OpcodeTablePerfTest <jar-file> "
+                    + "<number-of-runs>");
+            System.exit(1);
+        }
+        JarInputStream jar = new JarInputStream(new FileInputStream(args[0]));
+        JarEntry entry = jar.getNextJarEntry();
+        while (entry != null) {
+            if (entry.getName().endsWith(".class")) {
+                ClassReader cr = new ClassReader(jar);
+                try {
+                    // only keeps the classes that can be written back
+                    cr.accept(new ClassWriter(0), 0);
+                    classes.add(cr.b);
+                } catch (Throwable t) {
+                }
+            }
+            entry = jar.getNextJarEntry();
+        }
+        jar.close();
+        repeats = Integer.parseInt(args[1]);
+
+        System.out.println("\nStarting compute maxs test.");
+        for (int i = 0; i < repeats; ++i) {
+            long t = System.currentTimeMillis();
+            for (int j = 0; j < classes.size(); ++j) {
+                ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+                new ClassReader(classes.get(j)).accept(cw,
+                        ClassReader.SKIP_FRAMES);
+                cw.toByteArray();
+            }
+            t = System.currentTimeMillis() - t;
+            System.out.println("- to write " + classes.size()
+                    + " classes with COMPUTE_MAXS = " + t + " ms.");
+        }
+
+        List<ClassNode> nodes = new ArrayList<ClassNode>();
+        for (int i = 0; i < classes.size(); ++i) {
+            ClassNode cn = new ClassNode();
+            new ClassReader(classes.get(i)).accept(cn, ClassReader.SKIP_DEBUG);
+            nodes.add(cn);
+        }
+        System.out.println("\nStarting analyze test.");
+        for (int i = 0; i < repeats; ++i) {
+            long t = System.currentTimeMillis();
+            analyze(nodes);
+            t = System.currentTimeMillis() - t;
+            System.out.println("- to analyze " + classes.size()
+                    + " classes with a BasicInterpreter = " + t + " ms.");
+        }
+    }
+
+    static void analyze(final List<ClassNode> nodes) throws AnalyzerException {
+        Analyzer<BasicValue> a = new Analyzer<BasicValue>(
+                new BasicInterpreter());
+        for (int i = 0; i < nodes.size(); ++i) {
+            ClassNode cn = nodes.get(i);
+            for (int j = 0; j < cn.methods.size(); ++j) {
+                MethodNode mn = cn.methods.get(j);
+                a.analyze(cn.name, mn);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.objectweb.asm.commons.ParallelMethodReader;
+
+/**
+ * Performance tests for the {@link ParallelMethodReader}. The tests read and
+ * write a generated class with many dispatch methods, with
+ * {@link ClassReader#accept(ClassVisitor, int) ClassReader.accept} and a
+ * {@link ClassWriter}, and with {@link ParallelMethodReader#write write}, with
+ * each set of {@link ClassWriter} flags. The merge done by
+ * {@link ParallelMethodReader#write write} in the calling thread is also
+ * measured alone, by reading and writing the result without computing
+ * anything. Each test is run several times, and the best time is reported.
+ */
+public class ParallelMethodReaderPerfTest {
+
+    static int repeats;
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("java ParallelMethodReaderPerfTest "
+                    + "<number-of-methods> <number-of-threads> "
+                    + "<number-of-runs>");
+            System.exit(1);
+        }
+        int methods = Integer.parseInt(args[0]);
+        int threads = Integer.parseInt(args[1]);
+        repeats = Integer.parseInt(args[2]);
+        final byte[] b = generateClass(methods);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final ParallelMethodReader reader = new ParallelMethodReader(executor,
+                threads);
+        System.out.println("Class with " + methods + " methods, " + b.length
+                + " bytes, " + threads + " threads.");
+        String[] names = { "0", "COMPUTE_MAXS", "COMPUTE_FRAMES" };
+        int[] flags = { 0, ClassWriter.COMPUTE_MAXS,
+                ClassWriter.COMPUTE_FRAMES };
+        try {
+            for (int i = 0; i < flags.length; ++i) {
+                final int writerFlags = flags[i];
+                final byte[][] result = new byte[1][];
+                System.out.println("\nWriter flags " + names[i] + ":");
+                runTest("ClassReader.accept", new Runnable() {
+                    public void run() {
+                        ClassWriter cw = new ClassWriter(writerFlags);
+                        new ClassReader(b).accept(cw, 0);
+                        cw.toByteArray();
+                    }
+                });
+                runTest("ParallelMethodReader.write", new Runnable() {
+                    public void run() {
+                        result[0] = reader.write(b, 0, writerFlags);
+                    }
+                });
+                runTest("merge only", new Runnable() {
+                    public void run() {
+                        ClassWriter cw = new ClassWriter(0);
+                        new ClassReader(result[0]).accept(cw, 0);
+                        cw.toByteArray();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static void runTest(final String name, final Runnable test) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < repeats; ++i) {
+            long t = System.nanoTime();
+            test.run();
+            best = Math.min(best, System.nanoTime() - t);
+        }
+        System.out.println("- " + name + " = " + best / 1000000 + " ms");
+    }
+
+    static byte[] generateClass(final int methods) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "Dispatch", null,
+                "java/lang/Object", null);
+        for (int i = 0; i < methods; ++i) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC
+                    | Opcodes.ACC_STATIC, "dispatch" + i,
+                    "(ILjava/lang/Object;)Ljava/lang/Object;", null, null);
+            mv.visitCode();
+            Label dflt = new Label();
+            Label[] labels = new Label[8];
+            for (int j = 0; j < labels.length; ++j) {
+                labels[j] = new Label();
+            }
+            mv.visitVarInsn(Opcodes.ILOAD, 0);
+            mv.visitTableSwitchInsn(0, labels.length - 1, dflt, labels);
+            for (int j = 0; j < labels.length; ++j) {
+                mv.visitLabel(labels[j]);
+                mv.visitVarInsn(Opcodes.ALOAD, 1);
+                mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/String");
+                mv.visitLdcInsn("case" + j);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String",
+                        "concat", "(Ljava/lang/String;)Ljava/lang/String;");
+                mv.visitInsn(Opcodes.ARETURN);
+            }
+            mv.visitLabel(dflt);
+            mv.visitVarInsn(Opcodes.ILOAD, 0);
+            mv.visitInsn(Opcodes.ICONST_1);
+            mv.visitInsn(Opcodes.ISUB);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, "Dispatch", "dispatch"
+                    + (i + 1) % methods,
+                    "(ILjava/lang/Object;)Ljava/lang/Object;");
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
@@ -0,0 +1,155 @@
+/***
+ * ASM: a very small and fast Java bytecode manipulation framework
+ * Copyright (c) 2000-2011 INRIA, France Telecom
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holders nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.objectweb.asm;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+import org.objectweb.asm.commons.AnalyzerAdapter;
+import org.objectweb.asm.commons.LocalVariablesSorter;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.SourceValue;
+
+/**
+ * Performance tests for the {@link TypeCache}. The tests transform the classes
+ * of a jar file with the {@link AnalyzerAdapter} and
+ * {@link LocalVariablesSorter} adapters, and analyze them with a
+ * {@link SourceInterpreter}, with and without a type cache. Each test is run
+ * several times, alternately with and without the cache, and the time and the
+ * number of bytes allocated by the current thread are reported for each run.
+ */
+public class TypeCachePerfTest {
+
+    static List<byte[]> classes = new ArrayList<byte[]>();
+
+    static int repeats;
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("java TypeCachePerfTest <jar-file> "
+                    + "<number-of-runs>");
+            System.exit(1);
+        }
+        JarInputStream jar = new JarInputStream(new FileInputStream(args[0]));
+        JarEntry entry = jar.getNextJarEntry();
+        while (entry != null) {
+            if (entry.getName().endsWith(".class")) {
+                ClassReader cr = new ClassReader(jar);
+                try {
+                    // only keeps the classes that can be written back
+                    cr.accept(new ClassWriter(0), 0);
+                    classes.add(cr.b);
+                } catch (Throwable t) {
+                }
+            }
+            entry = jar.getNextJarEntry();
+        }
+        jar.close();
+        repeats = Integer.parseInt(args[1]);
+
+        TypeCache cache = new TypeCache();
+        System.out.println("\nStarting adapt test.");
+        for (int i = 0; i < repeats; ++i) {
+            runTest("adapt", null);
+            runTest("adapt", cache);
+        }
+        System.out.println("\nStarting analyze test.");
+        for (int i = 0; i < repeats; ++i) {
+            runTest("analyze", null);
+            runTest("analyze", cache);
+        }
+    }
+
+    static void runTest(final String test, final TypeCache cache)
+            throws AnalyzerException {
+        long bytes = AllocPerfTest.getAllocatedBytes();
+        long t = test.equals("adapt") ? adapt(cache) : analyze(cache);
+        bytes = bytes == -1 ? -1 : AllocPerfTest.getAllocatedBytes() - bytes;
+        System.out.println("- to " + test + " " + classes.size()
+                + " classes " + (cache != null ? "with" : "without")
+                + " type cache = " + t + " ms, "
+                + (bytes == -1 ? "?" : Long.toString(bytes / 1024))
+                + " KB allocated.");
+    }
+
+    static long adapt(final TypeCache cache) {
+        long t = System.currentTimeMillis();
+        for (int i = 0; i < classes.size(); ++i) {
+            ClassReader cr = new ClassReader(classes.get(i));
+            ClassWriter cw = new ClassWriter(0);
+            cr.accept(new ClassVisitor(Opcodes.ASM5, cw) {
+                String owner;
+
+                @Override
+                public void visit(final int version, final int access,
+                        final String name, final String signature,
+                        final String superName, final String[] interfaces) {
+                    super.visit(version, access, name, signature, superName,
+                            interfaces);
+                    owner = name;
+                }
+
+                @Override
+                public MethodVisitor visitMethod(final int access,
+                        final String name, final String desc,
+                        final String signature, final String[] exceptions) {
+                    MethodVisitor mv = super.visitMethod(access, name, desc,
+                            signature, exceptions);
+                    mv = new LocalVariablesSorter(access, desc, mv, cache);
+                    return new AnalyzerAdapter(owner, access, name, desc, mv,
+                            cache);
+                }
+            }, ClassReader.EXPAND_FRAMES);
+            cw.toByteArray();
+        }
+        return System.currentTimeMillis() - t;
+    }
+
+    static long analyze(final TypeCache cache) throws AnalyzerException {
+        long t = System.currentTimeMillis();
+        for (int i = 0; i < classes.size(); ++i) {
+            ClassNode cn = new ClassNode();
+            new ClassReader(classes.get(i)).accept(cn, ClassReader.SKIP_DEBUG);
+            for (int j = 0; j < cn.methods.size(); ++j) {
+                MethodNode mn = cn.methods.get(j);
+                new Analyzer<SourceValue>(new SourceInterpreter(cache)).analyze(
+                        cn.name, mn);
+            }
+        }
+        return System.currentTimeMillis() - t;
+    }
+}